@@ -0,0 +1,104 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * An access of a satellite to a region of interest: the interval during which some point of the
+ * region sees the satellite above the minimum elevation.
+ * <p>
+ * Accesses already in progress at the start of a window, or still in progress at its end, are
+ * truncated to the window.
+ *
+ * @author Zach Wilson
+ */
+public final class Access {
+
+    private final TLE tle;
+    private final Region region;
+    private final double startMillisecond;
+    private final double endMillisecond;
+
+    /**
+     * Constructs a new <code>Access</code>.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param region the region of interest, not <code>null</code>
+     * @param startMillisecond the start of the access in fractional milliseconds since January 1,
+     * 1970 00:00:00 UTC
+     * @param endMillisecond the end of the access
+     * @throws IllegalArgumentException if <code>tle</code> or <code>region</code> are
+     * <code>null</code>, or the access ends before it starts
+     */
+    public Access(TLE tle, Region region, double startMillisecond, double endMillisecond) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (region == null) {
+            throw new IllegalArgumentException("Region cannot be null");
+        }
+        if (!(startMillisecond <= endMillisecond)) {
+            throw new IllegalArgumentException(String.format(
+                    "Access ends before it starts: start=%s, end=%s", startMillisecond,
+                    endMillisecond));
+        }
+        this.tle = tle;
+        this.region = region;
+        this.startMillisecond = startMillisecond;
+        this.endMillisecond = endMillisecond;
+    }
+
+    /**
+     * Returns the satellite.
+     *
+     * @return the TLE
+     */
+    public TLE getTLE() {
+        return tle;
+    }
+
+    /**
+     * Returns the region of interest.
+     *
+     * @return the region
+     */
+    public Region getRegion() {
+        return region;
+    }
+
+    /**
+     * Returns the start of the access, rounded to the nearest millisecond.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getStartMillisecond() {
+        return Math.round(startMillisecond);
+    }
+
+    /**
+     * Returns the end of the access, rounded to the nearest millisecond.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getEndMillisecond() {
+        return Math.round(endMillisecond);
+    }
+
+    /**
+     * Returns the duration of the access.
+     *
+     * @return the duration in milliseconds
+     */
+    public double getDurationMillisecond() {
+        return endMillisecond - startMillisecond;
+    }
+
+    /**
+     * Returns a string describing the satellite, region and times.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("Access[%d, %s, start=%d, end=%d]", tle.getSatelliteNumber(),
+                             region.getName(), getStartMillisecond(), getEndMillisecond());
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A blocked Bloom filter over 64-bit values: each value sets seven bits within one block of 512
+ * bits, the size of a cache line, so a test costs one memory access however large the filter is.
+ * <p>
+ * With about ten bits per value, a value never added tests positive about 1% of the time; a
+ * value added always tests positive.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+final class BloomFilter {
+
+    /**
+     * Number of bits set per value.
+     */
+    private static final int HASHES = 7;
+
+    /**
+     * Number of <code>long</code> words in a block.
+     */
+    private static final int BLOCK_WORDS = 8;
+
+    /**
+     * Number of bits of a filter per value it is sized for.
+     */
+    static final int BITS_PER_VALUE = 10;
+
+    private final long[] words;
+    private final int blocks;
+
+    /**
+     * Constructs a new, empty <code>BloomFilter</code> sized for a number of values.
+     *
+     * @param expectedSize the number of values, at least 1
+     */
+    BloomFilter(int expectedSize) {
+        long bits = (long) Math.max(1, expectedSize) * BITS_PER_VALUE;
+        this.blocks = (int) Math.min((bits + 511) / 512, Integer.MAX_VALUE / BLOCK_WORDS);
+        this.words = new long[blocks * BLOCK_WORDS];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     */
+    void add(long value) {
+        long h = TLEFingerprint.mix(value);
+        int base = block(h);
+        long bits = TLEFingerprint.mix(h + 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (bits >>> (9 * i)) & 511;
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Tests whether a value may have been added.
+     *
+     * @param value the value
+     * @return <code>false</code> if it was certainly not added
+     */
+    boolean mightContain(long value) {
+        long h = TLEFingerprint.mix(value);
+        int base = block(h);
+        long bits = TLEFingerprint.mix(h + 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (bits >>> (9 * i)) & 511;
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes every value.
+     */
+    void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Returns the size of the filter.
+     *
+     * @return the number of bytes
+     */
+    long sizeInBytes() {
+        return 8L * words.length;
+    }
+
+    /**
+     * Chooses the block of a hash from its high bits, by multiplying into the range of blocks.
+     *
+     * @param h the hash
+     * @return the index of the first word of the block
+     */
+    private int block(long h) {
+        return (int) (((h >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+    }
+
+}
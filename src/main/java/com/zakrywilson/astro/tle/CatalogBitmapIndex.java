@@ -0,0 +1,349 @@
+package com.zakrywilson.astro.tle;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmap indexes of the satellite numbers of a catalog by classification, ephemeris type, launch
+ * year, orbital regime and epoch day, so that filters such as "unclassified LEO objects launched
+ * in 2019 with an epoch less than three days old" combine a few {@link RoaringBitmap}s with
+ * {@link RoaringBitmap#and(RoaringBitmap, RoaringBitmap)} instead of scanning the catalog.
+ * <p>
+ * Each value of an attribute has the bitmap of the satellites with that value; the complement of
+ * a result is its {@link RoaringBitmap#andNot(RoaringBitmap, RoaringBitmap)} difference from
+ * {@link #getAll()}. The launch year is read from the first two digits of the international
+ * designator (57 to 99 for 1957 to 1999, 00 to 56 for 2000 to 2056), and a satellite without one
+ * is in no launch year bitmap. Epochs are indexed by UTC day, so that the satellites with a
+ * recent epoch are the union of the bitmaps of a few days.
+ * <p>
+ * The indexes are updated incrementally by {@link #put(TLE)}, {@link #remove(int)} and {@link
+ * #apply(CatalogChange)}; the latter follows a {@link CatalogChangeFeed}, whose deliveries to one
+ * subscriber never run concurrently. Every getter returns a new bitmap, which neither changes
+ * with the index nor changes it when modified. This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class CatalogBitmapIndex {
+
+    /**
+     * Milliseconds in a day.
+     */
+    private static final long DAY = 86400000L;
+
+    private final SatelliteCatalog indexed = new SatelliteCatalog();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<Character, RoaringBitmap> classifications = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> ephemerisTypes = new HashMap<>();
+    private final TreeMap<Integer, RoaringBitmap> launchYears = new TreeMap<>();
+    private final Map<OrbitalRegime, RoaringBitmap> regimes = new EnumMap<>(OrbitalRegime.class);
+    private final TreeMap<Long, RoaringBitmap> epochDays = new TreeMap<>();
+
+    /**
+     * Constructs a new, empty <code>CatalogBitmapIndex</code>.
+     */
+    public CatalogBitmapIndex() {}
+
+    /**
+     * Constructs a new <code>CatalogBitmapIndex</code> of the TLEs of a catalog.
+     *
+     * @param catalog the catalog, not <code>null</code>
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code>
+     */
+    public CatalogBitmapIndex(SatelliteCatalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        catalog.forEach((number, tle) -> put(tle));
+    }
+
+    /**
+     * Constructs a new <code>CatalogBitmapIndex</code> of TLEs, the last TLE of each satellite
+     * replacing the earlier ones.
+     *
+     * @param tles the TLEs, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tles</code> is <code>null</code> or contains a
+     * <code>null</code> TLE or one with a satellite number below 1
+     */
+    public CatalogBitmapIndex(Collection<TLE> tles) {
+        if (tles == null) {
+            throw new IllegalArgumentException("TLEs cannot be null");
+        }
+        for (TLE tle : tles) {
+            put(tle);
+        }
+    }
+
+    /**
+     * Indexes a TLE, replacing any TLE of the same satellite.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return the replaced TLE, or <code>null</code> if the satellite was not indexed
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    public TLE put(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        int number = tle.getSatelliteNumber();
+        if (number < 1) {
+            throw new IllegalArgumentException("Satellite number must be at least 1: " + number);
+        }
+        TLE previous = indexed.put(tle);
+        if (previous != null) {
+            update(previous, false);
+        }
+        update(tle, true);
+        return previous;
+    }
+
+    /**
+     * Removes the TLE of a satellite from the indexes.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the removed TLE, or <code>null</code> if the satellite was not indexed
+     */
+    public TLE remove(int satelliteNumber) {
+        TLE previous = indexed.remove(satelliteNumber);
+        if (previous != null) {
+            update(previous, false);
+        }
+        return previous;
+    }
+
+    /**
+     * Applies a change of the catalog.
+     *
+     * @param change the change, not <code>null</code>
+     * @throws IllegalArgumentException if <code>change</code> is <code>null</code>
+     */
+    public void apply(CatalogChange change) {
+        if (change == null) {
+            throw new IllegalArgumentException("Change cannot be null");
+        }
+        if (change.isRemoved()) {
+            remove(change.getSatelliteNumber());
+        } else {
+            put(change.getAfter());
+        }
+    }
+
+    /**
+     * Returns the TLE indexed for a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the TLE, or <code>null</code> if the satellite is not indexed
+     */
+    public TLE get(int satelliteNumber) {
+        return indexed.get(satelliteNumber);
+    }
+
+    /**
+     * Returns the number of satellites indexed.
+     *
+     * @return the size
+     */
+    public int size() {
+        return indexed.size();
+    }
+
+    /**
+     * Returns the bitmap of every satellite indexed.
+     *
+     * @return a new bitmap
+     */
+    public RoaringBitmap getAll() {
+        return new RoaringBitmap(all);
+    }
+
+    /**
+     * Returns the bitmap of the satellites of a classification.
+     *
+     * @param classification the classification (e.g., <code>U</code>)
+     * @return a new bitmap
+     */
+    public RoaringBitmap getClassification(char classification) {
+        return copy(classifications.get(classification));
+    }
+
+    /**
+     * Returns the bitmap of the satellites of an ephemeris type.
+     *
+     * @param ephemerisType the ephemeris type
+     * @return a new bitmap
+     */
+    public RoaringBitmap getEphemerisType(int ephemerisType) {
+        return copy(ephemerisTypes.get(ephemerisType));
+    }
+
+    /**
+     * Returns the bitmap of the satellites launched in a year.
+     *
+     * @param year the 4-digit year
+     * @return a new bitmap
+     */
+    public RoaringBitmap getLaunchYear(int year) {
+        return copy(launchYears.get(year));
+    }
+
+    /**
+     * Returns the bitmap of the satellites launched in a range of years.
+     *
+     * @param firstYear the first 4-digit year
+     * @param lastYear the last 4-digit year, inclusive
+     * @return a new bitmap
+     */
+    public RoaringBitmap getLaunchYears(int firstYear, int lastYear) {
+        if (firstYear > lastYear) {
+            return new RoaringBitmap();
+        }
+        return RoaringBitmap.or(launchYears.subMap(firstYear, true, lastYear, true).values());
+    }
+
+    /**
+     * Returns the bitmap of the satellites in an orbital regime.
+     *
+     * @param regime the regime, not <code>null</code>
+     * @return a new bitmap
+     * @throws IllegalArgumentException if <code>regime</code> is <code>null</code>
+     */
+    public RoaringBitmap getRegime(OrbitalRegime regime) {
+        if (regime == null) {
+            throw new IllegalArgumentException("Regime cannot be null");
+        }
+        return copy(regimes.get(regime));
+    }
+
+    /**
+     * Returns the bitmap of the satellites whose epoch is at most a number of days old at a time:
+     * those whose epoch falls on the UTC day of the time, on one of the days before it up to the
+     * maximum age, or later.
+     *
+     * @param timeMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param maximumDays the largest age in whole UTC days, not negative
+     * @return a new bitmap
+     * @throws IllegalArgumentException if <code>maximumDays</code> is negative
+     */
+    public RoaringBitmap getEpochAge(long timeMillisecond, int maximumDays) {
+        if (maximumDays < 0) {
+            throw new IllegalArgumentException("Maximum days cannot be negative: " + maximumDays);
+        }
+        long firstDay = Math.floorDiv(timeMillisecond, DAY) - maximumDays;
+        return RoaringBitmap.or(epochDays.tailMap(firstDay, true).values());
+    }
+
+    /**
+     * Returns the TLEs of the satellites of a bitmap, such as the result of a filter.
+     *
+     * @param bitmap the bitmap, not <code>null</code>
+     * @return a new list of the indexed TLEs, in increasing order of satellite number
+     * @throws IllegalArgumentException if <code>bitmap</code> is <code>null</code>
+     */
+    public List<TLE> getTLEs(RoaringBitmap bitmap) {
+        if (bitmap == null) {
+            throw new IllegalArgumentException("Bitmap cannot be null");
+        }
+        List<TLE> tles = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach(number -> {
+            TLE tle = indexed.get(number);
+            if (tle != null) {
+                tles.add(tle);
+            }
+        });
+        return tles;
+    }
+
+    /**
+     * Adds a satellite to, or removes it from, the bitmaps of the values of its TLE.
+     *
+     * @param tle the TLE
+     * @param add <code>true</code> to add the satellite, <code>false</code> to remove it
+     */
+    private void update(TLE tle, boolean add) {
+        int number = tle.getSatelliteNumber();
+        if (add) {
+            all.add(number);
+        } else {
+            all.remove(number);
+        }
+        update(classifications, tle.getClassification(), number, add);
+        update(ephemerisTypes, tle.getEphemerisType(), number, add);
+        int year = launchYear(tle.getInternationalDesignator());
+        if (year != 0) {
+            update(launchYears, year, number, add);
+        }
+        update(regimes, tle.getOrbitalProperties().getRegime(), number, add);
+        update(epochDays, epochDay(tle), number, add);
+    }
+
+    /**
+     * Adds a satellite to, or removes it from, the bitmap of a value, dropping empty bitmaps.
+     *
+     * @param bitmaps the bitmaps of the values of an attribute
+     * @param value the value
+     * @param number the satellite number
+     * @param add <code>true</code> to add the satellite, <code>false</code> to remove it
+     */
+    private static <K> void update(Map<K, RoaringBitmap> bitmaps, K value, int number,
+                                   boolean add) {
+        if (add) {
+            bitmaps.computeIfAbsent(value, k -> new RoaringBitmap()).add(number);
+            return;
+        }
+        RoaringBitmap bitmap = bitmaps.get(value);
+        if (bitmap != null && bitmap.remove(number) && bitmap.isEmpty()) {
+            bitmaps.remove(value);
+        }
+    }
+
+    /**
+     * Reads the launch year from an international designator.
+     *
+     * @param designator the designator, possibly <code>null</code>
+     * @return the 4-digit year, or 0 if the designator does not start with two digits
+     */
+    static int launchYear(String designator) {
+        if (designator == null) {
+            return 0;
+        }
+        String trimmed = designator.trim();
+        if (trimmed.length() < 2 || !Character.isDigit(trimmed.charAt(0))
+                || !Character.isDigit(trimmed.charAt(1))) {
+            return 0;
+        }
+        int year = (trimmed.charAt(0) - '0') * 10 + (trimmed.charAt(1) - '0');
+        return year >= 57 ? 1900 + year : 2000 + year;
+    }
+
+    /**
+     * Returns the UTC day of the epoch of a TLE.
+     *
+     * @param tle the TLE
+     * @return the day, counted from January 1, 1970
+     */
+    static long epochDay(TLE tle) {
+        if (tle.getEpochDay() >= 1.0) {
+            // Spares the calendar arithmetic of the epoch millisecond, as SatelliteCatalog does
+            long first = LocalDate.of(tle.getEpochYear(), 1, 1).toEpochDay() - 1;
+            return first + SatelliteCatalog.dayMillisecond(tle.getEpochDay()) / DAY;
+        }
+        return Math.floorDiv(tle.getEpochMillisecond(), DAY);
+    }
+
+    /**
+     * Returns a copy of a bitmap, or a new empty one for none.
+     *
+     * @param bitmap the bitmap, possibly <code>null</code>
+     * @return a new bitmap
+     */
+    private static RoaringBitmap copy(RoaringBitmap bitmap) {
+        return bitmap != null ? new RoaringBitmap(bitmap) : new RoaringBitmap();
+    }
+
+}
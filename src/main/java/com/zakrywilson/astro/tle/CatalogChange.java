@@ -0,0 +1,81 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * A change of the TLE of one satellite in a catalog, as delivered by a {@link CatalogChangeFeed}:
+ * an addition, a removal, or an update from one TLE to another. Successive changes of a
+ * satellite not yet delivered are coalesced into one from the first TLE before to the last TLE
+ * after.
+ *
+ * @author Zach Wilson
+ */
+public final class CatalogChange {
+
+    private final int satelliteNumber;
+    private final TLE before;
+    private final TLE after;
+
+    /**
+     * Constructs a new <code>CatalogChange</code>.
+     *
+     * @param satelliteNumber the satellite number
+     * @param before the TLE before the change, or <code>null</code> for an addition
+     * @param after the TLE after the change, or <code>null</code> for a removal
+     */
+    CatalogChange(int satelliteNumber, TLE before, TLE after) {
+        this.satelliteNumber = satelliteNumber;
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Returns the satellite number.
+     *
+     * @return the satellite number
+     */
+    public int getSatelliteNumber() {
+        return satelliteNumber;
+    }
+
+    /**
+     * Returns the TLE of the satellite before the change.
+     *
+     * @return the TLE, or <code>null</code> if the satellite was added
+     */
+    public TLE getBefore() {
+        return before;
+    }
+
+    /**
+     * Returns the TLE of the satellite after the change.
+     *
+     * @return the TLE, or <code>null</code> if the satellite was removed
+     */
+    public TLE getAfter() {
+        return after;
+    }
+
+    /**
+     * Determines whether the satellite was added.
+     *
+     * @return <code>true</code> if the satellite was not in the catalog before the change
+     */
+    public boolean isAdded() {
+        return before == null;
+    }
+
+    /**
+     * Determines whether the satellite was removed.
+     *
+     * @return <code>true</code> if the satellite is not in the catalog after the change
+     */
+    public boolean isRemoved() {
+        return after == null;
+    }
+
+    @Override
+    public String toString() {
+        String kind = isAdded() ? "added" : isRemoved() ? "removed" : "updated";
+        return String.format("CatalogChange[%d, %s]", satelliteNumber, kind);
+    }
+
+}
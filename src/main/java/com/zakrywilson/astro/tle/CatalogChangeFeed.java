@@ -0,0 +1,415 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Publishes the changes of a catalog to subscribers, so that consumers such as screening or pass
+ * prediction react to updates instead of polling the catalog for them.
+ * <p>
+ * Each subscription holds the changes not yet delivered to its subscriber, at most one per
+ * satellite: a change of a satellite already pending is coalesced with it, keeping the TLE from
+ * before the first change and the TLE after the last one, and changes that return the satellite to
+ * the TLE it had before the first one, such as an addition followed by a removal, cancel out.
+ * Pending changes are delivered in batches, in the order in which their satellites first changed,
+ * by a task run on the executor of the subscription, so publishing only records the change and
+ * never waits for a subscriber. One task at a time runs per subscription, so a subscriber is never
+ * called concurrently with itself.
+ * <p>
+ * Backpressure is explicit: when a change would take a subscription over its maximum number of
+ * pending satellites, every pending change is dropped and the subscriber is told of the overflow
+ * before its next batch, so that it can resynchronize from a snapshot of the catalog. Changes
+ * published after the overflow are delivered as usual.
+ * <p>
+ * When the executor rejects a delivery, the pending changes are dropped as well and the subscriber
+ * is told of the rejection right away, on the publishing thread, rather than left waiting for the
+ * next change to schedule them. Changes published while it is told are then offered to the
+ * executor again.
+ * <p>
+ * This class is thread-safe. {@link ConcurrentSatelliteCatalog} publishes every change it makes
+ * to its feed; the order of the changes of each satellite is kept, and with no subscriber a
+ * change costs one volatile read.
+ *
+ * @author Zach Wilson
+ */
+public final class CatalogChangeFeed {
+
+    /**
+     * Receives the changes of a catalog, on the executor of its subscription.
+     */
+    public interface Subscriber {
+
+        /**
+         * Receives a batch of changes, at most one per satellite.
+         *
+         * @param changes the changes, in the order in which their satellites first changed
+         */
+        void onChanges(List<CatalogChange> changes);
+
+        /**
+         * Receives notice that pending changes were dropped because the subscription was full.
+         * The changes delivered after this call follow a state of the catalog that the
+         * subscriber did not see, so it should reload a snapshot of the catalog.
+         *
+         * @param dropped the number of changes dropped since the previous notice
+         */
+        void onOverflow(long dropped);
+
+        /**
+         * Receives notice that the executor of the subscription rejected the delivery of pending
+         * changes, which were dropped. This is called on the thread that published the change, so
+         * it should return quickly and not throw, and never concurrently with the other methods; the subscriber
+         * should reload a snapshot of the catalog once its executor accepts tasks again.
+         *
+         * @param dropped the number of changes dropped, including those of an overflow not yet
+         * noticed
+         * @param cause the exception thrown by the executor
+         */
+        void onRejected(long dropped, RejectedExecutionException cause);
+
+    }
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+    /**
+     * Constructs a new <code>CatalogChangeFeed</code> without subscribers, published to by its
+     * catalog.
+     */
+    CatalogChangeFeed() {}
+
+    /**
+     * Subscribes to the changes published from now on.
+     *
+     * @param subscriber the subscriber, not <code>null</code>
+     * @param executor the executor running the deliveries, not <code>null</code>; it should not
+     * run tasks in the publishing thread, or publishing would wait for the subscriber
+     * @param maximumPending the largest number of satellites with pending changes, at least 1
+     * @return the subscription
+     * @throws IllegalArgumentException if <code>subscriber</code> or <code>executor</code> is
+     * <code>null</code> or <code>maximumPending</code> is less than 1
+     */
+    public Subscription subscribe(Subscriber subscriber, Executor executor, int maximumPending) {
+        if (subscriber == null) {
+            throw new IllegalArgumentException("Subscriber cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (maximumPending < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum pending must be at least 1: " + maximumPending);
+        }
+        Subscription subscription = new Subscription(subscriber, executor, maximumPending);
+        synchronized (this) {
+            Subscription[] current = subscriptions;
+            Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+            subscriptions = updated;
+        }
+        return subscription;
+    }
+
+    /**
+     * Publishes a change of a satellite to every subscription, unless the TLE is the same before
+     * and after it. Changes of the same satellite must be published in the order in which they
+     * were made.
+     *
+     * @param satelliteNumber the satellite number, at least 1
+     * @param before the TLE before the change, or <code>null</code> for an addition
+     * @param after the TLE after the change, or <code>null</code> for a removal
+     * @throws IllegalArgumentException if <code>satelliteNumber</code> is less than 1
+     */
+    void publish(int satelliteNumber, TLE before, TLE after) {
+        if (before == after) {
+            return;
+        }
+        if (satelliteNumber < 1) {
+            throw new IllegalArgumentException(
+                    "Satellite number must be at least 1: " + satelliteNumber);
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(satelliteNumber, before, after);
+        }
+    }
+
+    /**
+     * Returns the number of active subscriptions.
+     *
+     * @return the count
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Removes a cancelled subscription.
+     *
+     * @param subscription the subscription
+     */
+    private synchronized void unsubscribe(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * A subscriber's subscription to a feed, holding its pending changes.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Subscriber subscriber;
+        private final Executor executor;
+        private final int maximumPending;
+        private final Runnable delivery = this::deliver;
+        private Map<Integer, CatalogChange> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+        private boolean cancelled;
+        private long dropped;
+        private long published;
+        private long coalesced;
+        private long delivered;
+        private long overflows;
+        private long rejections;
+
+        /**
+         * Constructs a new <code>Subscription</code>.
+         *
+         * @param subscriber the subscriber
+         * @param executor the executor running the deliveries
+         * @param maximumPending the largest number of satellites with pending changes
+         */
+        private Subscription(Subscriber subscriber, Executor executor, int maximumPending) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.maximumPending = maximumPending;
+        }
+
+        /**
+         * Cancels the subscription: no change is delivered after the batch being delivered, if
+         * any.
+         */
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                pending = new LinkedHashMap<>();
+            }
+            unsubscribe(this);
+        }
+
+        /**
+         * Cancels the subscription, as {@link #cancel()} does.
+         */
+        @Override
+        public void close() {
+            cancel();
+        }
+
+        /**
+         * Determines whether the subscription was cancelled.
+         *
+         * @return <code>true</code> if it was
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Returns the number of satellites with changes not yet delivered.
+         *
+         * @return the count
+         */
+        public synchronized int getPendingCount() {
+            return pending.size();
+        }
+
+        /**
+         * Returns the number of changes published to the subscription.
+         *
+         * @return the count
+         */
+        public synchronized long getPublishedCount() {
+            return published;
+        }
+
+        /**
+         * Returns the number of changes coalesced with a pending change of the same satellite.
+         *
+         * @return the count
+         */
+        public synchronized long getCoalescedCount() {
+            return coalesced;
+        }
+
+        /**
+         * Returns the number of changes delivered to the subscriber.
+         *
+         * @return the count
+         */
+        public synchronized long getDeliveredCount() {
+            return delivered;
+        }
+
+        /**
+         * Returns the number of times pending changes were dropped because the subscription was
+         * full.
+         *
+         * @return the count
+         */
+        public synchronized long getOverflowCount() {
+            return overflows;
+        }
+
+        /**
+         * Returns the number of times the executor rejected a delivery.
+         *
+         * @return the count
+         */
+        public synchronized long getRejectionCount() {
+            return rejections;
+        }
+
+        /**
+         * Records a change and schedules its delivery.
+         *
+         * @param number the satellite number
+         * @param before the TLE before the change
+         * @param after the TLE after the change
+         */
+        private void offer(int number, TLE before, TLE after) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                published++;
+                Integer key = number;
+                CatalogChange previous = pending.get(key);
+                if (previous != null) {
+                    coalesced++;
+                    // Back to the TLE from before the first change, such as a removal after an
+                    // addition: the satellite is unchanged
+                    if (previous.getBefore() == after) {
+                        pending.remove(key);
+                    } else {
+                        pending.put(key, new CatalogChange(number, previous.getBefore(), after));
+                    }
+                } else {
+                    if (pending.size() == maximumPending) {
+                        dropped += pending.size();
+                        overflows++;
+                        pending = new LinkedHashMap<>();
+                    }
+                    pending.put(key, new CatalogChange(number, before, after));
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            schedule();
+        }
+
+        /**
+         * Submits the delivery task to the executor. If the executor rejects it, the pending
+         * changes are dropped and the subscriber is told, until the task is accepted or no change
+         * is left pending.
+         */
+        private void schedule() {
+            while (true) {
+                RejectedExecutionException rejection;
+                try {
+                    executor.execute(delivery);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    rejection = e;
+                }
+                long lost;
+                synchronized (this) {
+                    if (cancelled) {
+                        scheduled = false;
+                        return;
+                    }
+                    lost = dropped + pending.size();
+                    dropped = 0;
+                    pending = new LinkedHashMap<>();
+                    rejections++;
+                }
+                boolean notified = false;
+                try {
+                    subscriber.onRejected(lost, rejection);
+                    notified = true;
+                } finally {
+                    if (!notified) {
+                        // The subscriber threw: let the next change schedule a new delivery
+                        synchronized (this) {
+                            scheduled = false;
+                        }
+                    }
+                }
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                // Changes were published while the subscriber was told: deliver them too
+            }
+        }
+
+        /**
+         * Delivers the pending changes, batch after batch, until none is left.
+         */
+        private void deliver() {
+            boolean done = false;
+            try {
+                while (true) {
+                    long overflowed;
+                    List<CatalogChange> batch;
+                    synchronized (this) {
+                        if (cancelled || (pending.isEmpty() && dropped == 0)) {
+                            scheduled = false;
+                            done = true;
+                            return;
+                        }
+                        overflowed = dropped;
+                        dropped = 0;
+                        batch = new ArrayList<>(pending.values());
+                        pending = new LinkedHashMap<>();
+                        delivered += batch.size();
+                    }
+                    if (overflowed > 0) {
+                        subscriber.onOverflow(overflowed);
+                    }
+                    if (!batch.isEmpty()) {
+                        subscriber.onChanges(batch);
+                    }
+                }
+            } finally {
+                if (!done) {
+                    // The subscriber threw: let the next change schedule a new delivery
+                    synchronized (this) {
+                        scheduled = false;
+                    }
+                }
+            }
+        }
+
+    }
+
+}
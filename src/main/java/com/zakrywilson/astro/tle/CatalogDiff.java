@@ -0,0 +1,343 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The differences between two pulls of a catalog: the satellites added, removed, and updated, so
+ * that downstream systems recompute only those.
+ * <p>
+ * Both catalogs are walked once in increasing order of satellite number and merged, so a diff
+ * takes linear time and, through {@link #diff(Iterator, Iterator, Listener)}, constant memory:
+ * the TLEs may come from iterators over streams or files, such as a {@link TLEReader}, as long as
+ * each is sorted by satellite number. A satellite in both catalogs is updated when any field of
+ * {@link TLEField} differs, and each update reports the mask of its changed fields; the same TLE
+ * object in both, as shared by {@link VersionedCatalog} generations or returned by a
+ * {@link TLECache}, is unchanged without any comparison.
+ *
+ * @author Zach Wilson
+ */
+public final class CatalogDiff {
+
+    /**
+     * Receives the differences between two catalogs, in increasing order of satellite number.
+     */
+    public interface Listener {
+
+        /**
+         * Receives a satellite only in the second catalog.
+         *
+         * @param after its TLE
+         */
+        void added(TLE after);
+
+        /**
+         * Receives a satellite only in the first catalog.
+         *
+         * @param before its TLE
+         */
+        void removed(TLE before);
+
+        /**
+         * Receives a satellite whose TLE differs between the catalogs.
+         *
+         * @param before its TLE in the first catalog
+         * @param after its TLE in the second catalog
+         * @param changedFields the mask of the changed fields, as in {@link TLEField#getMask()}
+         */
+        void updated(TLE before, TLE after, int changedFields);
+
+    }
+
+    private final int[] added;
+    private final int[] removed;
+    private final int[] updated;
+    private final int[] changedFields;
+    private final int unchanged;
+
+    /**
+     * Constructs a new <code>CatalogDiff</code>. The arrays are referenced, not copied.
+     *
+     * @param added the satellite numbers added
+     * @param removed the satellite numbers removed
+     * @param updated the satellite numbers updated
+     * @param changedFields the masks of the changed fields of the updated satellites
+     * @param unchanged the number of satellites unchanged
+     */
+    private CatalogDiff(int[] added, int[] removed, int[] updated, int[] changedFields,
+                        int unchanged) {
+        this.added = added;
+        this.removed = removed;
+        this.updated = updated;
+        this.changedFields = changedFields;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Collects the differences between two catalogs.
+     *
+     * @param before the first catalog, not <code>null</code>
+     * @param after the second catalog, not <code>null</code>
+     * @return the differences
+     * @throws IllegalArgumentException if either catalog is <code>null</code>
+     */
+    public static CatalogDiff of(SatelliteCatalog before, SatelliteCatalog after) {
+        checkCatalogs(before, after);
+        return of(iterator(before), iterator(after));
+    }
+
+    /**
+     * Collects the differences between two catalogs, each iterated in increasing order of
+     * satellite number.
+     *
+     * @param before the TLEs of the first catalog, not <code>null</code>
+     * @param after the TLEs of the second catalog, not <code>null</code>
+     * @return the differences
+     * @throws IllegalArgumentException if either iterator is <code>null</code>, returns a
+     * <code>null</code> TLE, or is not in strictly increasing order of satellite number
+     */
+    public static CatalogDiff of(Iterator<TLE> before, Iterator<TLE> after) {
+        Collector collector = new Collector();
+        int unchanged = diff(before, after, collector);
+        return new CatalogDiff(collector.added.toArray(), collector.removed.toArray(),
+                               collector.updated.toArray(), collector.changedFields.toArray(),
+                               unchanged);
+    }
+
+    /**
+     * Reports the differences between two catalogs.
+     *
+     * @param before the first catalog, not <code>null</code>
+     * @param after the second catalog, not <code>null</code>
+     * @param listener the listener, not <code>null</code>
+     * @return the number of satellites unchanged
+     * @throws IllegalArgumentException if an argument is <code>null</code>
+     */
+    public static int diff(SatelliteCatalog before, SatelliteCatalog after, Listener listener) {
+        checkCatalogs(before, after);
+        return diff(iterator(before), iterator(after), listener);
+    }
+
+    /**
+     * Reports the differences between two catalogs, each iterated in increasing order of
+     * satellite number, reading each TLE once.
+     *
+     * @param before the TLEs of the first catalog, not <code>null</code>
+     * @param after the TLEs of the second catalog, not <code>null</code>
+     * @param listener the listener, not <code>null</code>
+     * @return the number of satellites unchanged
+     * @throws IllegalArgumentException if an argument is <code>null</code>, or an iterator
+     * returns a <code>null</code> TLE or is not in strictly increasing order of satellite number
+     */
+    public static int diff(Iterator<TLE> before, Iterator<TLE> after, Listener listener) {
+        if (before == null || after == null) {
+            throw new IllegalArgumentException("Iterators cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        int unchanged = 0;
+        TLE a = next(before, 0);
+        TLE b = next(after, 0);
+        while (a != null || b != null) {
+            int na = a == null ? Integer.MAX_VALUE : a.getSatelliteNumber();
+            int nb = b == null ? Integer.MAX_VALUE : b.getSatelliteNumber();
+            if (a != null && na < nb) {
+                listener.removed(a);
+                a = next(before, na);
+            } else if (b != null && nb < na) {
+                listener.added(b);
+                b = next(after, nb);
+            } else {
+                int mask = compare(a, b);
+                if (mask == 0) {
+                    unchanged++;
+                } else {
+                    listener.updated(a, b, mask);
+                }
+                a = next(before, na);
+                b = next(after, nb);
+            }
+        }
+        return unchanged;
+    }
+
+    /**
+     * Compares the TLEs of a satellite in both catalogs.
+     *
+     * @param before the first TLE
+     * @param after the second TLE
+     * @return the mask of the changed fields, 0 if the TLEs are equal
+     */
+    static int compare(TLE before, TLE after) {
+        if (before == after) {
+            return 0;
+        }
+        return TLEField.changedFields(before, after);
+    }
+
+    /**
+     * Returns the satellite numbers only in the second catalog.
+     *
+     * @return a copy of the numbers, in increasing order
+     */
+    public int[] getAdded() {
+        return added.clone();
+    }
+
+    /**
+     * Returns the satellite numbers only in the first catalog.
+     *
+     * @return a copy of the numbers, in increasing order
+     */
+    public int[] getRemoved() {
+        return removed.clone();
+    }
+
+    /**
+     * Returns the satellite numbers whose TLEs differ between the catalogs.
+     *
+     * @return a copy of the numbers, in increasing order
+     */
+    public int[] getUpdated() {
+        return updated.clone();
+    }
+
+    /**
+     * Returns the mask of the changed fields of an updated satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the mask, as in {@link TLEField#getMask()}, or 0 if the satellite was not updated
+     */
+    public int getChangedFields(int satelliteNumber) {
+        int k = Arrays.binarySearch(updated, satelliteNumber);
+        return k >= 0 ? changedFields[k] : 0;
+    }
+
+    /**
+     * Returns the number of satellites in both catalogs with equal TLEs.
+     *
+     * @return the count
+     */
+    public int getUnchangedCount() {
+        return unchanged;
+    }
+
+    /**
+     * Determines whether the catalogs hold equal TLEs.
+     *
+     * @return <code>true</code> if nothing was added, removed, or updated
+     */
+    public boolean isEmpty() {
+        return added.length == 0 && removed.length == 0 && updated.length == 0;
+    }
+
+    /**
+     * Returns the next TLE of an iterator, checking the order.
+     *
+     * @param iterator the iterator
+     * @param previous the satellite number of the previous TLE, 0 for none
+     * @return the TLE, or <code>null</code> at the end
+     * @throws IllegalArgumentException if the TLE is <code>null</code> or not after the previous
+     * one
+     */
+    private static TLE next(Iterator<TLE> iterator, int previous) {
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        TLE tle = iterator.next();
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (tle.getSatelliteNumber() <= previous) {
+            throw new IllegalArgumentException("TLEs must be in increasing order of satellite "
+                                               + "number: " + tle.getSatelliteNumber()
+                                               + " after " + previous);
+        }
+        return tle;
+    }
+
+    /**
+     * Returns an iterator over a catalog in increasing order of satellite number.
+     *
+     * @param catalog the catalog
+     * @return the iterator
+     */
+    private static Iterator<TLE> iterator(SatelliteCatalog catalog) {
+        int[] numbers = catalog.getSatelliteNumbers();
+        return new Iterator<TLE>() {
+            private int k;
+
+            @Override
+            public boolean hasNext() {
+                return k < numbers.length;
+            }
+
+            @Override
+            public TLE next() {
+                return catalog.get(numbers[k++]);
+            }
+        };
+    }
+
+    /**
+     * Checks two catalogs.
+     *
+     * @throws IllegalArgumentException if either is <code>null</code>
+     */
+    private static void checkCatalogs(SatelliteCatalog before, SatelliteCatalog after) {
+        if (before == null || after == null) {
+            throw new IllegalArgumentException("Catalogs cannot be null");
+        }
+    }
+
+    /**
+     * Collects the differences into growing arrays.
+     */
+    private static final class Collector implements Listener {
+
+        private final IntList added = new IntList();
+        private final IntList removed = new IntList();
+        private final IntList updated = new IntList();
+        private final IntList changedFields = new IntList();
+
+        @Override
+        public void added(TLE after) {
+            added.add(after.getSatelliteNumber());
+        }
+
+        @Override
+        public void removed(TLE before) {
+            removed.add(before.getSatelliteNumber());
+        }
+
+        @Override
+        public void updated(TLE before, TLE after, int changedFields) {
+            updated.add(after.getSatelliteNumber());
+            this.changedFields.add(changedFields);
+        }
+
+    }
+
+    /**
+     * A growing array of primitive <code>int</code> values.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+    }
+
+}
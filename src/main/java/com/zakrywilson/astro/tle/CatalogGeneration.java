@@ -0,0 +1,357 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One immutable generation of a {@link VersionedCatalog}, holding at most one TLE per satellite.
+ * <p>
+ * Satellite numbers from 1 to 99,999 index fixed-size pages of TLEs, and a page in which no TLE
+ * changed is the very same array in the next generation, so publishing a refreshed catalog copies
+ * only the pages it touched. The rare larger numbers are held in a sorted array searched by
+ * bisection.
+ * <p>
+ * Each call to {@link VersionedCatalog#acquire()} returns a new <code>CatalogGeneration</code>
+ * pinning the generation until it is closed, and reads of it are consistent however many
+ * generations are published meanwhile. Closing it more than once has no further effect, and
+ * using it once closed throws an <code>IllegalStateException</code>. Once a generation is no longer
+ * current and its last pin is closed, it drops its pages so that those not shared with a later
+ * generation can be reclaimed. A pinned generation may be read from multiple threads.
+ *
+ * @author Zach Wilson
+ */
+public final class CatalogGeneration implements AutoCloseable {
+
+    /**
+     * Number of bits of a satellite number giving its slot in a page.
+     */
+    static final int PAGE_BITS = 10;
+
+    /**
+     * Number of TLEs in a page.
+     */
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /**
+     * Number of pages covering the satellite numbers up to 99,999.
+     */
+    static final int PAGE_COUNT = (SatelliteCatalog.MAX_DIRECT_NUMBER >> PAGE_BITS) + 1;
+
+    private final State state;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Constructs a new <code>CatalogGeneration</code> holding a pin on a generation.
+     *
+     * @param state the pinned generation
+     */
+    CatalogGeneration(State state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns the version, increasing by one with every generation published.
+     *
+     * @return the version, 0 for the first, empty generation
+     */
+    public long getVersion() {
+        return state.version;
+    }
+
+    /**
+     * Returns the number of satellites.
+     *
+     * @return the size
+     */
+    public int size() {
+        return state.size;
+    }
+
+    /**
+     * Determines whether the generation is empty.
+     *
+     * @return <code>true</code> if there is no TLE
+     */
+    public boolean isEmpty() {
+        return state.size == 0;
+    }
+
+    /**
+     * Returns the number of non-empty pages this generation shares with the previous one.
+     *
+     * @return the page count
+     */
+    public int getSharedPageCount() {
+        return state.sharedPages;
+    }
+
+    /**
+     * Returns the TLE of a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the TLE, or <code>null</code> if the satellite is not in the generation
+     * @throws IllegalStateException if the generation was closed
+     */
+    public TLE get(int satelliteNumber) {
+        checkOpen();
+        return state.get(satelliteNumber);
+    }
+
+    /**
+     * Determines whether a satellite is in the generation.
+     *
+     * @param satelliteNumber the satellite number
+     * @return <code>true</code> if the generation holds a TLE of the satellite
+     * @throws IllegalStateException if the generation was closed
+     */
+    public boolean contains(int satelliteNumber) {
+        return get(satelliteNumber) != null;
+    }
+
+    /**
+     * Visits every TLE in increasing order of satellite number.
+     *
+     * @param visitor the visitor, not <code>null</code>
+     * @throws IllegalArgumentException if <code>visitor</code> is <code>null</code>
+     * @throws IllegalStateException if the generation was closed
+     */
+    public void forEach(SatelliteCatalog.Visitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+        checkOpen();
+        TLE[][] p = state.pages();
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            TLE[] page = p[i];
+            if (page != null) {
+                for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                    if (page[slot] != null) {
+                        visitor.visit((i << PAGE_BITS) | slot, page[slot]);
+                    }
+                }
+            }
+        }
+        int[] numbers = state.extendedNumbers;
+        TLE[] tles = state.extendedTLEs;
+        for (int k = 0; k < numbers.length; k++) {
+            visitor.visit(numbers[k], tles[k]);
+        }
+    }
+
+    /**
+     * Returns the satellite numbers of the generation.
+     *
+     * @return the numbers in increasing order
+     * @throws IllegalStateException if the generation was closed
+     */
+    public int[] getSatelliteNumbers() {
+        int[] numbers = new int[state.size];
+        int[] count = new int[1];
+        forEach((number, tle) -> numbers[count[0]++] = number);
+        return numbers;
+    }
+
+    /**
+     * Releases the pin obtained from {@link VersionedCatalog#acquire()}. Closing it again has no
+     * effect.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            state.unpin();
+        }
+    }
+
+    /**
+     * Determines whether the generation was reclaimed.
+     *
+     * @return <code>true</code> if it is neither current nor pinned anymore
+     */
+    boolean isReclaimed() {
+        return state.isReclaimed();
+    }
+
+    /**
+     * Returns the pinned generation.
+     *
+     * @return the state of the generation
+     */
+    State state() {
+        return state;
+    }
+
+    /**
+     * Checks that the pin was not closed.
+     *
+     * @throws IllegalStateException if it was
+     */
+    private void checkOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Generation " + state.version + " was closed");
+        }
+    }
+
+    /**
+     * The TLEs of one generation, shared by every pin on it. The generation is referenced once by
+     * each pin and once by its catalog while it is current; the latter is dropped only by {@link
+     * #retire()}, so that no pin can release it.
+     */
+    static final class State {
+
+        private final long version;
+        private final int size;
+        private final int sharedPages;
+        private final AtomicInteger references = new AtomicInteger(1);
+        private final AtomicBoolean current = new AtomicBoolean(true);
+        private final AtomicInteger live;
+        private TLE[][] pages;
+        private int[] extendedNumbers;
+        private TLE[] extendedTLEs;
+
+        /**
+         * Constructs a new, current <code>State</code>. The arrays are referenced, not copied.
+         *
+         * @param version the version
+         * @param pages the pages, <code>null</code> for an empty page
+         * @param extendedNumbers the satellite numbers above 99,999, in increasing order
+         * @param extendedTLEs the TLEs of those numbers
+         * @param size the number of TLEs
+         * @param sharedPages the number of non-empty pages shared with the previous generation
+         * @param live the count of generations of the catalog not yet reclaimed
+         */
+        State(long version, TLE[][] pages, int[] extendedNumbers, TLE[] extendedTLEs, int size,
+              int sharedPages, AtomicInteger live) {
+            this.version = version;
+            this.pages = pages;
+            this.extendedNumbers = extendedNumbers;
+            this.extendedTLEs = extendedTLEs;
+            this.size = size;
+            this.sharedPages = sharedPages;
+            this.live = live;
+            live.incrementAndGet();
+        }
+
+        /**
+         * Returns the version.
+         *
+         * @return the version
+         */
+        long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the number of satellites.
+         *
+         * @return the size
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the TLE of a satellite.
+         *
+         * @param satelliteNumber the satellite number
+         * @return the TLE, or <code>null</code> if the satellite is not in the generation
+         * @throws IllegalStateException if the generation was reclaimed
+         */
+        TLE get(int satelliteNumber) {
+            TLE[][] p = pages();
+            if (satelliteNumber >= 0 && satelliteNumber <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+                TLE[] page = p[satelliteNumber >> PAGE_BITS];
+                return page == null ? null : page[satelliteNumber & (PAGE_SIZE - 1)];
+            }
+            int k = Arrays.binarySearch(extendedNumbers, satelliteNumber);
+            return k >= 0 ? extendedTLEs[k] : null;
+        }
+
+        /**
+         * Pins the generation unless it was already reclaimed.
+         *
+         * @return a new pin, or <code>null</code> if the generation was reclaimed
+         */
+        CatalogGeneration pin() {
+            int count;
+            do {
+                count = references.get();
+                if (count <= 0) {
+                    return null;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return new CatalogGeneration(this);
+        }
+
+        /**
+         * Drops the reference of a pin.
+         */
+        void unpin() {
+            release();
+        }
+
+        /**
+         * Drops the reference of the catalog once the generation is no longer current.
+         */
+        void retire() {
+            if (current.compareAndSet(true, false)) {
+                release();
+            }
+        }
+
+        /**
+         * Drops one reference, reclaiming the generation when it was the last one.
+         */
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                pages = null;
+                extendedNumbers = null;
+                extendedTLEs = null;
+                live.decrementAndGet();
+            }
+        }
+
+        /**
+         * Determines whether the generation was reclaimed.
+         *
+         * @return <code>true</code> if it is neither current nor pinned anymore
+         */
+        boolean isReclaimed() {
+            return references.get() <= 0;
+        }
+
+        /**
+         * Returns the pages, to build the next generation from.
+         *
+         * @return the pages
+         * @throws IllegalStateException if the generation was reclaimed
+         */
+        TLE[][] pages() {
+            TLE[][] p = pages;
+            if (p == null) {
+                throw new IllegalStateException("Generation " + version + " was reclaimed");
+            }
+            return p;
+        }
+
+        /**
+         * Returns the satellite numbers above 99,999.
+         *
+         * @return the numbers in increasing order
+         */
+        int[] extendedNumbers() {
+            return extendedNumbers;
+        }
+
+        /**
+         * Returns the TLEs of the satellite numbers above 99,999.
+         *
+         * @return the TLEs
+         */
+        TLE[] extendedTLEs() {
+            return extendedTLEs;
+        }
+
+    }
+
+}
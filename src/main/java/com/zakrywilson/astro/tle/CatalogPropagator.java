@@ -0,0 +1,245 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Propagates a whole catalog of {@link TLE}s to common points in time.
+ * <p>
+ * A propagator is initialized once for every TLE when the catalog propagator is constructed, and
+ * each call to {@link #propagate(long, StateVectors)} fills one row per TLE, in catalog order,
+ * using all available processors. TLEs that cannot be propagated (e.g., with a decayed orbit)
+ * produce rows of <code>NaN</code>.
+ * <p>
+ * SGP4 is used unless another {@link PropagationModel} is given, so that coarse passes over a
+ * catalog (and everything built on this class, such as screening) can run on a cheaper model.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class CatalogPropagator {
+
+    /**
+     * Number of rows propagated by one task.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    private final List<TLE> catalog;
+    private final PropagationModel model;
+    private final Propagator[] propagators;
+
+    /**
+     * Constructs a new <code>CatalogPropagator</code> for the TLEs, using SGP4.
+     *
+     * @param catalog the TLEs to be propagated, not <code>null</code>
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or contains a
+     * <code>null</code> TLE
+     */
+    public CatalogPropagator(List<TLE> catalog) {
+        this(catalog, PropagationModel.SGP4);
+    }
+
+    /**
+     * Constructs a new <code>CatalogPropagator</code> for the TLEs.
+     *
+     * @param catalog the TLEs to be propagated, not <code>null</code>
+     * @param model the propagation model, not <code>null</code>
+     * @throws IllegalArgumentException if <code>catalog</code> or <code>model</code> are
+     * <code>null</code>, or <code>catalog</code> contains a <code>null</code> TLE
+     */
+    public CatalogPropagator(List<TLE> catalog, PropagationModel model) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (model == null) {
+            throw new IllegalArgumentException("Propagation model cannot be null");
+        }
+        this.catalog = Collections.unmodifiableList(new ArrayList<>(catalog));
+        this.model = model;
+        this.propagators = new Propagator[this.catalog.size()];
+        for (int i = 0; i < propagators.length; i++) {
+            TLE tle = this.catalog.get(i);
+            if (tle == null) {
+                throw new IllegalArgumentException("Catalog cannot contain a null TLE: index " + i);
+            }
+            try {
+                propagators[i] = model.create(tle);
+            } catch (IllegalArgumentException e) {
+                propagators[i] = null; // Elements cannot be propagated, rows will be NaN
+            }
+        }
+    }
+
+    /**
+     * Returns the TLEs in catalog (row) order.
+     *
+     * @return the unmodifiable catalog
+     */
+    public List<TLE> getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the propagation model.
+     *
+     * @return the model
+     */
+    public PropagationModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the number of TLEs in the catalog.
+     *
+     * @return the size
+     */
+    public int size() {
+        return propagators.length;
+    }
+
+    /**
+     * Returns the propagator for a row, or <code>null</code> if the TLE could not be initialized.
+     *
+     * @param i the row
+     * @return the propagator
+     */
+    public Propagator getPropagator(int i) {
+        return propagators[i];
+    }
+
+    /**
+     * Propagates every TLE in the catalog to a point in time, in parallel.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param out the buffer receiving one TEME state per TLE, not <code>null</code>
+     * @throws IllegalArgumentException if <code>out</code> does not have one row per TLE
+     */
+    public void propagate(long epochMillisecond, StateVectors out) {
+        checkSize(out);
+        IntStream.range(0, chunkCount()).parallel()
+                 .forEach(c -> propagateChunk(c, epochMillisecond, out));
+    }
+
+    /**
+     * Propagates every TLE in the catalog to a point in time on the calling thread.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param out the buffer receiving one TEME state per TLE, not <code>null</code>
+     * @throws IllegalArgumentException if <code>out</code> does not have one row per TLE
+     */
+    public void propagateSequential(long epochMillisecond, StateVectors out) {
+        checkSize(out);
+        for (int c = 0, n = chunkCount(); c < n; c++) {
+            propagateChunk(c, epochMillisecond, out);
+        }
+    }
+
+    /**
+     * Propagates every TLE in the catalog to a point in time, in parallel, into a reduced-precision
+     * buffer. The states are computed in <code>double</code> and rounded when they are stored.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param out the buffer receiving one TEME state per TLE, not <code>null</code>
+     * @throws IllegalArgumentException if <code>out</code> does not have one row per TLE
+     */
+    public void propagate(long epochMillisecond, FloatStateVectors out) {
+        if (out == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        checkSize(out.size());
+        IntStream.range(0, chunkCount()).parallel()
+                 .forEach(c -> propagateChunk(c, epochMillisecond, out));
+    }
+
+    /**
+     * Propagates one chunk of consecutive rows, reusing a single state array.
+     *
+     * @param chunk the chunk index
+     * @param epochMillisecond the time to propagate to
+     * @param out the buffer receiving the states
+     */
+    private void propagateChunk(int chunk, long epochMillisecond, StateVectors out) {
+        double[] state = new double[6];
+        int end = Math.min(propagators.length, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            propagateRow(i, epochMillisecond, state);
+            out.set(i, state, 0);
+        }
+    }
+
+    /**
+     * Propagates one chunk of consecutive rows into a reduced-precision buffer, reusing a single
+     * state array.
+     *
+     * @param chunk the chunk index
+     * @param epochMillisecond the time to propagate to
+     * @param out the buffer receiving the states
+     */
+    private void propagateChunk(int chunk, long epochMillisecond, FloatStateVectors out) {
+        double[] state = new double[6];
+        int end = Math.min(propagators.length, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            propagateRow(i, epochMillisecond, state);
+            out.set(i, state, 0);
+        }
+    }
+
+    /**
+     * Propagates one row, filling the state with <code>NaN</code> if the TLE could not be
+     * initialized.
+     *
+     * @param i the row
+     * @param epochMillisecond the time to propagate to
+     * @param state the array receiving the state
+     */
+    private void propagateRow(int i, long epochMillisecond, double[] state) {
+        Propagator propagator = propagators[i];
+        if (propagator == null) {
+            for (int k = 0; k < 6; k++) {
+                state[k] = Double.NaN;
+            }
+        } else {
+            propagator.propagate(epochMillisecond, state, 0);
+        }
+    }
+
+    /**
+     * Returns the number of chunks covering the catalog.
+     *
+     * @return the chunk count
+     */
+    private int chunkCount() {
+        return (propagators.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Verifies the size of an output buffer.
+     *
+     * @param out the buffer to be checked
+     * @throws IllegalArgumentException if <code>out</code> is <code>null</code> or does not have
+     * one row per TLE
+     */
+    private void checkSize(StateVectors out) {
+        if (out == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        checkSize(out.size());
+    }
+
+    /**
+     * Verifies the number of rows of an output buffer.
+     *
+     * @param size the rows of the buffer
+     * @throws IllegalArgumentException if the buffer does not have one row per TLE
+     */
+    private void checkSize(int size) {
+        if (size != propagators.length) {
+            throw new IllegalArgumentException(String.format(
+                    "State vectors must have %d rows, received %d", propagators.length, size));
+        }
+    }
+
+}
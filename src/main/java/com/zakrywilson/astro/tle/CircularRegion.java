@@ -0,0 +1,89 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * A circular region of interest: the points of the Earth within a ground distance of a center.
+ * <p>
+ * The radius is measured along the surface of a sphere of the equatorial radius of the Earth, so
+ * the region is its own bounding cap. This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class CircularRegion extends Region {
+
+    private final double latitude;
+    private final double longitude;
+    private final double radius;
+
+    /**
+     * Constructs a new <code>CircularRegion</code>.
+     *
+     * @param name the name of the region, can be <code>null</code>
+     * @param latitude the geodetic latitude of the center in degrees (-90 to 90)
+     * @param longitude the longitude of the center in degrees, east positive (-180 to 360)
+     * @param radius the ground radius in kilometers, less than half the circumference of the Earth
+     * @throws IllegalArgumentException if a coordinate or the radius are out of range
+     */
+    public CircularRegion(String name, double latitude, double longitude, double radius) {
+        super(name);
+        checkCoordinates(latitude, longitude);
+        if (!(radius >= 0.0 && radius < Math.PI * RADIUS)) {
+            throw new IllegalArgumentException("Radius out of range: " + radius);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radius = radius;
+
+        double[] center = new double[3];
+        direction(latitude, longitude, center, 0);
+        this.centerX = center[0];
+        this.centerY = center[1];
+        this.centerZ = center[2];
+        this.boundingRadius = radius / RADIUS;
+    }
+
+    /**
+     * Returns the geodetic latitude of the center.
+     *
+     * @return the latitude in degrees
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Returns the longitude of the center.
+     *
+     * @return the longitude in degrees, east positive
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Returns the ground radius of the region.
+     *
+     * @return the radius in kilometers
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    @Override
+    double exactDistance(double ux, double uy, double uz) {
+        return Math.max(0.0, angle(ux, uy, uz, centerX, centerY, centerZ) - boundingRadius);
+    }
+
+    /**
+     * Returns a string describing the name, center and radius.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("CircularRegion[%s, latitude=%.6f, longitude=%.6f, radius=%.3f]",
+                             getName(), latitude, longitude, radius);
+    }
+
+}
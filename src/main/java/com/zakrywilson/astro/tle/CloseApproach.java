@@ -0,0 +1,109 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * A close approach between two satellites: the time of closest approach and the miss distance.
+ * <p>
+ * Close approaches produced by {@link ConjunctionScreener} are candidates estimated from coarse
+ * samples; their times and distances are approximate until refined by {@link TCARefiner}.
+ *
+ * @author Zach Wilson
+ */
+public final class CloseApproach {
+
+    private final TLE primary;
+    private final TLE secondary;
+    private final double timeMillisecond;
+    private final double distance;
+    private final double relativeSpeed;
+
+    /**
+     * Constructs a new <code>CloseApproach</code>.
+     *
+     * @param primary the first satellite, not <code>null</code>
+     * @param secondary the second satellite, not <code>null</code>
+     * @param timeMillisecond the time of closest approach in fractional milliseconds since January
+     * 1, 1970 00:00:00 UTC
+     * @param distance the miss distance in kilometers
+     * @param relativeSpeed the relative speed at closest approach in kilometers per second
+     * @throws IllegalArgumentException if <code>primary</code> or <code>secondary</code> are
+     * <code>null</code>
+     */
+    public CloseApproach(TLE primary, TLE secondary, double timeMillisecond, double distance,
+                         double relativeSpeed) {
+        if (primary == null || secondary == null) {
+            throw new IllegalArgumentException("TLEs cannot be null");
+        }
+        this.primary = primary;
+        this.secondary = secondary;
+        this.timeMillisecond = timeMillisecond;
+        this.distance = distance;
+        this.relativeSpeed = relativeSpeed;
+    }
+
+    /**
+     * Returns the first satellite of the pair.
+     *
+     * @return the primary TLE
+     */
+    public TLE getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Returns the second satellite of the pair.
+     *
+     * @return the secondary TLE
+     */
+    public TLE getSecondary() {
+        return secondary;
+    }
+
+    /**
+     * Returns the time of closest approach, rounded to the nearest millisecond.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getTimeMillisecond() {
+        return Math.round(timeMillisecond);
+    }
+
+    /**
+     * Returns the time of closest approach with its full precision.
+     *
+     * @return the fractional milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public double getFractionalTimeMillisecond() {
+        return timeMillisecond;
+    }
+
+    /**
+     * Returns the miss distance.
+     *
+     * @return the distance in kilometers
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the relative speed of the satellites at closest approach.
+     *
+     * @return the relative speed in kilometers per second
+     */
+    public double getRelativeSpeed() {
+        return relativeSpeed;
+    }
+
+    /**
+     * Returns a string describing the satellite numbers, time and miss distance.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("CloseApproach[%d, %d, t=%d, distance=%.3f km, speed=%.3f km/s]",
+                             primary.getSatelliteNumber(), secondary.getSatelliteNumber(),
+                             getTimeMillisecond(), distance, relativeSpeed);
+    }
+
+}
@@ -0,0 +1,368 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A catalog of TLEs keyed by satellite number, holding at most one TLE per satellite, for many
+ * threads reading while a few threads update.
+ * <p>
+ * Reads never block: satellite numbers from 1 to 99,999 index an {@link AtomicReferenceArray}
+ * directly, so a lookup is one volatile array load, and larger numbers go to a {@link
+ * ConcurrentHashMap}. Updates lock one of a fixed set of stripes chosen by satellite number, so
+ * updates of different satellites rarely contend and never delay a read. {@link #putIfNewer(TLE)}
+ * keeps the newest element set of each satellite, as in {@link SatelliteCatalog}: the one with
+ * the latest epoch, or with the highest element set number if the epochs are the same.
+ * <p>
+ * Single reads see each satellite's latest TLE but not a consistent view of several satellites.
+ * {@link #snapshot()} takes every stripe for the time of one copy, delaying updates but not
+ * reads, so the copy reflects one instant of the catalog.
+ * <p>
+ * Every change is published, while the satellite is locked, to the {@link CatalogChangeFeed}
+ * returned by {@link #getChangeFeed()}, so consumers can subscribe to updates instead of
+ * polling.
+ *
+ * @author Zach Wilson
+ */
+public final class ConcurrentSatelliteCatalog {
+
+    /**
+     * Number of update locks, a power of two.
+     */
+    private static final int STRIPES = 64;
+
+    private final AtomicReferenceArray<TLE> direct =
+            new AtomicReferenceArray<>(SatelliteCatalog.MAX_DIRECT_NUMBER + 1);
+    private final ConcurrentHashMap<Integer, TLE> extended = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+    private final CatalogChangeFeed changes = new CatalogChangeFeed();
+
+    /**
+     * Constructs a new, empty <code>ConcurrentSatelliteCatalog</code>.
+     */
+    public ConcurrentSatelliteCatalog() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Constructs a new <code>ConcurrentSatelliteCatalog</code> holding the newest TLE of each
+     * satellite of a collection.
+     *
+     * @param tles the TLEs, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tles</code> is <code>null</code> or contains a
+     * <code>null</code> TLE or one with a satellite number below 1
+     */
+    public ConcurrentSatelliteCatalog(Collection<TLE> tles) {
+        this();
+        if (tles == null) {
+            throw new IllegalArgumentException("TLEs cannot be null");
+        }
+        for (TLE tle : tles) {
+            putIfNewer(tle);
+        }
+    }
+
+    /**
+     * Returns the number of satellites in the catalog.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Determines whether the catalog is empty.
+     *
+     * @return <code>true</code> if there is no TLE
+     */
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    /**
+     * Returns the TLE of a satellite, without blocking.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the TLE, or <code>null</code> if the satellite is not in the catalog
+     */
+    public TLE get(int satelliteNumber) {
+        if (satelliteNumber >= 0 && satelliteNumber <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+            return direct.get(satelliteNumber);
+        }
+        return extended.isEmpty() ? null : extended.get(satelliteNumber);
+    }
+
+    /**
+     * Determines whether a satellite is in the catalog.
+     *
+     * @param satelliteNumber the satellite number
+     * @return <code>true</code> if the catalog holds a TLE of the satellite
+     */
+    public boolean contains(int satelliteNumber) {
+        return get(satelliteNumber) != null;
+    }
+
+    /**
+     * Stores a TLE, replacing any TLE of the same satellite whatever its epoch.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return the replaced TLE, or <code>null</code> if the satellite was not in the catalog
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    public TLE put(TLE tle) {
+        int number = checkTLE(tle);
+        ReentrantLock lock = lock(number);
+        lock.lock();
+        try {
+            TLE previous = set(number, tle);
+            accepted.increment();
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a TLE unless the catalog already holds a TLE of the same satellite that is as new or
+     * newer.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return <code>true</code> if the TLE was stored
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    public boolean putIfNewer(TLE tle) {
+        int number = checkTLE(tle);
+        // Reject stale updates without locking; the check is repeated under the lock
+        TLE current = get(number);
+        if (current != null && !SatelliteCatalog.isNewer(tle, current)) {
+            rejected.increment();
+            return false;
+        }
+        ReentrantLock lock = lock(number);
+        lock.lock();
+        try {
+            current = get(number);
+            if (current != null && !SatelliteCatalog.isNewer(tle, current)) {
+                rejected.increment();
+                return false;
+            }
+            set(number, tle);
+            accepted.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the TLE of a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the removed TLE, or <code>null</code> if the satellite was not in the catalog
+     */
+    public TLE remove(int satelliteNumber) {
+        if (satelliteNumber < 0) {
+            return null;
+        }
+        ReentrantLock lock = lock(satelliteNumber);
+        lock.lock();
+        try {
+            TLE previous = set(satelliteNumber, null);
+            if (previous != null) {
+                removed.increment();
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every TLE, as one update.
+     */
+    public void clear() {
+        lockAll();
+        try {
+            for (int number = 1; number <= SatelliteCatalog.MAX_DIRECT_NUMBER; number++) {
+                TLE previous = direct.getAndSet(number, null);
+                if (previous != null) {
+                    removed.increment();
+                    changes.publish(number, previous, null);
+                }
+            }
+            for (Map.Entry<Integer, TLE> entry : extended.entrySet()) {
+                removed.increment();
+                changes.publish(entry.getKey(), entry.getValue(), null);
+            }
+            extended.clear();
+            size.set(0);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Returns a copy of the catalog as of one instant. Updates wait for the copy, which takes
+     * about as long as a scan of the direct array; reads do not.
+     *
+     * @return a new catalog
+     */
+    public SatelliteCatalog snapshot() {
+        SatelliteCatalog copy = new SatelliteCatalog();
+        lockAll();
+        try {
+            for (int number = 1; number <= SatelliteCatalog.MAX_DIRECT_NUMBER; number++) {
+                TLE tle = direct.get(number);
+                if (tle != null) {
+                    copy.put(tle);
+                }
+            }
+            for (TLE tle : extended.values()) {
+                copy.put(tle);
+            }
+        } finally {
+            unlockAll();
+        }
+        return copy;
+    }
+
+    /**
+     * Visits every TLE of a snapshot of the catalog, in the order of {@link
+     * SatelliteCatalog#forEach(SatelliteCatalog.Visitor)}. Updates made while visiting are not
+     * seen.
+     *
+     * @param visitor the visitor, not <code>null</code>
+     * @throws IllegalArgumentException if <code>visitor</code> is <code>null</code>
+     */
+    public void forEach(SatelliteCatalog.Visitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+        snapshot().forEach(visitor);
+    }
+
+    /**
+     * Returns the number of TLEs stored by {@link #put(TLE)} and {@link #putIfNewer(TLE)}.
+     *
+     * @return the count
+     */
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    /**
+     * Returns the number of TLEs rejected by {@link #putIfNewer(TLE)} for not being newer.
+     *
+     * @return the count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of TLEs removed by {@link #remove(int)} and {@link #clear()}.
+     *
+     * @return the count
+     */
+    public long getRemovedCount() {
+        return removed.sum();
+    }
+
+    /**
+     * Returns the feed to which every change of the catalog is published.
+     *
+     * @return the feed
+     */
+    public CatalogChangeFeed getChangeFeed() {
+        return changes;
+    }
+
+    /**
+     * Stores or removes the TLE of a satellite while holding its lock, and publishes the change.
+     *
+     * @param number the satellite number
+     * @param tle the TLE, or <code>null</code> to remove it
+     * @return the previous TLE
+     */
+    private TLE set(int number, TLE tle) {
+        TLE previous;
+        if (number <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+            previous = direct.getAndSet(number, tle);
+        } else if (tle == null) {
+            previous = extended.remove(number);
+        } else {
+            previous = extended.put(number, tle);
+        }
+        if (previous == null && tle != null) {
+            size.incrementAndGet();
+        } else if (previous != null && tle == null) {
+            size.decrementAndGet();
+        }
+        if (previous != tle) {
+            changes.publish(number, previous, tle);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns the update lock of a satellite.
+     *
+     * @param number the satellite number
+     * @return the lock
+     */
+    private ReentrantLock lock(int number) {
+        return locks[SatelliteCatalog.mix(number) & (STRIPES - 1)];
+    }
+
+    /**
+     * Takes every update lock, in order.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases every update lock.
+     */
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * Checks a TLE before storing it.
+     *
+     * @param tle the TLE
+     * @return its satellite number
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    private static int checkTLE(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        int number = tle.getSatelliteNumber();
+        if (number < 1) {
+            throw new IllegalArgumentException("Satellite number must be positive: " + number);
+        }
+        return number;
+    }
+
+}
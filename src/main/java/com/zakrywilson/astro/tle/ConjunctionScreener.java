@@ -0,0 +1,492 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Screens a catalog of {@link TLE}s against itself for close approaches over a time window.
+ * <p>
+ * The catalog is propagated at a coarse time step. At every step the positions are binned into a
+ * {@link SpatialHashGrid} whose cell size is the <i>screening distance</i>, and only satellites in
+ * the same or adjacent cells are compared, which keeps the work near-linear in the size of the
+ * catalog instead of quadratic. The screening distance is the miss distance threshold padded by
+ * how far two satellites can close on each other in half a step, so that an approach occurring
+ * between two samples is not missed.
+ * <p>
+ * For every pair within the screening distance, the time and distance of closest approach are
+ * estimated from the relative position and velocity (straight-line relative motion, limited to
+ * half a step either side of the sample). Consecutive steps of the same pair are merged into a
+ * single encounter, looked up by the pair of rows packed into a <code>long</code> in an
+ * open-addressing table so that no key is boxed, and encounters whose estimated miss distance is within the threshold plus a
+ * margin for the curvature of the relative motion are returned as candidates. Candidates should be
+ * refined before being reported as conjunctions.
+ * <p>
+ * An {@link OrbitPrefilter} may be given to skip the pairs whose orbits can never meet.
+ * Propagation and neighbor searches run on all available processors. This class is thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class ConjunctionScreener {
+
+    /**
+     * Default maximum relative speed (km/s) of two satellites, sufficient for a head-on encounter
+     * between two circular low earth orbits.
+     */
+    public static final double DEFAULT_MAX_RELATIVE_SPEED = 16.0;
+
+    /**
+     * Upper bound on the relative acceleration (km/s<sup>2</sup>) of two satellites: twice the
+     * gravitational acceleration at the surface of the Earth.
+     */
+    private static final double MAX_RELATIVE_ACCELERATION = 2.0 * 9.80665e-3;
+
+    /**
+     * Number of satellites searched for neighbors by one task.
+     */
+    private static final int CHUNK_SIZE = 512;
+
+    private final double threshold;
+    private final long stepMillisecond;
+    private final double maxRelativeSpeed;
+    private final double screeningDistance;
+    private final double candidateDistance;
+
+    /**
+     * Constructs a new <code>ConjunctionScreener</code> with the default maximum relative speed.
+     *
+     * @param threshold the miss distance threshold in kilometers
+     * @param stepMillisecond the coarse propagation step in milliseconds
+     * @throws IllegalArgumentException if <code>threshold</code> or <code>stepMillisecond</code>
+     * are not positive
+     */
+    public ConjunctionScreener(double threshold, long stepMillisecond) {
+        this(threshold, stepMillisecond, DEFAULT_MAX_RELATIVE_SPEED);
+    }
+
+    /**
+     * Constructs a new <code>ConjunctionScreener</code>.
+     *
+     * @param threshold the miss distance threshold in kilometers
+     * @param stepMillisecond the coarse propagation step in milliseconds
+     * @param maxRelativeSpeed the maximum relative speed of two satellites in kilometers per second
+     * @throws IllegalArgumentException if any of the values are not positive
+     */
+    public ConjunctionScreener(double threshold, long stepMillisecond, double maxRelativeSpeed) {
+        if (!(threshold > 0.0)) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        if (stepMillisecond <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + stepMillisecond);
+        }
+        if (!(maxRelativeSpeed > 0.0)) {
+            throw new IllegalArgumentException(
+                    "Maximum relative speed must be positive: " + maxRelativeSpeed);
+        }
+        this.threshold = threshold;
+        this.stepMillisecond = stepMillisecond;
+        this.maxRelativeSpeed = maxRelativeSpeed;
+
+        double halfStep = stepMillisecond / 2000.0;
+        this.screeningDistance = threshold + maxRelativeSpeed * halfStep;
+        this.candidateDistance = threshold + 0.5 * MAX_RELATIVE_ACCELERATION * halfStep * halfStep;
+    }
+
+    /**
+     * Returns the miss distance threshold.
+     *
+     * @return the threshold in kilometers
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the coarse propagation step.
+     *
+     * @return the step in milliseconds
+     */
+    public long getStepMillisecond() {
+        return stepMillisecond;
+    }
+
+    /**
+     * Returns the maximum relative speed assumed between two satellites.
+     *
+     * @return the speed in kilometers per second
+     */
+    public double getMaxRelativeSpeed() {
+        return maxRelativeSpeed;
+    }
+
+    /**
+     * Returns the screening distance, which is also the cell size of the spatial hash grid.
+     *
+     * @return the screening distance in kilometers
+     */
+    public double getScreeningDistance() {
+        return screeningDistance;
+    }
+
+    /**
+     * Screens every pair of TLEs in the catalog over a time window.
+     *
+     * @param catalog the TLEs to be screened, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window (inclusive)
+     * @return the candidate close approaches ordered by time, one per encounter
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or contains a
+     * <code>null</code> TLE, or if the window ends before it starts
+     */
+    public List<CloseApproach> screen(List<TLE> catalog, long startMillisecond,
+                                      long endMillisecond) {
+        return screen(new CatalogPropagator(catalog), startMillisecond, endMillisecond);
+    }
+
+    /**
+     * Screens every pair of TLEs of an initialized catalog propagator over a time window.
+     *
+     * @param propagator the catalog propagator, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window (inclusive)
+     * @return the candidate close approaches ordered by time, one per encounter
+     * @throws IllegalArgumentException if <code>propagator</code> is <code>null</code> or the
+     * window ends before it starts
+     */
+    public List<CloseApproach> screen(CatalogPropagator propagator, long startMillisecond,
+                                      long endMillisecond) {
+        return screen(propagator, startMillisecond, endMillisecond, null);
+    }
+
+    /**
+     * Screens the pairs of TLEs of an initialized catalog propagator that pass a prefilter over a
+     * time window. Pairs rejected by the prefilter are skipped when found in neighboring cells.
+     *
+     * @param propagator the catalog propagator, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window (inclusive)
+     * @param prefilter the prefilter built over the same catalog and window, with a pad of at least
+     * the threshold, or <code>null</code> to screen every pair
+     * @return the candidate close approaches ordered by time, one per encounter
+     * @throws IllegalArgumentException if <code>propagator</code> is <code>null</code>, the window
+     * ends before it starts or the prefilter does not have one row per TLE
+     */
+    public List<CloseApproach> screen(CatalogPropagator propagator, long startMillisecond,
+                                      long endMillisecond, OrbitPrefilter prefilter) {
+        if (propagator == null) {
+            throw new IllegalArgumentException("Catalog propagator cannot be null");
+        }
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Window ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+        if (prefilter != null && prefilter.size() != propagator.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "Prefilter must have %d rows, received %d", propagator.size(),
+                    prefilter.size()));
+        }
+
+        int n = propagator.size();
+        StateVectors states = new StateVectors(n);
+        SpatialHashGrid grid = new SpatialHashGrid(screeningDistance);
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        PairBuffer[] buffers = new PairBuffer[chunks];
+        for (int c = 0; c < chunks; c++) {
+            buffers[c] = new PairBuffer();
+        }
+
+        EncounterMap open = new EncounterMap();
+        List<Encounter> closed = new ArrayList<>();
+        List<CloseApproach> results = new ArrayList<>();
+        List<TLE> tles = propagator.getCatalog();
+
+        long step = 0;
+        for (long t = startMillisecond; t <= endMillisecond; t += stepMillisecond, step++) {
+            propagator.propagate(t, states);
+            grid.build(states.x, states.y, states.z, n);
+            IntStream.range(0, chunks).parallel()
+                     .forEach(c -> searchChunk(c, n, states, grid, prefilter, buffers[c]));
+
+            // Merge the pairs into encounters on the calling thread
+            for (PairBuffer buffer : buffers) {
+                for (int k = 0; k < buffer.size; k++) {
+                    long key = ((long) buffer.first[k] << 32) | buffer.second[k];
+                    long time = t + Math.round(buffer.offset[k] * 1000.0);
+                    Encounter encounter = open.get(key);
+                    if (encounter == null) {
+                        open.add(key, new Encounter(buffer.first[k], buffer.second[k], step, time,
+                                                    buffer.distance[k], buffer.speed[k]));
+                    } else {
+                        encounter.update(step, time, buffer.distance[k], buffer.speed[k]);
+                    }
+                }
+                buffer.size = 0;
+            }
+
+            // Close the encounters that were not seen at this step
+            open.removeUnseen(step, closed);
+            for (Encounter encounter : closed) {
+                addCandidate(encounter, tles, results);
+            }
+            closed.clear();
+            if (endMillisecond - t < stepMillisecond) {
+                break; // Prevent overflow at the end of the time line
+            }
+        }
+        open.removeUnseen(-1L, closed); // No encounter was last seen at step -1
+        for (Encounter encounter : closed) {
+            addCandidate(encounter, tles, results);
+        }
+
+        Collections.sort(results, Comparator.comparingLong(CloseApproach::getTimeMillisecond));
+        return results;
+    }
+
+    /**
+     * Finds the pairs within the screening distance for one chunk of satellites.
+     *
+     * @param chunk the chunk index
+     * @param n the number of satellites
+     * @param states the positions and velocities of the satellites
+     * @param grid the grid built over the positions
+     * @param prefilter the prefilter, or <code>null</code>
+     * @param buffer the buffer receiving the pairs
+     */
+    private void searchChunk(int chunk, int n, StateVectors states, SpatialHashGrid grid,
+                             OrbitPrefilter prefilter, PairBuffer buffer) {
+        NeighborSearch search = new NeighborSearch(states, prefilter, buffer);
+        int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            search.first = i;
+            grid.forEachNeighbor(states.x[i], states.y[i], states.z[i], search);
+        }
+    }
+
+    /**
+     * Adds an encounter to the results if its estimated miss distance is close enough.
+     *
+     * @param encounter the encounter
+     * @param tles the TLEs in row order
+     * @param results the list receiving the candidates
+     */
+    private void addCandidate(Encounter encounter, List<TLE> tles, List<CloseApproach> results) {
+        if (encounter.distance <= candidateDistance) {
+            results.add(new CloseApproach(tles.get(encounter.first), tles.get(encounter.second),
+                                          encounter.time, encounter.distance, encounter.speed));
+        }
+    }
+
+    /**
+     * Compares one satellite with its grid neighbors. Only pairs <code>(i, j)</code> with
+     * <code>i &lt; j</code> are recorded so that each pair is found once.
+     */
+    private final class NeighborSearch implements SpatialHashGrid.Visitor {
+
+        private final StateVectors states;
+        private final OrbitPrefilter prefilter;
+        private final PairBuffer buffer;
+        private final double halfStep = stepMillisecond / 2000.0;
+        private final double screeningDistanceSquared = screeningDistance * screeningDistance;
+        private int first;
+
+        private NeighborSearch(StateVectors states, OrbitPrefilter prefilter, PairBuffer buffer) {
+            this.states = states;
+            this.prefilter = prefilter;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void visit(int j) {
+            if (j <= first) {
+                return;
+            }
+            double dx = states.x[j] - states.x[first];
+            double dy = states.y[j] - states.y[first];
+            double dz = states.z[j] - states.z[first];
+            if (dx * dx + dy * dy + dz * dz > screeningDistanceSquared) {
+                return;
+            }
+            if (prefilter != null && !prefilter.mayConflict(first, j)) {
+                return;
+            }
+
+            // Straight-line estimate of the closest approach around this sample
+            double dvx = states.vx[j] - states.vx[first];
+            double dvy = states.vy[j] - states.vy[first];
+            double dvz = states.vz[j] - states.vz[first];
+            double speedSquared = dvx * dvx + dvy * dvy + dvz * dvz;
+            double tau = 0.0;
+            if (speedSquared > 0.0) {
+                tau = -(dx * dvx + dy * dvy + dz * dvz) / speedSquared;
+                tau = Math.max(-halfStep, Math.min(halfStep, tau));
+            }
+            double mx = dx + dvx * tau;
+            double my = dy + dvy * tau;
+            double mz = dz + dvz * tau;
+            buffer.add(first, j, tau, Math.sqrt(mx * mx + my * my + mz * mz),
+                       Math.sqrt(speedSquared));
+        }
+
+    }
+
+    /**
+     * The closest sample so far of a pair over consecutive steps.
+     */
+    private static final class Encounter {
+
+        private final int first;
+        private final int second;
+        private long lastStep;
+        private long time;
+        private double distance;
+        private double speed;
+
+        private Encounter(int first, int second, long step, long time, double distance,
+                          double speed) {
+            this.first = first;
+            this.second = second;
+            this.lastStep = step;
+            this.time = time;
+            this.distance = distance;
+            this.speed = speed;
+        }
+
+        private void update(long step, long time, double distance, double speed) {
+            this.lastStep = step;
+            if (distance < this.distance) {
+                this.time = time;
+                this.distance = distance;
+                this.speed = speed;
+            }
+        }
+
+    }
+
+    /**
+     * The open encounters keyed by their pair of rows, <code>(i &lt;&lt; 32) | j</code> with
+     * <code>i &lt; j</code>, with open addressing and linear probing. Zero marks an empty slot, as
+     * no pair has that key. The table is kept at most half full.
+     */
+    private static final class EncounterMap {
+
+        private long[] keys = new long[64];
+        private Encounter[] values = new Encounter[64];
+        private long[] spareKeys = new long[64];
+        private Encounter[] spareValues = new Encounter[64];
+        private int size;
+
+        private Encounter get(long key) {
+            int slot = find(keys, key);
+            return keys[slot] == key ? values[slot] : null;
+        }
+
+        private void add(long key, Encounter encounter) {
+            int slot = find(keys, key);
+            keys[slot] = key;
+            values[slot] = encounter;
+            size++;
+            if (2 * size > keys.length) {
+                long[] oldKeys = keys;
+                Encounter[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new Encounter[oldKeys.length * 2];
+                spareKeys = new long[keys.length];
+                spareValues = new Encounter[keys.length];
+                for (int k = 0; k < oldKeys.length; k++) {
+                    if (oldKeys[k] != 0L) {
+                        int s = find(keys, oldKeys[k]);
+                        keys[s] = oldKeys[k];
+                        values[s] = oldValues[k];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes the encounters last seen before a step, rehashing the others into the spare
+         * table, which then becomes the table.
+         *
+         * @param step the step
+         * @param closed the list receiving the removed encounters
+         */
+        private void removeUnseen(long step, List<Encounter> closed) {
+            if (size == 0) {
+                return;
+            }
+            long[] table = spareKeys;
+            Encounter[] tableValues = spareValues;
+            size = 0;
+            for (int k = 0; k < keys.length; k++) {
+                long key = keys[k];
+                if (key == 0L) {
+                    continue;
+                }
+                Encounter encounter = values[k];
+                if (encounter.lastStep == step) {
+                    int slot = find(table, key);
+                    table[slot] = key;
+                    tableValues[slot] = encounter;
+                    size++;
+                } else {
+                    closed.add(encounter);
+                }
+                keys[k] = 0L;
+                values[k] = null;
+            }
+            spareKeys = keys;
+            spareValues = values;
+            keys = table;
+            values = tableValues;
+        }
+
+        private static int find(long[] table, long key) {
+            int mask = table.length - 1;
+            int slot = (int) TLEFingerprint.mix(key) & mask;
+            while (table[slot] != 0L && table[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+    }
+
+    /**
+     * A growable columnar buffer of the pairs found by one task, reused between steps.
+     */
+    private static final class PairBuffer {
+
+        private int size;
+        private int[] first = new int[16];
+        private int[] second = new int[16];
+        private double[] offset = new double[16];
+        private double[] distance = new double[16];
+        private double[] speed = new double[16];
+
+        private void add(int i, int j, double offsetSeconds, double missDistance,
+                         double relativeSpeed) {
+            if (size == first.length) {
+                int capacity = size * 2;
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                offset = Arrays.copyOf(offset, capacity);
+                distance = Arrays.copyOf(distance, capacity);
+                speed = Arrays.copyOf(speed, capacity);
+            }
+            first[size] = i;
+            second[size] = j;
+            offset[size] = offsetSeconds;
+            distance[size] = missDistance;
+            speed[size] = relativeSpeed;
+            size++;
+        }
+
+    }
+
+}
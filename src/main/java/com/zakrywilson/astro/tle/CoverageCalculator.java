@@ -0,0 +1,421 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Computes the accesses of satellites to regions of interest on the Earth: the intervals during
+ * which some point of a region sees a satellite above a minimum elevation.
+ * <p>
+ * A satellite at geocentric radius <code>r</code> is seen above the elevation <code>el</code> from
+ * the points of the Earth within the footprint half-angle <code>acos(R cos(el) / r) - el</code> of
+ * its sub-satellite point, the Earth being a sphere of its equatorial radius. The satellite
+ * accesses a region while the angular distance from its sub-satellite point to the region is under
+ * that half-angle.
+ * <p>
+ * Most of the time a satellite is far from any one region, so the search works like that of
+ * {@link PassPredictor}. The largest footprint, reached at apogee, bounds how close the
+ * sub-satellite point must come before an access can start, and that distance changes no faster
+ * than the angular rate of the satellite at perigee plus the rotation rate of the Earth, so the
+ * search skips ahead by the time needed to close the gap. The distance to a region is first
+ * bounded with its bounding cap, and the exact geometry of the region is only evaluated once the
+ * sub-satellite point is near. Close to the region the distance is sampled at the fine step,
+ * boundaries are solved with Brent's method, and accesses shorter than the step are caught by
+ * looking for a local minimum of the sampled distances. Before any propagation, satellites whose
+ * ground track never reaches the latitudes of a region are dropped.
+ * <p>
+ * Catalogs are computed in parallel, one task per satellite. This class is immutable and
+ * thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class CoverageCalculator {
+
+    /**
+     * Default step used to sample the distance near a region: 30 seconds.
+     */
+    public static final long DEFAULT_STEP_MILLISECOND = 30000L;
+
+    /**
+     * Default tolerance on the start and end times: one millisecond.
+     */
+    public static final double DEFAULT_TOLERANCE_MILLISECOND = 1.0;
+
+    /**
+     * Margin added to the apogee radius in kilometers, covering the short-period variations that
+     * are not part of the mean elements.
+     */
+    private static final double APOGEE_MARGIN = 50.0;
+
+    /**
+     * Margin added to the highest latitude of the ground track, covering the short-period
+     * variations of the inclination.
+     */
+    private static final double LATITUDE_MARGIN = Math.toRadians(0.5);
+
+    /**
+     * Factor applied to the bound on the angular rate, covering perturbations of the orbit.
+     */
+    private static final double RATE_MARGIN = 1.05;
+
+    /**
+     * Inverse of the golden ratio.
+     */
+    private static final double GOLDEN = (Math.sqrt(5.0) - 1.0) / 2.0;
+
+    private final double minimumElevation;
+    private final long stepMillisecond;
+    private final double toleranceMillisecond;
+
+    /**
+     * Constructs a new <code>CoverageCalculator</code> with the default step and tolerance.
+     *
+     * @param minimumElevation the elevation above which a point sees a satellite, in degrees (0
+     * to 90)
+     * @throws IllegalArgumentException if <code>minimumElevation</code> is out of range
+     */
+    public CoverageCalculator(double minimumElevation) {
+        this(minimumElevation, DEFAULT_STEP_MILLISECOND, DEFAULT_TOLERANCE_MILLISECOND);
+    }
+
+    /**
+     * Constructs a new <code>CoverageCalculator</code>.
+     *
+     * @param minimumElevation the elevation above which a point sees a satellite, in degrees (0
+     * to 90)
+     * @param stepMillisecond the step used to sample the distance near a region
+     * @param toleranceMillisecond the tolerance on the start and end times
+     * @throws IllegalArgumentException if <code>minimumElevation</code> is out of range, or the
+     * step or tolerance are not positive
+     */
+    public CoverageCalculator(double minimumElevation, long stepMillisecond,
+                              double toleranceMillisecond) {
+        if (!(minimumElevation >= 0.0 && minimumElevation < 90.0)) {
+            throw new IllegalArgumentException(
+                    "Minimum elevation out of range (0 to 90): " + minimumElevation);
+        }
+        if (stepMillisecond <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + stepMillisecond);
+        }
+        if (!(toleranceMillisecond > 0.0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + toleranceMillisecond);
+        }
+        this.minimumElevation = Math.toRadians(minimumElevation);
+        this.stepMillisecond = stepMillisecond;
+        this.toleranceMillisecond = toleranceMillisecond;
+    }
+
+    /**
+     * Returns the elevation above which a point sees a satellite.
+     *
+     * @return the minimum elevation in degrees
+     */
+    public double getMinimumElevation() {
+        return Math.toDegrees(minimumElevation);
+    }
+
+    /**
+     * Returns the step used to sample the distance near a region.
+     *
+     * @return the step in milliseconds
+     */
+    public long getStepMillisecond() {
+        return stepMillisecond;
+    }
+
+    /**
+     * Returns the tolerance on the start and end times.
+     *
+     * @return the tolerance in milliseconds
+     */
+    public double getToleranceMillisecond() {
+        return toleranceMillisecond;
+    }
+
+    /**
+     * Computes the accesses of one satellite to one region.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param region the region of interest, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return the accesses in order of start time, empty if the TLE cannot be propagated
+     * @throws IllegalArgumentException if <code>tle</code> or <code>region</code> are
+     * <code>null</code>, or the window ends before it starts
+     */
+    public List<Access> compute(TLE tle, Region region, long startMillisecond,
+                                long endMillisecond) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (region == null) {
+            throw new IllegalArgumentException("Region cannot be null");
+        }
+        checkWindow(startMillisecond, endMillisecond);
+        SGP4Propagator propagator;
+        try {
+            propagator = new SGP4Propagator(tle);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<>(); // Elements cannot be propagated
+        }
+        return new Search(propagator).run(new Region[] {region}, startMillisecond, endMillisecond);
+    }
+
+    /**
+     * Computes the accesses of a catalog to several regions, in parallel.
+     *
+     * @param catalog the satellites, not <code>null</code>
+     * @param regions the regions of interest, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return the accesses of each satellite of the catalog, in the order of the catalog, each
+     * list in order of start time
+     * @throws IllegalArgumentException if <code>catalog</code> or <code>regions</code> are
+     * <code>null</code>, or the window ends before it starts
+     */
+    public List<List<Access>> compute(List<TLE> catalog, List<Region> regions,
+                                      long startMillisecond, long endMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        return compute(new CatalogPropagator(catalog), regions, startMillisecond, endMillisecond);
+    }
+
+    /**
+     * Computes the accesses of an initialized catalog to several regions, in parallel.
+     *
+     * @param catalog the catalog propagator, not <code>null</code>
+     * @param regions the regions of interest, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return the accesses of each satellite of the catalog, in the order of the catalog, each
+     * list in order of start time
+     * @throws IllegalArgumentException if <code>catalog</code> or <code>regions</code> are
+     * <code>null</code>, or the window ends before it starts
+     */
+    public List<List<Access>> compute(CatalogPropagator catalog, List<Region> regions,
+                                      long startMillisecond, long endMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (regions == null) {
+            throw new IllegalArgumentException("Regions cannot be null");
+        }
+        checkWindow(startMillisecond, endMillisecond);
+        Region[] areas = regions.toArray(new Region[regions.size()]);
+        for (Region area : areas) {
+            if (area == null) {
+                throw new IllegalArgumentException("Regions cannot contain null");
+            }
+        }
+        return IntStream.range(0, catalog.size())
+                        .parallel()
+                        .mapToObj(i -> {
+                            Propagator propagator = catalog.getPropagator(i);
+                            if (propagator == null) {
+                                return new ArrayList<Access>();
+                            }
+                            return new Search(propagator).run(areas, startMillisecond,
+                                                              endMillisecond);
+                        })
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks that a window does not end before it starts.
+     *
+     * @param startMillisecond the start of the window
+     * @param endMillisecond the end of the window
+     * @throws IllegalArgumentException if the window ends before it starts
+     */
+    private static void checkWindow(long startMillisecond, long endMillisecond) {
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Window ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+    }
+
+    /**
+     * Searches the accesses of one satellite, reusing one state buffer.
+     */
+    private final class Search {
+
+        private final Propagator propagator;
+        private final double[] state = new double[6];
+        private final double maximumFootprint;
+        private final double maximumRate;
+        private final double maximumLatitude;
+        private Region region;
+        private double distance;
+
+        private Search(Propagator propagator) {
+            this.propagator = propagator;
+
+            TLE tle = propagator.getTLE();
+            OrbitalProperties properties = tle.getOrbitalProperties();
+            double e = tle.getEccentricity();
+            double n = TWO_PI / (properties.getPeriod() * 60.0);
+            this.maximumFootprint = footprint(properties.getApogeeRadius() + APOGEE_MARGIN);
+            double perigeeRate = n * (1.0 + e) * (1.0 + e) / Math.pow(1.0 - e * e, 1.5);
+            this.maximumRate = RATE_MARGIN * (perigeeRate + ROTATION_RATE);
+            double inclination = Math.toRadians(tle.getInclination());
+            this.maximumLatitude = Math.min(inclination, Math.PI - inclination) + LATITUDE_MARGIN;
+        }
+
+        /**
+         * Returns the accesses to several regions within a window, in order of start time.
+         */
+        private List<Access> run(Region[] regions, double start, double end) {
+            List<Access> accesses = new ArrayList<>();
+            for (Region area : regions) {
+                // The ground track never comes within the footprint of the region
+                if (area.minimumLatitude() - maximumFootprint > maximumLatitude) {
+                    continue;
+                }
+                region = area;
+                run(start, end, accesses);
+            }
+            accesses.sort(Comparator.comparingDouble(Access::getStartMillisecond));
+            return accesses;
+        }
+
+        /**
+         * Adds the accesses to the current region within a window.
+         */
+        private void run(double start, double end, List<Access> accesses) {
+            double t = start;
+            double margin = margin(t);
+            double gapDistance = distance;
+            double previous = Double.NaN;
+            double previousTime = Double.NaN;
+            double entry = margin <= 0.0 ? start : Double.NaN;
+
+            while (t < end && !Double.isNaN(margin)) {
+                double dt = stepMillisecond;
+                if (Double.isNaN(entry) && gapDistance > maximumFootprint) {
+                    // Cannot reach the region before the gap to the largest footprint is closed.
+                    // Stopping one step short leaves a fine sample ahead of any access, so that
+                    // the local minimum of a short access can still be bracketed.
+                    double gap = 1000.0 * (gapDistance - maximumFootprint) / maximumRate;
+                    if (gap > 2.0 * dt) {
+                        dt = gap - dt;
+                        previous = Double.NaN;
+                    }
+                }
+                double next = Math.min(end, t + dt);
+                double nextMargin = margin(next);
+                if (Double.isNaN(nextMargin)) {
+                    break;
+                }
+                double nextDistance = distance;
+
+                if (Double.isNaN(entry)) {
+                    if (nextMargin <= 0.0) {
+                        entry = crossing(t, next, margin, nextMargin);
+                    } else if (!Double.isNaN(previous) && margin < previous
+                            && margin < nextMargin) {
+                        // Local minimum outside the footprint: look for a short access in between
+                        double closest = closest(previousTime, next);
+                        double closestMargin = margin(closest);
+                        if (closestMargin <= 0.0) {
+                            double s = crossing(previousTime, closest, previous, closestMargin);
+                            double f = crossing(closest, next, closestMargin, nextMargin);
+                            accesses.add(new Access(propagator.getTLE(), region, s, f));
+                        }
+                    }
+                } else if (nextMargin > 0.0) {
+                    double exit = crossing(t, next, margin, nextMargin);
+                    accesses.add(new Access(propagator.getTLE(), region, entry, exit));
+                    entry = Double.NaN;
+                }
+
+                if (dt == stepMillisecond) {
+                    previous = margin;
+                    previousTime = t;
+                }
+                t = next;
+                margin = nextMargin;
+                gapDistance = nextDistance;
+            }
+            if (!Double.isNaN(entry)) {
+                // Still in access at the end of the window
+                accesses.add(new Access(propagator.getTLE(), region, entry, t));
+            }
+        }
+
+        /**
+         * Returns the time at which the margin changes sign between two times.
+         */
+        private double crossing(double a, double b, double fa, double fb) {
+            return RootFinder.brent(this::margin, a, b, fa, fb, toleranceMillisecond);
+        }
+
+        /**
+         * Returns the time of minimum margin between two times with a golden-section search.
+         */
+        private double closest(double a, double b) {
+            double c = b - GOLDEN * (b - a);
+            double d = a + GOLDEN * (b - a);
+            double fc = margin(c);
+            double fd = margin(d);
+            while (b - a > toleranceMillisecond) {
+                if (fc < fd) {
+                    b = d;
+                    d = c;
+                    fd = fc;
+                    c = b - GOLDEN * (b - a);
+                    fc = margin(c);
+                } else {
+                    a = c;
+                    c = d;
+                    fc = fd;
+                    d = a + GOLDEN * (b - a);
+                    fd = margin(d);
+                }
+            }
+            return 0.5 * (a + b);
+        }
+
+        /**
+         * Returns the angular distance in radians from the sub-satellite point to the current
+         * region minus the footprint half-angle, negative or zero during an access, or
+         * <code>NaN</code> if the satellite cannot be propagated. Records the distance to the
+         * region, which beyond the largest footprint may only be a lower bound.
+         */
+        private double margin(double timeMillisecond) {
+            if (!propagator.propagateMinutes(propagator.minutesSinceEpoch(timeMillisecond), state,
+                                             0)) {
+                distance = Double.NaN;
+                return Double.NaN;
+            }
+            double gmst = SiderealTime.gmst(timeMillisecond);
+            double cos = Math.cos(gmst);
+            double sin = Math.sin(gmst);
+            double x = cos * state[0] + sin * state[1];
+            double y = -sin * state[0] + cos * state[1];
+            double z = state[2];
+            double r = Math.sqrt(x * x + y * y + z * z);
+            distance = region.distance(x / r, y / r, z / r, maximumFootprint);
+            return distance - footprint(r);
+        }
+
+        /**
+         * Returns the footprint half-angle of a satellite in radians.
+         */
+        private double footprint(double radius) {
+            double ratio = Math.min(1.0, RADIUS * Math.cos(minimumElevation) / radius);
+            return Math.acos(ratio) - minimumElevation;
+        }
+
+    }
+
+}
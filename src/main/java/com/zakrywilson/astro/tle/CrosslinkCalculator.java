@@ -0,0 +1,321 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Determines which satellites of a set can see each other at one point in time, i.e., whose line
+ * of sight is not blocked by the Earth and is within the maximum range of the links.
+ * <p>
+ * The Earth is modelled as a sphere of its equatorial radius, raised by a grazing altitude that
+ * keeps links out of the denser atmosphere. A line of sight is blocked if the segment between the
+ * two satellites comes closer to the center of the Earth than that radius, which takes a handful
+ * of multiplications per pair. A satellite below the grazing altitude sees nothing.
+ * <p>
+ * {@link #compute(StateVectors, LineOfSightMatrix)} tests every pair and fills a dense matrix,
+ * which suits up to some thousands of satellites. {@link #computeLinks(StateVectors)} builds a
+ * sparse adjacency list instead: the satellites are binned into a {@link SpatialHashGrid} with
+ * cells the size of the maximum range, so that only the pairs in neighboring cells are tested.
+ * Both spread the satellites over all available processors.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class CrosslinkCalculator {
+
+    /**
+     * Default grazing altitude: 100 km, above most of the atmosphere.
+     */
+    public static final double DEFAULT_GRAZING_ALTITUDE = 100.0;
+
+    /**
+     * Number of satellites handled by one task.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    private final double maxRange;
+    private final double grazingAltitude;
+    private final double blockingRadiusSquared;
+
+    /**
+     * Constructs a new <code>CrosslinkCalculator</code> with the default grazing altitude.
+     *
+     * @param maxRange the maximum range of a link in kilometers, possibly infinite
+     * @throws IllegalArgumentException if <code>maxRange</code> is not positive
+     */
+    public CrosslinkCalculator(double maxRange) {
+        this(maxRange, DEFAULT_GRAZING_ALTITUDE);
+    }
+
+    /**
+     * Constructs a new <code>CrosslinkCalculator</code>.
+     *
+     * @param maxRange the maximum range of a link in kilometers, possibly infinite
+     * @param grazingAltitude the lowest altitude in kilometers a line of sight may pass at
+     * @throws IllegalArgumentException if <code>maxRange</code> is not positive or
+     * <code>grazingAltitude</code> is negative or infinite
+     */
+    public CrosslinkCalculator(double maxRange, double grazingAltitude) {
+        if (!(maxRange > 0.0)) {
+            throw new IllegalArgumentException("Maximum range must be positive: " + maxRange);
+        }
+        if (!(grazingAltitude >= 0.0) || Double.isInfinite(grazingAltitude)) {
+            throw new IllegalArgumentException("Grazing altitude must be positive or zero: "
+                                                       + grazingAltitude);
+        }
+        this.maxRange = maxRange;
+        this.grazingAltitude = grazingAltitude;
+        this.blockingRadiusSquared = (RADIUS + grazingAltitude) * (RADIUS + grazingAltitude);
+    }
+
+    /**
+     * Returns the maximum range of a link.
+     *
+     * @return the maximum range in kilometers
+     */
+    public double getMaxRange() {
+        return maxRange;
+    }
+
+    /**
+     * Returns the lowest altitude a line of sight may pass at.
+     *
+     * @return the grazing altitude in kilometers
+     */
+    public double getGrazingAltitude() {
+        return grazingAltitude;
+    }
+
+    /**
+     * Computes the range and visibility of every pair of a catalog at a point in time, in
+     * parallel.
+     *
+     * @param catalog the catalog propagator, not <code>null</code>
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param out the matrix receiving the pairs, not <code>null</code>
+     * @throws IllegalArgumentException if the arguments are <code>null</code> or the size of the
+     * matrix differs from the catalog
+     */
+    public void compute(CatalogPropagator catalog, long epochMillisecond, LineOfSightMatrix out) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        StateVectors states = new StateVectors(catalog.size());
+        catalog.propagate(epochMillisecond, states);
+        compute(states, out);
+    }
+
+    /**
+     * Computes the range and visibility of every pair of satellites, in parallel.
+     *
+     * @param states the states of the satellites at one time, not <code>null</code>
+     * @param out the matrix receiving the pairs, not <code>null</code>
+     * @throws IllegalArgumentException if the arguments are <code>null</code> or their sizes
+     * differ
+     */
+    public void compute(StateVectors states, LineOfSightMatrix out) {
+        if (states == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Line of sight matrix cannot be null");
+        }
+        if (out.size() != states.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "Matrix must have %d rows, received %d", states.size(), out.size()));
+        }
+        IntStream.range(0, states.size()).parallel().forEach(i -> computeRow(i, states, out));
+    }
+
+    /**
+     * Finds the crosslinks of a catalog at a point in time, in parallel.
+     *
+     * @param catalog the catalog propagator, not <code>null</code>
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the crosslinks, one row per TLE of the catalog
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code>
+     */
+    public CrosslinkGraph computeLinks(CatalogPropagator catalog, long epochMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        StateVectors states = new StateVectors(catalog.size());
+        catalog.propagate(epochMillisecond, states);
+        return computeLinks(states);
+    }
+
+    /**
+     * Finds the crosslinks of a set of satellites, in parallel. If the maximum range is infinite,
+     * every pair is tested.
+     *
+     * @param states the states of the satellites at one time, not <code>null</code>
+     * @return the crosslinks, one row per satellite
+     * @throws IllegalArgumentException if <code>states</code> is <code>null</code>
+     */
+    public CrosslinkGraph computeLinks(StateVectors states) {
+        if (states == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        int n = states.size();
+        SpatialHashGrid grid = Double.isInfinite(maxRange) ? null : new SpatialHashGrid(maxRange);
+        if (grid != null) {
+            grid.build(states.x, states.y, states.z, n);
+        }
+
+        // Each chunk lists the links of its own satellites, so every link is found from both ends
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        LinkBuffer[] buffers = new LinkBuffer[chunks];
+        IntStream.range(0, chunks).parallel()
+                 .forEach(c -> buffers[c] = searchChunk(c, n, states, grid));
+
+        int[] offsets = new int[n + 1];
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = total;
+            total += buffers[i / CHUNK_SIZE].degree[i % CHUNK_SIZE];
+        }
+        offsets[n] = total;
+        int[] neighbors = new int[total];
+        double[] ranges = new double[total];
+        for (int c = 0; c < chunks; c++) {
+            LinkBuffer buffer = buffers[c];
+            System.arraycopy(buffer.neighbor, 0, neighbors, offsets[c * CHUNK_SIZE], buffer.size);
+            System.arraycopy(buffer.range, 0, ranges, offsets[c * CHUNK_SIZE], buffer.size);
+        }
+        return new CrosslinkGraph(offsets, neighbors, ranges);
+    }
+
+    /**
+     * Computes the pairs <code>(i, j)</code>, <code>j &gt; i</code>, of one row of the matrix.
+     *
+     * @param i the row
+     * @param states the states of the satellites
+     * @param out the matrix receiving the pairs
+     */
+    private void computeRow(int i, StateVectors states, LineOfSightMatrix out) {
+        double[] x = states.x;
+        double[] y = states.y;
+        double[] z = states.z;
+        double px = x[i];
+        double py = y[i];
+        double pz = z[i];
+        int index = out.rowStart(i);
+        for (int j = i + 1, n = states.size(); j < n; j++, index++) {
+            double dx = x[j] - px;
+            double dy = y[j] - py;
+            double dz = z[j] - pz;
+            double range = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            out.range[index] = range;
+            out.visible[index] = range <= maxRange
+                    && isClear(px, py, pz, dx, dy, dz, blockingRadiusSquared);
+        }
+    }
+
+    /**
+     * Lists the links of one chunk of satellites.
+     *
+     * @param chunk the chunk index
+     * @param n the number of satellites
+     * @param states the states of the satellites
+     * @param grid the grid built over the positions, or <code>null</code> to test every pair
+     * @return the links of the chunk, satellite after satellite
+     */
+    private LinkBuffer searchChunk(int chunk, int n, StateVectors states, SpatialHashGrid grid) {
+        int start = chunk * CHUNK_SIZE;
+        int end = Math.min(n, start + CHUNK_SIZE);
+        LinkBuffer buffer = new LinkBuffer(end - start, states);
+        for (int i = start; i < end; i++) {
+            buffer.first = i;
+            buffer.row = i - start;
+            if (Double.isNaN(states.x[i])) {
+                continue;
+            }
+            if (grid == null) {
+                for (int j = 0; j < n; j++) {
+                    buffer.visit(j);
+                }
+            } else {
+                grid.forEachNeighbor(states.x[i], states.y[i], states.z[i], buffer);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Determines whether the segment from a point to another stays outside a sphere centered on
+     * the origin.
+     *
+     * @param px the x component of the first point
+     * @param py the y component of the first point
+     * @param pz the z component of the first point
+     * @param dx the x component of the second point minus the first
+     * @param dy the y component of the second point minus the first
+     * @param dz the z component of the second point minus the first
+     * @param radiusSquared the square of the radius of the sphere
+     * @return <code>true</code> if no point of the segment is inside the sphere
+     */
+    static boolean isClear(double px, double py, double pz, double dx, double dy, double dz,
+                           double radiusSquared) {
+        // Parameter of the point of the segment closest to the origin
+        double dd = dx * dx + dy * dy + dz * dz;
+        double t = dd > 0.0 ? -(px * dx + py * dy + pz * dz) / dd : 0.0;
+        t = Math.max(0.0, Math.min(1.0, t));
+        double cx = px + t * dx;
+        double cy = py + t * dy;
+        double cz = pz + t * dz;
+        return cx * cx + cy * cy + cz * cz >= radiusSquared;
+    }
+
+    /**
+     * Collects the links of a chunk of satellites into growable primitive arrays.
+     */
+    private final class LinkBuffer implements SpatialHashGrid.Visitor {
+
+        private final StateVectors states;
+        private final int[] degree;
+        private int[] neighbor = new int[64];
+        private double[] range = new double[64];
+        private int size;
+        private int first;
+        private int row;
+
+        private LinkBuffer(int rows, StateVectors states) {
+            this.states = states;
+            this.degree = new int[rows];
+        }
+
+        @Override
+        public void visit(int j) {
+            if (j == first) {
+                return;
+            }
+            // Computed from the lower index so that both ends of a link agree to the last bit
+            int a = Math.min(first, j);
+            int b = Math.max(first, j);
+            double px = states.x[a];
+            double py = states.y[a];
+            double pz = states.z[a];
+            double dx = states.x[b] - px;
+            double dy = states.y[b] - py;
+            double dz = states.z[b] - pz;
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            // Also rejects the NaN states of failed propagations
+            if (!(distance <= maxRange) || !isClear(px, py, pz, dx, dy, dz, blockingRadiusSquared)) {
+                return;
+            }
+            if (size == neighbor.length) {
+                neighbor = Arrays.copyOf(neighbor, size * 2);
+                range = Arrays.copyOf(range, size * 2);
+            }
+            neighbor[size] = j;
+            range[size] = distance;
+            size++;
+            degree[row]++;
+        }
+
+    }
+
+}
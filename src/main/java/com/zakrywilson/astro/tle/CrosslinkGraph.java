@@ -0,0 +1,146 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * The crosslinks of a set of satellites at one point in time, as a sparse adjacency list: for
+ * every satellite, the satellites it can see within the maximum range of the links, with their
+ * ranges.
+ * <p>
+ * The lists are stored in compressed rows: the neighbors of satellite <code>i</code> are entries
+ * <code>offsets[i]</code> to <code>offsets[i + 1] - 1</code> of one array of neighbors and one
+ * array of ranges, so the memory grows with the number of links rather than with the square of
+ * the number of satellites. Each link appears in the lists of both of its satellites. The
+ * neighbors of a satellite are in no particular order. Ranges are in kilometers.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class CrosslinkGraph {
+
+    /**
+     * Receives the links of a graph, always with <code>first &lt; second</code>.
+     */
+    public interface LinkVisitor {
+        void visit(int first, int second, double range);
+    }
+
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final double[] ranges;
+
+    /**
+     * Constructs a new <code>CrosslinkGraph</code> from compressed rows.
+     *
+     * @param offsets the start of the list of each satellite, followed by the total length
+     * @param neighbors the neighbors of every satellite, list after list
+     * @param ranges the ranges to the neighbors
+     */
+    CrosslinkGraph(int[] offsets, int[] neighbors, double[] ranges) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.ranges = ranges;
+    }
+
+    /**
+     * Returns the number of satellites.
+     *
+     * @return the size
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of links, each counted once.
+     *
+     * @return the link count
+     */
+    public int getLinkCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * Returns the number of satellites visible from one satellite.
+     *
+     * @param i the satellite
+     * @return the degree
+     */
+    public int getDegree(int i) {
+        return offsets[i + 1] - offsets[i];
+    }
+
+    /**
+     * Returns one of the satellites visible from a satellite.
+     *
+     * @param i the satellite
+     * @param k the position in its list, from 0 to <code>getDegree(i) - 1</code>
+     * @return the neighbor
+     * @throws IndexOutOfBoundsException if <code>k</code> is out of range
+     */
+    public int getNeighbor(int i, int k) {
+        return neighbors[entry(i, k)];
+    }
+
+    /**
+     * Returns the range to one of the satellites visible from a satellite.
+     *
+     * @param i the satellite
+     * @param k the position in its list, from 0 to <code>getDegree(i) - 1</code>
+     * @return the range in kilometers
+     * @throws IndexOutOfBoundsException if <code>k</code> is out of range
+     */
+    public double getRange(int i, int k) {
+        return ranges[entry(i, k)];
+    }
+
+    /**
+     * Determines whether two satellites are linked.
+     *
+     * @param i the first satellite
+     * @param j the second satellite
+     * @return <code>true</code> if <code>j</code> is in the list of <code>i</code>
+     */
+    public boolean isLinked(int i, int j) {
+        for (int k = offsets[i], end = offsets[i + 1]; k < end; k++) {
+            if (neighbors[k] == j) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visits every link once.
+     *
+     * @param visitor the visitor, not <code>null</code>
+     * @throws IllegalArgumentException if <code>visitor</code> is <code>null</code>
+     */
+    public void forEachLink(LinkVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+        for (int i = 0, n = size(); i < n; i++) {
+            for (int k = offsets[i], end = offsets[i + 1]; k < end; k++) {
+                if (neighbors[k] > i) {
+                    visitor.visit(i, neighbors[k], ranges[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of an entry of a list.
+     *
+     * @param i the satellite
+     * @param k the position in its list
+     * @return the index in the arrays
+     * @throws IndexOutOfBoundsException if <code>k</code> is out of range
+     */
+    private int entry(int i, int k) {
+        if (k < 0 || k >= getDegree(i)) {
+            throw new IndexOutOfBoundsException("Position: " + k + ", degree: " + getDegree(i));
+        }
+        return offsets[i] + k;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * A streaming filter passing each element set once, however many times merged feeds repeat it,
+ * with memory bounded by a capacity rather than by the length of the stream.
+ * <p>
+ * Element sets are compared by their {@link TLEFingerprint}, so no TLE is kept. The fingerprints
+ * seen are held in two generations, each a blocked {@link BloomFilter} in front of an exact set of
+ * primitive <code>long</code> values: most new element sets are passed after one cache line of
+ * the filter, without probing the larger exact set, while the exact set settles the 1% of tests
+ * the filter gets wrong, so no element set is ever dropped as a duplicate by mistake. When the
+ * current generation holds <code>capacity</code> fingerprints, the previous generation is
+ * cleared and reused as the current one. The filter therefore remembers at least the last
+ * <code>capacity</code> distinct element sets seen, a duplicate being seen again when it is
+ * suppressed: a repetition arriving after that many other distinct element sets passes again.
+ * Memory is 35 to 70 bytes per unit of capacity, allocated up front.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class DuplicateFilter {
+
+    private final int capacity;
+    private BloomFilter currentFilter;
+    private LongHashSet currentSet;
+    private BloomFilter previousFilter;
+    private LongHashSet previousSet;
+    private long passed;
+    private long duplicates;
+    private long falsePositives;
+
+    /**
+     * Constructs a new <code>DuplicateFilter</code>.
+     *
+     * @param capacity the number of distinct element sets a generation holds, at least 1
+     * @throws IllegalArgumentException if <code>capacity</code> is not in the range 1 to
+     * 2<sup>28</sup>
+     */
+    public DuplicateFilter(int capacity) {
+        if (capacity < 1 || capacity > (1 << 28)) {
+            throw new IllegalArgumentException("Capacity must be from 1 to 2^28: " + capacity);
+        }
+        this.capacity = capacity;
+        this.currentFilter = new BloomFilter(capacity);
+        this.currentSet = new LongHashSet(capacity);
+        this.previousFilter = new BloomFilter(capacity);
+        this.previousSet = new LongHashSet(capacity);
+    }
+
+    /**
+     * Returns the capacity of a generation.
+     *
+     * @return the number of distinct element sets
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Determines whether an element set is new, remembering it.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return <code>true</code> if it was not seen within the last <code>capacity</code> distinct
+     * element sets
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code>
+     */
+    public boolean add(TLE tle) {
+        return add(TLEFingerprint.of(tle));
+    }
+
+    /**
+     * Determines whether a fingerprint is new, remembering it.
+     *
+     * @param fingerprint the fingerprint, as computed by {@link TLEFingerprint#of(TLE)}
+     * @return <code>true</code> if it was not seen within the last <code>capacity</code> distinct
+     * fingerprints
+     */
+    public boolean add(long fingerprint) {
+        if (currentFilter.mightContain(fingerprint)) {
+            if (currentSet.contains(fingerprint)) {
+                duplicates++;
+                return false;
+            }
+            falsePositives++;
+        }
+        boolean seen = previousFilter.mightContain(fingerprint)
+                       && previousSet.contains(fingerprint);
+        insert(fingerprint);
+        if (seen) {
+            duplicates++;
+            return false;
+        }
+        passed++;
+        return true;
+    }
+
+    /**
+     * Determines whether a fingerprint is remembered, without remembering it.
+     *
+     * @param fingerprint the fingerprint
+     * @return <code>true</code> if it was seen within the last <code>capacity</code> distinct
+     * fingerprints
+     */
+    public boolean contains(long fingerprint) {
+        return currentFilter.mightContain(fingerprint) && currentSet.contains(fingerprint)
+               || previousFilter.mightContain(fingerprint) && previousSet.contains(fingerprint);
+    }
+
+    /**
+     * Forgets every fingerprint, keeping the counters.
+     */
+    public void clear() {
+        currentFilter.clear();
+        currentSet.clear();
+        previousFilter.clear();
+        previousSet.clear();
+    }
+
+    /**
+     * Returns the number of element sets passed as new.
+     *
+     * @return the count
+     */
+    public long getPassedCount() {
+        return passed;
+    }
+
+    /**
+     * Returns the number of element sets suppressed as duplicates.
+     *
+     * @return the count
+     */
+    public long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /**
+     * Returns the number of times the Bloom filter of the current generation reported a
+     * fingerprint it did not hold, settled by the exact set.
+     *
+     * @return the count
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives;
+    }
+
+    /**
+     * Adds a fingerprint to the current generation, which is known not to hold it, rotating the
+     * generations when it is full.
+     *
+     * @param fingerprint the fingerprint
+     */
+    private void insert(long fingerprint) {
+        if (currentSet.size() >= capacity) {
+            BloomFilter filter = previousFilter;
+            LongHashSet set = previousSet;
+            filter.clear();
+            set.clear();
+            previousFilter = currentFilter;
+            previousSet = currentSet;
+            currentFilter = filter;
+            currentSet = set;
+        }
+        currentFilter.add(fingerprint);
+        currentSet.add(fingerprint);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Physical constants of the Earth used by the propagation and geometry classes.
+ * <p>
+ * The gravity model constants are those of WGS-72, which is what SGP4 and therefore the element
+ * sets themselves were fitted against. Distances are in kilometers and times in minutes unless
+ * noted otherwise.
+ *
+ * @author Zach Wilson
+ */
+final class EarthConstants {
+
+    /**
+     * Equatorial radius of the Earth (WGS-72) in kilometers.
+     */
+    static final double RADIUS = 6378.135;
+
+    /**
+     * Gravitational parameter of the Earth (WGS-72) in km<sup>3</sup>/s<sup>2</sup>.
+     */
+    static final double MU = 398600.8;
+
+    /**
+     * Square root of the gravitational parameter in Earth radii<sup>3/2</sup> per minute.
+     */
+    static final double XKE = 60.0 / Math.sqrt(RADIUS * RADIUS * RADIUS / MU);
+
+    /**
+     * Second zonal harmonic (unnormalized).
+     */
+    static final double J2 = 0.001082616;
+
+    /**
+     * Third zonal harmonic (unnormalized).
+     */
+    static final double J3 = -0.00000253881;
+
+    /**
+     * Fourth zonal harmonic (unnormalized).
+     */
+    static final double J4 = -0.00000165597;
+
+    /**
+     * Equatorial radius of the WGS-84 ellipsoid in kilometers, used for geodetic coordinates.
+     */
+    static final double WGS84_RADIUS = 6378.137;
+
+    /**
+     * Flattening of the WGS-84 ellipsoid.
+     */
+    static final double WGS84_FLATTENING = 1.0 / 298.257223563;
+
+    /**
+     * Square of the first eccentricity of the WGS-84 ellipsoid.
+     */
+    static final double WGS84_ECCENTRICITY_SQUARED = WGS84_FLATTENING * (2.0 - WGS84_FLATTENING);
+
+    /**
+     * Rotation rate of the Earth in radians per second.
+     */
+    static final double ROTATION_RATE = 7.29211514670698e-5;
+
+    /**
+     * Number of minutes in one day.
+     */
+    static final double MINUTES_PER_DAY = 1440.0;
+
+    /**
+     * Number of milliseconds in one minute.
+     */
+    static final double MILLIS_PER_MINUTE = 60000.0;
+
+    /**
+     * Number of milliseconds in one day.
+     */
+    static final double MILLIS_PER_DAY = 86400000.0;
+
+    /**
+     * Two times pi.
+     */
+    static final double TWO_PI = 2.0 * Math.PI;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private EarthConstants() {}
+
+}
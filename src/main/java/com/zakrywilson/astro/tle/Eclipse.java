@@ -0,0 +1,87 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * An interval during which a satellite is in the shadow of the Earth.
+ * <p>
+ * Eclipses already in progress at the start of a computation window, or still in progress at its
+ * end, are truncated to the window.
+ *
+ * @author Zach Wilson
+ */
+public final class Eclipse {
+
+    private final TLE tle;
+    private final long entryMillisecond;
+    private final long exitMillisecond;
+
+    /**
+     * Constructs a new <code>Eclipse</code>.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param entryMillisecond the time of entry into the shadow in milliseconds since January 1,
+     * 1970 00:00:00 UTC
+     * @param exitMillisecond the time of exit from the shadow
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or the exit
+     * precedes the entry
+     */
+    public Eclipse(TLE tle, long entryMillisecond, long exitMillisecond) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (exitMillisecond < entryMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Exit precedes entry: entry=%d, exit=%d", entryMillisecond, exitMillisecond));
+        }
+        this.tle = tle;
+        this.entryMillisecond = entryMillisecond;
+        this.exitMillisecond = exitMillisecond;
+    }
+
+    /**
+     * Returns the eclipsed satellite.
+     *
+     * @return the TLE
+     */
+    public TLE getTLE() {
+        return tle;
+    }
+
+    /**
+     * Returns the time of entry into the shadow.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getEntryMillisecond() {
+        return entryMillisecond;
+    }
+
+    /**
+     * Returns the time of exit from the shadow.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getExitMillisecond() {
+        return exitMillisecond;
+    }
+
+    /**
+     * Returns the duration of the eclipse.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getDurationMillisecond() {
+        return exitMillisecond - entryMillisecond;
+    }
+
+    /**
+     * Returns a string describing the satellite and the interval.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("Eclipse[%d, entry=%d, exit=%d]", tle.getSatelliteNumber(),
+                             entryMillisecond, exitMillisecond);
+    }
+
+}
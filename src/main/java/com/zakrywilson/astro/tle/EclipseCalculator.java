@@ -0,0 +1,247 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Determines when the satellites of a catalog are in the shadow of the Earth.
+ * <p>
+ * The window is sampled on a regular time grid. The position of the Sun is computed once per grid
+ * time and shared by every satellite. Each satellite is then propagated across the grid, and the
+ * samples at which it is eclipsed are recorded in a bit set of one bit per grid time, which keeps
+ * the memory needed for long windows tiny. Runs of set bits become eclipse intervals whose entry
+ * and exit are refined by bisection between the neighbouring grid times. Eclipses shorter than the
+ * step may be missed.
+ * <p>
+ * Satellites are processed in parallel. This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class EclipseCalculator {
+
+    /**
+     * Default tolerance on the entry and exit times: one second.
+     */
+    public static final long DEFAULT_TOLERANCE_MILLISECOND = 1000L;
+
+    private final ShadowModel model;
+    private final long stepMillisecond;
+    private final long toleranceMillisecond;
+
+    /**
+     * Constructs a new <code>EclipseCalculator</code> with a tolerance of one second.
+     *
+     * @param model the shadow model, not <code>null</code>
+     * @param stepMillisecond the step of the time grid
+     * @throws IllegalArgumentException if <code>model</code> is <code>null</code> or the step is
+     * not positive
+     */
+    public EclipseCalculator(ShadowModel model, long stepMillisecond) {
+        this(model, stepMillisecond, DEFAULT_TOLERANCE_MILLISECOND);
+    }
+
+    /**
+     * Constructs a new <code>EclipseCalculator</code>.
+     *
+     * @param model the shadow model, not <code>null</code>
+     * @param stepMillisecond the step of the time grid
+     * @param toleranceMillisecond the tolerance on the entry and exit times
+     * @throws IllegalArgumentException if <code>model</code> is <code>null</code> or the step or
+     * tolerance are not positive
+     */
+    public EclipseCalculator(ShadowModel model, long stepMillisecond, long toleranceMillisecond) {
+        if (model == null) {
+            throw new IllegalArgumentException("Shadow model cannot be null");
+        }
+        if (stepMillisecond <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + stepMillisecond);
+        }
+        if (toleranceMillisecond <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + toleranceMillisecond);
+        }
+        this.model = model;
+        this.stepMillisecond = stepMillisecond;
+        this.toleranceMillisecond = toleranceMillisecond;
+    }
+
+    /**
+     * Returns the shadow model.
+     *
+     * @return the model
+     */
+    public ShadowModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the step of the time grid.
+     *
+     * @return the step in milliseconds
+     */
+    public long getStepMillisecond() {
+        return stepMillisecond;
+    }
+
+    /**
+     * Returns the tolerance on the entry and exit times.
+     *
+     * @return the tolerance in milliseconds
+     */
+    public long getToleranceMillisecond() {
+        return toleranceMillisecond;
+    }
+
+    /**
+     * Computes the eclipses of a catalog over a window, in parallel.
+     *
+     * @param catalog the satellites, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return one list of eclipses per satellite, in the order of the catalog. The list of a
+     * satellite that cannot be propagated is empty.
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or the window
+     * ends before it starts
+     */
+    public List<List<Eclipse>> compute(List<TLE> catalog, long startMillisecond,
+                                       long endMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        return compute(new CatalogPropagator(catalog), startMillisecond, endMillisecond);
+    }
+
+    /**
+     * Computes the eclipses of an initialized catalog over a window, in parallel.
+     *
+     * @param catalog the catalog propagator, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return one list of eclipses per satellite, in the order of the catalog. The list of a
+     * satellite that cannot be propagated is empty.
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or the window
+     * ends before it starts
+     */
+    public List<List<Eclipse>> compute(CatalogPropagator catalog, long startMillisecond,
+                                       long endMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Window ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+        long steps = (endMillisecond - startMillisecond + stepMillisecond - 1) / stepMillisecond + 1;
+        if (steps > Integer.MAX_VALUE / 3) {
+            throw new IllegalArgumentException("Too many steps in the window: " + steps);
+        }
+        int count = (int) steps;
+
+        // One position of the Sun per grid time, shared by every satellite
+        double[] sun = new double[3 * count];
+        for (int k = 0; k < count; k++) {
+            SolarEphemeris.position(gridTime(k, startMillisecond, endMillisecond), sun, 3 * k);
+        }
+
+        return IntStream.range(0, catalog.size())
+                        .parallel()
+                        .mapToObj(i -> eclipses(catalog.getPropagator(i), sun, count,
+                                                startMillisecond, endMillisecond))
+                        .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Computes the eclipses of one satellite.
+     *
+     * @param propagator the propagator of the satellite, or <code>null</code>
+     * @param sun the positions of the Sun at the grid times
+     * @param count the number of grid times
+     * @param start the start of the window
+     * @param end the end of the window
+     * @return the eclipses in order of entry
+     */
+    private List<Eclipse> eclipses(Propagator propagator, double[] sun, int count, long start,
+                                   long end) {
+        if (propagator == null) {
+            return Collections.emptyList();
+        }
+        // State of the satellite followed by the position of the Sun, for the bisections
+        double[] buffer = new double[9];
+        BitSet eclipsed = new BitSet(count);
+        int valid = 0;
+        for (int k = 0; k < count; k++) {
+            if (!propagator.propagate(gridTime(k, start, end), buffer, 0)) {
+                break;
+            }
+            if (model.isEclipsed(buffer[0], buffer[1], buffer[2], sun[3 * k], sun[3 * k + 1],
+                                 sun[3 * k + 2])) {
+                eclipsed.set(k);
+            }
+            valid = k + 1;
+        }
+
+        List<Eclipse> eclipses = new ArrayList<>();
+        for (int entry = eclipsed.nextSetBit(0); entry >= 0 && entry < valid;
+             entry = eclipsed.nextSetBit(entry)) {
+            int exit = Math.min(eclipsed.nextClearBit(entry), valid);
+            long entryTime = entry == 0 ? start
+                    : boundary(propagator, buffer, gridTime(entry - 1, start, end),
+                               gridTime(entry, start, end), false);
+            long exitTime = exit == valid ? gridTime(valid - 1, start, end)
+                    : boundary(propagator, buffer, gridTime(exit - 1, start, end),
+                               gridTime(exit, start, end), true);
+            eclipses.add(new Eclipse(propagator.getTLE(), entryTime, exitTime));
+            entry = exit;
+        }
+        return eclipses;
+    }
+
+    /**
+     * Finds the time at which a satellite changes between sunlight and shadow by bisection.
+     *
+     * @param propagator the propagator of the satellite
+     * @param buffer a buffer for the state of the satellite and the position of the Sun
+     * @param a the earlier time
+     * @param b the later time, at which the shadow state differs from <code>a</code>
+     * @param eclipsedAtA whether the satellite is eclipsed at <code>a</code>
+     * @return the time of the change in milliseconds
+     */
+    private long boundary(Propagator propagator, double[] buffer, long a, long b,
+                          boolean eclipsedAtA) {
+        while (b - a > toleranceMillisecond) {
+            long middle = a + (b - a) / 2;
+            if (!propagator.propagate(middle, buffer, 0)) {
+                b = middle;
+                continue;
+            }
+            SolarEphemeris.position(middle, buffer, 6);
+            boolean eclipsed = model.isEclipsed(buffer[0], buffer[1], buffer[2], buffer[6],
+                                                buffer[7], buffer[8]);
+            if (eclipsed == eclipsedAtA) {
+                a = middle;
+            } else {
+                b = middle;
+            }
+        }
+        return a + (b - a) / 2;
+    }
+
+    /**
+     * Returns a time of the grid, the last one being the end of the window.
+     *
+     * @param k the index of the grid time
+     * @param start the start of the window
+     * @param end the end of the window
+     * @return the time in milliseconds
+     */
+    private long gridTime(int k, long start, long end) {
+        return Math.min(end, start + k * stepMillisecond);
+    }
+
+}
@@ -0,0 +1,278 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A columnar (struct-of-arrays) copy of the orbital elements of a catalog of {@link TLE}s, one row
+ * per TLE in catalog order.
+ * <p>
+ * Batch computations over a catalog read the elements from primitive arrays instead of calling the
+ * getters of every TLE, which keeps their inner loops simple enough for the JIT to vectorize.
+ * Angles are kept in degrees and the mean motion in revolutions per day, as in the TLE. The
+ * derived quantities of {@link OrbitalProperties} are filled in as columns too, so that filters
+ * and sorts over a batch compare plain values.
+ * <p>
+ * This class is immutable and thread-safe as long as the arrays are not modified.
+ *
+ * @author Zach Wilson
+ */
+public final class ElementBatch {
+
+    private final List<TLE> catalog;
+
+    final int[] satelliteNumber;
+    final double[] epochMillisecond;
+    final double[] inclination;
+    final double[] raan;
+    final double[] eccentricity;
+    final double[] argumentOfPerigee;
+    final double[] meanAnomaly;
+    final double[] meanMotion;
+    final double[] firstDerivativeOfMeanMotion;
+    final double[] dragTerm;
+    final double[] recoveredMeanMotion;
+    final double[] semiMajorAxis;
+    final double[] period;
+    final double[] apogeeAltitude;
+    final double[] perigeeAltitude;
+    final OrbitalRegime[] regime;
+
+    /**
+     * Constructs a new <code>ElementBatch</code> from the TLEs.
+     *
+     * @param catalog the TLEs, not <code>null</code>
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or contains a
+     * <code>null</code> TLE
+     */
+    public ElementBatch(List<TLE> catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        this.catalog = Collections.unmodifiableList(new ArrayList<>(catalog));
+        int n = this.catalog.size();
+        this.satelliteNumber = new int[n];
+        this.epochMillisecond = new double[n];
+        this.inclination = new double[n];
+        this.raan = new double[n];
+        this.eccentricity = new double[n];
+        this.argumentOfPerigee = new double[n];
+        this.meanAnomaly = new double[n];
+        this.meanMotion = new double[n];
+        this.firstDerivativeOfMeanMotion = new double[n];
+        this.dragTerm = new double[n];
+        this.recoveredMeanMotion = new double[n];
+        this.semiMajorAxis = new double[n];
+        this.period = new double[n];
+        this.apogeeAltitude = new double[n];
+        this.perigeeAltitude = new double[n];
+        this.regime = new OrbitalRegime[n];
+
+        for (int i = 0; i < n; i++) {
+            TLE tle = this.catalog.get(i);
+            if (tle == null) {
+                throw new IllegalArgumentException("Catalog cannot contain a null TLE: index " + i);
+            }
+            satelliteNumber[i] = tle.getSatelliteNumber();
+            epochMillisecond[i] = EpochUtils.toFractionalMillisecondEpoch(tle.getEpochYear(),
+                                                                          tle.getEpochDay());
+            inclination[i] = tle.getInclination();
+            raan[i] = tle.getRaan();
+            eccentricity[i] = tle.getEccentricity();
+            argumentOfPerigee[i] = tle.getArgumentOfPerigee();
+            meanAnomaly[i] = tle.getMeanAnomaly();
+            meanMotion[i] = tle.getMeanMotion();
+            firstDerivativeOfMeanMotion[i] = tle.getFirstDerivativeOfMeanMotion();
+            dragTerm[i] = tle.getDragTerm();
+
+            OrbitalProperties properties = tle.getOrbitalProperties();
+            recoveredMeanMotion[i] = properties.getRecoveredMeanMotion();
+            semiMajorAxis[i] = properties.getSemiMajorAxis();
+            period[i] = properties.getPeriod();
+            apogeeAltitude[i] = properties.getApogeeAltitude();
+            perigeeAltitude[i] = properties.getPerigeeAltitude();
+            regime[i] = properties.getRegime();
+        }
+    }
+
+    /**
+     * Returns the TLEs in row order.
+     *
+     * @return the unmodifiable catalog
+     */
+    public List<TLE> getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return satelliteNumber.length;
+    }
+
+    /**
+     * Returns the satellite number of a row.
+     *
+     * @param i the row
+     * @return the satellite number
+     */
+    public int getSatelliteNumber(int i) {
+        return satelliteNumber[i];
+    }
+
+    /**
+     * Returns the epoch of a row in fractional milliseconds since January 1, 1970 00:00:00 UTC.
+     *
+     * @param i the row
+     * @return the epoch millisecond, not rounded
+     */
+    public double getEpochMillisecond(int i) {
+        return epochMillisecond[i];
+    }
+
+    /**
+     * Returns the inclination (in degrees) of a row.
+     *
+     * @param i the row
+     * @return the inclination
+     */
+    public double getInclination(int i) {
+        return inclination[i];
+    }
+
+    /**
+     * Returns the right ascension of the ascending node (in degrees) of a row.
+     *
+     * @param i the row
+     * @return the RAAN
+     */
+    public double getRaan(int i) {
+        return raan[i];
+    }
+
+    /**
+     * Returns the eccentricity of a row.
+     *
+     * @param i the row
+     * @return the eccentricity
+     */
+    public double getEccentricity(int i) {
+        return eccentricity[i];
+    }
+
+    /**
+     * Returns the argument of perigee (in degrees) of a row.
+     *
+     * @param i the row
+     * @return the argument of perigee
+     */
+    public double getArgumentOfPerigee(int i) {
+        return argumentOfPerigee[i];
+    }
+
+    /**
+     * Returns the mean anomaly (in degrees) of a row.
+     *
+     * @param i the row
+     * @return the mean anomaly
+     */
+    public double getMeanAnomaly(int i) {
+        return meanAnomaly[i];
+    }
+
+    /**
+     * Returns the mean motion (in revolutions per day) of a row.
+     *
+     * @param i the row
+     * @return the mean motion
+     */
+    public double getMeanMotion(int i) {
+        return meanMotion[i];
+    }
+
+    /**
+     * Returns the first derivative of the mean motion, divided by <code>2</code>, of a row.
+     *
+     * @param i the row
+     * @return the first derivative of the mean motion
+     */
+    public double getFirstDerivativeOfMeanMotion(int i) {
+        return firstDerivativeOfMeanMotion[i];
+    }
+
+    /**
+     * Returns the BSTAR drag term of a row.
+     *
+     * @param i the row
+     * @return the drag term
+     */
+    public double getDragTerm(int i) {
+        return dragTerm[i];
+    }
+
+    /**
+     * Returns the recovered (Brouwer) mean motion, in revolutions per day, of a row.
+     *
+     * @param i the row
+     * @return the recovered mean motion
+     * @see OrbitalProperties#getRecoveredMeanMotion()
+     */
+    public double getRecoveredMeanMotion(int i) {
+        return recoveredMeanMotion[i];
+    }
+
+    /**
+     * Returns the mean semi-major axis, in kilometers, of a row.
+     *
+     * @param i the row
+     * @return the semi-major axis
+     */
+    public double getSemiMajorAxis(int i) {
+        return semiMajorAxis[i];
+    }
+
+    /**
+     * Returns the orbital period, in minutes, of a row.
+     *
+     * @param i the row
+     * @return the period
+     */
+    public double getPeriod(int i) {
+        return period[i];
+    }
+
+    /**
+     * Returns the mean apogee altitude, in kilometers, of a row.
+     *
+     * @param i the row
+     * @return the apogee altitude
+     */
+    public double getApogeeAltitude(int i) {
+        return apogeeAltitude[i];
+    }
+
+    /**
+     * Returns the mean perigee altitude, in kilometers, of a row.
+     *
+     * @param i the row
+     * @return the perigee altitude
+     */
+    public double getPerigeeAltitude(int i) {
+        return perigeeAltitude[i];
+    }
+
+    /**
+     * Returns the orbital regime of a row.
+     *
+     * @param i the row
+     * @return the regime
+     */
+    public OrbitalRegime getRegime(int i) {
+        return regime[i];
+    }
+
+}
@@ -0,0 +1,258 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Thread-safe utility class for converting whole catalogs between Keplerian elements and
+ * Cartesian states.
+ * <p>
+ * The mean elements of an {@link ElementBatch} are turned into Keplerian elements by solving
+ * Kepler's equation for the whole batch with {@link KeplerEquation}. Cartesian states, e.g. those
+ * produced by a {@link CatalogPropagator}, are turned into the osculating elements of the
+ * two-body orbit through them, and Keplerian elements back into the Cartesian states of that
+ * orbit. Note that osculating elements computed from SGP4 states differ from the mean elements of
+ * the TLE by the short-period terms of SGP4, typically a few kilometers in semi-major axis.
+ * <p>
+ * For circular orbits, where the perigee is undefined, the argument of perigee is set to 0 and
+ * the anomalies are measured from the ascending node. For equatorial orbits, where the node is
+ * undefined, the RAAN is set to 0 and the node taken along the x axis.
+ *
+ * @author Zach Wilson
+ */
+public final class ElementConverter {
+
+    /**
+     * Eccentricity below which an orbit is treated as circular.
+     */
+    private static final double CIRCULAR = 1.0e-11;
+
+    /**
+     * Sine of the inclination below which an orbit is treated as equatorial.
+     */
+    private static final double EQUATORIAL = 1.0e-11;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private ElementConverter() {}
+
+    /**
+     * Converts the mean elements of a batch into Keplerian elements at their epochs, using the
+     * semi-major axis recovered from the mean motion.
+     *
+     * @param batch the element sets, not <code>null</code>
+     * @param out the buffer receiving the elements, not <code>null</code>. Rows whose mean motion
+     * cannot be recovered are left invalid.
+     * @return the largest residual of Kepler's equation in radians, see {@link KeplerEquation}
+     * @throws IllegalArgumentException if the arguments are <code>null</code> or their sizes
+     * differ
+     */
+    public static double toKeplerian(ElementBatch batch, KeplerianElements out) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Element batch cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Keplerian elements cannot be null");
+        }
+        int n = batch.size();
+        checkSize(n, out.size());
+
+        // Solve Kepler's equation for the whole batch in radians, then convert back to degrees
+        double[] anomaly = new double[n];
+        for (int i = 0; i < n; i++) {
+            anomaly[i] = Math.toRadians(batch.meanAnomaly[i]);
+        }
+        double residual = KeplerEquation.trueFromMean(anomaly, batch.eccentricity, anomaly, null);
+
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(batch.semiMajorAxis[i])) {
+                out.invalidate(i);
+                continue;
+            }
+            out.semiMajorAxis[i] = batch.semiMajorAxis[i];
+            out.eccentricity[i] = batch.eccentricity[i];
+            out.inclination[i] = batch.inclination[i];
+            out.raan[i] = batch.raan[i];
+            out.argumentOfPerigee[i] = batch.argumentOfPerigee[i];
+            out.meanAnomaly[i] = batch.meanAnomaly[i];
+            out.trueAnomaly[i] = degrees(anomaly[i]);
+        }
+        return residual;
+    }
+
+    /**
+     * Converts Cartesian states into osculating Keplerian elements.
+     *
+     * @param states the states, not <code>null</code>
+     * @param out the buffer receiving the elements, not <code>null</code>. Rows whose states are
+     * invalid or not on an elliptical orbit are left invalid.
+     * @throws IllegalArgumentException if the arguments are <code>null</code> or their sizes
+     * differ
+     */
+    public static void toKeplerian(StateVectors states, KeplerianElements out) {
+        if (states == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Keplerian elements cannot be null");
+        }
+        checkSize(states.size(), out.size());
+        for (int i = 0, n = states.size(); i < n; i++) {
+            double x = states.x[i];
+            double y = states.y[i];
+            double z = states.z[i];
+            double vx = states.vx[i];
+            double vy = states.vy[i];
+            double vz = states.vz[i];
+            double r = Math.sqrt(x * x + y * y + z * z);
+            double v2 = vx * vx + vy * vy + vz * vz;
+            double rv = x * vx + y * vy + z * vz;
+
+            // Angular momentum, and the semi-major axis from the energy
+            double hx = y * vz - z * vy;
+            double hy = z * vx - x * vz;
+            double hz = x * vy - y * vx;
+            double h = Math.sqrt(hx * hx + hy * hy + hz * hz);
+            double a = 1.0 / (2.0 / r - v2 / MU);
+            if (!(a > 0.0) || !(h > 0.0)) {
+                out.invalidate(i); // Invalid, hyperbolic or rectilinear
+                continue;
+            }
+            hx /= h;
+            hy /= h;
+            hz /= h;
+
+            // Eccentricity vector
+            double ex = ((v2 - MU / r) * x - rv * vx) / MU;
+            double ey = ((v2 - MU / r) * y - rv * vy) / MU;
+            double ez = ((v2 - MU / r) * z - rv * vz) / MU;
+            double e = Math.sqrt(ex * ex + ey * ey + ez * ez);
+            if (!(e < 1.0)) {
+                out.invalidate(i);
+                continue;
+            }
+
+            // Unit vector to the ascending node, along x for equatorial orbits
+            double sini = Math.sqrt(hx * hx + hy * hy);
+            double nx = sini < EQUATORIAL ? 1.0 : -hy / sini;
+            double ny = sini < EQUATORIAL ? 0.0 : hx / sini;
+
+            // Angles measured around the angular momentum: from the node to the perigee, and from
+            // the perigee (or the node for circular orbits) to the satellite
+            double argp = 0.0;
+            double px = nx;
+            double py = ny;
+            double pz = 0.0;
+            if (e >= CIRCULAR) {
+                argp = angle(nx, ny, 0.0, ex, ey, ez, hx, hy, hz);
+                px = ex;
+                py = ey;
+                pz = ez;
+            }
+            double nu = angle(px, py, pz, x, y, z, hx, hy, hz);
+            double anomaly = KeplerEquation.eccentricFromTrue(nu, e);
+
+            out.semiMajorAxis[i] = a;
+            out.eccentricity[i] = e;
+            out.inclination[i] = Math.toDegrees(Math.atan2(sini, hz));
+            out.raan[i] = degrees(Math.atan2(ny, nx));
+            out.argumentOfPerigee[i] = degrees(argp);
+            out.meanAnomaly[i] = degrees(anomaly - e * Math.sin(anomaly));
+            out.trueAnomaly[i] = degrees(nu);
+        }
+    }
+
+    /**
+     * Converts Keplerian elements into the Cartesian states of their two-body orbits.
+     *
+     * @param elements the elements, not <code>null</code>
+     * @param out the buffer receiving the states, not <code>null</code>. Rows whose elements are
+     * invalid or not elliptical are left invalid.
+     * @throws IllegalArgumentException if the arguments are <code>null</code> or their sizes
+     * differ
+     */
+    public static void toCartesian(KeplerianElements elements, StateVectors out) {
+        if (elements == null) {
+            throw new IllegalArgumentException("Keplerian elements cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        checkSize(elements.size(), out.size());
+        double[] axes = new double[6];
+        double[] state = new double[6];
+        for (int i = 0, n = elements.size(); i < n; i++) {
+            double a = elements.semiMajorAxis[i];
+            double e = elements.eccentricity[i];
+            if (!(a > 0.0) || !(e >= 0.0 && e < 1.0)) {
+                state[0] = Double.NaN;
+                state[1] = Double.NaN;
+                state[2] = Double.NaN;
+                state[3] = Double.NaN;
+                state[4] = Double.NaN;
+                state[5] = Double.NaN;
+                out.set(i, state, 0);
+                continue;
+            }
+            double inclination = Math.toRadians(elements.inclination[i]);
+            KeplerSolver.perifocalAxes(Math.cos(inclination), Math.sin(inclination),
+                                       Math.toRadians(elements.raan[i]),
+                                       Math.toRadians(elements.argumentOfPerigee[i]), axes);
+            double anomaly = KeplerEquation.eccentricFromTrue(
+                    Math.toRadians(elements.trueAnomaly[i]), e);
+            KeplerSolver.toCartesian(a, e, anomaly, axes[0], axes[1], axes[2], axes[3], axes[4],
+                                     axes[5], state, 0);
+            out.set(i, state, 0);
+        }
+    }
+
+    /**
+     * Returns the angle from one vector to another, measured counterclockwise around an axis
+     * perpendicular to both.
+     *
+     * @param ax the x component of the first vector
+     * @param ay the y component of the first vector
+     * @param az the z component of the first vector
+     * @param bx the x component of the second vector
+     * @param by the y component of the second vector
+     * @param bz the z component of the second vector
+     * @param ux the x component of the unit axis
+     * @param uy the y component of the unit axis
+     * @param uz the z component of the unit axis
+     * @return the angle in radians, from -pi to pi
+     */
+    private static double angle(double ax, double ay, double az, double bx, double by, double bz,
+                                double ux, double uy, double uz) {
+        double cross = (ay * bz - az * by) * ux + (az * bx - ax * bz) * uy
+                + (ax * by - ay * bx) * uz;
+        return Math.atan2(cross, ax * bx + ay * by + az * bz);
+    }
+
+    /**
+     * Converts an angle into degrees from 0 to 360.
+     *
+     * @param radians the angle in radians
+     * @return the angle in degrees
+     */
+    private static double degrees(double radians) {
+        double degrees = Math.toDegrees(radians) % 360.0;
+        return degrees < 0.0 ? degrees + 360.0 : degrees;
+    }
+
+    /**
+     * Verifies that an output buffer has as many rows as an input.
+     *
+     * @param inputSize the rows of the input
+     * @param outputSize the rows of the output
+     * @throws IllegalArgumentException if the sizes differ
+     */
+    private static void checkSize(int inputSize, int outputSize) {
+        if (inputSize != outputSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Output must have %d rows, received %d", inputSize, outputSize));
+        }
+    }
+
+}
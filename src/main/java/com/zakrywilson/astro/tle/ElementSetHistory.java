@@ -0,0 +1,162 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every element set of many satellites over time, answering "which TLE was in effect at time t".
+ * <p>
+ * The element sets of each satellite are kept in one {@link ElementSetSeries}: parallel primitive
+ * arrays sorted by epoch, binary searched, with no object per element set, so the history scales
+ * to hundreds of millions of element sets at about 100 bytes each. Element sets may be added in
+ * any order; appending the newest one of a satellite is amortized constant time, while an older
+ * one is inserted in place. As in {@link SatelliteCatalog}, satellite numbers up to 99,999 index
+ * an array of series directly, while the rare larger numbers go to a map.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class ElementSetHistory {
+
+    private final ElementSetSeries[] direct =
+            new ElementSetSeries[SatelliteCatalog.MAX_DIRECT_NUMBER + 1];
+    private final Map<Integer, ElementSetSeries> extended = new HashMap<>();
+    private int satelliteCount;
+    private long size;
+
+    /**
+     * Constructs a new, empty <code>ElementSetHistory</code>.
+     */
+    public ElementSetHistory() {}
+
+    /**
+     * Returns the total number of element sets.
+     *
+     * @return the size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of satellites with at least one element set.
+     *
+     * @return the satellite count
+     */
+    public int getSatelliteCount() {
+        return satelliteCount;
+    }
+
+    /**
+     * Adds an element set. An element set with the same epoch as one already in the history
+     * replaces it only if its element set number is higher.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return <code>true</code> if the element set was added or replaced one
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    public boolean add(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        int number = tle.getSatelliteNumber();
+        if (number < 1) {
+            throw new IllegalArgumentException("Satellite number must be positive: " + number);
+        }
+        ElementSetSeries series = getSeries(number);
+        if (series == null) {
+            series = new ElementSetSeries(number);
+            if (number <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+                direct[number] = series;
+            } else {
+                extended.put(number, series);
+            }
+            satelliteCount++;
+        }
+        int before = series.size();
+        if (!series.add(tle)) {
+            return false;
+        }
+        size += series.size() - before;
+        return true;
+    }
+
+    /**
+     * Adds element sets in any order.
+     *
+     * @param tles the TLEs, not <code>null</code>
+     * @return the number of element sets added or replacing one
+     * @throws IllegalArgumentException if <code>tles</code> is <code>null</code> or contains an
+     * invalid TLE
+     */
+    public int addAll(Collection<TLE> tles) {
+        if (tles == null) {
+            throw new IllegalArgumentException("TLEs cannot be null");
+        }
+        int count = 0;
+        for (TLE tle : tles) {
+            if (add(tle)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the element sets of a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the series, or <code>null</code> if the satellite has no element set
+     */
+    public ElementSetSeries getSeries(int satelliteNumber) {
+        if (satelliteNumber >= 0 && satelliteNumber <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+            return direct[satelliteNumber];
+        }
+        return extended.isEmpty() ? null : extended.get(satelliteNumber);
+    }
+
+    /**
+     * Returns the TLE of a satellite in effect at a time: the one with the latest epoch at or
+     * before the time.
+     *
+     * @param satelliteNumber the satellite number
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return a new TLE, or <code>null</code> if the satellite has no element set by then
+     * @throws IllegalArgumentException if the satellite number is above 99,999, beyond what {@link
+     * TLEBuilder} accepts
+     */
+    public TLE getTLE(int satelliteNumber, long epochMillisecond) {
+        ElementSetSeries series = getSeries(satelliteNumber);
+        if (series == null) {
+            return null;
+        }
+        int k = series.floor(epochMillisecond);
+        return k < 0 ? null : series.getTLE(k);
+    }
+
+    /**
+     * Returns the satellite numbers with at least one element set.
+     *
+     * @return the numbers in increasing order
+     */
+    public int[] getSatelliteNumbers() {
+        int[] numbers = new int[satelliteCount];
+        int count = 0;
+        for (int number = 1; number <= SatelliteCatalog.MAX_DIRECT_NUMBER; number++) {
+            if (direct[number] != null) {
+                numbers[count++] = number;
+            }
+        }
+        int directCount = count;
+        for (int number : extended.keySet()) {
+            numbers[count++] = number;
+        }
+        Arrays.sort(numbers, directCount, count);
+        return numbers;
+    }
+
+}
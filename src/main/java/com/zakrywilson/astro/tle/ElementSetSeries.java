@@ -0,0 +1,497 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * The element sets of one satellite over time, sorted by epoch, as kept by an {@link
+ * ElementSetHistory}.
+ * <p>
+ * Element sets are stored in parallel primitive arrays, one per field, with the epochs in a sorted
+ * <code>long[]</code> that is binary searched; no object is kept per element set, and TLEs are
+ * only built on request by {@link #getTLE(int)}. Epochs are unique: of two element sets with the
+ * same epoch, the one with the higher element set number is kept. The title, international
+ * designator, classification and ephemeris type are kept once per satellite, from the element set
+ * with the latest epoch.
+ * <p>
+ * Element sets are addressed by their position <code>k</code> in epoch order, from 0 to
+ * <code>size() - 1</code>. Positions shift when an element set is inserted before them. This
+ * class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class ElementSetSeries {
+
+    /**
+     * Receives the positions of element sets.
+     */
+    public interface Visitor {
+        void visit(int k);
+    }
+
+    /**
+     * Initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int satelliteNumber;
+    private String title;
+    private String internationalDesignator;
+    private char classification;
+    private int ephemerisType;
+
+    private long[] epochs = new long[INITIAL_CAPACITY];
+    private int[] epochYears = new int[INITIAL_CAPACITY];
+    private double[] epochDays = new double[INITIAL_CAPACITY];
+    private int[] elementSetNumbers = new int[INITIAL_CAPACITY];
+    private int[] revolutions = new int[INITIAL_CAPACITY];
+    private double[] inclinations = new double[INITIAL_CAPACITY];
+    private double[] raans = new double[INITIAL_CAPACITY];
+    private double[] eccentricities = new double[INITIAL_CAPACITY];
+    private double[] argumentsOfPerigee = new double[INITIAL_CAPACITY];
+    private double[] meanAnomalies = new double[INITIAL_CAPACITY];
+    private double[] meanMotions = new double[INITIAL_CAPACITY];
+    private double[] firstDerivatives = new double[INITIAL_CAPACITY];
+    private double[] secondDerivatives = new double[INITIAL_CAPACITY];
+    private double[] dragTerms = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructs a new, empty <code>ElementSetSeries</code>.
+     *
+     * @param satelliteNumber the satellite number
+     */
+    ElementSetSeries(int satelliteNumber) {
+        this.satelliteNumber = satelliteNumber;
+    }
+
+    /**
+     * Returns the satellite number.
+     *
+     * @return the satellite number
+     */
+    public int getSatelliteNumber() {
+        return satelliteNumber;
+    }
+
+    /**
+     * Returns the number of element sets.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the title of the element set with the latest epoch.
+     *
+     * @return the title, possibly <code>null</code>
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the international designator of the element set with the latest epoch.
+     *
+     * @return the international designator
+     */
+    public String getInternationalDesignator() {
+        return internationalDesignator;
+    }
+
+    /**
+     * Returns the classification of the element set with the latest epoch.
+     *
+     * @return the classification
+     */
+    public char getClassification() {
+        return classification;
+    }
+
+    /**
+     * Returns the ephemeris type of the element set with the latest epoch.
+     *
+     * @return the ephemeris type
+     */
+    public int getEphemerisType() {
+        return ephemerisType;
+    }
+
+    /**
+     * Returns the position of the element set in effect at a time: the last one with an epoch at
+     * or before the time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the position, or -1 if every epoch is after the time
+     */
+    public int floor(long epochMillisecond) {
+        int k = Arrays.binarySearch(epochs, 0, size, epochMillisecond);
+        return k >= 0 ? k : -k - 2;
+    }
+
+    /**
+     * Returns the position of the first element set with an epoch at or after a time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the position, or -1 if every epoch is before the time
+     */
+    public int ceiling(long epochMillisecond) {
+        int k = Arrays.binarySearch(epochs, 0, size, epochMillisecond);
+        if (k >= 0) {
+            return k;
+        }
+        k = -k - 1;
+        return k < size ? k : -1;
+    }
+
+    /**
+     * Returns the position of the element set with the epoch nearest to a time, the earlier one
+     * if two are as near.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the position, or -1 if the series is empty
+     */
+    public int nearest(long epochMillisecond) {
+        int before = floor(epochMillisecond);
+        if (before == size - 1) {
+            return before;
+        }
+        if (before < 0) {
+            return 0;
+        }
+        long after = epochs[before + 1] - epochMillisecond;
+        return epochMillisecond - epochs[before] <= after ? before : before + 1;
+    }
+
+    /**
+     * Visits the element sets with epochs within a range, in epoch order.
+     *
+     * @param fromMillisecond the start of the range, inclusive
+     * @param toMillisecond the end of the range, inclusive
+     * @param visitor the visitor, not <code>null</code>
+     * @return the number of element sets visited
+     * @throws IllegalArgumentException if <code>visitor</code> is <code>null</code>
+     */
+    public int forEachInRange(long fromMillisecond, long toMillisecond, Visitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+        int first = ceiling(fromMillisecond);
+        if (first < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int k = first; k < size && epochs[k] <= toMillisecond; k++) {
+            visitor.visit(k);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the epoch of an element set.
+     *
+     * @param k the position
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getEpochMillisecond(int k) {
+        return epochs[check(k)];
+    }
+
+    /**
+     * Returns the epoch year of an element set.
+     *
+     * @param k the position
+     * @return the 4-digit epoch year
+     */
+    public int getEpochYear(int k) {
+        return epochYears[check(k)];
+    }
+
+    /**
+     * Returns the epoch day of an element set.
+     *
+     * @param k the position
+     * @return the day of the year and fractional portion of the day
+     */
+    public double getEpochDay(int k) {
+        return epochDays[check(k)];
+    }
+
+    /**
+     * Returns the element set number of an element set.
+     *
+     * @param k the position
+     * @return the element set number
+     */
+    public int getElementSetNumber(int k) {
+        return elementSetNumbers[check(k)];
+    }
+
+    /**
+     * Returns the revolution number at epoch of an element set.
+     *
+     * @param k the position
+     * @return the revolutions
+     */
+    public int getRevolutions(int k) {
+        return revolutions[check(k)];
+    }
+
+    /**
+     * Returns the inclination of an element set.
+     *
+     * @param k the position
+     * @return the inclination in degrees
+     */
+    public double getInclination(int k) {
+        return inclinations[check(k)];
+    }
+
+    /**
+     * Returns the right ascension of the ascending node of an element set.
+     *
+     * @param k the position
+     * @return the RAAN in degrees
+     */
+    public double getRaan(int k) {
+        return raans[check(k)];
+    }
+
+    /**
+     * Returns the eccentricity of an element set.
+     *
+     * @param k the position
+     * @return the eccentricity
+     */
+    public double getEccentricity(int k) {
+        return eccentricities[check(k)];
+    }
+
+    /**
+     * Returns the argument of perigee of an element set.
+     *
+     * @param k the position
+     * @return the argument of perigee in degrees
+     */
+    public double getArgumentOfPerigee(int k) {
+        return argumentsOfPerigee[check(k)];
+    }
+
+    /**
+     * Returns the mean anomaly of an element set.
+     *
+     * @param k the position
+     * @return the mean anomaly in degrees
+     */
+    public double getMeanAnomaly(int k) {
+        return meanAnomalies[check(k)];
+    }
+
+    /**
+     * Returns the mean motion of an element set.
+     *
+     * @param k the position
+     * @return the mean motion in revolutions per day
+     */
+    public double getMeanMotion(int k) {
+        return meanMotions[check(k)];
+    }
+
+    /**
+     * Returns the first derivative of the mean motion, divided by <code>2</code>, of an element
+     * set.
+     *
+     * @param k the position
+     * @return the first derivative of the mean motion
+     */
+    public double getFirstDerivativeOfMeanMotion(int k) {
+        return firstDerivatives[check(k)];
+    }
+
+    /**
+     * Returns the second derivative of the mean motion, divided by <code>6</code>, of an element
+     * set.
+     *
+     * @param k the position
+     * @return the second derivative of the mean motion
+     */
+    public double getSecondDerivativeOfMeanMotion(int k) {
+        return secondDerivatives[check(k)];
+    }
+
+    /**
+     * Returns the drag term of an element set.
+     *
+     * @param k the position
+     * @return the drag term
+     */
+    public double getDragTerm(int k) {
+        return dragTerms[check(k)];
+    }
+
+    /**
+     * Builds the TLE of an element set, with the title, international designator, classification
+     * and ephemeris type of the series.
+     *
+     * @param k the position
+     * @return a new TLE
+     * @throws IllegalArgumentException if the satellite number is above 99,999, beyond what {@link
+     * TLEBuilder} accepts
+     * @throws IndexOutOfBoundsException if <code>k</code> is out of range
+     */
+    public TLE getTLE(int k) {
+        check(k);
+        return TLEBuilder.newBuilder(title)
+                         .setSatelliteNumber(satelliteNumber)
+                         .setInternationalDesignator(internationalDesignator)
+                         .setEpoch(epochYears[k], epochDays[k])
+                         .setElementSetNumber(elementSetNumbers[k])
+                         .setOrbitalElements(inclinations[k], raans[k], eccentricities[k],
+                                             argumentsOfPerigee[k], meanAnomalies[k])
+                         .setRevolutions(revolutions[k])
+                         .setMeanMotion(meanMotions[k])
+                         .setFirstDerivativeMeanMotion(firstDerivatives[k])
+                         .setSecondDerivativeMeanMotion(secondDerivatives[k])
+                         .setDragTerm(dragTerms[k])
+                         .setClassification(classification)
+                         .setEphemerisType(ephemerisType)
+                         .build();
+    }
+
+    /**
+     * Adds an element set in epoch order. An element set with the same epoch as one already in the
+     * series replaces it only if its element set number is higher.
+     *
+     * @param tle the TLE of this satellite
+     * @return <code>true</code> if the element set was added or replaced one
+     */
+    boolean add(TLE tle) {
+        long epoch = tle.getEpochMillisecond();
+        int k;
+        if (size == 0 || epoch > epochs[size - 1]) {
+            k = size; // The usual case: appending the newest element set
+        } else {
+            k = Arrays.binarySearch(epochs, 0, size, epoch);
+            if (k >= 0) {
+                if (tle.getElementSetNumber() <= elementSetNumbers[k]) {
+                    return false;
+                }
+                set(k, epoch, tle);
+                if (k == size - 1) {
+                    setHeader(tle);
+                }
+                return true;
+            }
+            k = -k - 1;
+        }
+        if (size == epochs.length) {
+            grow();
+        }
+        if (k < size) {
+            shift(k);
+        }
+        set(k, epoch, tle);
+        size++;
+        if (k == size - 1) {
+            setHeader(tle);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the fields kept once per satellite.
+     *
+     * @param tle the TLE with the latest epoch
+     */
+    private void setHeader(TLE tle) {
+        title = tle.getTitle();
+        internationalDesignator = tle.getInternationalDesignator();
+        classification = tle.getClassification();
+        ephemerisType = tle.getEphemerisType();
+    }
+
+    /**
+     * Writes an element set at a position.
+     *
+     * @param k the position
+     * @param epoch the epoch of the TLE
+     * @param tle the TLE
+     */
+    private void set(int k, long epoch, TLE tle) {
+        epochs[k] = epoch;
+        epochYears[k] = tle.getEpochYear();
+        epochDays[k] = tle.getEpochDay();
+        elementSetNumbers[k] = tle.getElementSetNumber();
+        revolutions[k] = tle.getRevolutions();
+        inclinations[k] = tle.getInclination();
+        raans[k] = tle.getRaan();
+        eccentricities[k] = tle.getEccentricity();
+        argumentsOfPerigee[k] = tle.getArgumentOfPerigee();
+        meanAnomalies[k] = tle.getMeanAnomaly();
+        meanMotions[k] = tle.getMeanMotion();
+        firstDerivatives[k] = tle.getFirstDerivativeOfMeanMotion();
+        secondDerivatives[k] = tle.getSecondDerivativeOfMeanMotion();
+        dragTerms[k] = tle.getDragTerm();
+    }
+
+    /**
+     * Moves the element sets from a position on one place up.
+     *
+     * @param k the position
+     */
+    private void shift(int k) {
+        int n = size - k;
+        System.arraycopy(epochs, k, epochs, k + 1, n);
+        System.arraycopy(epochYears, k, epochYears, k + 1, n);
+        System.arraycopy(epochDays, k, epochDays, k + 1, n);
+        System.arraycopy(elementSetNumbers, k, elementSetNumbers, k + 1, n);
+        System.arraycopy(revolutions, k, revolutions, k + 1, n);
+        System.arraycopy(inclinations, k, inclinations, k + 1, n);
+        System.arraycopy(raans, k, raans, k + 1, n);
+        System.arraycopy(eccentricities, k, eccentricities, k + 1, n);
+        System.arraycopy(argumentsOfPerigee, k, argumentsOfPerigee, k + 1, n);
+        System.arraycopy(meanAnomalies, k, meanAnomalies, k + 1, n);
+        System.arraycopy(meanMotions, k, meanMotions, k + 1, n);
+        System.arraycopy(firstDerivatives, k, firstDerivatives, k + 1, n);
+        System.arraycopy(secondDerivatives, k, secondDerivatives, k + 1, n);
+        System.arraycopy(dragTerms, k, dragTerms, k + 1, n);
+    }
+
+    /**
+     * Grows the arrays by half.
+     */
+    private void grow() {
+        int capacity = epochs.length + (epochs.length >> 1) + 1;
+        epochs = Arrays.copyOf(epochs, capacity);
+        epochYears = Arrays.copyOf(epochYears, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        elementSetNumbers = Arrays.copyOf(elementSetNumbers, capacity);
+        revolutions = Arrays.copyOf(revolutions, capacity);
+        inclinations = Arrays.copyOf(inclinations, capacity);
+        raans = Arrays.copyOf(raans, capacity);
+        eccentricities = Arrays.copyOf(eccentricities, capacity);
+        argumentsOfPerigee = Arrays.copyOf(argumentsOfPerigee, capacity);
+        meanAnomalies = Arrays.copyOf(meanAnomalies, capacity);
+        meanMotions = Arrays.copyOf(meanMotions, capacity);
+        firstDerivatives = Arrays.copyOf(firstDerivatives, capacity);
+        secondDerivatives = Arrays.copyOf(secondDerivatives, capacity);
+        dragTerms = Arrays.copyOf(dragTerms, capacity);
+    }
+
+    /**
+     * Verifies a position.
+     *
+     * @param k the position
+     * @return the position
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    private int check(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("Position: " + k + ", size: " + size);
+        }
+        return k;
+    }
+
+}
@@ -70,6 +70,21 @@ final class EpochUtils {
         return calendar.getTimeInMillis();
     }
 
+    /**
+     * Converts a TLE epoch year and fractional Julian day into a fractional millisecond epoch from
+     * January 1, 1970 00:00:00.
+     * <p>
+     * Unlike {@link #toMillisecondEpoch(int, double)}, the result is not rounded to the nearest
+     * millisecond, which keeps the full precision of the TLE epoch for propagation.
+     *
+     * @param year the year to be converted
+     * @param julianDay the fractional Julian day to be converted
+     * @return the fractional millisecond epoch
+     */
+    static double toFractionalMillisecondEpoch(int year, double julianDay) {
+        return toMillisecondEpoch(year, 1.0) + (julianDay - 1.0) * MILLIS_IN_A_DAY;
+    }
+
     /**
      * Formats a TLE with the millisecond from January 1, 1970 00:00:00.
      *
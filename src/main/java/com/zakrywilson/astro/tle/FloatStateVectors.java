@@ -0,0 +1,205 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A reduced-precision variant of {@link StateVectors} that keeps positions and velocities in
+ * <code>float</code> columns, one row per satellite.
+ * <p>
+ * Positions are in kilometers and velocities in kilometers per second, rounded to the nearest
+ * <code>float</code> when they are stored. Positions within 65,536 km of the center of the Earth
+ * are then off by at most 2 m per component, and by at most 0.25 m within 8,192 km (low Earth
+ * orbits); velocities below 16 km/s by at most 0.5 mm/s. These errors are far below those of the
+ * TLEs, so the buffer is safe for screening, coverage and display, but differences of nearby
+ * positions lose precision and should be taken from a <code>double</code> buffer when they matter.
+ * <p>
+ * Rows whose propagation failed hold <code>NaN</code> in every component, see
+ * {@link #isValid(int)}. Buffers are meant to be allocated once and refilled, e.g. by
+ * {@link CatalogPropagator#propagate(long, FloatStateVectors)}.
+ * <p>
+ * This class is not thread-safe, although disjoint rows may be written by different threads.
+ *
+ * @author Zach Wilson
+ */
+public final class FloatStateVectors {
+
+    final float[] x;
+    final float[] y;
+    final float[] z;
+    final float[] vx;
+    final float[] vy;
+    final float[] vz;
+
+    private final int size;
+
+    /**
+     * Constructs a new <code>FloatStateVectors</code> buffer with every component set to
+     * <code>NaN</code>.
+     *
+     * @param size the number of rows
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     */
+    public FloatStateVectors(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative: " + size);
+        }
+        this.size = size;
+        this.x = new float[size];
+        this.y = new float[size];
+        this.z = new float[size];
+        this.vx = new float[size];
+        this.vy = new float[size];
+        this.vz = new float[size];
+        clear();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x component of the position (km) of a row.
+     *
+     * @param i the row
+     * @return the x component
+     */
+    public float getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Returns the y component of the position (km) of a row.
+     *
+     * @param i the row
+     * @return the y component
+     */
+    public float getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the z component of the position (km) of a row.
+     *
+     * @param i the row
+     * @return the z component
+     */
+    public float getZ(int i) {
+        return z[i];
+    }
+
+    /**
+     * Returns the x component of the velocity (km/s) of a row.
+     *
+     * @param i the row
+     * @return the x component
+     */
+    public float getVx(int i) {
+        return vx[i];
+    }
+
+    /**
+     * Returns the y component of the velocity (km/s) of a row.
+     *
+     * @param i the row
+     * @return the y component
+     */
+    public float getVy(int i) {
+        return vy[i];
+    }
+
+    /**
+     * Returns the z component of the velocity (km/s) of a row.
+     *
+     * @param i the row
+     * @return the z component
+     */
+    public float getVz(int i) {
+        return vz[i];
+    }
+
+    /**
+     * Determines whether a row holds a valid state (i.e., its propagation succeeded).
+     *
+     * @param i the row
+     * @return <code>true</code> if the row is valid
+     */
+    public boolean isValid(int i) {
+        return !Float.isNaN(x[i]);
+    }
+
+    /**
+     * Sets the state of a row, rounding it to <code>float</code>.
+     *
+     * @param i the row
+     * @param state the state as <code>{x, y, z, vx, vy, vz}</code>
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     */
+    public void set(int i, double[] state, int offset) {
+        x[i] = (float) state[offset];
+        y[i] = (float) state[offset + 1];
+        z[i] = (float) state[offset + 2];
+        vx[i] = (float) state[offset + 3];
+        vy[i] = (float) state[offset + 4];
+        vz[i] = (float) state[offset + 5];
+    }
+
+    /**
+     * Copies the state of a row into an array.
+     *
+     * @param i the row
+     * @param state the array receiving the state as <code>{x, y, z, vx, vy, vz}</code>
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     */
+    public void get(int i, double[] state, int offset) {
+        state[offset] = x[i];
+        state[offset + 1] = y[i];
+        state[offset + 2] = z[i];
+        state[offset + 3] = vx[i];
+        state[offset + 4] = vy[i];
+        state[offset + 5] = vz[i];
+    }
+
+    /**
+     * Sets every row from a <code>double</code> buffer, rounding the states to
+     * <code>float</code>.
+     *
+     * @param states the states, not <code>null</code>
+     * @throws IllegalArgumentException if <code>states</code> is <code>null</code> or its size
+     * differs
+     */
+    public void set(StateVectors states) {
+        if (states == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        if (states.size() != size) {
+            throw new IllegalArgumentException(String.format(
+                    "State vectors must have %d rows, received %d", size, states.size()));
+        }
+        for (int i = 0; i < size; i++) {
+            x[i] = (float) states.x[i];
+            y[i] = (float) states.y[i];
+            z[i] = (float) states.z[i];
+            vx[i] = (float) states.vx[i];
+            vy[i] = (float) states.vy[i];
+            vz[i] = (float) states.vz[i];
+        }
+    }
+
+    /**
+     * Sets every component of every row to <code>NaN</code>.
+     */
+    public void clear() {
+        Arrays.fill(x, Float.NaN);
+        Arrays.fill(y, Float.NaN);
+        Arrays.fill(z, Float.NaN);
+        Arrays.fill(vx, Float.NaN);
+        Arrays.fill(vy, Float.NaN);
+        Arrays.fill(vz, Float.NaN);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Thread-safe utility class for transforming whole catalogs of TEME states into the Earth-fixed
+ * (ECEF) frame and into geodetic coordinates.
+ * <p>
+ * All the satellites of a buffer share one time, so the sidereal time and the rotation between
+ * the frames are computed once per call and applied to every row in a simple loop. Polar motion is
+ * ignored, so the Earth-fixed frame is the pseudo Earth-fixed frame conventionally paired with
+ * TEME. Geodetic coordinates are computed with the closed-form method of Heikkinen, which needs no
+ * iteration and is accurate to well under a millimeter for points above the surface.
+ *
+ * @author Zach Wilson
+ */
+public final class FrameTransformer {
+
+    private static final double A = WGS84_RADIUS;
+    private static final double B = WGS84_RADIUS * (1.0 - WGS84_FLATTENING);
+    private static final double A2 = A * A;
+    private static final double B2 = B * B;
+    private static final double E2 = WGS84_ECCENTRICITY_SQUARED;
+    private static final double E4 = E2 * E2;
+    private static final double EP2 = (A2 - B2) / B2;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private FrameTransformer() {}
+
+    /**
+     * Rotates TEME states into the Earth-fixed frame. The velocities are made relative to the
+     * rotating Earth.
+     *
+     * @param epochMillisecond the time of the states in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param teme the TEME states, not <code>null</code>
+     * @param ecef the buffer receiving the Earth-fixed states, not <code>null</code>, can be the
+     * same as <code>teme</code>
+     * @throws IllegalArgumentException if the buffers are <code>null</code> or their sizes differ
+     */
+    public static void temeToEcef(long epochMillisecond, StateVectors teme, StateVectors ecef) {
+        if (teme == null || ecef == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        checkSize(teme.size(), ecef.size());
+        double gmst = SiderealTime.gmst(epochMillisecond);
+        double cos = Math.cos(gmst);
+        double sin = Math.sin(gmst);
+        double[] x = teme.x;
+        double[] y = teme.y;
+        double[] vx = teme.vx;
+        double[] vy = teme.vy;
+        for (int i = 0, n = teme.size(); i < n; i++) {
+            double ex = cos * x[i] + sin * y[i];
+            double ey = -sin * x[i] + cos * y[i];
+            double evx = cos * vx[i] + sin * vy[i] + ROTATION_RATE * ey;
+            double evy = -sin * vx[i] + cos * vy[i] - ROTATION_RATE * ex;
+            ecef.x[i] = ex;
+            ecef.y[i] = ey;
+            ecef.z[i] = teme.z[i];
+            ecef.vx[i] = evx;
+            ecef.vy[i] = evy;
+            ecef.vz[i] = teme.vz[i];
+        }
+    }
+
+    /**
+     * Converts Earth-fixed positions into geodetic coordinates.
+     *
+     * @param ecef the Earth-fixed states, not <code>null</code>
+     * @param out the buffer receiving the geodetic coordinates, not <code>null</code>
+     * @throws IllegalArgumentException if the buffers are <code>null</code> or their sizes differ
+     */
+    public static void ecefToGeodetic(StateVectors ecef, GeodeticCoordinates out) {
+        if (ecef == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Geodetic coordinates cannot be null");
+        }
+        checkSize(ecef.size(), out.size());
+        double[] geodetic = new double[3];
+        for (int i = 0, n = ecef.size(); i < n; i++) {
+            geodetic(ecef.x[i], ecef.y[i], ecef.z[i], geodetic, 0);
+            out.latitude[i] = geodetic[0];
+            out.longitude[i] = geodetic[1];
+            out.altitude[i] = geodetic[2];
+        }
+    }
+
+    /**
+     * Converts TEME positions directly into geodetic coordinates, without an intermediate
+     * buffer.
+     *
+     * @param epochMillisecond the time of the states in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param teme the TEME states, not <code>null</code>
+     * @param out the buffer receiving the geodetic coordinates, not <code>null</code>
+     * @throws IllegalArgumentException if the buffers are <code>null</code> or their sizes differ
+     */
+    public static void temeToGeodetic(long epochMillisecond, StateVectors teme,
+                                      GeodeticCoordinates out) {
+        if (teme == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Geodetic coordinates cannot be null");
+        }
+        checkSize(teme.size(), out.size());
+        double gmst = SiderealTime.gmst(epochMillisecond);
+        double cos = Math.cos(gmst);
+        double sin = Math.sin(gmst);
+        double[] geodetic = new double[3];
+        for (int i = 0, n = teme.size(); i < n; i++) {
+            double x = teme.x[i];
+            double y = teme.y[i];
+            geodetic(cos * x + sin * y, -sin * x + cos * y, teme.z[i], geodetic, 0);
+            out.latitude[i] = geodetic[0];
+            out.longitude[i] = geodetic[1];
+            out.altitude[i] = geodetic[2];
+        }
+    }
+
+    /**
+     * Converts one Earth-fixed position into geodetic coordinates with Heikkinen's method.
+     *
+     * @param x the x component of the position in kilometers
+     * @param y the y component of the position in kilometers
+     * @param z the z component of the position in kilometers
+     * @param out the array receiving the latitude (degrees), longitude (degrees, -180 to 180) and
+     * altitude (kilometers)
+     * @param offset the index in <code>out</code> of the latitude
+     */
+    static void geodetic(double x, double y, double z, double[] out, int offset) {
+        double p2 = x * x + y * y;
+        double p = Math.sqrt(p2);
+        double z2 = z * z;
+        double f = 54.0 * B2 * z2;
+        double g = p2 + (1.0 - E2) * z2 - E2 * (A2 - B2);
+        double c = E4 * f * p2 / (g * g * g);
+        double s = Math.cbrt(1.0 + c + Math.sqrt(c * c + 2.0 * c));
+        double k = s + 1.0 + 1.0 / s;
+        double pk = f / (3.0 * k * k * g * g);
+        double q = Math.sqrt(1.0 + 2.0 * E4 * pk);
+        double r0 = -pk * E2 * p / (1.0 + q)
+                + Math.sqrt(0.5 * A2 * (1.0 + 1.0 / q) - pk * (1.0 - E2) * z2 / (q * (1.0 + q))
+                                    - 0.5 * pk * p2);
+        double t = p - E2 * r0;
+        double u = Math.sqrt(t * t + z2);
+        double v = Math.sqrt(t * t + (1.0 - E2) * z2);
+        double z0 = B2 * z / (A * v);
+        out[offset] = Math.toDegrees(Math.atan2(z + EP2 * z0, p));
+        out[offset + 1] = Math.toDegrees(Math.atan2(y, x));
+        out[offset + 2] = u * (1.0 - B2 / (A * v));
+    }
+
+    /**
+     * Verifies that an output buffer has as many rows as an input buffer.
+     *
+     * @param inputSize the rows of the input
+     * @param outputSize the rows of the output
+     * @throws IllegalArgumentException if the sizes differ
+     */
+    private static void checkSize(int inputSize, int outputSize) {
+        if (inputSize != outputSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Output must have %d rows, received %d", inputSize, outputSize));
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A columnar (struct-of-arrays) buffer of geodetic coordinates on the WGS-84 ellipsoid, one row
+ * per satellite.
+ * <p>
+ * Latitudes and longitudes are in degrees, longitudes from -180 to 180 east positive, and
+ * altitudes in kilometers above the ellipsoid. Rows that could not be computed hold
+ * <code>NaN</code> in every component, see {@link #isValid(int)}. Buffers are meant to be
+ * allocated once and refilled at every time step.
+ * <p>
+ * This class is not thread-safe, although disjoint rows may be written by different threads.
+ *
+ * @author Zach Wilson
+ */
+public final class GeodeticCoordinates {
+
+    final double[] latitude;
+    final double[] longitude;
+    final double[] altitude;
+
+    private final int size;
+
+    /**
+     * Constructs a new <code>GeodeticCoordinates</code> buffer with every component set to
+     * <code>NaN</code>.
+     *
+     * @param size the number of rows
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     */
+    public GeodeticCoordinates(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative: " + size);
+        }
+        this.size = size;
+        this.latitude = new double[size];
+        this.longitude = new double[size];
+        this.altitude = new double[size];
+        clear();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the geodetic latitude of a row.
+     *
+     * @param i the row
+     * @return the latitude in degrees
+     */
+    public double getLatitude(int i) {
+        return latitude[i];
+    }
+
+    /**
+     * Returns the longitude of a row.
+     *
+     * @param i the row
+     * @return the longitude in degrees, from -180 to 180
+     */
+    public double getLongitude(int i) {
+        return longitude[i];
+    }
+
+    /**
+     * Returns the altitude above the ellipsoid of a row.
+     *
+     * @param i the row
+     * @return the altitude in kilometers
+     */
+    public double getAltitude(int i) {
+        return altitude[i];
+    }
+
+    /**
+     * Determines whether a row holds valid coordinates.
+     *
+     * @param i the row
+     * @return <code>true</code> if the row is valid
+     */
+    public boolean isValid(int i) {
+        return !Double.isNaN(latitude[i]);
+    }
+
+    /**
+     * Sets every component of every row to <code>NaN</code>.
+     */
+    public void clear() {
+        Arrays.fill(latitude, Double.NaN);
+        Arrays.fill(longitude, Double.NaN);
+        Arrays.fill(altitude, Double.NaN);
+    }
+
+}
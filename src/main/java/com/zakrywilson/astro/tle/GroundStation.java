@@ -0,0 +1,138 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * A ground station located by its geodetic coordinates on the WGS-84 ellipsoid.
+ * <p>
+ * The Earth-fixed position and the local vertical of the station are computed once on construction
+ * so that look angles from the station can be evaluated cheaply. This class is immutable and
+ * thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class GroundStation {
+
+    private final String name;
+    private final double latitude;
+    private final double longitude;
+    private final double altitude;
+
+    final double x;
+    final double y;
+    final double z;
+    final double sinLatitude;
+    final double cosLatitude;
+    final double sinLongitude;
+    final double cosLongitude;
+
+    /**
+     * Constructs a new <code>GroundStation</code>.
+     *
+     * @param name the name of the station, can be <code>null</code>
+     * @param latitude the geodetic latitude in degrees (-90 to 90)
+     * @param longitude the longitude in degrees, east positive (-180 to 360)
+     * @param altitude the height above the ellipsoid in kilometers
+     * @throws IllegalArgumentException if <code>latitude</code> or <code>longitude</code> are out
+     * of range
+     */
+    public GroundStation(String name, double latitude, double longitude, double altitude) {
+        if (!(latitude >= -90.0 && latitude <= 90.0)) {
+            throw new IllegalArgumentException("Latitude out of range (-90 to 90): " + latitude);
+        }
+        if (!(longitude >= -180.0 && longitude <= 360.0)) {
+            throw new IllegalArgumentException("Longitude out of range (-180 to 360): " + longitude);
+        }
+        if (Double.isNaN(altitude) || Double.isInfinite(altitude)) {
+            throw new IllegalArgumentException("Altitude must be finite: " + altitude);
+        }
+        this.name = name == null ? "" : name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.altitude = altitude;
+
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        this.sinLatitude = Math.sin(phi);
+        this.cosLatitude = Math.cos(phi);
+        this.sinLongitude = Math.sin(lambda);
+        this.cosLongitude = Math.cos(lambda);
+        double n = WGS84_RADIUS / Math.sqrt(1.0 - WGS84_ECCENTRICITY_SQUARED * sinLatitude * sinLatitude);
+        this.x = (n + altitude) * cosLatitude * cosLongitude;
+        this.y = (n + altitude) * cosLatitude * sinLongitude;
+        this.z = (n * (1.0 - WGS84_ECCENTRICITY_SQUARED) + altitude) * sinLatitude;
+    }
+
+    /**
+     * Returns the name of the station.
+     *
+     * @return the name, never <code>null</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the geodetic latitude of the station.
+     *
+     * @return the latitude in degrees
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Returns the longitude of the station.
+     *
+     * @return the longitude in degrees, east positive
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Returns the height of the station above the ellipsoid.
+     *
+     * @return the altitude in kilometers
+     */
+    public double getAltitude() {
+        return altitude;
+    }
+
+    /**
+     * Returns the distance of the station from the center of the Earth.
+     *
+     * @return the geocentric radius in kilometers
+     */
+    public double getRadius() {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * Returns the elevation of a position seen from the station.
+     *
+     * @param ex the x component of the Earth-fixed position in kilometers
+     * @param ey the y component of the Earth-fixed position in kilometers
+     * @param ez the z component of the Earth-fixed position in kilometers
+     * @return the elevation above the local horizontal in radians
+     */
+    double elevation(double ex, double ey, double ez) {
+        double dx = ex - x;
+        double dy = ey - y;
+        double dz = ez - z;
+        double up = cosLatitude * (cosLongitude * dx + sinLongitude * dy) + sinLatitude * dz;
+        return Math.asin(up / Math.sqrt(dx * dx + dy * dy + dz * dz));
+    }
+
+    /**
+     * Returns a string describing the station.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("GroundStation[%s, lat=%.6f, lon=%.6f, alt=%.3f km]", name, latitude,
+                             longitude, altitude);
+    }
+
+}
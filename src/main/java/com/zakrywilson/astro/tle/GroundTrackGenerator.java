@@ -0,0 +1,292 @@
+package com.zakrywilson.astro.tle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Generates the ground track of a satellite (its geodetic latitude, longitude and altitude over
+ * time) as a stream of points, so that memory stays bounded however long the time range.
+ * <p>
+ * Points are handed to a {@link PointConsumer} as primitives, or written to a channel through a
+ * single reused buffer, and the propagation and conversion reuse their arrays, so no garbage is
+ * produced per point. The step shrinks where a fixed step would draw the track poorly: at high
+ * latitudes, where the longitude changes quickly, it is scaled down with the cosine of the
+ * latitude, and close to the antimeridian the minimum step is used so that the crossing can be
+ * drawn accurately. The crossing is predicted from the rate of change of the longitude at each
+ * point, so a step that would reach the antimeridian is cut short where the track comes within a
+ * few degrees of it, however far the satellite moves in a nominal step; a step that still jumps
+ * over it, the rate having grown along the step, is retaken shorter.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class GroundTrackGenerator {
+
+    /**
+     * Size in bytes of a record written to a channel: the satellite number (int), the time (long)
+     * and the latitude, longitude and altitude (doubles).
+     */
+    public static final int RECORD_SIZE = 4 + 8 + 3 * 8;
+
+    /**
+     * Distance from the antimeridian, in degrees of longitude, within which the minimum step is
+     * used. A step heading for the antimeridian ends where the track enters this margin.
+     */
+    private static final double ANTIMERIDIAN_MARGIN = 5.0;
+
+    /**
+     * Number of records buffered before writing to a channel.
+     */
+    private static final int RECORDS_PER_BUFFER = 256;
+
+    /**
+     * Receives the points of a ground track.
+     */
+    public interface PointConsumer {
+
+        /**
+         * Receives one point.
+         *
+         * @param timeMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+         * @param latitude the geodetic latitude in degrees
+         * @param longitude the longitude in degrees, from -180 to 180
+         * @param altitude the altitude above the WGS-84 ellipsoid in kilometers
+         */
+        void accept(long timeMillisecond, double latitude, double longitude, double altitude);
+
+    }
+
+    private final long stepMillisecond;
+    private final long minimumStepMillisecond;
+
+    /**
+     * Constructs a new <code>GroundTrackGenerator</code> with a fixed step.
+     *
+     * @param stepMillisecond the step between points
+     * @throws IllegalArgumentException if <code>stepMillisecond</code> is not positive
+     */
+    public GroundTrackGenerator(long stepMillisecond) {
+        this(stepMillisecond, stepMillisecond);
+    }
+
+    /**
+     * Constructs a new <code>GroundTrackGenerator</code> with an adaptive step.
+     *
+     * @param stepMillisecond the nominal step between points, used at the equator
+     * @param minimumStepMillisecond the smallest step, used near the poles and the antimeridian
+     * @throws IllegalArgumentException if the minimum step is not positive or exceeds the nominal
+     * step
+     */
+    public GroundTrackGenerator(long stepMillisecond, long minimumStepMillisecond) {
+        if (minimumStepMillisecond <= 0 || minimumStepMillisecond > stepMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Steps must satisfy 0 < minimum <= step: step=%d, minimum=%d",
+                    stepMillisecond, minimumStepMillisecond));
+        }
+        this.stepMillisecond = stepMillisecond;
+        this.minimumStepMillisecond = minimumStepMillisecond;
+    }
+
+    /**
+     * Returns the nominal step between points.
+     *
+     * @return the step in milliseconds
+     */
+    public long getStepMillisecond() {
+        return stepMillisecond;
+    }
+
+    /**
+     * Returns the smallest step between points.
+     *
+     * @return the minimum step in milliseconds
+     */
+    public long getMinimumStepMillisecond() {
+        return minimumStepMillisecond;
+    }
+
+    /**
+     * Generates the ground track of a satellite over a time range. The first point is at the
+     * start of the range and the last at its end, unless the satellite cannot be propagated that
+     * far, in which case the track stops at the last point that could be.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param startMillisecond the start of the range in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the range
+     * @param consumer the consumer receiving the points, not <code>null</code>
+     * @return the number of points generated
+     * @throws IllegalArgumentException if <code>tle</code> or <code>consumer</code> are
+     * <code>null</code>, the TLE cannot be propagated, or the range ends before it starts
+     */
+    public long generate(TLE tle, long startMillisecond, long endMillisecond,
+                         PointConsumer consumer) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Range ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+        SGP4Propagator propagator = new SGP4Propagator(tle);
+        double[] state = new double[6];
+        double[] geodetic = new double[3];
+        long count = 0;
+        long t = startMillisecond;
+        long previousTime = startMillisecond;
+        double previousLongitude = 0.0;
+        while (true) {
+            if (!propagator.propagate(t, state, 0)) {
+                break;
+            }
+            double gmst = SiderealTime.gmst(t);
+            double cos = Math.cos(gmst);
+            double sin = Math.sin(gmst);
+            double x = cos * state[0] + sin * state[1];
+            double y = -sin * state[0] + cos * state[1];
+            FrameTransformer.geodetic(x, y, state[2], geodetic, 0);
+            long taken = t - previousTime;
+            if (count > 0 && taken > minimumStepMillisecond
+                    && Math.abs(geodetic[1] - previousLongitude) > 180.0) {
+                t = previousTime + retake(previousLongitude, geodetic[1], taken);
+                continue;
+            }
+            consumer.accept(t, geodetic[0], geodetic[1], geodetic[2]);
+            count++;
+            if (t >= endMillisecond) {
+                break;
+            }
+            // Earth-fixed velocity, including the rotation of the frame, for the longitude rate
+            double vx = cos * state[3] + sin * state[4] + EarthConstants.ROTATION_RATE * y;
+            double vy = -sin * state[3] + cos * state[4] - EarthConstants.ROTATION_RATE * x;
+            double longitudeRate = Math.toDegrees((x * vy - y * vx) / (x * x + y * y)) / 1000.0;
+            previousTime = t;
+            previousLongitude = geodetic[1];
+            t = Math.min(endMillisecond, t + step(geodetic[0], geodetic[1], longitudeRate));
+        }
+        return count;
+    }
+
+    /**
+     * Writes the ground track of a satellite over a time range to a channel, as consecutive
+     * big-endian records of {@link #RECORD_SIZE} bytes: the satellite number, the time in
+     * milliseconds and the latitude, longitude and altitude. A single buffer holding a few hundred
+     * records is reused for the whole range.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param startMillisecond the start of the range in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the range
+     * @param channel the channel receiving the records, not <code>null</code>
+     * @return the number of points written
+     * @throws IllegalArgumentException if <code>tle</code> or <code>channel</code> are
+     * <code>null</code>, the TLE cannot be propagated, or the range ends before it starts
+     * @throws IOException if the channel cannot be written to
+     */
+    public long write(TLE tle, long startMillisecond, long endMillisecond,
+                      WritableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        ChannelWriter writer = new ChannelWriter(tle.getSatelliteNumber(), channel);
+        long count;
+        try {
+            count = generate(tle, startMillisecond, endMillisecond, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Returns the step to take after a point.
+     *
+     * @param latitude the latitude of the point in degrees
+     * @param longitude the longitude of the point in degrees
+     * @param longitudeRate the rate of change of the longitude in degrees per millisecond
+     * @return the step in milliseconds
+     */
+    private long step(double latitude, double longitude, double longitudeRate) {
+        if (180.0 - Math.abs(longitude) < ANTIMERIDIAN_MARGIN) {
+            return minimumStepMillisecond;
+        }
+        double step = stepMillisecond * Math.cos(Math.toRadians(latitude));
+        if (longitudeRate != 0.0) {
+            // End the step where the track would enter the margin, on the side it is heading to
+            double distance = longitudeRate > 0.0 ? 180.0 - longitude : 180.0 + longitude;
+            step = Math.min(step, (distance - ANTIMERIDIAN_MARGIN) / Math.abs(longitudeRate));
+        }
+        return Math.max(minimumStepMillisecond, (long) step);
+    }
+
+    /**
+     * Returns a shorter step to retake one that jumped over the antimeridian, ending where the
+     * track enters the margin at the mean rate of change of the longitude over the step.
+     *
+     * @param previousLongitude the longitude of the point before the step in degrees
+     * @param longitude the longitude after the step in degrees
+     * @param step the step in milliseconds
+     * @return the shorter step in milliseconds
+     */
+    private long retake(double previousLongitude, double longitude, long step) {
+        double change = longitude - previousLongitude;
+        change -= Math.copySign(360.0, change);
+        double distance = change > 0.0 ? 180.0 - previousLongitude : 180.0 + previousLongitude;
+        long shorter = (long) (step * (distance - ANTIMERIDIAN_MARGIN) / Math.abs(change));
+        return Math.max(minimumStepMillisecond, shorter);
+    }
+
+    /**
+     * Buffers records and writes them to a channel. Write failures are wrapped in an unchecked
+     * exception so that they stop the generation.
+     */
+    private static final class ChannelWriter implements PointConsumer {
+
+        private final int satelliteNumber;
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * RECORDS_PER_BUFFER);
+
+        private ChannelWriter(int satelliteNumber, WritableByteChannel channel) {
+            this.satelliteNumber = satelliteNumber;
+            this.channel = channel;
+        }
+
+        @Override
+        public void accept(long timeMillisecond, double latitude, double longitude,
+                           double altitude) {
+            if (buffer.remaining() < RECORD_SIZE) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            buffer.putInt(satelliteNumber)
+                  .putLong(timeMillisecond)
+                  .putDouble(latitude)
+                  .putDouble(longitude)
+                  .putDouble(altitude);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+    }
+
+}
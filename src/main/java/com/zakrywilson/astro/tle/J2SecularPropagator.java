@@ -0,0 +1,139 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Propagates a {@link TLE} as a Keplerian orbit with the secular effects of the oblateness of the
+ * Earth (J<sub>2</sub>) and of drag.
+ * <p>
+ * The right ascension of the ascending node and the argument of perigee drift at their first-order
+ * J<sub>2</sub> rates, the mean anomaly advances at the J<sub>2</sub>-corrected mean motion and
+ * accelerates with the first derivative of the mean motion from the TLE. Short-period
+ * perturbations are ignored, which leaves errors of a few kilometers to tens of kilometers in low
+ * Earth orbit; see {@link PropagationModel#J2_SECULAR}. Propagation solves Kepler's equation and
+ * rotates the result into the drifted plane, and does not allocate.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class J2SecularPropagator implements Propagator {
+
+    private final TLE tle;
+    private final double epochMillisecond;
+    private final double semiMajorAxis;
+    private final double eccentricity;
+    private final double cosInclination;
+    private final double sinInclination;
+    private final double raan;
+    private final double argumentOfPerigee;
+    private final double meanAnomaly;
+    private final double raanRate;
+    private final double argumentOfPerigeeRate;
+    private final double meanAnomalyRate;
+    private final double meanAnomalyAcceleration;
+
+    /**
+     * Constructs a new <code>J2SecularPropagator</code> for the TLE.
+     *
+     * @param tle the TLE to be propagated, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its elements
+     * do not describe a closed orbit
+     */
+    public J2SecularPropagator(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        OrbitalProperties properties = tle.getOrbitalProperties();
+        if (properties.getRegime() == OrbitalRegime.UNDEFINED) {
+            throw new IllegalArgumentException(String.format(
+                    "Elements do not describe a closed orbit: eccentricity=%s, mean motion=%s",
+                    tle.getEccentricity(), tle.getMeanMotion()));
+        }
+        this.tle = tle;
+        this.epochMillisecond = EpochUtils.toFractionalMillisecondEpoch(tle.getEpochYear(),
+                                                                         tle.getEpochDay());
+        this.semiMajorAxis = properties.getSemiMajorAxis();
+        this.eccentricity = tle.getEccentricity();
+        double inclination = Math.toRadians(tle.getInclination());
+        this.cosInclination = Math.cos(inclination);
+        this.sinInclination = Math.sin(inclination);
+        this.raan = Math.toRadians(tle.getRaan());
+        this.argumentOfPerigee = Math.toRadians(tle.getArgumentOfPerigee());
+        this.meanAnomaly = Math.toRadians(tle.getMeanAnomaly());
+
+        // First-order secular rates in radians per minute
+        double n = TWO_PI / properties.getPeriod();
+        double e2 = eccentricity * eccentricity;
+        double p = semiMajorAxis * (1.0 - e2) / RADIUS;
+        double factor = 0.75 * J2 * n / (p * p);
+        double cosi2 = cosInclination * cosInclination;
+        this.raanRate = -2.0 * factor * cosInclination;
+        this.argumentOfPerigeeRate = factor * (5.0 * cosi2 - 1.0);
+        this.meanAnomalyRate = n + factor * Math.sqrt(1.0 - e2) * (3.0 * cosi2 - 1.0);
+        this.meanAnomalyAcceleration = tle.getFirstDerivativeOfMeanMotion() * TWO_PI
+                / (MINUTES_PER_DAY * MINUTES_PER_DAY);
+    }
+
+    @Override
+    public TLE getTLE() {
+        return tle;
+    }
+
+    @Override
+    public PropagationModel getModel() {
+        return PropagationModel.J2_SECULAR;
+    }
+
+    @Override
+    public double getEpochMillisecond() {
+        return epochMillisecond;
+    }
+
+    @Override
+    public boolean propagate(long epochMillisecond, double[] state) {
+        return propagate(epochMillisecond, state, 0);
+    }
+
+    @Override
+    public boolean propagate(long epochMillisecond, double[] state, int offset) {
+        return propagateMinutes(minutesSinceEpoch(epochMillisecond), state, offset);
+    }
+
+    @Override
+    public double minutesSinceEpoch(long epochMillisecond) {
+        return (epochMillisecond - this.epochMillisecond) / MILLIS_PER_MINUTE;
+    }
+
+    @Override
+    public double minutesSinceEpoch(double epochMillisecond) {
+        return (epochMillisecond - this.epochMillisecond) / MILLIS_PER_MINUTE;
+    }
+
+    @Override
+    public boolean propagateMinutes(double tsince, double[] state, int offset) {
+        double m = meanAnomaly + (meanAnomalyRate + meanAnomalyAcceleration * tsince) * tsince;
+        double anomaly = KeplerSolver.eccentricAnomaly(m, eccentricity);
+
+        // Perifocal axes at the drifted node and perigee
+        double cosO = Math.cos(raan + raanRate * tsince);
+        double sinO = Math.sin(raan + raanRate * tsince);
+        double cosW = Math.cos(argumentOfPerigee + argumentOfPerigeeRate * tsince);
+        double sinW = Math.sin(argumentOfPerigee + argumentOfPerigeeRate * tsince);
+        KeplerSolver.toCartesian(semiMajorAxis, eccentricity, anomaly,
+                                 cosW * cosO - sinW * sinO * cosInclination,
+                                 cosW * sinO + sinW * cosO * cosInclination,
+                                 sinW * sinInclination,
+                                 -sinW * cosO - cosW * sinO * cosInclination,
+                                 -sinW * sinO + cosW * cosO * cosInclination,
+                                 cosW * sinInclination, state, offset);
+        if (Double.isNaN(state[offset])) {
+            Arrays.fill(state, offset, offset + 6, Double.NaN);
+            return false;
+        }
+        return true;
+    }
+
+}
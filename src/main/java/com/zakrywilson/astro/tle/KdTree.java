@@ -0,0 +1,209 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * A static, balanced k-d tree over a set of points in three dimensions, used to find every point
+ * within a radius of another one.
+ * <p>
+ * The tree is implicit: one permutation of the point indices, in which the median of every range
+ * splits it in two along the axis of its depth, so it takes no node objects and a build is one
+ * partial sort of <code>O(n log n)</code>. The coordinate of every split is copied when the tree
+ * is built, so that a point moved afterwards never corrupts the pruning of the others; the caller
+ * is responsible for skipping the points it moved. Points whose <code>x</code> coordinate is
+ * <code>NaN</code> are left out.
+ * <p>
+ * Building is not thread-safe, but once built the tree may be queried from multiple threads.
+ *
+ * @author Zach Wilson
+ */
+final class KdTree {
+
+    /**
+     * Receives the indices of points found within a radius.
+     */
+    interface Visitor {
+        void visit(int index);
+    }
+
+    /**
+     * Ranges this small are scanned rather than split further.
+     */
+    private static final int LEAF_SIZE = 8;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int[] order;
+    private final double[] split;
+    private final int size;
+
+    /**
+     * Constructs a new <code>KdTree</code> over the first points of the arrays. The arrays are
+     * referenced, not copied.
+     *
+     * @param x the x coordinates
+     * @param y the y coordinates
+     * @param z the z coordinates
+     * @param n the number of points
+     */
+    KdTree(double[] x, double[] y, double[] z, int n) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        int[] valid = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!Double.isNaN(x[i])) {
+                valid[count++] = i;
+            }
+        }
+        this.order = valid;
+        this.split = new double[count];
+        this.size = count;
+        build(0, count, 0);
+    }
+
+    /**
+     * Returns the number of points in the tree.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Visits every point within a radius of a position, using the current coordinates of the
+     * points.
+     *
+     * @param px the x coordinate of the position
+     * @param py the y coordinate of the position
+     * @param pz the z coordinate of the position
+     * @param radius the radius
+     * @param visitor the visitor
+     */
+    void forEachWithin(double px, double py, double pz, double radius, Visitor visitor) {
+        search(0, size, 0, px, py, pz, radius, radius * radius, visitor);
+    }
+
+    /**
+     * Splits a range at its median along the axis of its depth, then each half.
+     *
+     * @param lo the first position of the range
+     * @param hi the position after the last one
+     * @param depth the depth of the range
+     */
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        double[] c = axis(depth);
+        int mid = (lo + hi) >>> 1;
+        select(c, lo, hi - 1, mid);
+        split[mid] = c[order[mid]];
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Visits the points of a range within a radius of a position.
+     */
+    private void search(int lo, int hi, int depth, double px, double py, double pz, double radius,
+                        double radiusSquared, Visitor visitor) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int k = lo; k < hi; k++) {
+                test(order[k], px, py, pz, radiusSquared, visitor);
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        test(order[mid], px, py, pz, radiusSquared, visitor);
+        double p = depth % 3 == 0 ? px : depth % 3 == 1 ? py : pz;
+        if (p - radius <= split[mid]) {
+            search(lo, mid, depth + 1, px, py, pz, radius, radiusSquared, visitor);
+        }
+        if (p + radius >= split[mid]) {
+            search(mid + 1, hi, depth + 1, px, py, pz, radius, radiusSquared, visitor);
+        }
+    }
+
+    /**
+     * Visits a point if it is within a radius of a position.
+     */
+    private void test(int i, double px, double py, double pz, double radiusSquared,
+                      Visitor visitor) {
+        double dx = x[i] - px;
+        double dy = y[i] - py;
+        double dz = z[i] - pz;
+        if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+            visitor.visit(i);
+        }
+    }
+
+    /**
+     * Returns the coordinates along the axis of a depth.
+     */
+    private double[] axis(int depth) {
+        switch (depth % 3) {
+            case 0:
+                return x;
+            case 1:
+                return y;
+            default:
+                return z;
+        }
+    }
+
+    /**
+     * Partially sorts a range of the permutation so that position <code>k</code> holds the point
+     * it would hold if the range were sorted, with no greater point before it and no smaller point
+     * after it (Hoare's selection).
+     */
+    private void select(double[] c, int lo, int hi, int k) {
+        while (hi > lo) {
+            int m = (lo + hi) >>> 1;
+            // Median of three as the pivot
+            if (c[order[m]] < c[order[lo]]) {
+                swap(m, lo);
+            }
+            if (c[order[hi]] < c[order[lo]]) {
+                swap(hi, lo);
+            }
+            if (c[order[hi]] < c[order[m]]) {
+                swap(hi, m);
+            }
+            double pivot = c[order[m]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (c[order[i]] < pivot) {
+                    i++;
+                }
+                while (c[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Swaps two positions of the permutation.
+     */
+    private void swap(int i, int j) {
+        int t = order[i];
+        order[i] = order[j];
+        order[j] = t;
+    }
+
+}
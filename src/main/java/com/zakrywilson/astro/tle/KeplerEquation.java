@@ -0,0 +1,211 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Thread-safe utility class for solving Kepler's equation and converting between the mean,
+ * eccentric and true anomalies of whole arrays of orbits at once.
+ * <p>
+ * Kepler's equation, <code>M = E - e sin E</code>, is solved with a fixed number of iterations of
+ * Danby's quartic method from a starting guess that is never more than a fraction of a radian
+ * off. There is no convergence test, so every element costs the same and the loop has no
+ * data-dependent exit. {@link #DEFAULT_ITERATIONS} iterations solve the equation to machine
+ * precision for eccentricities up to 0.95, which covers practically every element set. Beyond
+ * that the error grows quickly near the perigee (about 10<sup>-6</sup> rad at 0.99), so the
+ * solvers report the residual <code>|E - e sin E - M|</code> of every element. Callers handling
+ * such orbits can check it or ask for more iterations.
+ * <p>
+ * All the angles are in radians. The output arrays may be the same as the input arrays.
+ *
+ * @author Zach Wilson
+ */
+public final class KeplerEquation {
+
+    /**
+     * Number of iterations used when none is given.
+     */
+    public static final int DEFAULT_ITERATIONS = KeplerSolver.ITERATIONS;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private KeplerEquation() {}
+
+    /**
+     * Solves Kepler's equation for an array of orbits with {@link #DEFAULT_ITERATIONS}
+     * iterations.
+     *
+     * @param meanAnomaly the mean anomalies, not <code>null</code>
+     * @param eccentricity the eccentricities (0 to 1), not <code>null</code>
+     * @param eccentricAnomaly the array receiving the eccentric anomalies, in the same revolutions
+     * as the mean anomalies, not <code>null</code>
+     * @param residual the array receiving the residuals of Kepler's equation, or
+     * <code>null</code> if they are not needed
+     * @return the largest residual, <code>NaN</code> if an input was <code>NaN</code>
+     * @throws IllegalArgumentException if an array is <code>null</code> or the lengths differ
+     */
+    public static double eccentricAnomaly(double[] meanAnomaly, double[] eccentricity,
+                                          double[] eccentricAnomaly, double[] residual) {
+        return eccentricAnomaly(meanAnomaly, eccentricity, eccentricAnomaly, residual,
+                                DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Solves Kepler's equation for an array of orbits.
+     *
+     * @param meanAnomaly the mean anomalies, not <code>null</code>
+     * @param eccentricity the eccentricities (0 to 1), not <code>null</code>
+     * @param eccentricAnomaly the array receiving the eccentric anomalies, in the same revolutions
+     * as the mean anomalies, not <code>null</code>
+     * @param residual the array receiving the residuals of Kepler's equation, or
+     * <code>null</code> if they are not needed
+     * @param iterations the number of iterations, at least 1
+     * @return the largest residual, <code>NaN</code> if an input was <code>NaN</code>
+     * @throws IllegalArgumentException if an array is <code>null</code>, the lengths differ or
+     * <code>iterations</code> is not positive
+     */
+    public static double eccentricAnomaly(double[] meanAnomaly, double[] eccentricity,
+                                          double[] eccentricAnomaly, double[] residual,
+                                          int iterations) {
+        int n = checkLengths(meanAnomaly, eccentricity, eccentricAnomaly);
+        if (residual != null && residual.length != n) {
+            throw new IllegalArgumentException(String.format(
+                    "Residuals must have %d elements, received %d", n, residual.length));
+        }
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        double largest = 0.0;
+        for (int i = 0; i < n; i++) {
+            double m = meanAnomaly[i];
+            double e = eccentricity[i];
+            double anomaly = KeplerSolver.eccentricAnomaly(m, e, iterations);
+            double error = Math.abs(anomaly - e * Math.sin(anomaly) - m);
+            eccentricAnomaly[i] = anomaly;
+            if (residual != null) {
+                residual[i] = error;
+            }
+            largest = Math.max(largest, error);
+        }
+        return largest;
+    }
+
+    /**
+     * Converts eccentric anomalies into true anomalies.
+     *
+     * @param eccentricAnomaly the eccentric anomalies, not <code>null</code>
+     * @param eccentricity the eccentricities (0 to 1), not <code>null</code>
+     * @param trueAnomaly the array receiving the true anomalies, from -pi to pi, not
+     * <code>null</code>
+     * @throws IllegalArgumentException if an array is <code>null</code> or the lengths differ
+     */
+    public static void trueAnomaly(double[] eccentricAnomaly, double[] eccentricity,
+                                   double[] trueAnomaly) {
+        int n = checkLengths(eccentricAnomaly, eccentricity, trueAnomaly);
+        for (int i = 0; i < n; i++) {
+            trueAnomaly[i] = trueFromEccentric(eccentricAnomaly[i], eccentricity[i]);
+        }
+    }
+
+    /**
+     * Converts true anomalies into eccentric anomalies.
+     *
+     * @param trueAnomaly the true anomalies, not <code>null</code>
+     * @param eccentricity the eccentricities (0 to 1), not <code>null</code>
+     * @param eccentricAnomaly the array receiving the eccentric anomalies, from -pi to pi, not
+     * <code>null</code>
+     * @throws IllegalArgumentException if an array is <code>null</code> or the lengths differ
+     */
+    public static void eccentricFromTrue(double[] trueAnomaly, double[] eccentricity,
+                                         double[] eccentricAnomaly) {
+        int n = checkLengths(trueAnomaly, eccentricity, eccentricAnomaly);
+        for (int i = 0; i < n; i++) {
+            eccentricAnomaly[i] = eccentricFromTrue(trueAnomaly[i], eccentricity[i]);
+        }
+    }
+
+    /**
+     * Converts eccentric anomalies into mean anomalies with Kepler's equation.
+     *
+     * @param eccentricAnomaly the eccentric anomalies, not <code>null</code>
+     * @param eccentricity the eccentricities (0 to 1), not <code>null</code>
+     * @param meanAnomaly the array receiving the mean anomalies, not <code>null</code>
+     * @throws IllegalArgumentException if an array is <code>null</code> or the lengths differ
+     */
+    public static void meanAnomaly(double[] eccentricAnomaly, double[] eccentricity,
+                                   double[] meanAnomaly) {
+        int n = checkLengths(eccentricAnomaly, eccentricity, meanAnomaly);
+        for (int i = 0; i < n; i++) {
+            double anomaly = eccentricAnomaly[i];
+            meanAnomaly[i] = anomaly - eccentricity[i] * Math.sin(anomaly);
+        }
+    }
+
+    /**
+     * Converts mean anomalies directly into true anomalies with {@link #DEFAULT_ITERATIONS}
+     * iterations.
+     *
+     * @param meanAnomaly the mean anomalies, not <code>null</code>
+     * @param eccentricity the eccentricities (0 to 1), not <code>null</code>
+     * @param trueAnomaly the array receiving the true anomalies, from -pi to pi, not
+     * <code>null</code>
+     * @param residual the array receiving the residuals of Kepler's equation, or
+     * <code>null</code> if they are not needed
+     * @return the largest residual, <code>NaN</code> if an input was <code>NaN</code>
+     * @throws IllegalArgumentException if an array is <code>null</code> or the lengths differ
+     */
+    public static double trueFromMean(double[] meanAnomaly, double[] eccentricity,
+                                      double[] trueAnomaly, double[] residual) {
+        double largest = eccentricAnomaly(meanAnomaly, eccentricity, trueAnomaly, residual);
+        trueAnomaly(trueAnomaly, eccentricity, trueAnomaly);
+        return largest;
+    }
+
+    /**
+     * Converts one eccentric anomaly into a true anomaly.
+     *
+     * @param eccentricAnomaly the eccentric anomaly in radians
+     * @param eccentricity the eccentricity
+     * @return the true anomaly in radians, from -pi to pi
+     */
+    static double trueFromEccentric(double eccentricAnomaly, double eccentricity) {
+        double half = 0.5 * eccentricAnomaly;
+        return 2.0 * Math.atan2(Math.sqrt(1.0 + eccentricity) * Math.sin(half),
+                                Math.sqrt(1.0 - eccentricity) * Math.cos(half));
+    }
+
+    /**
+     * Converts one true anomaly into an eccentric anomaly.
+     *
+     * @param trueAnomaly the true anomaly in radians
+     * @param eccentricity the eccentricity
+     * @return the eccentric anomaly in radians, from -pi to pi
+     */
+    static double eccentricFromTrue(double trueAnomaly, double eccentricity) {
+        double half = 0.5 * trueAnomaly;
+        return 2.0 * Math.atan2(Math.sqrt(1.0 - eccentricity) * Math.sin(half),
+                                Math.sqrt(1.0 + eccentricity) * Math.cos(half));
+    }
+
+    /**
+     * Verifies that the arrays of a conversion are present and have the same length.
+     *
+     * @param input the first input
+     * @param eccentricity the eccentricities
+     * @param output the output
+     * @return the common length
+     * @throws IllegalArgumentException if an array is <code>null</code> or the lengths differ
+     */
+    private static int checkLengths(double[] input, double[] eccentricity, double[] output) {
+        if (input == null || eccentricity == null || output == null) {
+            throw new IllegalArgumentException("Arrays cannot be null");
+        }
+        if (eccentricity.length != input.length || output.length != input.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Arrays must have the same length: %d, %d and %d", input.length,
+                    eccentricity.length, output.length));
+        }
+        return input.length;
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Thread-safe utility class for Kepler's equation and the conversion of Keplerian elements into
+ * Cartesian states.
+ *
+ * @author Zach Wilson
+ */
+final class KeplerSolver {
+
+    /**
+     * Tolerance on the eccentric anomaly in radians.
+     */
+    private static final double TOLERANCE = 1.0e-12;
+
+    /**
+     * Maximum number of iterations, enough for any eccentricity below 1 from the starting guess
+     * used.
+     */
+    private static final int MAX_ITERATIONS = 30;
+
+    /**
+     * Number of iterations of {@link #eccentricAnomaly(double, double, int)} used by default by
+     * {@link KeplerEquation}, which solve Kepler's equation to machine precision for
+     * eccentricities up to 0.95.
+     */
+    static final int ITERATIONS = 3;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private KeplerSolver() {}
+
+    /**
+     * Solves Kepler's equation, <code>M = E - e sin E</code>, for the eccentric anomaly with
+     * Danby's quartic method, iterating until the correction falls below the tolerance, so that
+     * highly eccentric orbits are solved to machine precision as well.
+     *
+     * @param meanAnomaly the mean anomaly in radians
+     * @param eccentricity the eccentricity (0 to 1)
+     * @return the eccentric anomaly in radians, in the same revolution as the mean anomaly
+     */
+    static double eccentricAnomaly(double meanAnomaly, double eccentricity) {
+        double revolutions = TWO_PI * Math.rint(meanAnomaly / TWO_PI);
+        double m = meanAnomaly - revolutions;
+        double e = eccentricity;
+        double anomaly = startingAnomaly(m, e);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double delta = danbyCorrection(anomaly, m, e);
+            anomaly += delta;
+            if (Math.abs(delta) < TOLERANCE) {
+                break;
+            }
+        }
+        return anomaly + revolutions;
+    }
+
+    /**
+     * Solves Kepler's equation, <code>M = E - e sin E</code>, for the eccentric anomaly with a
+     * fixed number of iterations of Danby's quartic method, starting from
+     * <code>E = M + 0.85 e</code> towards the apogee. Each iteration roughly quadruples the number
+     * of correct digits; the count is fixed so that the loop has no data-dependent exit.
+     *
+     * @param meanAnomaly the mean anomaly in radians
+     * @param eccentricity the eccentricity (0 to 1)
+     * @param iterations the number of iterations
+     * @return the eccentric anomaly in radians, in the same revolution as the mean anomaly
+     */
+    static double eccentricAnomaly(double meanAnomaly, double eccentricity, int iterations) {
+        double revolutions = TWO_PI * Math.rint(meanAnomaly / TWO_PI);
+        double m = meanAnomaly - revolutions;
+        double e = eccentricity;
+        double anomaly = startingAnomaly(m, e);
+        for (int k = 0; k < iterations; k++) {
+            anomaly += danbyCorrection(anomaly, m, e);
+        }
+        return anomaly + revolutions;
+    }
+
+    /**
+     * Returns Danby's starting guess, <code>E = M + 0.85 e</code> towards the apogee.
+     *
+     * @param m the mean anomaly in radians, from -pi to pi
+     * @param e the eccentricity
+     * @return the guess in radians
+     */
+    private static double startingAnomaly(double m, double e) {
+        return m + (m < 0.0 ? -0.85 : 0.85) * e;
+    }
+
+    /**
+     * Computes one correction of Danby's quartic method.
+     *
+     * @param anomaly the current eccentric anomaly in radians
+     * @param m the mean anomaly in radians
+     * @param e the eccentricity
+     * @return the correction to add to the eccentric anomaly
+     */
+    private static double danbyCorrection(double anomaly, double m, double e) {
+        double esin = e * Math.sin(anomaly);
+        double ecos = e * Math.cos(anomaly);
+        double f = anomaly - esin - m;
+        double f1 = 1.0 - ecos;
+        double d1 = -f / f1;
+        double d2 = -f / (f1 + 0.5 * d1 * esin);
+        return -f / (f1 + 0.5 * d2 * esin + d2 * d2 * ecos / 6.0);
+    }
+
+    /**
+     * Computes the unit vectors of the perifocal frame, pointing to the perigee (P) and 90 degrees
+     * ahead of it in the orbit plane (Q).
+     *
+     * @param cosInclination the cosine of the inclination
+     * @param sinInclination the sine of the inclination
+     * @param raan the right ascension of the ascending node in radians
+     * @param argumentOfPerigee the argument of perigee in radians
+     * @param axes the array receiving the vectors as <code>{px, py, pz, qx, qy, qz}</code>
+     */
+    static void perifocalAxes(double cosInclination, double sinInclination, double raan,
+                              double argumentOfPerigee, double[] axes) {
+        double cosO = Math.cos(raan);
+        double sinO = Math.sin(raan);
+        double cosW = Math.cos(argumentOfPerigee);
+        double sinW = Math.sin(argumentOfPerigee);
+        axes[0] = cosW * cosO - sinW * sinO * cosInclination;
+        axes[1] = cosW * sinO + sinW * cosO * cosInclination;
+        axes[2] = sinW * sinInclination;
+        axes[3] = -sinW * cosO - cosW * sinO * cosInclination;
+        axes[4] = -sinW * sinO + cosW * cosO * cosInclination;
+        axes[5] = cosW * sinInclination;
+    }
+
+    /**
+     * Converts a position on an orbit into a Cartesian state.
+     *
+     * @param semiMajorAxis the semi-major axis in kilometers
+     * @param eccentricity the eccentricity (0 to 1)
+     * @param eccentricAnomaly the eccentric anomaly in radians
+     * @param px the x component of the unit vector to the perigee
+     * @param py the y component of the unit vector to the perigee
+     * @param pz the z component of the unit vector to the perigee
+     * @param qx the x component of the unit vector 90 degrees ahead of the perigee
+     * @param qy the y component of the unit vector 90 degrees ahead of the perigee
+     * @param qz the z component of the unit vector 90 degrees ahead of the perigee
+     * @param state the array receiving the position (km) and velocity (km/s)
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     */
+    static void toCartesian(double semiMajorAxis, double eccentricity, double eccentricAnomaly,
+                            double px, double py, double pz, double qx, double qy, double qz,
+                            double[] state, int offset) {
+        double a = semiMajorAxis;
+        double e = eccentricity;
+        double cosE = Math.cos(eccentricAnomaly);
+        double sinE = Math.sin(eccentricAnomaly);
+        double root = Math.sqrt(1.0 - e * e);
+        double r = a * (1.0 - e * cosE);
+
+        // Position and velocity in the perifocal frame
+        double xp = a * (cosE - e);
+        double yp = a * root * sinE;
+        double speed = Math.sqrt(MU * a) / r;
+        double vxp = -speed * sinE;
+        double vyp = speed * root * cosE;
+
+        state[offset] = xp * px + yp * qx;
+        state[offset + 1] = xp * py + yp * qy;
+        state[offset + 2] = xp * pz + yp * qz;
+        state[offset + 3] = vxp * px + vyp * qx;
+        state[offset + 4] = vxp * py + vyp * qy;
+        state[offset + 5] = vxp * pz + vyp * qz;
+    }
+
+}
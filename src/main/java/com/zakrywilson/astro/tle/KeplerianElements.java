@@ -0,0 +1,168 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A columnar (struct-of-arrays) buffer of Keplerian elements, one row per satellite.
+ * <p>
+ * Semi-major axes are in kilometers and angles in degrees from 0 to 360, as in the TLE. Rows
+ * hold the mean anomaly and the true anomaly both, so that neither has to be recomputed from the
+ * other. Rows that could not be computed, e.g. from hyperbolic states, hold <code>NaN</code> in
+ * every component, see {@link #isValid(int)}. Buffers are meant to be allocated once and refilled.
+ * <p>
+ * This class is not thread-safe, although disjoint rows may be written by different threads.
+ *
+ * @author Zach Wilson
+ */
+public final class KeplerianElements {
+
+    final double[] semiMajorAxis;
+    final double[] eccentricity;
+    final double[] inclination;
+    final double[] raan;
+    final double[] argumentOfPerigee;
+    final double[] meanAnomaly;
+    final double[] trueAnomaly;
+
+    private final int size;
+
+    /**
+     * Constructs a new <code>KeplerianElements</code> buffer with every component set to
+     * <code>NaN</code>.
+     *
+     * @param size the number of rows
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     */
+    public KeplerianElements(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative: " + size);
+        }
+        this.size = size;
+        this.semiMajorAxis = new double[size];
+        this.eccentricity = new double[size];
+        this.inclination = new double[size];
+        this.raan = new double[size];
+        this.argumentOfPerigee = new double[size];
+        this.meanAnomaly = new double[size];
+        this.trueAnomaly = new double[size];
+        clear();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the semi-major axis of a row.
+     *
+     * @param i the row
+     * @return the semi-major axis in kilometers
+     */
+    public double getSemiMajorAxis(int i) {
+        return semiMajorAxis[i];
+    }
+
+    /**
+     * Returns the eccentricity of a row.
+     *
+     * @param i the row
+     * @return the eccentricity
+     */
+    public double getEccentricity(int i) {
+        return eccentricity[i];
+    }
+
+    /**
+     * Returns the inclination of a row.
+     *
+     * @param i the row
+     * @return the inclination in degrees
+     */
+    public double getInclination(int i) {
+        return inclination[i];
+    }
+
+    /**
+     * Returns the right ascension of the ascending node of a row.
+     *
+     * @param i the row
+     * @return the RAAN in degrees
+     */
+    public double getRaan(int i) {
+        return raan[i];
+    }
+
+    /**
+     * Returns the argument of perigee of a row.
+     *
+     * @param i the row
+     * @return the argument of perigee in degrees
+     */
+    public double getArgumentOfPerigee(int i) {
+        return argumentOfPerigee[i];
+    }
+
+    /**
+     * Returns the mean anomaly of a row.
+     *
+     * @param i the row
+     * @return the mean anomaly in degrees
+     */
+    public double getMeanAnomaly(int i) {
+        return meanAnomaly[i];
+    }
+
+    /**
+     * Returns the true anomaly of a row.
+     *
+     * @param i the row
+     * @return the true anomaly in degrees
+     */
+    public double getTrueAnomaly(int i) {
+        return trueAnomaly[i];
+    }
+
+    /**
+     * Determines whether a row holds valid elements.
+     *
+     * @param i the row
+     * @return <code>true</code> if the row is valid
+     */
+    public boolean isValid(int i) {
+        return !Double.isNaN(semiMajorAxis[i]);
+    }
+
+    /**
+     * Sets every component of every row to <code>NaN</code>.
+     */
+    public void clear() {
+        Arrays.fill(semiMajorAxis, Double.NaN);
+        Arrays.fill(eccentricity, Double.NaN);
+        Arrays.fill(inclination, Double.NaN);
+        Arrays.fill(raan, Double.NaN);
+        Arrays.fill(argumentOfPerigee, Double.NaN);
+        Arrays.fill(meanAnomaly, Double.NaN);
+        Arrays.fill(trueAnomaly, Double.NaN);
+    }
+
+    /**
+     * Sets every component of a row to <code>NaN</code>.
+     *
+     * @param i the row
+     */
+    void invalidate(int i) {
+        semiMajorAxis[i] = Double.NaN;
+        eccentricity[i] = Double.NaN;
+        inclination[i] = Double.NaN;
+        raan[i] = Double.NaN;
+        argumentOfPerigee[i] = Double.NaN;
+        meanAnomaly[i] = Double.NaN;
+        trueAnomaly[i] = Double.NaN;
+    }
+
+}
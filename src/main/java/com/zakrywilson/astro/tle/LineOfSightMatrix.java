@@ -0,0 +1,153 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * The ranges between every pair of a set of satellites at one point in time, and whether each
+ * pair has a line of sight clear of the Earth and within the maximum range of the links.
+ * <p>
+ * The matrix is symmetric, so only the pairs <code>(i, j)</code> with <code>i &lt; j</code> are
+ * stored, row after row in one packed array. That still grows with the square of the number of
+ * satellites (about 12 bytes per pair), which suits constellations of up to some thousands of
+ * satellites; for larger sets, see {@link CrosslinkCalculator#computeLinks(StateVectors)}. Ranges
+ * are in kilometers. Pairs involving a satellite whose state is invalid have a <code>NaN</code>
+ * range and are never visible.
+ * <p>
+ * Buffers are meant to be allocated once and refilled at every time step. This class is not
+ * thread-safe, although disjoint pairs may be written by different threads.
+ *
+ * @author Zach Wilson
+ */
+public final class LineOfSightMatrix {
+
+    final double[] range;
+    final boolean[] visible;
+
+    private final int size;
+
+    /**
+     * Constructs a new <code>LineOfSightMatrix</code> with every range set to <code>NaN</code> and
+     * no pair visible.
+     *
+     * @param size the number of satellites
+     * @throws IllegalArgumentException if <code>size</code> is negative or the matrix would be too
+     * large
+     */
+    public LineOfSightMatrix(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative: " + size);
+        }
+        long pairs = (long) size * (size - 1) / 2;
+        if (pairs > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many pairs: " + pairs);
+        }
+        this.size = size;
+        this.range = new double[(int) pairs];
+        this.visible = new boolean[(int) pairs];
+        clear();
+    }
+
+    /**
+     * Returns the number of satellites.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the range between two satellites.
+     *
+     * @param i the first satellite
+     * @param j the second satellite
+     * @return the range in kilometers, 0 if the satellites are the same
+     */
+    public double getRange(int i, int j) {
+        if (i == j) {
+            checkIndex(i);
+            return 0.0;
+        }
+        return range[index(i, j)];
+    }
+
+    /**
+     * Determines whether two different satellites can see each other.
+     *
+     * @param i the first satellite
+     * @param j the second satellite
+     * @return <code>true</code> if the line of sight is clear and within the maximum range
+     */
+    public boolean isVisible(int i, int j) {
+        if (i == j) {
+            checkIndex(i);
+            return false;
+        }
+        return visible[index(i, j)];
+    }
+
+    /**
+     * Counts the satellites visible from one satellite.
+     *
+     * @param i the satellite
+     * @return the number of visible satellites
+     */
+    public int countVisible(int i) {
+        checkIndex(i);
+        int count = 0;
+        for (int j = 0; j < size; j++) {
+            if (j != i && visible[index(i, j)]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets every range to <code>NaN</code> and every pair to not visible.
+     */
+    public void clear() {
+        Arrays.fill(range, Double.NaN);
+        Arrays.fill(visible, false);
+    }
+
+    /**
+     * Returns the index in the packed arrays of the first pair of a row, i.e., of
+     * <code>(i, i + 1)</code>.
+     *
+     * @param i the row
+     * @return the index
+     */
+    int rowStart(int i) {
+        return (int) ((long) i * (2L * size - i - 1) / 2);
+    }
+
+    /**
+     * Returns the index in the packed arrays of a pair of different satellites.
+     *
+     * @param i the first satellite
+     * @param j the second satellite
+     * @return the index
+     * @throws IndexOutOfBoundsException if an index is out of range
+     */
+    private int index(int i, int j) {
+        checkIndex(i);
+        checkIndex(j);
+        int low = Math.min(i, j);
+        int high = Math.max(i, j);
+        return rowStart(low) + high - low - 1;
+    }
+
+    /**
+     * Verifies a satellite index.
+     *
+     * @param i the index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+    }
+
+}
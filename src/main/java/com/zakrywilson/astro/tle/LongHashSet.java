@@ -0,0 +1,132 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive <code>long</code> values, with open addressing and linear probing, so that
+ * no value is boxed and no entry object is allocated.
+ * <p>
+ * The table is kept at most half full. Zero marks an empty slot, so whether the set holds zero is
+ * kept apart.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+final class LongHashSet {
+
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+
+    /**
+     * Constructs a new, empty <code>LongHashSet</code> sized for a number of values.
+     *
+     * @param expectedSize the number of values to hold without growing
+     */
+    LongHashSet(int expectedSize) {
+        int capacity = 8;
+        while (capacity < 2L * expectedSize && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Determines whether the set holds a value.
+     *
+     * @param value the value
+     * @return <code>true</code> if it does
+     */
+    boolean contains(long value) {
+        if (value == 0L) {
+            return containsZero;
+        }
+        return keys[find(keys, value)] == value;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @return <code>true</code> if it was not in the set
+     */
+    boolean add(long value) {
+        if (value == 0L) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = find(keys, value);
+        if (keys[slot] == value) {
+            return false;
+        }
+        keys[slot] = value;
+        size++;
+        if (2L * size > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Removes every value, keeping the table.
+     */
+    void clear() {
+        Arrays.fill(keys, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Doubles the table.
+     */
+    private void grow() {
+        long[] old = keys;
+        long[] table = new long[old.length * 2];
+        for (long key : old) {
+            if (key != 0L) {
+                table[find(table, key)] = key;
+            }
+        }
+        keys = table;
+    }
+
+    /**
+     * Returns the slot of a value, or the empty slot where it would be inserted.
+     *
+     * @param table the table
+     * @param value the value, not zero
+     * @return the slot
+     */
+    private static int find(long[] table, long value) {
+        int mask = table.length - 1;
+        int slot = (int) TLEFingerprint.mix(value) & mask;
+        while (table[slot] != 0L && table[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+}
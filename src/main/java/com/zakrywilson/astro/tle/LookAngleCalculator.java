@@ -0,0 +1,267 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Computes the azimuth, elevation, range and range rate of every satellite from every ground
+ * station at one point in time.
+ * <p>
+ * Rather than rotating every satellite into the Earth-fixed frame, the sidereal time is computed
+ * once per tick and used to rotate the few stations (their positions, velocities and local east,
+ * north and up axes) into the TEME frame of the states. That setup, and the sine of the elevation
+ * mask, are done once per call rather than once per pair: the inner loop then runs over the
+ * satellites of one station, reading the columns of a {@link StateVectors} buffer and writing the
+ * columns of a {@link LookAngles} buffer, with the station frame held in locals. With an elevation
+ * mask, entries below it are rejected from the sine of the elevation before any trigonometry is
+ * done, which is the fate of most pairs. The loop stays a single scalar pass: nearly all of its
+ * time goes to the <code>atan2</code> and <code>asin</code> calls of the pairs above the mask,
+ * which the JDK does not intrinsify, so splitting off a branch-free pass over the columns only
+ * adds the work of the rejected pairs.
+ * <p>
+ * The stations are split into chunks of satellites processed in parallel. This class is immutable
+ * and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class LookAngleCalculator {
+
+    /**
+     * Number of consecutive satellites processed by one parallel task.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private final List<GroundStation> stations;
+    private final double elevationMask;
+    private final double sinElevationMask;
+
+    /**
+     * Constructs a new <code>LookAngleCalculator</code> without an elevation mask.
+     *
+     * @param stations the ground stations, not <code>null</code>
+     * @throws IllegalArgumentException if <code>stations</code> is <code>null</code> or contains
+     * <code>null</code>
+     */
+    public LookAngleCalculator(List<GroundStation> stations) {
+        this(stations, -90.0);
+    }
+
+    /**
+     * Constructs a new <code>LookAngleCalculator</code>.
+     *
+     * @param stations the ground stations, not <code>null</code>
+     * @param elevationMask the elevation below which entries are left <code>NaN</code>, in degrees
+     * (-90 to 90)
+     * @throws IllegalArgumentException if <code>stations</code> is <code>null</code> or contains
+     * <code>null</code>, or <code>elevationMask</code> is out of range
+     */
+    public LookAngleCalculator(List<GroundStation> stations, double elevationMask) {
+        if (stations == null) {
+            throw new IllegalArgumentException("Ground stations cannot be null");
+        }
+        if (!(elevationMask >= -90.0 && elevationMask <= 90.0)) {
+            throw new IllegalArgumentException(
+                    "Elevation mask out of range (-90 to 90): " + elevationMask);
+        }
+        for (GroundStation station : stations) {
+            if (station == null) {
+                throw new IllegalArgumentException("Ground stations cannot contain null");
+            }
+        }
+        this.stations = Collections.unmodifiableList(new ArrayList<>(stations));
+        this.elevationMask = elevationMask;
+        this.sinElevationMask = elevationMask <= -90.0 ? Double.NEGATIVE_INFINITY
+                : Math.sin(Math.toRadians(elevationMask));
+    }
+
+    /**
+     * Returns the ground stations.
+     *
+     * @return an unmodifiable list of the stations
+     */
+    public List<GroundStation> getStations() {
+        return stations;
+    }
+
+    /**
+     * Returns the elevation mask.
+     *
+     * @return the mask in degrees, -90 if there is none
+     */
+    public double getElevationMask() {
+        return elevationMask;
+    }
+
+    /**
+     * Computes the look angles of every satellite from every station, in parallel.
+     *
+     * @param epochMillisecond the time of the states in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param states the TEME states of the satellites, not <code>null</code>
+     * @param out the buffer receiving the look angles, not <code>null</code>
+     * @throws IllegalArgumentException if the buffers are <code>null</code> or their sizes do not
+     * match
+     */
+    public void compute(long epochMillisecond, StateVectors states, LookAngles out) {
+        checkSizes(states, out);
+        double[] frames = stationFrames(epochMillisecond);
+        int chunks = (states.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks * stations.size()).parallel()
+                 .forEach(k -> computeChunk(frames, k / chunks, k % chunks, states, out));
+    }
+
+    /**
+     * Computes the look angles of every satellite from every station on the calling thread.
+     *
+     * @param epochMillisecond the time of the states in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param states the TEME states of the satellites, not <code>null</code>
+     * @param out the buffer receiving the look angles, not <code>null</code>
+     * @throws IllegalArgumentException if the buffers are <code>null</code> or their sizes do not
+     * match
+     */
+    public void computeSequential(long epochMillisecond, StateVectors states, LookAngles out) {
+        checkSizes(states, out);
+        double[] frames = stationFrames(epochMillisecond);
+        int chunks = (states.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        for (int j = 0; j < stations.size(); j++) {
+            for (int c = 0; c < chunks; c++) {
+                computeChunk(frames, j, c, states, out);
+            }
+        }
+    }
+
+    /**
+     * Rotates the stations into the TEME frame at a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return 15 values per station: the position, the velocity and the east, north and up axes
+     */
+    private double[] stationFrames(long epochMillisecond) {
+        double gmst = SiderealTime.gmst(epochMillisecond);
+        double cos = Math.cos(gmst);
+        double sin = Math.sin(gmst);
+        double[] frames = new double[15 * stations.size()];
+        for (int j = 0; j < stations.size(); j++) {
+            GroundStation s = stations.get(j);
+            int f = 15 * j;
+            double px = cos * s.x - sin * s.y;
+            double py = sin * s.x + cos * s.y;
+            frames[f] = px;
+            frames[f + 1] = py;
+            frames[f + 2] = s.z;
+            frames[f + 3] = -ROTATION_RATE * py;
+            frames[f + 4] = ROTATION_RATE * px;
+            frames[f + 5] = 0.0;
+            rotate(frames, f + 6, cos, sin, -s.sinLongitude, s.cosLongitude, 0.0);
+            rotate(frames, f + 9, cos, sin, -s.sinLatitude * s.cosLongitude,
+                   -s.sinLatitude * s.sinLongitude, s.cosLatitude);
+            rotate(frames, f + 12, cos, sin, s.cosLatitude * s.cosLongitude,
+                   s.cosLatitude * s.sinLongitude, s.sinLatitude);
+        }
+        return frames;
+    }
+
+    /**
+     * Rotates an Earth-fixed vector into the TEME frame.
+     */
+    private static void rotate(double[] out, int offset, double cos, double sin, double x,
+                               double y, double z) {
+        out[offset] = cos * x - sin * y;
+        out[offset + 1] = sin * x + cos * y;
+        out[offset + 2] = z;
+    }
+
+    /**
+     * Computes the look angles of one chunk of satellites from one station.
+     *
+     * @param frames the station frames in TEME
+     * @param station the station index
+     * @param chunk the chunk index
+     * @param states the states of the satellites
+     * @param out the buffer receiving the look angles
+     */
+    private void computeChunk(double[] frames, int station, int chunk, StateVectors states,
+                              LookAngles out) {
+        int f = 15 * station;
+        double px = frames[f];
+        double py = frames[f + 1];
+        double pz = frames[f + 2];
+        double pvx = frames[f + 3];
+        double pvy = frames[f + 4];
+        double ex = frames[f + 6];
+        double ey = frames[f + 7];
+        double ez = frames[f + 8];
+        double nx = frames[f + 9];
+        double ny = frames[f + 10];
+        double nz = frames[f + 11];
+        double ux = frames[f + 12];
+        double uy = frames[f + 13];
+        double uz = frames[f + 14];
+
+        double[] x = states.x;
+        double[] y = states.y;
+        double[] z = states.z;
+        double[] vx = states.vx;
+        double[] vy = states.vy;
+        double[] vz = states.vz;
+        double[] azimuth = out.azimuth;
+        double[] elevation = out.elevation;
+        double[] range = out.range;
+        double[] rangeRate = out.rangeRate;
+        double mask = sinElevationMask;
+
+        int n = states.size();
+        int base = station * n;
+        int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            double dx = x[i] - px;
+            double dy = y[i] - py;
+            double dz = z[i] - pz;
+            double rho = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            double up = dx * ux + dy * uy + dz * uz;
+            int k = base + i;
+            if (!(up >= mask * rho)) {
+                // Below the mask, or not propagated
+                azimuth[k] = Double.NaN;
+                elevation[k] = Double.NaN;
+                range[k] = Double.NaN;
+                rangeRate[k] = Double.NaN;
+                continue;
+            }
+            double east = dx * ex + dy * ey + dz * ez;
+            double north = dx * nx + dy * ny + dz * nz;
+            double az = Math.toDegrees(Math.atan2(east, north));
+            azimuth[k] = az < 0.0 ? az + 360.0 : az;
+            elevation[k] = Math.toDegrees(Math.asin(up / rho));
+            range[k] = rho;
+            rangeRate[k] = (dx * (vx[i] - pvx) + dy * (vy[i] - pvy) + dz * vz[i]) / rho;
+        }
+    }
+
+    /**
+     * Verifies the sizes of the input and output buffers.
+     *
+     * @param states the states
+     * @param out the output buffer
+     * @throws IllegalArgumentException if either is <code>null</code> or their sizes do not match
+     */
+    private void checkSizes(StateVectors states, LookAngles out) {
+        if (states == null) {
+            throw new IllegalArgumentException("State vectors cannot be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Look angles cannot be null");
+        }
+        if (out.getSatelliteCount() != states.size() || out.getStationCount() != stations.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "Look angles must be %d x %d, received %d x %d", states.size(),
+                    stations.size(), out.getSatelliteCount(), out.getStationCount()));
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A columnar (struct-of-arrays) buffer of look angles from a set of ground stations to a set of
+ * satellites at one point in time.
+ * <p>
+ * Entries are stored station by station: the entry of satellite <code>i</code> seen from station
+ * <code>j</code> is at index <code>j * satellites + i</code>, so that the satellites of one station
+ * are contiguous. Azimuths are measured clockwise from north and, like elevations, are in degrees.
+ * Ranges are in kilometers and range rates in kilometers per second, positive when the satellite
+ * moves away. Entries that could not be computed or that fall below the elevation mask hold
+ * <code>NaN</code> in every component, see {@link #isVisible(int, int)}.
+ * <p>
+ * Buffers are meant to be allocated once and refilled at every tick. This class is not
+ * thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class LookAngles {
+
+    final double[] azimuth;
+    final double[] elevation;
+    final double[] range;
+    final double[] rangeRate;
+
+    private final int satellites;
+    private final int stations;
+
+    /**
+     * Constructs a new <code>LookAngles</code> buffer with every component set to
+     * <code>NaN</code>.
+     *
+     * @param satellites the number of satellites
+     * @param stations the number of stations
+     * @throws IllegalArgumentException if either count is negative or the buffer would be too
+     * large
+     */
+    public LookAngles(int satellites, int stations) {
+        if (satellites < 0 || stations < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Counts cannot be negative: satellites=%d, stations=%d", satellites, stations));
+        }
+        long size = (long) satellites * stations;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many entries: " + size);
+        }
+        this.satellites = satellites;
+        this.stations = stations;
+        this.azimuth = new double[(int) size];
+        this.elevation = new double[(int) size];
+        this.range = new double[(int) size];
+        this.rangeRate = new double[(int) size];
+        clear();
+    }
+
+    /**
+     * Returns the number of satellites.
+     *
+     * @return the satellite count
+     */
+    public int getSatelliteCount() {
+        return satellites;
+    }
+
+    /**
+     * Returns the number of stations.
+     *
+     * @return the station count
+     */
+    public int getStationCount() {
+        return stations;
+    }
+
+    /**
+     * Returns the azimuth of a satellite seen from a station.
+     *
+     * @param satellite the satellite index
+     * @param station the station index
+     * @return the azimuth in degrees, from 0 to 360
+     */
+    public double getAzimuth(int satellite, int station) {
+        return azimuth[index(satellite, station)];
+    }
+
+    /**
+     * Returns the elevation of a satellite seen from a station.
+     *
+     * @param satellite the satellite index
+     * @param station the station index
+     * @return the elevation in degrees
+     */
+    public double getElevation(int satellite, int station) {
+        return elevation[index(satellite, station)];
+    }
+
+    /**
+     * Returns the range from a station to a satellite.
+     *
+     * @param satellite the satellite index
+     * @param station the station index
+     * @return the range in kilometers
+     */
+    public double getRange(int satellite, int station) {
+        return range[index(satellite, station)];
+    }
+
+    /**
+     * Returns the range rate of a satellite seen from a station.
+     *
+     * @param satellite the satellite index
+     * @param station the station index
+     * @return the range rate in kilometers per second
+     */
+    public double getRangeRate(int satellite, int station) {
+        return rangeRate[index(satellite, station)];
+    }
+
+    /**
+     * Returns whether a satellite was computed and above the elevation mask of a station.
+     *
+     * @param satellite the satellite index
+     * @param station the station index
+     * @return <code>true</code> if the entry holds look angles
+     */
+    public boolean isVisible(int satellite, int station) {
+        return !Double.isNaN(elevation[index(satellite, station)]);
+    }
+
+    /**
+     * Returns the number of satellites visible from a station.
+     *
+     * @param station the station index
+     * @return the visible count
+     */
+    public int countVisible(int station) {
+        if (station < 0 || station >= stations) {
+            throw new IndexOutOfBoundsException("Station index out of range: " + station);
+        }
+        int count = 0;
+        for (int k = station * satellites, end = k + satellites; k < end; k++) {
+            if (!Double.isNaN(elevation[k])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets every component of every entry to <code>NaN</code>.
+     */
+    public void clear() {
+        Arrays.fill(azimuth, Double.NaN);
+        Arrays.fill(elevation, Double.NaN);
+        Arrays.fill(range, Double.NaN);
+        Arrays.fill(rangeRate, Double.NaN);
+    }
+
+    /**
+     * Returns the index of an entry.
+     *
+     * @param satellite the satellite index
+     * @param station the station index
+     * @return the index into the columns
+     */
+    private int index(int satellite, int station) {
+        if (satellite < 0 || satellite >= satellites || station < 0 || station >= stations) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Index out of range: satellite=%d, station=%d", satellite, station));
+        }
+        return station * satellites + satellite;
+    }
+
+}
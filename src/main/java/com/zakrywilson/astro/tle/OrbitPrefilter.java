@@ -0,0 +1,392 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Prunes pairs of {@link TLE}s that cannot come within a distance of each other over a time
+ * window, using only the geometry of their orbits.
+ * <p>
+ * The perigee and apogee radii of every orbit are computed once, in simple loops over the columns
+ * of an {@link ElementBatch}. Two satellites whose radial bands (perigee to apogee) do not overlap
+ * within the pad can never meet. The bands are widened to account for the short-period variations
+ * of SGP4 and for the orbital decay implied by the first derivative of the mean motion over the
+ * window. Candidate pairs are enumerated by sorting the bands and sweeping over them, so the cost
+ * is proportional to the number of overlapping pairs rather than to the square of the catalog.
+ * <p>
+ * The optional orbit-plane sieve prunes further: two orbits in different planes can only meet near
+ * the line of intersection of the planes, so their radii must match at one of the two mutual nodes.
+ * The planes and arguments of perigee are taken at the middle of the window, and the tolerance on
+ * the position of the nodes includes their J2 secular drift over half the window. Pairs that are
+ * nearly coplanar, or whose nodes drift too much for the test to be meaningful, are kept.
+ * <p>
+ * Rows are indexed in catalog order, matching {@link CatalogPropagator} built over the same list,
+ * so the prefilter can be passed to {@link ConjunctionScreener}. This class is immutable and
+ * thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class OrbitPrefilter {
+
+    /**
+     * Receives the candidate pairs of rows, always with <code>first &lt; second</code>.
+     */
+    public interface PairVisitor {
+        void visit(int first, int second);
+    }
+
+    /**
+     * Radial allowance (km) for the difference between the mean elements and the osculating
+     * orbit, dominated by the J2 short-period terms of SGP4.
+     */
+    private static final double SHORT_PERIOD_MARGIN = 20.0;
+
+    /**
+     * Sine of the smallest angle between two orbit planes for which the plane sieve is applied.
+     */
+    private static final double MIN_PLANE_SINE = Math.sin(Math.toRadians(5.0));
+
+    /**
+     * Largest tolerance (radians) on the position of the mutual nodes for which the plane sieve is
+     * applied.
+     */
+    private static final double MAX_NODE_TOLERANCE = Math.toRadians(45.0);
+
+    private final int size;
+    private final double pad;
+    private final boolean planeSieve;
+
+    private final double[] low;
+    private final double[] high;
+    private final double[] semiLatusRectum;
+    private final double[] eccentricity;
+    private final double[] argumentOfPerigee;
+    private final double[] argumentOfPerigeeDrift;
+    private final double[] raanDrift;
+    private final double[] normalX;
+    private final double[] normalY;
+    private final double[] normalZ;
+    private final double[] raanCos;
+    private final double[] raanSin;
+    private final long[] order;
+
+    /**
+     * Constructs a new <code>OrbitPrefilter</code> with the radial band test only.
+     *
+     * @param catalog the TLEs, not <code>null</code>
+     * @param pad the distance (km) within which pairs must be able to come to be kept
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or contains a
+     * <code>null</code> TLE, if <code>pad</code> is negative or the window ends before it starts
+     */
+    public OrbitPrefilter(List<TLE> catalog, double pad, long startMillisecond,
+                          long endMillisecond) {
+        this(new ElementBatch(catalog), pad, startMillisecond, endMillisecond, false);
+    }
+
+    /**
+     * Constructs a new <code>OrbitPrefilter</code>.
+     *
+     * @param catalog the TLEs, not <code>null</code>
+     * @param pad the distance (km) within which pairs must be able to come to be kept
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @param planeSieve <code>true</code> to apply the orbit-plane sieve after the radial test
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or contains a
+     * <code>null</code> TLE, if <code>pad</code> is negative or the window ends before it starts
+     */
+    public OrbitPrefilter(List<TLE> catalog, double pad, long startMillisecond, long endMillisecond,
+                          boolean planeSieve) {
+        this(new ElementBatch(catalog), pad, startMillisecond, endMillisecond, planeSieve);
+    }
+
+    /**
+     * Constructs a new <code>OrbitPrefilter</code> from a columnar batch of elements.
+     *
+     * @param batch the elements, not <code>null</code>
+     * @param pad the distance (km) within which pairs must be able to come to be kept
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @param planeSieve <code>true</code> to apply the orbit-plane sieve after the radial test
+     * @throws IllegalArgumentException if <code>batch</code> is <code>null</code>, if
+     * <code>pad</code> is negative or the window ends before it starts
+     */
+    public OrbitPrefilter(ElementBatch batch, double pad, long startMillisecond,
+                          long endMillisecond, boolean planeSieve) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Element batch cannot be null");
+        }
+        if (!(pad >= 0.0)) {
+            throw new IllegalArgumentException("Pad cannot be negative: " + pad);
+        }
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Window ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+
+        this.size = batch.size();
+        this.pad = pad;
+        this.planeSieve = planeSieve;
+        this.low = new double[size];
+        this.high = new double[size];
+        this.semiLatusRectum = new double[size];
+        this.eccentricity = Arrays.copyOf(batch.eccentricity, size);
+        this.argumentOfPerigee = new double[size];
+        this.argumentOfPerigeeDrift = new double[size];
+        this.raanDrift = new double[size];
+        this.normalX = new double[size];
+        this.normalY = new double[size];
+        this.normalZ = new double[size];
+        this.raanCos = new double[size];
+        this.raanSin = new double[size];
+
+        double middle = (startMillisecond + (double) endMillisecond) / 2.0;
+        double halfWindowSeconds = (endMillisecond - (double) startMillisecond) / 2000.0;
+
+        // Radial bands, including the decay over the window furthest from the epoch
+        for (int i = 0; i < size; i++) {
+            double meanMotion = batch.meanMotion[i];
+            double e = eccentricity[i];
+            double a = batch.semiMajorAxis[i];
+            double epoch = batch.epochMillisecond[i];
+            double days = Math.max(Math.abs(startMillisecond - epoch),
+                                   Math.abs(endMillisecond - epoch)) / 86400000.0;
+            double changedMeanMotion = Math.max(meanMotion - 2.0 * Math.abs(
+                    batch.firstDerivativeOfMeanMotion[i]) * days, meanMotion * 0.5);
+            double ratio = meanMotion / changedMeanMotion;
+            double decay = a * (Math.cbrt(ratio * ratio) - 1.0);
+            low[i] = a * (1.0 - e) - decay - SHORT_PERIOD_MARGIN;
+            high[i] = a * (1.0 + e) + decay + SHORT_PERIOD_MARGIN;
+            semiLatusRectum[i] = a * (1.0 - e * e);
+        }
+
+        // Orbit planes and arguments of perigee at the middle of the window
+        for (int i = 0; i < size; i++) {
+            double n = batch.meanMotion[i] * TWO_PI / 86400.0;
+            double inclination = Math.toRadians(batch.inclination[i]);
+            double cosi = Math.cos(inclination);
+            double factor = n * J2 * (RADIUS / semiLatusRectum[i]) * (RADIUS / semiLatusRectum[i]);
+            double raanRate = -1.5 * factor * cosi;
+            double perigeeRate = 0.75 * factor * (5.0 * cosi * cosi - 1.0);
+            double seconds = (middle - batch.epochMillisecond[i]) / 1000.0;
+            double raan = Math.toRadians(batch.raan[i]) + raanRate * seconds;
+            argumentOfPerigee[i] = Math.toRadians(batch.argumentOfPerigee[i])
+                    + perigeeRate * seconds;
+            raanDrift[i] = Math.abs(raanRate) * halfWindowSeconds;
+            argumentOfPerigeeDrift[i] = Math.abs(perigeeRate) * halfWindowSeconds;
+            raanCos[i] = Math.cos(raan);
+            raanSin[i] = Math.sin(raan);
+            double sini = Math.sin(inclination);
+            normalX[i] = sini * raanSin[i];
+            normalY[i] = -sini * raanCos[i];
+            normalZ[i] = cosi;
+        }
+
+        // Rows sorted by the bottom of their band, as (band in meters, row) pairs
+        this.order = new long[size];
+        for (int i = 0; i < size; i++) {
+            long meters = (long) Math.floor(Math.max(0.0, low[i]) * 1000.0);
+            order[i] = (meters << 32) | i;
+        }
+        Arrays.sort(order);
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the pad.
+     *
+     * @return the pad in kilometers
+     */
+    public double getPad() {
+        return pad;
+    }
+
+    /**
+     * Determines whether the orbit-plane sieve is applied.
+     *
+     * @return <code>true</code> if the plane sieve is enabled
+     */
+    public boolean isPlaneSieveEnabled() {
+        return planeSieve;
+    }
+
+    /**
+     * Returns the lowest radius (km) of a row, including the margins.
+     *
+     * @param i the row
+     * @return the bottom of the radial band
+     */
+    public double getLowRadius(int i) {
+        return low[i];
+    }
+
+    /**
+     * Returns the highest radius (km) of a row, including the margins.
+     *
+     * @param i the row
+     * @return the top of the radial band
+     */
+    public double getHighRadius(int i) {
+        return high[i];
+    }
+
+    /**
+     * Determines whether two rows may come within the pad of each other during the window.
+     *
+     * @param i the first row
+     * @param j the second row
+     * @return <code>false</code> if the satellites can never be that close, <code>true</code> if
+     * they may be
+     */
+    public boolean mayConflict(int i, int j) {
+        if (i == j) {
+            return false;
+        }
+        if (low[i] > high[j] + pad || low[j] > high[i] + pad) {
+            return false;
+        }
+        return !planeSieve || passesPlaneSieve(i, j);
+    }
+
+    /**
+     * Visits every pair of rows that may come within the pad of each other, on the calling thread.
+     *
+     * @param visitor the visitor receiving the pairs, not <code>null</code>
+     */
+    public void forEachCandidatePair(PairVisitor visitor) {
+        for (int a = 0; a < size; a++) {
+            int i = (int) order[a];
+            double limit = high[i] + pad;
+            for (int b = a + 1; b < size; b++) {
+                int j = (int) order[b];
+                if (low[j] > limit + 0.001) {
+                    break; // Every following band starts above this one
+                }
+                if (low[j] <= limit && (!planeSieve || passesPlaneSieve(i, j))) {
+                    visitor.visit(Math.min(i, j), Math.max(i, j));
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the pairs of rows that may come within the pad of each other.
+     *
+     * @return the number of candidate pairs
+     */
+    public long countCandidatePairs() {
+        final long[] count = new long[1];
+        forEachCandidatePair((first, second) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Applies the orbit-plane sieve to two rows whose radial bands overlap.
+     *
+     * @param i the first row
+     * @param j the second row
+     * @return <code>true</code> if the orbits may meet near one of their mutual nodes
+     */
+    private boolean passesPlaneSieve(int i, int j) {
+        // Line of the mutual nodes
+        double kx = normalY[i] * normalZ[j] - normalZ[i] * normalY[j];
+        double ky = normalZ[i] * normalX[j] - normalX[i] * normalZ[j];
+        double kz = normalX[i] * normalY[j] - normalY[i] * normalX[j];
+        double sine = Math.sqrt(kx * kx + ky * ky + kz * kz);
+        if (sine < MIN_PLANE_SINE) {
+            return true;
+        }
+        kx /= sine;
+        ky /= sine;
+        kz /= sine;
+
+        // Angular tolerance on the nodes: plane drift plus the arc spent within the pad of the
+        // other plane
+        double reach = (pad + SHORT_PERIOD_MARGIN) / (Math.max(low[i], low[j]) * sine);
+        double tolerance = (raanDrift[i] + raanDrift[j]) / sine + Math.asin(Math.min(1.0, reach));
+        if (tolerance > MAX_NODE_TOLERANCE) {
+            return true;
+        }
+
+        double nodeI = argumentOfLatitude(i, kx, ky, kz) - argumentOfPerigee[i];
+        double nodeJ = argumentOfLatitude(j, kx, ky, kz) - argumentOfPerigee[j];
+        double toleranceI = tolerance + argumentOfPerigeeDrift[i];
+        double toleranceJ = tolerance + argumentOfPerigeeDrift[j];
+        for (int node = 0; node < 2; node++) {
+            double offset = node * Math.PI;
+            double lowI = radius(i, nodeI + offset, toleranceI, false);
+            double highI = radius(i, nodeI + offset, toleranceI, true);
+            double lowJ = radius(j, nodeJ + offset, toleranceJ, false);
+            double highJ = radius(j, nodeJ + offset, toleranceJ, true);
+            double allowance = pad + 2.0 * SHORT_PERIOD_MARGIN;
+            if (lowI <= highJ + allowance && lowJ <= highI + allowance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the argument of latitude of a direction lying in the plane of a row.
+     *
+     * @param i the row
+     * @param kx the x component of the unit direction
+     * @param ky the y component of the unit direction
+     * @param kz the z component of the unit direction
+     * @return the argument of latitude in radians
+     */
+    private double argumentOfLatitude(int i, double kx, double ky, double kz) {
+        // In-plane unit vector 90 degrees ahead of the ascending node: normal x node
+        double qx = -normalZ[i] * raanSin[i];
+        double qy = normalZ[i] * raanCos[i];
+        double qz = normalX[i] * raanSin[i] - normalY[i] * raanCos[i];
+        return Math.atan2(kx * qx + ky * qy + kz * qz, kx * raanCos[i] + ky * raanSin[i]);
+    }
+
+    /**
+     * Returns the lowest or highest radius of a row over an interval of true anomaly.
+     *
+     * @param i the row
+     * @param trueAnomaly the center of the interval in radians
+     * @param tolerance the half width of the interval in radians
+     * @param highest <code>true</code> for the highest radius, <code>false</code> for the lowest
+     * @return the radius in kilometers
+     */
+    private double radius(int i, double trueAnomaly, double tolerance, boolean highest) {
+        double p = semiLatusRectum[i];
+        double e = eccentricity[i];
+        if (tolerance >= Math.PI) {
+            return highest ? p / (1.0 - e) : p / (1.0 + e);
+        }
+
+        // Distance of the interval from perigee (0) and apogee (pi)
+        double fromPerigee = Math.abs(Math.IEEEremainder(trueAnomaly, TWO_PI));
+        if (highest && Math.PI - fromPerigee <= tolerance) {
+            return p / (1.0 - e);
+        }
+        if (!highest && fromPerigee <= tolerance) {
+            return p / (1.0 + e);
+        }
+
+        // Otherwise the radius is monotonic over the interval and extreme at an end
+        double r1 = p / (1.0 + e * Math.cos(trueAnomaly - tolerance));
+        double r2 = p / (1.0 + e * Math.cos(trueAnomaly + tolerance));
+        return highest ? Math.max(r1, r2) : Math.min(r1, r2);
+    }
+
+}
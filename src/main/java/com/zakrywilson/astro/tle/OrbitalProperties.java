@@ -0,0 +1,167 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Quantities derived from the mean elements of a {@link TLE}: the semi-major axis, period, apogee
+ * and perigee, orbital regime and the mean motion recovered from its Kozai form.
+ * <p>
+ * The mean motion of a TLE is a Kozai mean motion; SGP4 first recovers the Brouwer mean motion
+ * from it, and the semi-major axis and period here are derived from that recovered value, so that
+ * they agree with the propagator. Instances are obtained with {@link TLE#getOrbitalProperties()},
+ * which computes them once per TLE, or read in bulk from the columns of an {@link ElementBatch}.
+ * Elements that do not describe a closed orbit give <code>NaN</code> quantities and the {@link
+ * OrbitalRegime#UNDEFINED} regime.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class OrbitalProperties {
+
+    private static final double X2O3 = 2.0 / 3.0;
+
+    private final double recoveredMeanMotion;
+    private final double semiMajorAxis;
+    private final double period;
+    private final double apogeeAltitude;
+    private final double perigeeAltitude;
+    private final OrbitalRegime regime;
+
+    /**
+     * Constructs a new <code>OrbitalProperties</code> from the elements of a TLE.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code>
+     */
+    public OrbitalProperties(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        double e = tle.getEccentricity();
+        double meanMotion = tle.getMeanMotion();
+        if (!(e >= 0.0 && e < 1.0 && meanMotion > 0.0)) {
+            this.recoveredMeanMotion = Double.NaN;
+            this.semiMajorAxis = Double.NaN;
+            this.period = Double.NaN;
+            this.apogeeAltitude = Double.NaN;
+            this.perigeeAltitude = Double.NaN;
+            this.regime = OrbitalRegime.UNDEFINED;
+            return;
+        }
+        double noKozai = meanMotion * TWO_PI / MINUTES_PER_DAY;
+        double noUnkozai = recoverMeanMotion(noKozai, e,
+                                             Math.cos(Math.toRadians(tle.getInclination())));
+        this.recoveredMeanMotion = noUnkozai * MINUTES_PER_DAY / TWO_PI;
+        this.semiMajorAxis = Math.pow(XKE / noUnkozai, X2O3) * RADIUS;
+        this.period = TWO_PI / noUnkozai;
+        this.apogeeAltitude = semiMajorAxis * (1.0 + e) - RADIUS;
+        this.perigeeAltitude = semiMajorAxis * (1.0 - e) - RADIUS;
+        this.regime = OrbitalRegime.classify(e, meanMotion, apogeeAltitude);
+    }
+
+    /**
+     * Recovers the Brouwer mean motion from the Kozai mean motion of a TLE, as SGP4 does.
+     *
+     * @param noKozai the Kozai mean motion in radians per minute
+     * @param eccentricity the eccentricity
+     * @param cosInclination the cosine of the inclination
+     * @return the recovered mean motion in radians per minute
+     */
+    static double recoverMeanMotion(double noKozai, double eccentricity, double cosInclination) {
+        double omeosq = 1.0 - eccentricity * eccentricity;
+        double rteosq = Math.sqrt(omeosq);
+        double cosio2 = cosInclination * cosInclination;
+        double ak = Math.pow(XKE / noKozai, X2O3);
+        double d1 = 0.75 * J2 * (3.0 * cosio2 - 1.0) / (rteosq * omeosq);
+        double del = d1 / (ak * ak);
+        double adel = ak * (1.0 - del * del - del * (1.0 / 3.0 + 134.0 * del * del / 81.0));
+        del = d1 / (adel * adel);
+        return noKozai / (1.0 + del);
+    }
+
+    /**
+     * Returns the mean motion recovered from the Kozai mean motion of the TLE.
+     *
+     * @return the recovered (Brouwer) mean motion in revolutions per day
+     */
+    public double getRecoveredMeanMotion() {
+        return recoveredMeanMotion;
+    }
+
+    /**
+     * Returns the mean semi-major axis.
+     *
+     * @return the semi-major axis in kilometers
+     */
+    public double getSemiMajorAxis() {
+        return semiMajorAxis;
+    }
+
+    /**
+     * Returns the orbital period.
+     *
+     * @return the period in minutes
+     */
+    public double getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the mean apogee altitude above the equatorial radius.
+     *
+     * @return the apogee altitude in kilometers
+     */
+    public double getApogeeAltitude() {
+        return apogeeAltitude;
+    }
+
+    /**
+     * Returns the mean perigee altitude above the equatorial radius.
+     *
+     * @return the perigee altitude in kilometers
+     */
+    public double getPerigeeAltitude() {
+        return perigeeAltitude;
+    }
+
+    /**
+     * Returns the mean apogee radius.
+     *
+     * @return the apogee radius in kilometers
+     */
+    public double getApogeeRadius() {
+        return apogeeAltitude + RADIUS;
+    }
+
+    /**
+     * Returns the mean perigee radius.
+     *
+     * @return the perigee radius in kilometers
+     */
+    public double getPerigeeRadius() {
+        return perigeeAltitude + RADIUS;
+    }
+
+    /**
+     * Returns the orbital regime.
+     *
+     * @return the regime, never <code>null</code>
+     */
+    public OrbitalRegime getRegime() {
+        return regime;
+    }
+
+    /**
+     * Returns a string describing the derived quantities.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("OrbitalProperties[%s, a=%.3f km, period=%.3f min, apogee=%.3f km, "
+                                     + "perigee=%.3f km]", regime, semiMajorAxis, period,
+                             apogeeAltitude, perigeeAltitude);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Broad classes of orbits, as used to partition catalogs.
+ *
+ * @author Zach Wilson
+ */
+public enum OrbitalRegime {
+
+    /**
+     * Low Earth orbit: near-circular with an apogee altitude of at most 2,000 km.
+     */
+    LEO,
+
+    /**
+     * Medium Earth orbit: near-circular, above low Earth orbit and below the geosynchronous band.
+     */
+    MEO,
+
+    /**
+     * Geosynchronous orbit: near-circular with a mean motion of 0.9 to 1.1 revolutions per day.
+     */
+    GEO,
+
+    /**
+     * Highly elliptical (eccentricity of 0.25 or more) or high Earth orbit beyond the
+     * geosynchronous band.
+     */
+    HEO,
+
+    /**
+     * The elements do not describe a closed orbit (e.g., the eccentricity is not in the range 0
+     * to 1 or the mean motion is not positive).
+     */
+    UNDEFINED;
+
+    /**
+     * Eccentricity from which orbits are considered highly elliptical.
+     */
+    private static final double HIGH_ECCENTRICITY = 0.25;
+
+    /**
+     * Apogee altitude in kilometers up to which orbits are considered low.
+     */
+    private static final double LOW_APOGEE_ALTITUDE = 2000.0;
+
+    /**
+     * Bounds of the geosynchronous band in revolutions per day.
+     */
+    private static final double GEOSYNCHRONOUS_LOW = 0.9;
+    private static final double GEOSYNCHRONOUS_HIGH = 1.1;
+
+    /**
+     * Classifies an orbit.
+     *
+     * @param eccentricity the eccentricity
+     * @param meanMotion the mean motion in revolutions per day
+     * @param apogeeAltitude the apogee altitude in kilometers
+     * @return the regime
+     */
+    static OrbitalRegime classify(double eccentricity, double meanMotion, double apogeeAltitude) {
+        if (!(eccentricity >= 0.0 && eccentricity < 1.0 && meanMotion > 0.0)) {
+            return UNDEFINED;
+        }
+        if (eccentricity >= HIGH_ECCENTRICITY) {
+            return HEO;
+        }
+        if (apogeeAltitude <= LOW_APOGEE_ALTITUDE) {
+            return LEO;
+        }
+        if (meanMotion > GEOSYNCHRONOUS_HIGH) {
+            return MEO;
+        }
+        return meanMotion >= GEOSYNCHRONOUS_LOW ? GEO : HEO;
+    }
+
+}
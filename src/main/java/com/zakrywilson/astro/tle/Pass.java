@@ -0,0 +1,130 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * A pass of a satellite over a ground station: the times at which it rises above and sets below
+ * the minimum elevation, and the time and elevation of its culmination.
+ * <p>
+ * Passes already in progress at the start of a prediction window, or still in progress at its end,
+ * are truncated to the window.
+ *
+ * @author Zach Wilson
+ */
+public final class Pass {
+
+    private final TLE tle;
+    private final GroundStation station;
+    private final double riseMillisecond;
+    private final double culminationMillisecond;
+    private final double setMillisecond;
+    private final double maximumElevation;
+
+    /**
+     * Constructs a new <code>Pass</code>.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param station the ground station, not <code>null</code>
+     * @param riseMillisecond the rise time in fractional milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param culminationMillisecond the time of maximum elevation
+     * @param setMillisecond the set time
+     * @param maximumElevation the maximum elevation in degrees
+     * @throws IllegalArgumentException if <code>tle</code> or <code>station</code> are
+     * <code>null</code>, or the times are out of order
+     */
+    public Pass(TLE tle, GroundStation station, double riseMillisecond,
+                double culminationMillisecond, double setMillisecond, double maximumElevation) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (station == null) {
+            throw new IllegalArgumentException("Ground station cannot be null");
+        }
+        if (!(riseMillisecond <= culminationMillisecond && culminationMillisecond <= setMillisecond)) {
+            throw new IllegalArgumentException(String.format(
+                    "Pass times out of order: rise=%s, culmination=%s, set=%s", riseMillisecond,
+                    culminationMillisecond, setMillisecond));
+        }
+        this.tle = tle;
+        this.station = station;
+        this.riseMillisecond = riseMillisecond;
+        this.culminationMillisecond = culminationMillisecond;
+        this.setMillisecond = setMillisecond;
+        this.maximumElevation = maximumElevation;
+    }
+
+    /**
+     * Returns the satellite making the pass.
+     *
+     * @return the TLE
+     */
+    public TLE getTLE() {
+        return tle;
+    }
+
+    /**
+     * Returns the ground station the pass is seen from.
+     *
+     * @return the station
+     */
+    public GroundStation getStation() {
+        return station;
+    }
+
+    /**
+     * Returns the rise time, rounded to the nearest millisecond.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getRiseMillisecond() {
+        return Math.round(riseMillisecond);
+    }
+
+    /**
+     * Returns the time of maximum elevation, rounded to the nearest millisecond.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getCulminationMillisecond() {
+        return Math.round(culminationMillisecond);
+    }
+
+    /**
+     * Returns the set time, rounded to the nearest millisecond.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getSetMillisecond() {
+        return Math.round(setMillisecond);
+    }
+
+    /**
+     * Returns the duration of the pass.
+     *
+     * @return the duration in milliseconds
+     */
+    public double getDurationMillisecond() {
+        return setMillisecond - riseMillisecond;
+    }
+
+    /**
+     * Returns the maximum elevation reached during the pass.
+     *
+     * @return the elevation in degrees
+     */
+    public double getMaximumElevation() {
+        return maximumElevation;
+    }
+
+    /**
+     * Returns a string describing the satellite, station, times and maximum elevation.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("Pass[%d, %s, rise=%d, culmination=%d, set=%d, elevation=%.3f]",
+                             tle.getSatelliteNumber(), station.getName(), getRiseMillisecond(),
+                             getCulminationMillisecond(), getSetMillisecond(), maximumElevation);
+    }
+
+}
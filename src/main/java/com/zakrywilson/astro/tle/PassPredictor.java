@@ -0,0 +1,419 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Predicts the passes of satellites over ground stations.
+ * <p>
+ * Most of the time a satellite is far below the horizon of any one station, so instead of sampling
+ * at a fine step everywhere, the search bounds how soon the satellite could possibly become
+ * visible. From the apogee radius and the minimum elevation, a satellite can only be seen while
+ * the geocentric angle between it and the station is under a visibility half-angle. That angle
+ * changes no faster than the angular rate of the satellite at perigee plus the rotation rate of
+ * the Earth, so whenever it is above the half-angle the search skips ahead by the time needed to
+ * close the gap. Near the visibility cone the elevation is sampled at the fine step, horizon
+ * crossings are solved with Brent's method and the culmination with a golden-section search.
+ * Satellites that rise and set again between two fine samples are caught by looking for a local
+ * maximum of the sampled elevations.
+ * <p>
+ * Catalogs are predicted against many stations in parallel, one task per satellite and station.
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class PassPredictor {
+
+    /**
+     * Default step used to sample the elevation near the visibility cone: 30 seconds.
+     */
+    public static final long DEFAULT_STEP_MILLISECOND = 30000L;
+
+    /**
+     * Default tolerance on the rise, culmination and set times: one millisecond.
+     */
+    public static final double DEFAULT_TOLERANCE_MILLISECOND = 1.0;
+
+    /**
+     * Margin added to the apogee radius in kilometers, covering the short-period variations that
+     * are not part of the mean elements.
+     */
+    private static final double APOGEE_MARGIN = 50.0;
+
+    /**
+     * Margin subtracted from the minimum elevation in the visibility bound, covering the
+     * difference between the geodetic and geocentric verticals of the station.
+     */
+    private static final double ELEVATION_MARGIN = Math.toRadians(0.5);
+
+    /**
+     * Factor applied to the bound on the angular rate, covering perturbations of the orbit.
+     */
+    private static final double RATE_MARGIN = 1.05;
+
+    /**
+     * Inverse of the golden ratio.
+     */
+    private static final double GOLDEN = (Math.sqrt(5.0) - 1.0) / 2.0;
+
+    private final double minimumElevation;
+    private final long stepMillisecond;
+    private final double toleranceMillisecond;
+
+    /**
+     * Constructs a new <code>PassPredictor</code> with the default step and tolerance.
+     *
+     * @param minimumElevation the elevation above which a satellite is considered visible, in
+     * degrees (0 to 90)
+     * @throws IllegalArgumentException if <code>minimumElevation</code> is out of range
+     */
+    public PassPredictor(double minimumElevation) {
+        this(minimumElevation, DEFAULT_STEP_MILLISECOND, DEFAULT_TOLERANCE_MILLISECOND);
+    }
+
+    /**
+     * Constructs a new <code>PassPredictor</code>.
+     *
+     * @param minimumElevation the elevation above which a satellite is considered visible, in
+     * degrees (0 to 90)
+     * @param stepMillisecond the step used to sample the elevation near the visibility cone
+     * @param toleranceMillisecond the tolerance on the rise, culmination and set times
+     * @throws IllegalArgumentException if <code>minimumElevation</code> is out of range, or the
+     * step or tolerance are not positive
+     */
+    public PassPredictor(double minimumElevation, long stepMillisecond,
+                         double toleranceMillisecond) {
+        if (!(minimumElevation >= 0.0 && minimumElevation < 90.0)) {
+            throw new IllegalArgumentException(
+                    "Minimum elevation out of range (0 to 90): " + minimumElevation);
+        }
+        if (stepMillisecond <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + stepMillisecond);
+        }
+        if (!(toleranceMillisecond > 0.0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + toleranceMillisecond);
+        }
+        this.minimumElevation = Math.toRadians(minimumElevation);
+        this.stepMillisecond = stepMillisecond;
+        this.toleranceMillisecond = toleranceMillisecond;
+    }
+
+    /**
+     * Returns the elevation above which a satellite is considered visible.
+     *
+     * @return the minimum elevation in degrees
+     */
+    public double getMinimumElevation() {
+        return Math.toDegrees(minimumElevation);
+    }
+
+    /**
+     * Returns the step used to sample the elevation near the visibility cone.
+     *
+     * @return the step in milliseconds
+     */
+    public long getStepMillisecond() {
+        return stepMillisecond;
+    }
+
+    /**
+     * Returns the tolerance on the rise, culmination and set times.
+     *
+     * @return the tolerance in milliseconds
+     */
+    public double getToleranceMillisecond() {
+        return toleranceMillisecond;
+    }
+
+    /**
+     * Predicts the passes of one satellite over one ground station.
+     *
+     * @param tle the satellite, not <code>null</code>
+     * @param station the ground station, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return the passes in order of rise time, empty if the TLE cannot be propagated
+     * @throws IllegalArgumentException if <code>tle</code> or <code>station</code> are
+     * <code>null</code>, or the window ends before it starts
+     */
+    public List<Pass> predict(TLE tle, GroundStation station, long startMillisecond,
+                              long endMillisecond) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (station == null) {
+            throw new IllegalArgumentException("Ground station cannot be null");
+        }
+        checkWindow(startMillisecond, endMillisecond);
+        SGP4Propagator propagator;
+        try {
+            propagator = new SGP4Propagator(tle);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<>(); // Elements cannot be propagated
+        }
+        return new Search(propagator, station).run(startMillisecond, endMillisecond)
+                                               .stream()
+                                               .map(p -> p.pass)
+                                               .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Predicts the passes of a catalog over several ground stations, in parallel.
+     *
+     * @param catalog the satellites, not <code>null</code>
+     * @param stations the ground stations, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return the passes in order of rise time
+     * @throws IllegalArgumentException if <code>catalog</code> or <code>stations</code> are
+     * <code>null</code>, or the window ends before it starts
+     */
+    public List<Pass> predict(List<TLE> catalog, List<GroundStation> stations,
+                              long startMillisecond, long endMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        return predict(new CatalogPropagator(catalog), stations, startMillisecond, endMillisecond);
+    }
+
+    /**
+     * Predicts the passes of an initialized catalog over several ground stations, in parallel.
+     *
+     * @param catalog the catalog propagator, not <code>null</code>
+     * @param stations the ground stations, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @return the passes in order of rise time
+     * @throws IllegalArgumentException if <code>catalog</code> or <code>stations</code> are
+     * <code>null</code>, or the window ends before it starts
+     */
+    public List<Pass> predict(CatalogPropagator catalog, List<GroundStation> stations,
+                              long startMillisecond, long endMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (stations == null) {
+            throw new IllegalArgumentException("Ground stations cannot be null");
+        }
+        checkWindow(startMillisecond, endMillisecond);
+        GroundStation[] sites = stations.toArray(new GroundStation[stations.size()]);
+        for (GroundStation site : sites) {
+            if (site == null) {
+                throw new IllegalArgumentException("Ground stations cannot contain null");
+            }
+        }
+        int tasks = catalog.size() * sites.length;
+        return IntStream.range(0, tasks)
+                        .parallel()
+                        .mapToObj(k -> {
+                            Propagator propagator = catalog.getPropagator(k / sites.length);
+                            if (propagator == null) {
+                                return new ArrayList<Timed>();
+                            }
+                            return new Search(propagator, sites[k % sites.length])
+                                    .run(startMillisecond, endMillisecond);
+                        })
+                        .flatMap(List::stream)
+                        .sorted(Comparator.comparingDouble(p -> p.riseTime))
+                        .map(p -> p.pass)
+                        .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Checks that a window does not end before it starts.
+     *
+     * @param startMillisecond the start of the window
+     * @param endMillisecond the end of the window
+     * @throws IllegalArgumentException if the window ends before it starts
+     */
+    private static void checkWindow(long startMillisecond, long endMillisecond) {
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Window ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+    }
+
+    /**
+     * Searches the passes of one satellite over one station, reusing one state buffer.
+     */
+    private final class Search {
+
+        private final Propagator propagator;
+        private final GroundStation station;
+        private final double[] state = new double[6];
+        private final double visibilityAngle;
+        private final double maximumRate;
+        private final double stationRadius;
+        private double centralAngle;
+
+        private Search(Propagator propagator, GroundStation station) {
+            this.propagator = propagator;
+            this.station = station;
+            this.stationRadius = station.getRadius();
+
+            TLE tle = propagator.getTLE();
+            OrbitalProperties properties = tle.getOrbitalProperties();
+            double e = tle.getEccentricity();
+            double n = TWO_PI / (properties.getPeriod() * 60.0);
+            double apogee = properties.getApogeeRadius() + APOGEE_MARGIN;
+            double elevation = Math.max(0.0, minimumElevation - ELEVATION_MARGIN);
+            double ratio = Math.min(1.0, stationRadius * Math.cos(elevation) / apogee);
+            this.visibilityAngle = Math.acos(ratio) - elevation;
+            double perigeeRate = n * (1.0 + e) * (1.0 + e) / Math.pow(1.0 - e * e, 1.5);
+            this.maximumRate = RATE_MARGIN * (perigeeRate + ROTATION_RATE);
+        }
+
+        /**
+         * Returns the passes within a window, each with its exact rise time for sorting.
+         */
+        private List<Timed> run(double start, double end) {
+            List<Timed> passes = new ArrayList<>();
+            double t = start;
+            double elevation = elevation(t);
+            double previous = Double.NaN;
+            double previousTime = Double.NaN;
+            double rise = elevation >= minimumElevation ? start : Double.NaN;
+
+            while (t < end && !Double.isNaN(elevation)) {
+                double dt = stepMillisecond;
+                if (Double.isNaN(rise) && centralAngle > visibilityAngle) {
+                    // Cannot become visible before the gap to the visibility cone is closed
+                    double gap = 1000.0 * (centralAngle - visibilityAngle) / maximumRate;
+                    if (gap > dt) {
+                        dt = gap;
+                        previous = Double.NaN;
+                    }
+                }
+                double next = Math.min(end, t + dt);
+                double nextElevation = elevation(next);
+                if (Double.isNaN(nextElevation)) {
+                    break;
+                }
+
+                if (Double.isNaN(rise)) {
+                    if (nextElevation >= minimumElevation) {
+                        rise = crossing(t, next, elevation, nextElevation);
+                    } else if (!Double.isNaN(previous) && elevation > previous
+                            && elevation > nextElevation) {
+                        // Local maximum below the threshold: look for a short pass in between
+                        double peak = culmination(previousTime, next);
+                        double peakElevation = elevation(peak);
+                        if (peakElevation >= minimumElevation) {
+                            double r = crossing(previousTime, peak, previous, peakElevation);
+                            double s = crossing(peak, next, peakElevation, nextElevation);
+                            passes.add(pass(r, s));
+                        }
+                    }
+                } else if (nextElevation < minimumElevation) {
+                    passes.add(pass(rise, crossing(t, next, elevation, nextElevation)));
+                    rise = Double.NaN;
+                }
+
+                if (dt == stepMillisecond) {
+                    previous = elevation;
+                    previousTime = t;
+                }
+                t = next;
+                elevation = nextElevation;
+            }
+            if (!Double.isNaN(rise)) {
+                passes.add(pass(rise, t)); // Still visible at the end of the window
+            }
+            return passes;
+        }
+
+        /**
+         * Returns a pass between a rise and set time, finding its culmination.
+         */
+        private Timed pass(double rise, double set) {
+            double culmination = culmination(rise, set);
+            double elevation = elevation(culmination);
+            return new Timed(rise, new Pass(propagator.getTLE(), station, rise, culmination, set,
+                                            Math.toDegrees(elevation)));
+        }
+
+        /**
+         * Returns the time at which the elevation crosses the minimum between two times.
+         */
+        private double crossing(double a, double b, double fa, double fb) {
+            return RootFinder.brent(t -> elevation(t) - minimumElevation, a, b,
+                                    fa - minimumElevation, fb - minimumElevation,
+                                    toleranceMillisecond);
+        }
+
+        /**
+         * Returns the time of maximum elevation between two times with a golden-section search.
+         */
+        private double culmination(double a, double b) {
+            double c = b - GOLDEN * (b - a);
+            double d = a + GOLDEN * (b - a);
+            double fc = elevation(c);
+            double fd = elevation(d);
+            while (b - a > toleranceMillisecond) {
+                if (fc > fd) {
+                    b = d;
+                    d = c;
+                    fd = fc;
+                    c = b - GOLDEN * (b - a);
+                    fc = elevation(c);
+                } else {
+                    a = c;
+                    c = d;
+                    fc = fd;
+                    d = a + GOLDEN * (b - a);
+                    fd = elevation(d);
+                }
+            }
+            return 0.5 * (a + b);
+        }
+
+        /**
+         * Returns the elevation of the satellite in radians, or <code>NaN</code> if it cannot be
+         * propagated, and records the geocentric angle between the satellite and the station.
+         */
+        private double elevation(double timeMillisecond) {
+            if (!propagator.propagateMinutes(propagator.minutesSinceEpoch(timeMillisecond), state,
+                                             0)) {
+                centralAngle = Double.NaN;
+                return Double.NaN;
+            }
+            double gmst = SiderealTime.gmst(timeMillisecond);
+            double cos = Math.cos(gmst);
+            double sin = Math.sin(gmst);
+            double x = cos * state[0] + sin * state[1];
+            double y = -sin * state[0] + cos * state[1];
+            double z = state[2];
+            double r = Math.sqrt(x * x + y * y + z * z);
+            double dot = (x * station.x + y * station.y + z * station.z)
+                    / (r * stationRadius);
+            centralAngle = Math.acos(Math.max(-1.0, Math.min(1.0, dot)));
+            return station.elevation(x, y, z);
+        }
+
+    }
+
+    /**
+     * A pass with its exact rise time, for sorting.
+     */
+    private static final class Timed {
+
+        private final double riseTime;
+        private final Pass pass;
+
+        private Timed(double riseTime, Pass pass) {
+            this.riseTime = riseTime;
+            this.pass = pass;
+        }
+
+    }
+
+}
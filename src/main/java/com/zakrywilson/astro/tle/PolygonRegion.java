@@ -0,0 +1,192 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * A polygonal region of interest, bounded by the great-circle arcs between consecutive vertices.
+ * <p>
+ * The polygon is closed implicitly from the last vertex back to the first, and may be given in
+ * either orientation. Of the two parts of the sphere it divides, the region is the one that fits
+ * within the bounding cap centered on the mean of the vertices, which must be smaller than a
+ * hemisphere. Whether a point is inside is decided by the winding number of the polygon around it,
+ * so concave polygons and polygons crossing the antimeridian or a pole need no special handling.
+ * The edges must not cross each other.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class PolygonRegion extends Region {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    /**
+     * Unit directions of the vertices, three components per vertex.
+     */
+    private final double[] vertices;
+
+    /**
+     * Unit normals of the planes of the edges, three components per edge.
+     */
+    private final double[] normals;
+
+    /**
+     * Constructs a new <code>PolygonRegion</code>.
+     *
+     * @param name the name of the region, can be <code>null</code>
+     * @param latitudes the geodetic latitudes of the vertices in degrees (-90 to 90)
+     * @param longitudes the longitudes of the vertices in degrees, east positive (-180 to 360)
+     * @throws IllegalArgumentException if the arrays are <code>null</code>, of different lengths
+     * or with fewer than 3 vertices, a coordinate is out of range, two consecutive vertices are the
+     * same or opposite, or the polygon does not fit within a hemisphere
+     */
+    public PolygonRegion(String name, double[] latitudes, double[] longitudes) {
+        super(name);
+        if (latitudes == null || longitudes == null) {
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Different numbers of latitudes and longitudes: %d, %d", latitudes.length,
+                    longitudes.length));
+        }
+        int n = latitudes.length;
+        if (n < 3) {
+            throw new IllegalArgumentException("Polygon needs at least 3 vertices: " + n);
+        }
+        this.latitudes = latitudes.clone();
+        this.longitudes = longitudes.clone();
+        this.vertices = new double[3 * n];
+        this.normals = new double[3 * n];
+
+        double sx = 0.0;
+        double sy = 0.0;
+        double sz = 0.0;
+        for (int k = 0; k < n; k++) {
+            checkCoordinates(latitudes[k], longitudes[k]);
+            direction(latitudes[k], longitudes[k], vertices, 3 * k);
+            sx += vertices[3 * k];
+            sy += vertices[3 * k + 1];
+            sz += vertices[3 * k + 2];
+        }
+        for (int k = 0; k < n; k++) {
+            int a = 3 * k;
+            int b = 3 * ((k + 1) % n);
+            double nx = vertices[a + 1] * vertices[b + 2] - vertices[a + 2] * vertices[b + 1];
+            double ny = vertices[a + 2] * vertices[b] - vertices[a] * vertices[b + 2];
+            double nz = vertices[a] * vertices[b + 1] - vertices[a + 1] * vertices[b];
+            double norm = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (!(norm > 1.0e-12)) {
+                throw new IllegalArgumentException("Degenerate edge after vertex " + k);
+            }
+            normals[a] = nx / norm;
+            normals[a + 1] = ny / norm;
+            normals[a + 2] = nz / norm;
+        }
+
+        double norm = Math.sqrt(sx * sx + sy * sy + sz * sz);
+        if (!(norm > 1.0e-12)) {
+            throw new IllegalArgumentException("Polygon does not fit within a hemisphere");
+        }
+        this.centerX = sx / norm;
+        this.centerY = sy / norm;
+        this.centerZ = sz / norm;
+        double radius = 0.0;
+        for (int k = 0; k < n; k++) {
+            radius = Math.max(radius, angle(centerX, centerY, centerZ, vertices[3 * k],
+                                            vertices[3 * k + 1], vertices[3 * k + 2]));
+        }
+        if (!(radius < 0.5 * Math.PI)) {
+            throw new IllegalArgumentException("Polygon does not fit within a hemisphere");
+        }
+        this.boundingRadius = radius;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the vertex count
+     */
+    public int getVertexCount() {
+        return latitudes.length;
+    }
+
+    /**
+     * Returns the geodetic latitude of a vertex.
+     *
+     * @param k the vertex
+     * @return the latitude in degrees
+     */
+    public double getLatitude(int k) {
+        return latitudes[k];
+    }
+
+    /**
+     * Returns the longitude of a vertex.
+     *
+     * @param k the vertex
+     * @return the longitude in degrees, east positive
+     */
+    public double getLongitude(int k) {
+        return longitudes[k];
+    }
+
+    @Override
+    double exactDistance(double ux, double uy, double uz) {
+        int n = latitudes.length;
+        double winding = 0.0;
+        double distance = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < n; k++) {
+            int a = 3 * k;
+            int b = 3 * ((k + 1) % n);
+            double ax = vertices[a];
+            double ay = vertices[a + 1];
+            double az = vertices[a + 2];
+            double bx = vertices[b];
+            double by = vertices[b + 1];
+            double bz = vertices[b + 2];
+            double nx = normals[a];
+            double ny = normals[a + 1];
+            double nz = normals[a + 2];
+
+            // Signed angle subtended by the edge as seen from the point
+            double pa = ux * ax + uy * ay + uz * az;
+            double pb = ux * bx + uy * by + uz * bz;
+            double ab = ax * bx + ay * by + az * bz;
+            double triple = ux * (ay * bz - az * by) + uy * (az * bx - ax * bz)
+                    + uz * (ax * by - ay * bx);
+            winding += Math.atan2(triple, ab - pa * pb);
+
+            // The foot of the perpendicular on the great circle lies within the arc if it is on
+            // the inner side of both ends
+            double s = ux * nx + uy * ny + uz * nz;
+            double fx = ux - s * nx;
+            double fy = uy - s * ny;
+            double fz = uz - s * nz;
+            double afn = (ay * fz - az * fy) * nx + (az * fx - ax * fz) * ny
+                    + (ax * fy - ay * fx) * nz;
+            double fbn = (fy * bz - fz * by) * nx + (fz * bx - fx * bz) * ny
+                    + (fx * by - fy * bx) * nz;
+            if (afn >= 0.0 && fbn >= 0.0) {
+                distance = Math.min(distance, Math.asin(Math.min(1.0, Math.abs(s))));
+            } else {
+                distance = Math.min(distance, angle(ux, uy, uz, ax, ay, az));
+            }
+        }
+        // The winding angle is +-2 pi inside the polygon and 0 outside. Beyond the bounding cap
+        // it is ill-conditioned, an edge seen end-on from the far side subtending +-pi.
+        boolean inside = Math.abs(winding) > Math.PI
+                && angle(ux, uy, uz, centerX, centerY, centerZ) <= boundingRadius;
+        return inside ? 0.0 : distance;
+    }
+
+    /**
+     * Returns a string describing the name and the number of vertices.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("PolygonRegion[%s, vertices=%d]", getName(), latitudes.length);
+    }
+
+}
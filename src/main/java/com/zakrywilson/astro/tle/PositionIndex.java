@@ -0,0 +1,493 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A spatio-temporal index of the positions of a catalog over a window, answering queries such as
+ * "which satellites are within 50 km of this point at this time" without propagating the catalog.
+ * <p>
+ * The catalog is propagated once at fixed time slices spanning the window, and each slice holds a
+ * {@link KdTree} over its positions. A query between two slices searches the tree of the nearer
+ * slice with the radius widened by how far any satellite can have moved since that slice, then
+ * tests every candidate at its position interpolated with a cubic Hermite polynomial through the
+ * positions and velocities of both slices. The interpolation error grows with the fourth power of
+ * the slice width; for low Earth orbits it stays under a meter with one-minute slices. Positions
+ * are TEME, in kilometers, and queries cost microseconds rather than a catalog propagation.
+ * <p>
+ * Memory grows with the number of satellites times the number of slices: about 60 bytes per
+ * satellite and slice.
+ * <p>
+ * When the TLE of a satellite is replaced with {@link #update(int, TLE)}, only that satellite is
+ * propagated again over the window. The trees are not rebuilt right away: the updated satellites
+ * are skipped in the trees and tested one by one instead, until there are enough of them that
+ * rebuilding every tree is cheaper.
+ * <p>
+ * Queries may run concurrently with each other, but not with updates.
+ *
+ * @author Zach Wilson
+ */
+public final class PositionIndex {
+
+    /**
+     * Factor applied to the largest speed of a slice when bounding how far a satellite can move,
+     * covering the acceleration between slices and the overshoot of the interpolation.
+     */
+    private static final double SPEED_MARGIN = 1.1;
+
+    /**
+     * Distance in kilometers added to the widened radius.
+     */
+    private static final double DISTANCE_MARGIN = 1.0;
+
+    /**
+     * Smallest number of updated satellites that triggers a rebuild of the trees.
+     */
+    private static final int MINIMUM_REBUILD = 64;
+
+    /**
+     * The trees are rebuilt when the updated satellites exceed this fraction of the catalog.
+     */
+    private static final int REBUILD_DIVISOR = 16;
+
+    private final TLE[] catalog;
+    private final Propagator[] propagators;
+    private final PropagationModel model;
+    private final long startMillisecond;
+    private final long endMillisecond;
+    private final long sliceMillisecond;
+    private final StateVectors[] slices;
+    private final double[] maximumSpeed;
+    private final KdTree[] trees;
+    private final boolean[] updated;
+    private int[] updatedRows = new int[16];
+    private int updatedCount;
+
+    /**
+     * Constructs a new <code>PositionIndex</code> over a catalog, propagated with SGP4.
+     *
+     * @param catalog the TLEs, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @param sliceMillisecond the time between slices
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code> or contains a
+     * <code>null</code> TLE, the window ends before it starts or the slice width is not positive
+     */
+    public PositionIndex(List<TLE> catalog, long startMillisecond, long endMillisecond,
+                         long sliceMillisecond) {
+        this(new CatalogPropagator(catalog), startMillisecond, endMillisecond, sliceMillisecond);
+    }
+
+    /**
+     * Constructs a new <code>PositionIndex</code> over an initialized catalog, propagating the
+     * slices in parallel.
+     *
+     * @param catalog the catalog propagator, not <code>null</code>
+     * @param startMillisecond the start of the window in milliseconds since January 1, 1970
+     * 00:00:00 UTC
+     * @param endMillisecond the end of the window
+     * @param sliceMillisecond the time between slices
+     * @throws IllegalArgumentException if <code>catalog</code> is <code>null</code>, the window
+     * ends before it starts, the slice width is not positive or there would be too many slices
+     */
+    public PositionIndex(CatalogPropagator catalog, long startMillisecond, long endMillisecond,
+                         long sliceMillisecond) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (endMillisecond < startMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Window ends before it starts: start=%d, end=%d", startMillisecond,
+                    endMillisecond));
+        }
+        if (sliceMillisecond <= 0) {
+            throw new IllegalArgumentException("Slice width must be positive: " + sliceMillisecond);
+        }
+        long count = (endMillisecond - startMillisecond + sliceMillisecond - 1) / sliceMillisecond
+                + 1;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many slices: " + count);
+        }
+        int n = catalog.size();
+        this.catalog = catalog.getCatalog().toArray(new TLE[n]);
+        this.model = catalog.getModel();
+        this.propagators = new Propagator[n];
+        for (int i = 0; i < n; i++) {
+            propagators[i] = catalog.getPropagator(i);
+        }
+        this.startMillisecond = startMillisecond;
+        this.endMillisecond = endMillisecond;
+        this.sliceMillisecond = sliceMillisecond;
+        this.slices = new StateVectors[(int) count];
+        this.maximumSpeed = new double[slices.length];
+        this.trees = new KdTree[slices.length];
+        this.updated = new boolean[n];
+
+        IntStream.range(0, slices.length).parallel().forEach(k -> {
+            StateVectors states = new StateVectors(n);
+            catalog.propagateSequential(sliceTime(k), states);
+            for (int i = 0; i < n; i++) {
+                maximumSpeed[k] = Math.max(maximumSpeed[k], speed(states, i));
+            }
+            slices[k] = states;
+            trees[k] = new KdTree(states.x, states.y, states.z, n);
+        });
+    }
+
+    /**
+     * Returns the TLEs in catalog (row) order, including any updates.
+     *
+     * @return the unmodifiable catalog
+     */
+    public List<TLE> getCatalog() {
+        return Collections.unmodifiableList(Arrays.asList(catalog.clone()));
+    }
+
+    /**
+     * Returns the number of satellites.
+     *
+     * @return the size
+     */
+    public int size() {
+        return catalog.length;
+    }
+
+    /**
+     * Returns the start of the window.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getStartMillisecond() {
+        return startMillisecond;
+    }
+
+    /**
+     * Returns the end of the window.
+     *
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    public long getEndMillisecond() {
+        return endMillisecond;
+    }
+
+    /**
+     * Returns the time between slices.
+     *
+     * @return the slice width in milliseconds
+     */
+    public long getSliceMillisecond() {
+        return sliceMillisecond;
+    }
+
+    /**
+     * Returns the number of slices, the last one at or after the end of the window.
+     *
+     * @return the slice count
+     */
+    public int getSliceCount() {
+        return slices.length;
+    }
+
+    /**
+     * Finds the satellites within a radius of a point at a time.
+     *
+     * @param x the x component of the point, TEME, in kilometers
+     * @param y the y component of the point
+     * @param z the z component of the point
+     * @param radius the radius in kilometers
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC, within
+     * the window
+     * @return the rows of the satellites, in increasing order
+     * @throws IllegalArgumentException if <code>radius</code> is negative or the time is outside
+     * the window
+     */
+    public int[] findWithin(double x, double y, double z, double radius, long epochMillisecond) {
+        if (!(radius >= 0.0)) {
+            throw new IllegalArgumentException("Radius cannot be negative: " + radius);
+        }
+        checkTime(epochMillisecond);
+        int k = lowerSlice(epochMillisecond);
+        double fraction = fraction(epochMillisecond, k);
+        int nearest = fraction <= 0.5 ? k : k + 1;
+        double elapsed = Math.abs(epochMillisecond - sliceTime(nearest)) / 1000.0;
+        double speed = k + 1 < slices.length ? Math.max(maximumSpeed[k], maximumSpeed[k + 1])
+                                             : maximumSpeed[k];
+        double searchRadius = radius + SPEED_MARGIN * speed * elapsed + DISTANCE_MARGIN;
+
+        Matches matches = new Matches(x, y, z, radius, k, fraction);
+        trees[nearest].forEachWithin(x, y, z, searchRadius, i -> {
+            if (!updated[i]) {
+                matches.test(i);
+            }
+        });
+        for (int m = 0; m < updatedCount; m++) {
+            matches.test(updatedRows[m]);
+        }
+        int[] rows = Arrays.copyOf(matches.rows, matches.size);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Finds the satellites within a radius of one of them at a time.
+     *
+     * @param i the row of the satellite
+     * @param radius the radius in kilometers
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC, within
+     * the window
+     * @return the rows of the other satellites, in increasing order, empty if the satellite has no
+     * valid position
+     * @throws IllegalArgumentException if <code>radius</code> is negative or the time is outside
+     * the window
+     * @throws IndexOutOfBoundsException if <code>i</code> is out of range
+     */
+    public int[] findWithin(int i, double radius, long epochMillisecond) {
+        double[] position = new double[3];
+        if (!getPosition(i, epochMillisecond, position, 0)) {
+            if (!(radius >= 0.0)) {
+                throw new IllegalArgumentException("Radius cannot be negative: " + radius);
+            }
+            return new int[0];
+        }
+        int[] rows = findWithin(position[0], position[1], position[2], radius, epochMillisecond);
+        int self = Arrays.binarySearch(rows, i);
+        if (self < 0) {
+            return rows;
+        }
+        int[] others = new int[rows.length - 1];
+        System.arraycopy(rows, 0, others, 0, self);
+        System.arraycopy(rows, self + 1, others, self, others.length - self);
+        return others;
+    }
+
+    /**
+     * Returns the interpolated position of a satellite at a time.
+     *
+     * @param i the row of the satellite
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC, within
+     * the window
+     * @param out the array receiving the TEME position in kilometers
+     * @param offset the position of the x component in <code>out</code>
+     * @return <code>true</code> if the position is valid, <code>false</code> if the satellite
+     * could not be propagated at one of the surrounding slices
+     * @throws IllegalArgumentException if the time is outside the window
+     * @throws IndexOutOfBoundsException if <code>i</code> is out of range
+     */
+    public boolean getPosition(int i, long epochMillisecond, double[] out, int offset) {
+        if (i < 0 || i >= catalog.length) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + catalog.length);
+        }
+        checkTime(epochMillisecond);
+        int k = lowerSlice(epochMillisecond);
+        return interpolate(i, k, fraction(epochMillisecond, k), out, offset);
+    }
+
+    /**
+     * Replaces the TLE of a satellite and propagates it again over the window, using the
+     * propagation model of the catalog the index was built from. The trees are rebuilt once
+     * enough satellites have been updated.
+     *
+     * @param i the row of the satellite
+     * @param tle the new TLE, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code>
+     * @throws IndexOutOfBoundsException if <code>i</code> is out of range
+     */
+    public void update(int i, TLE tle) {
+        if (i < 0 || i >= catalog.length) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + catalog.length);
+        }
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        Propagator propagator;
+        try {
+            propagator = model.create(tle);
+        } catch (IllegalArgumentException e) {
+            propagator = null; // Elements cannot be propagated, rows will be NaN
+        }
+        catalog[i] = tle;
+        propagators[i] = propagator;
+
+        double[] state = new double[6];
+        for (int k = 0; k < slices.length; k++) {
+            if (propagator == null) {
+                Arrays.fill(state, Double.NaN);
+            } else {
+                propagator.propagate(sliceTime(k), state, 0);
+            }
+            slices[k].set(i, state, 0);
+            maximumSpeed[k] = Math.max(maximumSpeed[k], speed(slices[k], i));
+        }
+
+        if (!updated[i]) {
+            updated[i] = true;
+            if (updatedCount == updatedRows.length) {
+                updatedRows = Arrays.copyOf(updatedRows, updatedCount * 2);
+            }
+            updatedRows[updatedCount++] = i;
+        }
+        if (updatedCount > Math.max(MINIMUM_REBUILD, catalog.length / REBUILD_DIVISOR)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the tree of every slice, in parallel, and clears the updated satellites.
+     */
+    private void rebuild() {
+        int n = catalog.length;
+        IntStream.range(0, slices.length).parallel().forEach(k -> {
+            StateVectors states = slices[k];
+            trees[k] = new KdTree(states.x, states.y, states.z, n);
+        });
+        for (int m = 0; m < updatedCount; m++) {
+            updated[updatedRows[m]] = false;
+        }
+        updatedCount = 0;
+    }
+
+    /**
+     * Interpolates the position of a satellite between two slices with a cubic Hermite
+     * polynomial.
+     *
+     * @param i the row of the satellite
+     * @param k the slice before the time
+     * @param fraction the fraction of the way to the next slice
+     * @param out the array receiving the position
+     * @param offset the position of the x component in <code>out</code>
+     * @return <code>true</code> if the position is valid
+     */
+    private boolean interpolate(int i, int k, double fraction, double[] out, int offset) {
+        StateVectors a = slices[k];
+        if (k + 1 == slices.length) {
+            // Only at the last slice itself
+            out[offset] = a.x[i];
+            out[offset + 1] = a.y[i];
+            out[offset + 2] = a.z[i];
+            return a.isValid(i);
+        }
+        StateVectors b = slices[k + 1];
+        if (!a.isValid(i) || !b.isValid(i)) {
+            return false;
+        }
+        double s = fraction;
+        double s2 = s * s;
+        double s3 = s2 * s;
+        double h00 = 2.0 * s3 - 3.0 * s2 + 1.0;
+        double h10 = (s3 - 2.0 * s2 + s) * sliceMillisecond / 1000.0;
+        double h01 = -2.0 * s3 + 3.0 * s2;
+        double h11 = (s3 - s2) * sliceMillisecond / 1000.0;
+        out[offset] = h00 * a.x[i] + h10 * a.vx[i] + h01 * b.x[i] + h11 * b.vx[i];
+        out[offset + 1] = h00 * a.y[i] + h10 * a.vy[i] + h01 * b.y[i] + h11 * b.vy[i];
+        out[offset + 2] = h00 * a.z[i] + h10 * a.vz[i] + h01 * b.z[i] + h11 * b.vz[i];
+        return true;
+    }
+
+    /**
+     * Returns the last slice at or before a time, never the last slice unless there is only one.
+     *
+     * @param epochMillisecond the time, within the window
+     * @return the slice
+     */
+    private int lowerSlice(long epochMillisecond) {
+        int k = (int) ((epochMillisecond - startMillisecond) / sliceMillisecond);
+        return Math.max(0, Math.min(slices.length - 2, k));
+    }
+
+    /**
+     * Returns the fraction of the way from a slice to the next one.
+     *
+     * @param epochMillisecond the time
+     * @param k the slice
+     * @return the fraction
+     */
+    private double fraction(long epochMillisecond, int k) {
+        return (double) (epochMillisecond - sliceTime(k)) / sliceMillisecond;
+    }
+
+    /**
+     * Returns the time of a slice.
+     *
+     * @param k the slice
+     * @return the milliseconds since January 1, 1970 00:00:00 UTC
+     */
+    private long sliceTime(int k) {
+        return startMillisecond + k * sliceMillisecond;
+    }
+
+    /**
+     * Checks that a time is within the window.
+     *
+     * @param epochMillisecond the time
+     * @throws IllegalArgumentException if the time is outside the window
+     */
+    private void checkTime(long epochMillisecond) {
+        if (epochMillisecond < startMillisecond || epochMillisecond > endMillisecond) {
+            throw new IllegalArgumentException(String.format(
+                    "Time outside the window: %d, window=[%d, %d]", epochMillisecond,
+                    startMillisecond, endMillisecond));
+        }
+    }
+
+    /**
+     * Returns the speed of a row, 0 if it is invalid.
+     *
+     * @param states the states
+     * @param i the row
+     * @return the speed in kilometers per second
+     */
+    private static double speed(StateVectors states, int i) {
+        if (!states.isValid(i)) {
+            return 0.0;
+        }
+        double vx = states.vx[i];
+        double vy = states.vy[i];
+        double vz = states.vz[i];
+        return Math.sqrt(vx * vx + vy * vy + vz * vz);
+    }
+
+    /**
+     * Tests candidates at their interpolated positions and collects the matches.
+     */
+    private final class Matches {
+
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double radiusSquared;
+        private final int slice;
+        private final double fraction;
+        private final double[] position = new double[3];
+        private int[] rows = new int[16];
+        private int size;
+
+        private Matches(double x, double y, double z, double radius, int slice, double fraction) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radiusSquared = radius * radius;
+            this.slice = slice;
+            this.fraction = fraction;
+        }
+
+        private void test(int i) {
+            if (!interpolate(i, slice, fraction, position, 0)) {
+                return;
+            }
+            double dx = position[0] - x;
+            double dy = position[1] - y;
+            double dz = position[2] - z;
+            if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, size * 2);
+                }
+                rows[size++] = i;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * The propagation models available, from the cheapest and coarsest to SGP4, with their
+ * expected errors and costs.
+ * <p>
+ * Coarse models suit questions that tolerate errors of tens or hundreds of kilometers, such as
+ * which plane a satellite is in, rough visibility or prefiltering. Their results can then be
+ * confirmed with {@link #SGP4} where it matters, e.g. by screening with a threshold padded by
+ * {@link #getExpectedError(double)} and refining the candidates with {@link TCARefiner}.
+ * <p>
+ * The expected errors are the largest position differences from SGP4 seen over a few days on low
+ * Earth orbits, which change the fastest; they are estimates rather than bounds. Both coarse models
+ * start some 10 to 20 km away from SGP4 because they leave out its short-period terms. Costs are
+ * relative to SGP4 for one propagation of a near-circular orbit.
+ * <p>
+ * No model implements the lunar-solar and resonance terms of SDP4, with which deep-space element
+ * sets (a period of 225 minutes or more, such as those of geostationary, navigation and Molniya
+ * orbits) are fitted, so even {@link #SGP4} drifts from their true motion by kilometers a day.
+ * {@link #getExpectedError(TLE, double)} adds that drift for such element sets; it is sized from
+ * the position differences that the lunar, solar and J<sub>22</sub> accelerations make over a week
+ * on those orbits, and is an estimate like the others.
+ *
+ * @author Zach Wilson
+ */
+public enum PropagationModel {
+
+    /**
+     * Unperturbed Keplerian orbit, see {@link TwoBodyPropagator}.
+     */
+    TWO_BODY(20.0, 900.0, 0.4) {
+        /**
+         * Creates a {@link TwoBodyPropagator}.
+         *
+         * @param tle the TLE to be propagated, not <code>null</code>
+         * @return the propagator
+         * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its
+         * elements cannot be propagated
+         */
+        @Override
+        public Propagator create(TLE tle) {
+            return new TwoBodyPropagator(tle);
+        }
+    },
+
+    /**
+     * Keplerian orbit with the secular J<sub>2</sub> drift of the node, perigee and mean anomaly
+     * and the drag of the TLE, see {@link J2SecularPropagator}.
+     */
+    J2_SECULAR(20.0, 3.0, 0.45) {
+        /**
+         * Creates a {@link J2SecularPropagator}.
+         *
+         * @param tle the TLE to be propagated, not <code>null</code>
+         * @return the propagator
+         * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its
+         * elements cannot be propagated
+         */
+        @Override
+        public Propagator create(TLE tle) {
+            return new J2SecularPropagator(tle);
+        }
+    },
+
+    /**
+     * The near-earth SGP4 equations, see {@link SGP4Propagator}: the model near-earth element sets
+     * are fitted with, but not the SDP4 model of deep-space element sets.
+     */
+    SGP4(0.0, 0.0, 1.0) {
+        /**
+         * Creates an {@link SGP4Propagator}.
+         *
+         * @param tle the TLE to be propagated, not <code>null</code>
+         * @return the propagator
+         * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its
+         * elements cannot be propagated
+         */
+        @Override
+        public Propagator create(TLE tle) {
+            return new SGP4Propagator(tle);
+        }
+    };
+
+    /**
+     * Smallest period of a deep-space element set in minutes.
+     */
+    private static final double DEEP_SPACE_PERIOD = 225.0;
+
+    /**
+     * Expected error in kilometers, at the epoch, from the missing SDP4 terms.
+     */
+    private static final double DEEP_SPACE_ERROR_AT_EPOCH = 5.0;
+
+    /**
+     * Growth in kilometers per day of the expected error from the missing SDP4 terms.
+     */
+    private static final double DEEP_SPACE_ERROR_GROWTH = 20.0;
+
+    private final double errorAtEpoch;
+    private final double errorGrowth;
+    private final double relativeCost;
+
+    /**
+     * Constructs a model constant.
+     *
+     * @param errorAtEpoch the expected error at the epoch in kilometers
+     * @param errorGrowth the growth of the expected error in kilometers per day
+     * @param relativeCost the cost of one propagation relative to SGP4
+     */
+    PropagationModel(double errorAtEpoch, double errorGrowth, double relativeCost) {
+        this.errorAtEpoch = errorAtEpoch;
+        this.errorGrowth = errorGrowth;
+        this.relativeCost = relativeCost;
+    }
+
+    /**
+     * Creates a propagator implementing the model.
+     *
+     * @param tle the TLE to be propagated, not <code>null</code>
+     * @return the propagator
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its elements
+     * cannot be propagated
+     */
+    public abstract Propagator create(TLE tle);
+
+    /**
+     * Returns the expected position error relative to SGP4 at some time from the epoch, for
+     * near-earth element sets; see {@link #getExpectedError(TLE, double)} for deep-space ones.
+     *
+     * @param days the time from the epoch in days, either sign
+     * @return the expected error in kilometers
+     */
+    public double getExpectedError(double days) {
+        return errorAtEpoch + errorGrowth * Math.abs(days);
+    }
+
+    /**
+     * Returns the expected position error of a TLE at some time from its epoch, relative to the
+     * model its elements were fitted with: SGP4 for near-earth element sets, SDP4 for deep-space
+     * ones.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @param days the time from the epoch in days, either sign
+     * @return the expected error in kilometers
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code>
+     */
+    public double getExpectedError(TLE tle, double days) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        double error = getExpectedError(days);
+        if (tle.getOrbitalProperties().getPeriod() >= DEEP_SPACE_PERIOD) {
+            error += DEEP_SPACE_ERROR_AT_EPOCH + DEEP_SPACE_ERROR_GROWTH * Math.abs(days);
+        }
+        return error;
+    }
+
+    /**
+     * Returns the cost of one propagation relative to SGP4.
+     *
+     * @return the relative cost, 1 for SGP4
+     */
+    public double getRelativeCost() {
+        return relativeCost;
+    }
+
+}
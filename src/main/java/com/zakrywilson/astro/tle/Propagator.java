@@ -0,0 +1,86 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Propagates a {@link TLE} to points in time, producing TEME positions in kilometers and
+ * velocities in kilometers per second.
+ * <p>
+ * Implementations trade accuracy for speed, see {@link PropagationModel}. They do all of their
+ * initialization on construction, do not allocate while propagating, and are safe to use from
+ * multiple threads.
+ *
+ * @author Zach Wilson
+ */
+public interface Propagator {
+
+    /**
+     * Returns the TLE being propagated.
+     *
+     * @return the TLE
+     */
+    TLE getTLE();
+
+    /**
+     * Returns the model implemented by the propagator.
+     *
+     * @return the model
+     */
+    PropagationModel getModel();
+
+    /**
+     * Returns the epoch of the TLE in fractional milliseconds since January 1, 1970 00:00:00 UTC.
+     *
+     * @return the epoch millisecond, not rounded
+     */
+    double getEpochMillisecond();
+
+    /**
+     * Propagates the TLE to a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param state the array receiving the TEME position (km) and velocity (km/s) as
+     * <code>{x, y, z, vx, vy, vz}</code>
+     * @return <code>true</code> if the propagation succeeded, <code>false</code> otherwise, in
+     * which case <code>state</code> is filled with <code>NaN</code>
+     */
+    boolean propagate(long epochMillisecond, double[] state);
+
+    /**
+     * Propagates the TLE to a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param state the array receiving the TEME position (km) and velocity (km/s)
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     * @return <code>true</code> if the propagation succeeded, <code>false</code> otherwise, in
+     * which case <code>state</code> is filled with <code>NaN</code>
+     */
+    boolean propagate(long epochMillisecond, double[] state, int offset);
+
+    /**
+     * Returns the number of minutes between the TLE epoch and a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the minutes since the TLE epoch, negative if the time is before the epoch
+     */
+    double minutesSinceEpoch(long epochMillisecond);
+
+    /**
+     * Returns the number of minutes between the TLE epoch and a fractional point in time.
+     *
+     * @param epochMillisecond the time in fractional milliseconds since January 1, 1970 00:00:00
+     * UTC
+     * @return the minutes since the TLE epoch, negative if the time is before the epoch
+     */
+    double minutesSinceEpoch(double epochMillisecond);
+
+    /**
+     * Propagates the TLE by a number of minutes from its epoch.
+     *
+     * @param tsince the minutes since the TLE epoch
+     * @param state the array receiving the TEME position (km) and velocity (km/s)
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     * @return <code>true</code> if the propagation succeeded, <code>false</code> otherwise, in
+     * which case <code>state</code> is filled with <code>NaN</code>
+     */
+    boolean propagateMinutes(double tsince, double[] state, int offset);
+
+}
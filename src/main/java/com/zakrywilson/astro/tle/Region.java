@@ -0,0 +1,141 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * A region of interest on the surface of the Earth, for coverage queries.
+ * <p>
+ * Regions are handled on the unit sphere: points are located by the direction of their geocentric
+ * position, computed from their geodetic coordinates on the WGS-84 ellipsoid. Every region is
+ * enclosed in a bounding cap, a circle on the sphere, so that the angular distance from a point to
+ * the region can be bounded with one dot product before the exact geometry of the region is
+ * evaluated.
+ * <p>
+ * Regions are immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ * @see CircularRegion
+ * @see PolygonRegion
+ */
+public abstract class Region {
+
+    private final String name;
+
+    double centerX;
+    double centerY;
+    double centerZ;
+    double boundingRadius;
+
+    /**
+     * Constructs a new <code>Region</code>. The subclass sets the bounding cap.
+     *
+     * @param name the name of the region, can be <code>null</code>
+     */
+    Region(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the region.
+     *
+     * @return the name, possibly <code>null</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the angular distance from a direction to the region, or a lower bound on it taken
+     * from the bounding cap when that bound already exceeds a limit.
+     *
+     * @param ux the x component of the unit direction, Earth-fixed
+     * @param uy the y component of the unit direction
+     * @param uz the z component of the unit direction
+     * @param limit the distance in radians beyond which a lower bound is enough
+     * @return the distance in radians, 0 if the direction is inside the region
+     */
+    final double distance(double ux, double uy, double uz, double limit) {
+        double bound = angle(ux, uy, uz, centerX, centerY, centerZ) - boundingRadius;
+        if (bound > limit) {
+            return bound;
+        }
+        return exactDistance(ux, uy, uz);
+    }
+
+    /**
+     * Returns the smallest absolute geocentric latitude of the bounding cap, below which no point
+     * of the region lies.
+     *
+     * @return the latitude in radians
+     */
+    final double minimumLatitude() {
+        double latitude = Math.asin(Math.max(-1.0, Math.min(1.0, centerZ)));
+        return Math.max(0.0, Math.abs(latitude) - boundingRadius);
+    }
+
+    /**
+     * Returns the exact angular distance from a direction to the region.
+     *
+     * @param ux the x component of the unit direction, Earth-fixed
+     * @param uy the y component of the unit direction
+     * @param uz the z component of the unit direction
+     * @return the distance in radians, 0 if the direction is inside the region
+     */
+    abstract double exactDistance(double ux, double uy, double uz);
+
+    /**
+     * Returns the unit direction of the geocentric position of a point on the WGS-84 ellipsoid.
+     *
+     * @param latitude the geodetic latitude in degrees
+     * @param longitude the longitude in degrees
+     * @param out the array receiving the direction
+     * @param offset the position of the x component in <code>out</code>
+     */
+    static void direction(double latitude, double longitude, double[] out, int offset) {
+        double phi = Math.toRadians(latitude);
+        // Geocentric latitude of a point on the surface of the ellipsoid
+        double geocentric = Math.atan2((1.0 - WGS84_ECCENTRICITY_SQUARED) * Math.sin(phi),
+                                       Math.cos(phi));
+        double lambda = Math.toRadians(longitude);
+        double cos = Math.cos(geocentric);
+        out[offset] = cos * Math.cos(lambda);
+        out[offset + 1] = cos * Math.sin(lambda);
+        out[offset + 2] = Math.sin(geocentric);
+    }
+
+    /**
+     * Returns the angle between two unit vectors, accurate at every angle.
+     *
+     * @param ax the x component of the first vector
+     * @param ay the y component of the first vector
+     * @param az the z component of the first vector
+     * @param bx the x component of the second vector
+     * @param by the y component of the second vector
+     * @param bz the z component of the second vector
+     * @return the angle in radians (0 to pi)
+     */
+    static double angle(double ax, double ay, double az, double bx, double by, double bz) {
+        double cx = ay * bz - az * by;
+        double cy = az * bx - ax * bz;
+        double cz = ax * by - ay * bx;
+        return Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), ax * bx + ay * by + az * bz);
+    }
+
+    /**
+     * Checks a geodetic latitude and longitude.
+     *
+     * @param latitude the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @throws IllegalArgumentException if a coordinate is out of range
+     */
+    static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90.0 && latitude <= 90.0)) {
+            throw new IllegalArgumentException("Latitude out of range (-90 to 90): " + latitude);
+        }
+        if (!(longitude >= -180.0 && longitude <= 360.0)) {
+            throw new IllegalArgumentException(
+                    "Longitude out of range (-180 to 360): " + longitude);
+        }
+    }
+
+}
@@ -0,0 +1,689 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative <code>int</code> values, such as satellite numbers, for
+ * combining the results of filters with {@link #and(RoaringBitmap, RoaringBitmap)}, {@link
+ * #or(RoaringBitmap, RoaringBitmap)} and {@link #andNot(RoaringBitmap, RoaringBitmap)}.
+ * <p>
+ * The values are split by their high 16 bits into chunks of 65,536, as in Roaring bitmaps
+ * (Chambi, Lemire, et al.). Each chunk holding values is a container of its low 16 bits: a sorted
+ * array of up to 4,096 values, or beyond that a bitmap of 1,024 words, so that a container never
+ * takes more than 8 KB and dense chunks are combined a word of 64 values at a time. The
+ * containers are kept in order of their high bits, so combining two sets merges their containers
+ * and skips chunks only one of them holds.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class RoaringBitmap {
+
+    /**
+     * Largest number of values of an array container; beyond it a bitmap takes less memory.
+     */
+    static final int ARRAY_LIMIT = 4096;
+
+    /**
+     * Number of 64-bit words of a bitmap container.
+     */
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Constructs a new, empty <code>RoaringBitmap</code>.
+     */
+    public RoaringBitmap() {}
+
+    /**
+     * Constructs a new <code>RoaringBitmap</code> of the values of another one.
+     *
+     * @param bitmap the bitmap to be copied, not <code>null</code>
+     * @throws IllegalArgumentException if <code>bitmap</code> is <code>null</code>
+     */
+    public RoaringBitmap(RoaringBitmap bitmap) {
+        if (bitmap == null) {
+            throw new IllegalArgumentException("Bitmap cannot be null");
+        }
+        this.keys = Arrays.copyOf(bitmap.keys, Math.max(4, bitmap.size));
+        this.containers = new Container[keys.length];
+        for (int i = 0; i < bitmap.size; i++) {
+            containers[i] = bitmap.containers[i].copy();
+        }
+        this.size = bitmap.size;
+    }
+
+    /**
+     * Returns a new bitmap of values.
+     *
+     * @param values the values, not <code>null</code>
+     * @return the bitmap
+     * @throws IllegalArgumentException if <code>values</code> is <code>null</code> or a value is
+     * negative
+     */
+    public static RoaringBitmap of(int... values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value, not negative
+     * @return <code>true</code> if the value was not in the bitmap
+     * @throws IllegalArgumentException if <code>value</code> is negative
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative: " + value);
+        }
+        char key = (char) (value >>> 16);
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, key, new Container());
+        }
+        return containers[i].add((char) value);
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value
+     * @return <code>true</code> if the value was in the bitmap
+     */
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = find((char) (value >>> 16));
+        if (i < 0 || !containers[i].remove((char) value)) {
+            return false;
+        }
+        if (containers[i].cardinality == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the bitmap holds a value.
+     *
+     * @param value the value
+     * @return <code>true</code> if it does
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = find((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the cardinality
+     */
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Determines whether the bitmap holds no value.
+     *
+     * @return <code>true</code> if it is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the values.
+     *
+     * @return a new array of the values, in increasing order
+     */
+    public int[] toArray() {
+        int[] values = new int[getCardinality()];
+        int[] count = new int[1];
+        forEach(value -> values[count[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Passes every value to a consumer, in increasing order.
+     *
+     * @param consumer the consumer, not <code>null</code>
+     * @throws IllegalArgumentException if <code>consumer</code> is <code>null</code>
+     */
+    public void forEach(IntConsumer consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            Container container = containers[i];
+            if (container.bitmap == null) {
+                for (int k = 0; k < container.cardinality; k++) {
+                    consumer.accept(high | container.array[k]);
+                }
+            } else {
+                long[] bitmap = container.bitmap;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = bitmap[w];
+                    while (word != 0) {
+                        consumer.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the values in both bitmaps.
+     *
+     * @param a the first bitmap, not <code>null</code>
+     * @param b the second bitmap, not <code>null</code>
+     * @return a new bitmap of the intersection
+     * @throws IllegalArgumentException if either bitmap is <code>null</code>
+     */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        checkBitmaps(a, b);
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.append(a.keys[i], Container.and(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in either bitmap.
+     *
+     * @param a the first bitmap, not <code>null</code>
+     * @param b the second bitmap, not <code>null</code>
+     * @return a new bitmap of the union
+     * @throws IllegalArgumentException if either bitmap is <code>null</code>
+     */
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        checkBitmaps(a, b);
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || b.keys[j] < a.keys[i]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], Container.or(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in any of several bitmaps, combining the containers of each chunk at
+     * once rather than two bitmaps at a time.
+     *
+     * @param bitmaps the bitmaps, not <code>null</code>
+     * @return a new bitmap of the union
+     * @throws IllegalArgumentException if <code>bitmaps</code> is or contains <code>null</code>
+     */
+    public static RoaringBitmap or(Collection<RoaringBitmap> bitmaps) {
+        if (bitmaps == null) {
+            throw new IllegalArgumentException("Bitmaps cannot be null");
+        }
+        Map<Character, long[]> chunks = new TreeMap<>();
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap == null) {
+                throw new IllegalArgumentException("Bitmaps cannot contain null");
+            }
+            for (int i = 0; i < bitmap.size; i++) {
+                long[] words = chunks.computeIfAbsent(bitmap.keys[i], k -> new long[BITMAP_WORDS]);
+                bitmap.containers[i].orInto(words);
+            }
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        for (Map.Entry<Character, long[]> chunk : chunks.entrySet()) {
+            long[] words = chunk.getValue();
+            result.append(chunk.getKey(), Container.ofBitmap(words, Container.count(words)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in the first bitmap but not in the second one. The complement of a
+     * bitmap is its difference from the bitmap of all values considered.
+     *
+     * @param a the first bitmap, not <code>null</code>
+     * @param b the second bitmap, not <code>null</code>
+     * @return a new bitmap of the difference
+     * @throws IllegalArgumentException if either bitmap is <code>null</code>
+     */
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        checkBitmaps(a, b);
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                result.append(a.keys[i], Container.andNot(a.containers[i], b.containers[j]));
+            } else {
+                result.append(a.keys[i], a.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines whether an object is a <code>RoaringBitmap</code> of the same values.
+     *
+     * @param o the object
+     * @return <code>true</code> if it is
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RoaringBitmap)) {
+            return false;
+        }
+        RoaringBitmap other = (RoaringBitmap) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i] || !containers[i].sameValues(other.containers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {1};
+        forEach(value -> hash[0] = 31 * hash[0] + value);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RoaringBitmap[cardinality=%d, containers=%d]", getCardinality(),
+                             size);
+    }
+
+    /**
+     * Finds the container of a chunk.
+     *
+     * @param key the high 16 bits of the chunk
+     * @return the index of the container, or <code>-(insertion point) - 1</code> if there is none
+     */
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Inserts a container.
+     *
+     * @param i the index
+     * @param key the high 16 bits of its chunk
+     * @param container the container
+     */
+    private void insert(int i, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    /**
+     * Appends a container after every other one, unless it is empty.
+     *
+     * @param key the high 16 bits of its chunk, above those of every other container
+     * @param container the container, or <code>null</code> if empty
+     */
+    private void append(char key, Container container) {
+        if (container != null) {
+            insert(size, key, container);
+        }
+    }
+
+    /**
+     * Checks two bitmaps.
+     *
+     * @throws IllegalArgumentException if either is <code>null</code>
+     */
+    private static void checkBitmaps(RoaringBitmap a, RoaringBitmap b) {
+        if (a == null || b == null) {
+            throw new IllegalArgumentException("Bitmaps cannot be null");
+        }
+    }
+
+    /**
+     * The low 16 bits of the values of one chunk, as a sorted array or a bitmap.
+     */
+    private static final class Container {
+
+        private char[] array;
+        private long[] bitmap;
+        private int cardinality;
+
+        /**
+         * Constructs a new, empty array container.
+         */
+        Container() {
+            this.array = new char[4];
+        }
+
+        /**
+         * Constructs a new array container.
+         *
+         * @param array the sorted values
+         * @param cardinality the number of values
+         */
+        Container(char[] array, int cardinality) {
+            this.array = array;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Constructs a new bitmap container.
+         *
+         * @param bitmap the bitmap
+         * @param cardinality the number of bits set
+         */
+        Container(long[] bitmap, int cardinality) {
+            this.bitmap = bitmap;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Returns the container of a bitmap, as an array if it holds few enough values.
+         *
+         * @param bitmap the bitmap
+         * @param cardinality the number of bits set
+         * @return the container, or <code>null</code> if empty
+         */
+        static Container ofBitmap(long[] bitmap, int cardinality) {
+            if (cardinality == 0) {
+                return null;
+            }
+            if (cardinality > ARRAY_LIMIT) {
+                return new Container(bitmap, cardinality);
+            }
+            return new Container(toArray(bitmap, cardinality), cardinality);
+        }
+
+        /**
+         * Returns the container of an array, unless it is empty.
+         *
+         * @param array the sorted values
+         * @param cardinality the number of values
+         * @return the container, or <code>null</code> if empty
+         */
+        static Container ofArray(char[] array, int cardinality) {
+            return cardinality == 0 ? null : new Container(array, cardinality);
+        }
+
+        boolean contains(char low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (bitmap != null) {
+                long bit = 1L << low;
+                if ((bitmap[low >>> 6] & bit) != 0) {
+                    return false;
+                }
+                bitmap[low >>> 6] |= bit;
+                cardinality++;
+                return true;
+            }
+            int k = Arrays.binarySearch(array, 0, cardinality, low);
+            if (k >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                bitmap = toBitmap(array, cardinality);
+                array = null;
+                return add(low);
+            }
+            k = -k - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(array, k, array, k + 1, cardinality - k);
+            array[k] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (bitmap != null) {
+                long bit = 1L << low;
+                if ((bitmap[low >>> 6] & bit) == 0) {
+                    return false;
+                }
+                bitmap[low >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_LIMIT) {
+                    array = toArray(bitmap, cardinality);
+                    bitmap = null;
+                }
+                return true;
+            }
+            int k = Arrays.binarySearch(array, 0, cardinality, low);
+            if (k < 0) {
+                return false;
+            }
+            System.arraycopy(array, k + 1, array, k, cardinality - k - 1);
+            cardinality--;
+            return true;
+        }
+
+        Container copy() {
+            return bitmap != null ? new Container(bitmap.clone(), cardinality)
+                                  : new Container(Arrays.copyOf(array, cardinality), cardinality);
+        }
+
+        /**
+         * Sets the bits of the values in a bitmap.
+         *
+         * @param words the bitmap
+         */
+        void orInto(long[] words) {
+            if (bitmap != null) {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] |= bitmap[w];
+                }
+            } else {
+                for (int k = 0; k < cardinality; k++) {
+                    words[array[k] >>> 6] |= 1L << array[k];
+                }
+            }
+        }
+
+        boolean sameValues(Container other) {
+            if (cardinality != other.cardinality) {
+                return false;
+            }
+            if (bitmap != null && other.bitmap != null) {
+                return Arrays.equals(bitmap, other.bitmap);
+            }
+            Container arrayContainer = bitmap == null ? this : other;
+            Container otherContainer = bitmap == null ? other : this;
+            for (int k = 0; k < cardinality; k++) {
+                if (!otherContainer.contains(arrayContainer.array[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.bitmap != null && b.bitmap != null) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] = a.bitmap[w] & b.bitmap[w];
+                }
+                return ofBitmap(words, count(words));
+            }
+            if (a.bitmap != null || b.bitmap != null) {
+                Container arrayContainer = a.bitmap == null ? a : b;
+                long[] words = a.bitmap == null ? b.bitmap : a.bitmap;
+                char[] values = new char[arrayContainer.cardinality];
+                int count = 0;
+                for (int k = 0; k < arrayContainer.cardinality; k++) {
+                    char value = arrayContainer.array[k];
+                    if ((words[value >>> 6] & (1L << value)) != 0) {
+                        values[count++] = value;
+                    }
+                }
+                return ofArray(values, count);
+            }
+            char[] values = new char[Math.min(a.cardinality, b.cardinality)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality && j < b.cardinality) {
+                if (a.array[i] < b.array[j]) {
+                    i++;
+                } else if (a.array[i] > b.array[j]) {
+                    j++;
+                } else {
+                    values[count++] = a.array[i];
+                    i++;
+                    j++;
+                }
+            }
+            return ofArray(values, count);
+        }
+
+        static Container or(Container a, Container b) {
+            if (a.bitmap == null && b.bitmap == null
+                    && a.cardinality + b.cardinality <= ARRAY_LIMIT) {
+                char[] values = new char[a.cardinality + b.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    if (j == b.cardinality || (i < a.cardinality && a.array[i] < b.array[j])) {
+                        values[count++] = a.array[i++];
+                    } else if (i == a.cardinality || b.array[j] < a.array[i]) {
+                        values[count++] = b.array[j++];
+                    } else {
+                        values[count++] = a.array[i];
+                        i++;
+                        j++;
+                    }
+                }
+                return ofArray(values, count);
+            }
+            long[] words = a.bitmap != null ? a.bitmap.clone() : toBitmap(a.array, a.cardinality);
+            b.orInto(words);
+            return ofBitmap(words, count(words));
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a.bitmap != null) {
+                long[] words = a.bitmap.clone();
+                if (b.bitmap != null) {
+                    for (int w = 0; w < BITMAP_WORDS; w++) {
+                        words[w] &= ~b.bitmap[w];
+                    }
+                } else {
+                    for (int k = 0; k < b.cardinality; k++) {
+                        words[b.array[k] >>> 6] &= ~(1L << b.array[k]);
+                    }
+                }
+                return ofBitmap(words, count(words));
+            }
+            char[] values = new char[a.cardinality];
+            int count = 0;
+            for (int k = 0; k < a.cardinality; k++) {
+                if (!b.contains(a.array[k])) {
+                    values[count++] = a.array[k];
+                }
+            }
+            return ofArray(values, count);
+        }
+
+        static int count(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        static long[] toBitmap(char[] array, int cardinality) {
+            long[] words = new long[BITMAP_WORDS];
+            for (int k = 0; k < cardinality; k++) {
+                words[array[k] >>> 6] |= 1L << array[k];
+            }
+            return words;
+        }
+
+        static char[] toArray(long[] words, int cardinality) {
+            char[] values = new char[Math.max(cardinality, 4)];
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[count++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return values;
+        }
+
+    }
+
+}
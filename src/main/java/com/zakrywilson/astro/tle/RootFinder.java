@@ -0,0 +1,121 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Thread-safe utility class for finding the roots of scalar functions.
+ *
+ * @author Zach Wilson
+ */
+final class RootFinder {
+
+    /**
+     * Maximum number of iterations of Brent's method, far more than a bracketed smooth function
+     * ever needs.
+     */
+    private static final int MAX_ITERATIONS = 100;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private RootFinder() {}
+
+    /**
+     * Finds a root of a function within a bracket using Brent's method, which combines bisection,
+     * the secant method and inverse quadratic interpolation. It converges superlinearly on smooth
+     * functions while never doing worse than bisection.
+     * <p>
+     * The values of the function at the ends of the bracket are passed in since callers have
+     * usually evaluated them already while bracketing.
+     *
+     * @param f the function
+     * @param a one end of the bracket
+     * @param b the other end of the bracket
+     * @param fa the value of the function at <code>a</code>
+     * @param fb the value of the function at <code>b</code>
+     * @param tolerance the absolute tolerance on the root
+     * @return the root
+     * @throws IllegalArgumentException if the values at the ends of the bracket have the same sign
+     */
+    static double brent(DoubleUnaryOperator f, double a, double b, double fa, double fb,
+                        double tolerance) {
+        if (fa == 0.0) {
+            return a;
+        }
+        if (fb == 0.0) {
+            return b;
+        }
+        if ((fa > 0.0) == (fb > 0.0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Root is not bracketed: f(%s)=%s, f(%s)=%s", a, fa, b, fb));
+        }
+
+        double c = a;
+        double fc = fa;
+        double d = b - a;
+        double e = d;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            if ((fb > 0.0) == (fc > 0.0)) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+
+            double tol = 2.0 * Math.ulp(b) + 0.5 * tolerance;
+            double m = 0.5 * (c - b);
+            if (Math.abs(m) <= tol || fb == 0.0) {
+                return b;
+            }
+
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                // Attempt interpolation
+                double s = fb / fa;
+                double p;
+                double q;
+                if (a == c) {
+                    p = 2.0 * m * s;
+                    q = 1.0 - s;
+                } else {
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2.0 * m * q * (q - r) - (b - a) * (r - 1.0));
+                    q = (q - 1.0) * (r - 1.0) * (s - 1.0);
+                }
+                if (p > 0.0) {
+                    q = -q;
+                } else {
+                    p = -p;
+                }
+                if (2.0 * p < Math.min(3.0 * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = m;
+                    e = d;
+                }
+            } else {
+                // Bisection
+                d = m;
+                e = d;
+            }
+
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : (m > 0.0 ? tol : -tol);
+            fb = f.applyAsDouble(b);
+        }
+        return b;
+    }
+
+}
@@ -0,0 +1,451 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Propagates a {@link TLE} with the SGP4 (Simplified General Perturbations 4) model.
+ * <p>
+ * The implementation follows the near-earth equations of <i>Revisiting Spacetrack Report #3</i>
+ * (Vallado et al., 2006) with the WGS-72 gravity model. Positions are returned in kilometers and
+ * velocities in kilometers per second, both in the TEME (True Equator, Mean Equinox) frame.
+ * <p>
+ * The lunar-solar and resonance terms of SDP4 are not modelled: element sets with a period of 225
+ * minutes or more are propagated with the near-earth equations and should be considered
+ * approximate. See {@link #isDeepSpace()}.
+ * <p>
+ * All of the initialization work is done once in the constructor, so a single instance should be
+ * reused for every propagation of the same TLE. Propagation does not allocate and instances are
+ * safe to use from multiple threads.
+ *
+ * @author Zach Wilson
+ */
+public final class SGP4Propagator implements Propagator {
+
+    /**
+     * Two thirds.
+     */
+    private static final double X2O3 = 2.0 / 3.0;
+
+    /**
+     * Ratio of the third to the second zonal harmonic.
+     */
+    private static final double J3OJ2 = J3 / J2;
+
+    /**
+     * Number of velocity units (Earth radii per minute) in one kilometer per second.
+     */
+    private static final double VKMPERSEC = RADIUS * XKE / 60.0;
+
+    private final TLE tle;
+    private final double epochMillisecond;
+    private final boolean deepSpace;
+
+    private final double ecco;
+    private final double inclo;
+    private final double nodeo;
+    private final double argpo;
+    private final double mo;
+    private final double bstar;
+    private final double noUnkozai;
+    private final boolean isimp;
+
+    private final double aycof;
+    private final double con41;
+    private final double cc1;
+    private final double cc4;
+    private final double cc5;
+    private final double d2;
+    private final double d3;
+    private final double d4;
+    private final double delmo;
+    private final double eta;
+    private final double argpdot;
+    private final double omgcof;
+    private final double sinmao;
+    private final double t2cof;
+    private final double t3cof;
+    private final double t4cof;
+    private final double t5cof;
+    private final double x1mth2;
+    private final double x7thm1;
+    private final double mdot;
+    private final double nodedot;
+    private final double xlcof;
+    private final double xmcof;
+    private final double nodecf;
+
+    /**
+     * Constructs a new <code>SGP4Propagator</code> and initializes the model for the TLE.
+     *
+     * @param tle the TLE to be propagated, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its elements
+     * cannot be propagated (e.g., the eccentricity is not in the range 0 to 1 or the mean motion
+     * is not positive)
+     */
+    public SGP4Propagator(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        if (tle.getEccentricity() < 0.0 || tle.getEccentricity() >= 1.0) {
+            throw new IllegalArgumentException(
+                    "Eccentricity out of range (0 to 1): " + tle.getEccentricity());
+        }
+        if (tle.getMeanMotion() <= 0.0) {
+            throw new IllegalArgumentException("Mean motion must be positive: " + tle.getMeanMotion());
+        }
+
+        this.tle = tle;
+        this.epochMillisecond = EpochUtils.toFractionalMillisecondEpoch(tle.getEpochYear(),
+                                                                         tle.getEpochDay());
+
+        // Convert the elements into radians and radians per minute
+        double noKozai = tle.getMeanMotion() * TWO_PI / MINUTES_PER_DAY;
+        this.ecco = tle.getEccentricity();
+        this.inclo = Math.toRadians(tle.getInclination());
+        this.nodeo = Math.toRadians(tle.getRaan());
+        this.argpo = Math.toRadians(tle.getArgumentOfPerigee());
+        this.mo = Math.toRadians(tle.getMeanAnomaly());
+        this.bstar = tle.getDragTerm();
+
+        // Recover the original mean motion and semi-major axis from the Kozai mean motion
+        double eccsq = ecco * ecco;
+        double omeosq = 1.0 - eccsq;
+        double rteosq = Math.sqrt(omeosq);
+        double cosio = Math.cos(inclo);
+        double cosio2 = cosio * cosio;
+        this.noUnkozai = OrbitalProperties.recoverMeanMotion(noKozai, ecco, cosio);
+
+        double ao = Math.pow(XKE / noUnkozai, X2O3);
+        double sinio = Math.sin(inclo);
+        double po = ao * omeosq;
+        double con42 = 1.0 - 5.0 * cosio2;
+        this.con41 = -con42 - cosio2 - cosio2;
+        double posq = po * po;
+        double rp = ao * (1.0 - ecco);
+        this.deepSpace = TWO_PI / noUnkozai >= 225.0;
+
+        // Very low perigees use the simplified drag equations
+        this.isimp = rp < (220.0 / RADIUS + 1.0);
+
+        // Adjust the atmospheric density parameter for low perigees
+        double sfour = 78.0 / RADIUS + 1.0;
+        double qzms24 = Math.pow((120.0 - 78.0) / RADIUS, 4.0);
+        double perige = (rp - 1.0) * RADIUS;
+        if (perige < 156.0) {
+            sfour = perige < 98.0 ? 20.0 : perige - 78.0;
+            qzms24 = Math.pow((120.0 - sfour) / RADIUS, 4.0);
+            sfour = sfour / RADIUS + 1.0;
+        }
+
+        double pinvsq = 1.0 / posq;
+        double tsi = 1.0 / (ao - sfour);
+        this.eta = ao * ecco * tsi;
+        double etasq = eta * eta;
+        double eeta = ecco * eta;
+        double psisq = Math.abs(1.0 - etasq);
+        double coef = qzms24 * Math.pow(tsi, 4.0);
+        double coef1 = coef / Math.pow(psisq, 3.5);
+        double cc2 = coef1 * noUnkozai * (ao * (1.0 + 1.5 * etasq + eeta * (4.0 + etasq))
+                + 0.375 * J2 * tsi / psisq * con41 * (8.0 + 3.0 * etasq * (8.0 + etasq)));
+        this.cc1 = bstar * cc2;
+        double cc3 = 0.0;
+        if (ecco > 1.0e-4) {
+            cc3 = -2.0 * coef * tsi * J3OJ2 * noUnkozai * sinio / ecco;
+        }
+        this.x1mth2 = 1.0 - cosio2;
+        this.cc4 = 2.0 * noUnkozai * coef1 * ao * omeosq * (eta * (2.0 + 0.5 * etasq)
+                + ecco * (0.5 + 2.0 * etasq) - J2 * tsi / (ao * psisq)
+                * (-3.0 * con41 * (1.0 - 2.0 * eeta + etasq * (1.5 - 0.5 * eeta))
+                + 0.75 * x1mth2 * (2.0 * etasq - eeta * (1.0 + etasq)) * Math.cos(2.0 * argpo)));
+        this.cc5 = 2.0 * coef1 * ao * omeosq * (1.0 + 2.75 * (etasq + eeta) + eeta * etasq);
+
+        // Secular rates of the mean anomaly, argument of perigee and node
+        double cosio4 = cosio2 * cosio2;
+        double temp1 = 1.5 * J2 * pinvsq * noUnkozai;
+        double temp2 = 0.5 * temp1 * J2 * pinvsq;
+        double temp3 = -0.46875 * J4 * pinvsq * pinvsq * noUnkozai;
+        this.mdot = noUnkozai + 0.5 * temp1 * rteosq * con41
+                + 0.0625 * temp2 * rteosq * (13.0 - 78.0 * cosio2 + 137.0 * cosio4);
+        this.argpdot = -0.5 * temp1 * con42 + 0.0625 * temp2 * (7.0 - 114.0 * cosio2 + 395.0 * cosio4)
+                + temp3 * (3.0 - 36.0 * cosio2 + 49.0 * cosio4);
+        double xhdot1 = -temp1 * cosio;
+        this.nodedot = xhdot1 + (0.5 * temp2 * (4.0 - 19.0 * cosio2)
+                + 2.0 * temp3 * (3.0 - 7.0 * cosio2)) * cosio;
+        this.omgcof = bstar * cc3 * Math.cos(argpo);
+        this.xmcof = ecco > 1.0e-4 ? -X2O3 * coef * bstar / eeta : 0.0;
+        this.nodecf = 3.5 * omeosq * xhdot1 * cc1;
+        this.t2cof = 1.5 * cc1;
+
+        // Avoid a division by zero for inclinations of 180 degrees
+        double xlcofDenominator = Math.abs(cosio + 1.0) > 1.5e-12 ? 1.0 + cosio : 1.5e-12;
+        this.xlcof = -0.25 * J3OJ2 * sinio * (3.0 + 5.0 * cosio) / xlcofDenominator;
+        this.aycof = -0.5 * J3OJ2 * sinio;
+        this.delmo = Math.pow(1.0 + eta * Math.cos(mo), 3.0);
+        this.sinmao = Math.sin(mo);
+        this.x7thm1 = 7.0 * cosio2 - 1.0;
+
+        if (isimp) {
+            this.d2 = 0.0;
+            this.d3 = 0.0;
+            this.d4 = 0.0;
+            this.t3cof = 0.0;
+            this.t4cof = 0.0;
+            this.t5cof = 0.0;
+        } else {
+            double cc1sq = cc1 * cc1;
+            this.d2 = 4.0 * ao * tsi * cc1sq;
+            double temp = d2 * tsi * cc1 / 3.0;
+            this.d3 = (17.0 * ao + sfour) * temp;
+            this.d4 = 0.5 * temp * ao * tsi * (221.0 * ao + 31.0 * sfour) * cc1;
+            this.t3cof = d2 + 2.0 * cc1sq;
+            this.t4cof = 0.25 * (3.0 * d3 + cc1 * (12.0 * d2 + 10.0 * cc1sq));
+            this.t5cof = 0.2 * (3.0 * d4 + 12.0 * cc1 * d3 + 6.0 * d2 * d2
+                    + 15.0 * cc1sq * (2.0 * d2 + cc1sq));
+        }
+    }
+
+    /**
+     * Returns the TLE being propagated.
+     *
+     * @return the TLE
+     */
+    @Override
+    public TLE getTLE() {
+        return tle;
+    }
+
+    /**
+     * Returns the model implemented by the propagator.
+     *
+     * @return {@link PropagationModel#SGP4}
+     */
+    @Override
+    public PropagationModel getModel() {
+        return PropagationModel.SGP4;
+    }
+
+    /**
+     * Returns the epoch of the TLE in fractional milliseconds since January 1, 1970 00:00:00 UTC.
+     *
+     * @return the epoch millisecond, not rounded
+     */
+    @Override
+    public double getEpochMillisecond() {
+        return epochMillisecond;
+    }
+
+    /**
+     * Determines whether the TLE has a period of 225 minutes or more, in which case the missing
+     * SDP4 deep-space perturbations make the results approximate.
+     *
+     * @return <code>true</code> if the TLE is a deep-space element set
+     */
+    public boolean isDeepSpace() {
+        return deepSpace;
+    }
+
+    /**
+     * Propagates the TLE to a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param state the array receiving the TEME position (km) and velocity (km/s) as
+     * <code>{x, y, z, vx, vy, vz}</code>
+     * @return <code>true</code> if the propagation succeeded, <code>false</code> if the orbit has
+     * decayed or become invalid, in which case <code>state</code> is filled with <code>NaN</code>
+     */
+    @Override
+    public boolean propagate(long epochMillisecond, double[] state) {
+        return propagate(epochMillisecond, state, 0);
+    }
+
+    /**
+     * Propagates the TLE to a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param state the array receiving the TEME position (km) and velocity (km/s)
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     * @return <code>true</code> if the propagation succeeded, <code>false</code> if the orbit has
+     * decayed or become invalid, in which case <code>state</code> is filled with <code>NaN</code>
+     */
+    @Override
+    public boolean propagate(long epochMillisecond, double[] state, int offset) {
+        return propagateMinutes(minutesSinceEpoch(epochMillisecond), state, offset);
+    }
+
+    /**
+     * Returns the number of minutes between the TLE epoch and a point in time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the minutes since the TLE epoch, negative if the time is before the epoch
+     */
+    @Override
+    public double minutesSinceEpoch(long epochMillisecond) {
+        return (epochMillisecond - this.epochMillisecond) / MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Returns the number of minutes between the TLE epoch and a fractional point in time.
+     *
+     * @param epochMillisecond the time in fractional milliseconds since January 1, 1970 00:00:00
+     * UTC
+     * @return the minutes since the TLE epoch, negative if the time is before the epoch
+     */
+    @Override
+    public double minutesSinceEpoch(double epochMillisecond) {
+        return (epochMillisecond - this.epochMillisecond) / MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Propagates the TLE by a number of minutes from its epoch.
+     *
+     * @param tsince the minutes since the TLE epoch
+     * @param state the array receiving the TEME position (km) and velocity (km/s)
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     * @return <code>true</code> if the propagation succeeded, <code>false</code> if the orbit has
+     * decayed or become invalid, in which case <code>state</code> is filled with <code>NaN</code>
+     */
+    @Override
+    public boolean propagateMinutes(double tsince, double[] state, int offset) {
+        // Secular gravity and atmospheric drag
+        double xmdf = mo + mdot * tsince;
+        double argpdf = argpo + argpdot * tsince;
+        double nodedf = nodeo + nodedot * tsince;
+        double argpm = argpdf;
+        double mm = xmdf;
+        double t2 = tsince * tsince;
+        double nodem = nodedf + nodecf * t2;
+        double tempa = 1.0 - cc1 * tsince;
+        double tempe = bstar * cc4 * tsince;
+        double templ = t2cof * t2;
+
+        if (!isimp) {
+            double delomg = omgcof * tsince;
+            double delmtemp = 1.0 + eta * Math.cos(xmdf);
+            double delm = xmcof * (delmtemp * delmtemp * delmtemp - delmo);
+            double temp = delomg + delm;
+            mm = xmdf + temp;
+            argpm = argpdf - temp;
+            double t3 = t2 * tsince;
+            double t4 = t3 * tsince;
+            tempa = tempa - d2 * t2 - d3 * t3 - d4 * t4;
+            tempe = tempe + bstar * cc5 * (Math.sin(mm) - sinmao);
+            templ = templ + t3cof * t3 + t4 * (t4cof + tsince * t5cof);
+        }
+
+        double am = Math.pow(XKE / noUnkozai, X2O3) * tempa * tempa;
+        double nm = XKE / Math.pow(am, 1.5);
+        double em = ecco - tempe;
+        if (!(am > 0.0) || em >= 1.0 || em < -0.001) {
+            return fail(state, offset);
+        }
+        if (em < 1.0e-6) {
+            em = 1.0e-6;
+        }
+        mm = mm + noUnkozai * templ;
+        double xlm = mm + argpm + nodem;
+        nodem = nodem % TWO_PI;
+        argpm = argpm % TWO_PI;
+        xlm = xlm % TWO_PI;
+        mm = (xlm - argpm - nodem) % TWO_PI;
+
+        double sinim = Math.sin(inclo);
+        double cosim = Math.cos(inclo);
+
+        // Long period periodics
+        double axnl = em * Math.cos(argpm);
+        double temp = 1.0 / (am * (1.0 - em * em));
+        double aynl = em * Math.sin(argpm) + temp * aycof;
+        double xl = mm + argpm + nodem + temp * xlcof * axnl;
+
+        // Solve Kepler's equation
+        double u = (xl - nodem) % TWO_PI;
+        double eo1 = u;
+        double tem5 = 9999.9;
+        double sineo1 = 0.0;
+        double coseo1 = 0.0;
+        for (int ktr = 1; Math.abs(tem5) >= 1.0e-12 && ktr <= 10; ktr++) {
+            sineo1 = Math.sin(eo1);
+            coseo1 = Math.cos(eo1);
+            tem5 = 1.0 - coseo1 * axnl - sineo1 * aynl;
+            tem5 = (u - aynl * coseo1 + axnl * sineo1 - eo1) / tem5;
+            if (Math.abs(tem5) >= 0.95) {
+                tem5 = tem5 > 0.0 ? 0.95 : -0.95;
+            }
+            eo1 = eo1 + tem5;
+        }
+
+        // Short period preliminary quantities
+        double ecose = axnl * coseo1 + aynl * sineo1;
+        double esine = axnl * sineo1 - aynl * coseo1;
+        double el2 = axnl * axnl + aynl * aynl;
+        double pl = am * (1.0 - el2);
+        if (pl < 0.0) {
+            return fail(state, offset);
+        }
+        double rl = am * (1.0 - ecose);
+        double rdotl = Math.sqrt(am) * esine / rl;
+        double rvdotl = Math.sqrt(pl) / rl;
+        double betal = Math.sqrt(1.0 - el2);
+        temp = esine / (1.0 + betal);
+        double sinu = am / rl * (sineo1 - aynl - axnl * temp);
+        double cosu = am / rl * (coseo1 - axnl + aynl * temp);
+        double su = Math.atan2(sinu, cosu);
+        double sin2u = (cosu + cosu) * sinu;
+        double cos2u = 1.0 - 2.0 * sinu * sinu;
+        temp = 1.0 / pl;
+        double temp1 = 0.5 * J2 * temp;
+        double temp2 = temp1 * temp;
+
+        // Update for short period periodics
+        double mrt = rl * (1.0 - 1.5 * temp2 * betal * con41) + 0.5 * temp1 * x1mth2 * cos2u;
+        su = su - 0.25 * temp2 * x7thm1 * sin2u;
+        double xnode = nodem + 1.5 * temp2 * cosim * sin2u;
+        double xinc = inclo + 1.5 * temp2 * cosim * sinim * cos2u;
+        double mvt = rdotl - nm * temp1 * x1mth2 * sin2u / XKE;
+        double rvdot = rvdotl + nm * temp1 * (x1mth2 * cos2u + 1.5 * con41) / XKE;
+        if (mrt < 1.0) {
+            return fail(state, offset);
+        }
+
+        // Orientation vectors
+        double sinsu = Math.sin(su);
+        double cossu = Math.cos(su);
+        double snod = Math.sin(xnode);
+        double cnod = Math.cos(xnode);
+        double sini = Math.sin(xinc);
+        double cosi = Math.cos(xinc);
+        double xmx = -snod * cosi;
+        double xmy = cnod * cosi;
+        double ux = xmx * sinsu + cnod * cossu;
+        double uy = xmy * sinsu + snod * cossu;
+        double uz = sini * sinsu;
+        double vx = xmx * cossu - cnod * sinsu;
+        double vy = xmy * cossu - snod * sinsu;
+        double vz = sini * cossu;
+
+        // Position and velocity in kilometers and kilometers per second
+        double r = mrt * RADIUS;
+        state[offset] = r * ux;
+        state[offset + 1] = r * uy;
+        state[offset + 2] = r * uz;
+        state[offset + 3] = (mvt * ux + rvdot * vx) * VKMPERSEC;
+        state[offset + 4] = (mvt * uy + rvdot * vy) * VKMPERSEC;
+        state[offset + 5] = (mvt * uz + rvdot * vz) * VKMPERSEC;
+        return true;
+    }
+
+    /**
+     * Fills the state with <code>NaN</code> and reports a failed propagation.
+     *
+     * @param state the state to be filled
+     * @param offset the index of the first component
+     * @return <code>false</code>
+     */
+    private static boolean fail(double[] state, int offset) {
+        for (int i = 0; i < 6; i++) {
+            state[offset + i] = Double.NaN;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,412 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A catalog of TLEs keyed by satellite number, holding at most one TLE per satellite.
+ * <p>
+ * Satellite numbers from 1 to 99,999 index an array directly, so a lookup is one array load with
+ * no boxed keys and no entry objects. Larger numbers, such as the extended range of Alpha-5
+ * numbers, go to a primitive open-addressing table with linear probing, which stays empty for
+ * catalogs within the classic range. The direct array takes about 400 KB whatever the size of
+ * the catalog.
+ * <p>
+ * {@link #putIfNewer(TLE)} keeps the newest element set of each satellite: the one with the latest
+ * epoch, or with the highest element set number if the epochs are the same.
+ * <p>
+ * This class is not thread-safe; see {@link ConcurrentSatelliteCatalog} for concurrent use.
+ *
+ * @author Zach Wilson
+ */
+public final class SatelliteCatalog {
+
+    /**
+     * Receives the TLEs of a catalog with their satellite numbers.
+     */
+    public interface Visitor {
+        void visit(int satelliteNumber, TLE tle);
+    }
+
+    /**
+     * Largest satellite number stored in the direct array.
+     */
+    static final int MAX_DIRECT_NUMBER = 99999;
+
+    /**
+     * Marks an empty slot of the open-addressing table; satellite numbers are positive.
+     */
+    private static final int EMPTY = 0;
+
+    private final TLE[] direct = new TLE[MAX_DIRECT_NUMBER + 1];
+    private int[] keys = new int[8];
+    private TLE[] values = new TLE[8];
+    private int overflowSize;
+    private int size;
+
+    /**
+     * Constructs a new, empty <code>SatelliteCatalog</code>.
+     */
+    public SatelliteCatalog() {}
+
+    /**
+     * Constructs a new <code>SatelliteCatalog</code> holding the newest TLE of each satellite of a
+     * collection.
+     *
+     * @param tles the TLEs, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tles</code> is <code>null</code> or contains a
+     * <code>null</code> TLE or one with a satellite number below 1
+     */
+    public SatelliteCatalog(Collection<TLE> tles) {
+        if (tles == null) {
+            throw new IllegalArgumentException("TLEs cannot be null");
+        }
+        for (TLE tle : tles) {
+            putIfNewer(tle);
+        }
+    }
+
+    /**
+     * Returns the number of satellites in the catalog.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determines whether the catalog is empty.
+     *
+     * @return <code>true</code> if there is no TLE
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the TLE of a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the TLE, or <code>null</code> if the satellite is not in the catalog
+     */
+    public TLE get(int satelliteNumber) {
+        if (satelliteNumber >= 0 && satelliteNumber <= MAX_DIRECT_NUMBER) {
+            return direct[satelliteNumber];
+        }
+        if (satelliteNumber < 0 || overflowSize == 0) {
+            return null;
+        }
+        return values[find(satelliteNumber)];
+    }
+
+    /**
+     * Determines whether a satellite is in the catalog.
+     *
+     * @param satelliteNumber the satellite number
+     * @return <code>true</code> if the catalog holds a TLE of the satellite
+     */
+    public boolean contains(int satelliteNumber) {
+        return get(satelliteNumber) != null;
+    }
+
+    /**
+     * Stores a TLE, replacing any TLE of the same satellite whatever its epoch.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return the replaced TLE, or <code>null</code> if the satellite was not in the catalog
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    public TLE put(TLE tle) {
+        int number = checkTLE(tle);
+        if (number <= MAX_DIRECT_NUMBER) {
+            TLE previous = direct[number];
+            direct[number] = tle;
+            if (previous == null) {
+                size++;
+            }
+            return previous;
+        }
+        int slot = find(number);
+        TLE previous = values[slot];
+        if (previous == null) {
+            insert(slot, number, tle);
+        } else {
+            values[slot] = tle;
+        }
+        return previous;
+    }
+
+    /**
+     * Stores a TLE unless the catalog already holds a TLE of the same satellite that is as new or
+     * newer.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return <code>true</code> if the TLE was stored
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    public boolean putIfNewer(TLE tle) {
+        int number = checkTLE(tle);
+        if (number <= MAX_DIRECT_NUMBER) {
+            TLE previous = direct[number];
+            if (previous != null && !isNewer(tle, previous)) {
+                return false;
+            }
+            direct[number] = tle;
+            if (previous == null) {
+                size++;
+            }
+            return true;
+        }
+        int slot = find(number);
+        TLE previous = values[slot];
+        if (previous == null) {
+            insert(slot, number, tle);
+            return true;
+        }
+        if (!isNewer(tle, previous)) {
+            return false;
+        }
+        values[slot] = tle;
+        return true;
+    }
+
+    /**
+     * Removes the TLE of a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the removed TLE, or <code>null</code> if the satellite was not in the catalog
+     */
+    public TLE remove(int satelliteNumber) {
+        if (satelliteNumber >= 0 && satelliteNumber <= MAX_DIRECT_NUMBER) {
+            TLE previous = direct[satelliteNumber];
+            if (previous != null) {
+                direct[satelliteNumber] = null;
+                size--;
+            }
+            return previous;
+        }
+        if (satelliteNumber < 0 || overflowSize == 0) {
+            return null;
+        }
+        int slot = find(satelliteNumber);
+        TLE previous = values[slot];
+        if (previous != null) {
+            delete(slot);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes every TLE.
+     */
+    public void clear() {
+        Arrays.fill(direct, null);
+        keys = new int[8];
+        values = new TLE[8];
+        overflowSize = 0;
+        size = 0;
+    }
+
+    /**
+     * Visits every TLE, in increasing order of satellite number within the direct range, followed
+     * by the larger numbers in no particular order.
+     *
+     * @param visitor the visitor, not <code>null</code>
+     * @throws IllegalArgumentException if <code>visitor</code> is <code>null</code>
+     */
+    public void forEach(Visitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+        for (int number = 1; number <= MAX_DIRECT_NUMBER; number++) {
+            TLE tle = direct[number];
+            if (tle != null) {
+                visitor.visit(number, tle);
+            }
+        }
+        if (overflowSize > 0) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    visitor.visit(keys[slot], values[slot]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the satellite numbers of the catalog.
+     *
+     * @return the numbers in increasing order
+     */
+    public int[] getSatelliteNumbers() {
+        int[] numbers = new int[size];
+        int count = 0;
+        for (int number = 1; number <= MAX_DIRECT_NUMBER; number++) {
+            if (direct[number] != null) {
+                numbers[count++] = number;
+            }
+        }
+        int directCount = count;
+        if (overflowSize > 0) {
+            for (int key : keys) {
+                if (key != EMPTY) {
+                    numbers[count++] = key;
+                }
+            }
+            Arrays.sort(numbers, directCount, count);
+        }
+        return numbers;
+    }
+
+    /**
+     * Determines whether a TLE is newer than another one of the same satellite: a later epoch, or
+     * a higher element set number at the same epoch.
+     *
+     * @param candidate the candidate TLE
+     * @param current the current TLE
+     * @return <code>true</code> if <code>candidate</code> is strictly newer
+     */
+    static boolean isNewer(TLE candidate, TLE current) {
+        long a;
+        long b;
+        if (candidate.getEpochYear() == current.getEpochYear()
+                && candidate.getEpochDay() >= 1.0 && current.getEpochDay() >= 1.0) {
+            // Within a year, the epoch millisecond is an offset plus the rounded day in
+            // milliseconds, so comparing the days spares the calendar arithmetic
+            a = dayMillisecond(candidate.getEpochDay());
+            b = dayMillisecond(current.getEpochDay());
+        } else {
+            a = candidate.getEpochMillisecond();
+            b = current.getEpochMillisecond();
+        }
+        if (a != b) {
+            return a > b;
+        }
+        return candidate.getElementSetNumber() > current.getElementSetNumber();
+    }
+
+    /**
+     * Converts a fractional day of year to milliseconds, rounding the fraction half up as {@link
+     * TLE#getEpochMillisecond()} does.
+     *
+     * @param day the day, at least 1
+     * @return the milliseconds from the start of day 0
+     */
+    static long dayMillisecond(double day) {
+        long wholeDay = (long) day;
+        double fraction = (day - wholeDay) * 86400000.0;
+        long millisecond = (long) fraction;
+        if (fraction - millisecond >= 0.5) {
+            millisecond++;
+        }
+        return wholeDay * 86400000L + millisecond;
+    }
+
+    /**
+     * Checks a TLE before storing it.
+     *
+     * @param tle the TLE
+     * @return its satellite number
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    private static int checkTLE(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        int number = tle.getSatelliteNumber();
+        if (number < 1) {
+            throw new IllegalArgumentException("Satellite number must be positive: " + number);
+        }
+        return number;
+    }
+
+    /**
+     * Returns the slot of a key in the open-addressing table, or the empty slot where it would be
+     * inserted.
+     *
+     * @param key the satellite number, above the direct range
+     * @return the slot
+     */
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Inserts a new key into an empty slot, growing the table to keep it at most half full.
+     *
+     * @param slot the empty slot found for the key
+     * @param key the satellite number
+     * @param tle the TLE
+     */
+    private void insert(int slot, int key, TLE tle) {
+        keys[slot] = key;
+        values[slot] = tle;
+        overflowSize++;
+        size++;
+        if (2 * overflowSize > keys.length) {
+            int[] oldKeys = keys;
+            TLE[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new TLE[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int s = find(oldKeys[i]);
+                    keys[s] = oldKeys[i];
+                    values[s] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the key of a slot, shifting back the keys of the same probe run so that no
+     * tombstone is needed.
+     *
+     * @param slot the occupied slot
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            // Move the key into the hole unless its home lies cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        overflowSize--;
+        size--;
+    }
+
+    /**
+     * Spreads the bits of a key (the finalizer of MurmurHash3).
+     *
+     * @param key the key
+     * @return the hash
+     */
+    static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+}
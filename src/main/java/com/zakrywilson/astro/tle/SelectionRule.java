@@ -0,0 +1,32 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Rules choosing which element set of a satellite to use at a time, given the epochs of its
+ * element sets <code>e<sub>0</sub> &lt; e<sub>1</sub> &lt; ... &lt; e<sub>n-1</sub></code>.
+ *
+ * @author Zach Wilson
+ */
+public enum SelectionRule {
+
+    /**
+     * The element set with the epoch nearest to the time, the earlier one if two are as near.
+     * Each element set is valid from the midpoint with the previous epoch to the midpoint with the
+     * next one; the first and last ones extend without bound.
+     */
+    NEAREST,
+
+    /**
+     * The element set with the latest epoch at or before the time, as used operationally. Each
+     * element set is valid from its epoch to the next epoch; the last one extends without bound.
+     */
+    MOST_RECENT_BEFORE,
+
+    /**
+     * The nearest element set, but without extrapolating beyond the history: every validity
+     * window is centered on its epoch. Each element set is valid from the midpoint with the
+     * previous epoch to the midpoint with the next one, while the first and last ones extend
+     * outward only as far as they extend inward. A lone element set is valid only at its epoch.
+     */
+    CENTERED
+
+}
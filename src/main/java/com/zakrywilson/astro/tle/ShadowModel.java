@@ -0,0 +1,64 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Models of the shadow of the Earth, deciding whether a satellite is eclipsed.
+ *
+ * @author Zach Wilson
+ */
+public enum ShadowModel {
+
+    /**
+     * The shadow is a cylinder of the radius of the Earth extending away from the Sun. This is
+     * the cheapest model; it ignores the penumbra and slightly overestimates the umbra.
+     */
+    CYLINDRICAL {
+        @Override
+        boolean isEclipsed(double x, double y, double z, double sunX, double sunY, double sunZ) {
+            double sun = Math.sqrt(sunX * sunX + sunY * sunY + sunZ * sunZ);
+            double along = (x * sunX + y * sunY + z * sunZ) / sun;
+            if (along >= 0.0) {
+                return false;
+            }
+            return x * x + y * y + z * z - along * along < RADIUS * RADIUS;
+        }
+    },
+
+    /**
+     * The shadow is the cone in which any part of the disk of the Sun is hidden by the Earth,
+     * i.e. the penumbra and the umbra. A satellite is eclipsed as soon as it receives less than
+     * full sunlight.
+     */
+    CONICAL {
+        @Override
+        boolean isEclipsed(double x, double y, double z, double sunX, double sunY, double sunZ) {
+            double r = Math.sqrt(x * x + y * y + z * z);
+            double dx = sunX - x;
+            double dy = sunY - y;
+            double dz = sunZ - z;
+            double d = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            // Apparent radii of the Earth and Sun, and their separation, seen from the satellite
+            double earth = Math.asin(Math.min(1.0, RADIUS / r));
+            double sun = Math.asin(SolarEphemeris.SUN_RADIUS / d);
+            double cos = -(x * dx + y * dy + z * dz) / (r * d);
+            double separation = Math.acos(Math.max(-1.0, Math.min(1.0, cos)));
+            return separation < earth + sun;
+        }
+    };
+
+    /**
+     * Determines whether a satellite is eclipsed.
+     *
+     * @param x the x component of the geocentric position of the satellite in kilometers
+     * @param y the y component of the position
+     * @param z the z component of the position
+     * @param sunX the x component of the geocentric position of the Sun in kilometers
+     * @param sunY the y component of the position of the Sun
+     * @param sunZ the z component of the position of the Sun
+     * @return <code>true</code> if the satellite is in the shadow
+     */
+    abstract boolean isEclipsed(double x, double y, double z, double sunX, double sunY,
+                                double sunZ);
+
+}
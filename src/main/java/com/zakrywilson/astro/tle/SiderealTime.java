@@ -0,0 +1,49 @@
+package com.zakrywilson.astro.tle;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Thread-safe utility class for the Greenwich mean sidereal time (GMST), which is the rotation
+ * angle between the TEME frame of SGP4 and the Earth-fixed frame.
+ * <p>
+ * The IAU 1982 model is used, with UTC standing in for UT1 (the difference is under a second and
+ * polar motion is ignored), as is conventional for SGP4.
+ *
+ * @author Zach Wilson
+ */
+final class SiderealTime {
+
+    /**
+     * Julian date of January 1, 1970 00:00:00 UTC.
+     */
+    private static final double UNIX_EPOCH_JULIAN_DATE = 2440587.5;
+
+    /**
+     * Julian date of the J2000 epoch.
+     */
+    private static final double J2000_JULIAN_DATE = 2451545.0;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private SiderealTime() {}
+
+    /**
+     * Returns the Greenwich mean sidereal time.
+     *
+     * @param epochMillisecond the time in fractional milliseconds since January 1, 1970 00:00:00
+     * UTC
+     * @return the GMST in radians, from 0 to 2 pi
+     */
+    static double gmst(double epochMillisecond) {
+        double julianDate = epochMillisecond / MILLIS_PER_DAY + UNIX_EPOCH_JULIAN_DATE;
+        double tut1 = (julianDate - J2000_JULIAN_DATE) / 36525.0;
+        double seconds = -6.2e-6 * tut1 * tut1 * tut1 + 0.093104 * tut1 * tut1
+                + (876600.0 * 3600.0 + 8640184.812866) * tut1 + 67310.54841;
+        double gmst = (seconds * TWO_PI / 86400.0) % TWO_PI;
+        return gmst < 0.0 ? gmst + TWO_PI : gmst;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Thread-safe utility class for a low-precision position of the Sun.
+ * <p>
+ * The algorithm of the Astronomical Almanac (as given by Vallado) is accurate to about 0.01 degree
+ * between 1950 and 2050, which is plenty for shadow and lighting geometry. Positions are in the
+ * mean equator and equinox of date; the difference with TEME is a fraction of an arcsecond and
+ * is ignored.
+ *
+ * @author Zach Wilson
+ */
+public final class SolarEphemeris {
+
+    /**
+     * Astronomical unit in kilometers.
+     */
+    public static final double ASTRONOMICAL_UNIT = 149597870.7;
+
+    /**
+     * Mean radius of the Sun in kilometers.
+     */
+    public static final double SUN_RADIUS = 696000.0;
+
+    /**
+     * Julian date of January 1, 1970 00:00:00 UTC.
+     */
+    private static final double UNIX_EPOCH_JULIAN_DATE = 2440587.5;
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private SolarEphemeris() {}
+
+    /**
+     * Computes the geocentric position of the Sun.
+     *
+     * @param epochMillisecond the time in fractional milliseconds since January 1, 1970 00:00:00
+     * UTC
+     * @param position the array receiving the position in kilometers as <code>{x, y, z}</code>
+     * @param offset the index in <code>position</code> of the <code>x</code> component
+     */
+    public static void position(double epochMillisecond, double[] position, int offset) {
+        double julianDate = epochMillisecond / 86400000.0 + UNIX_EPOCH_JULIAN_DATE;
+        double t = (julianDate - 2451545.0) / 36525.0;
+        double meanLongitude = 280.460 + 36000.771 * t;
+        double meanAnomaly = Math.toRadians(357.5291092 + 35999.05034 * t);
+        double longitude = Math.toRadians(meanLongitude + 1.914666471 * Math.sin(meanAnomaly)
+                                                  + 0.019994643 * Math.sin(2.0 * meanAnomaly));
+        double distance = ASTRONOMICAL_UNIT * (1.000140612 - 0.016708617 * Math.cos(meanAnomaly)
+                - 0.000139589 * Math.cos(2.0 * meanAnomaly));
+        double obliquity = Math.toRadians(23.439291 - 0.0130042 * t);
+        double sinLongitude = Math.sin(longitude);
+        position[offset] = distance * Math.cos(longitude);
+        position[offset + 1] = distance * Math.cos(obliquity) * sinLongitude;
+        position[offset + 2] = distance * Math.sin(obliquity) * sinLongitude;
+    }
+
+}
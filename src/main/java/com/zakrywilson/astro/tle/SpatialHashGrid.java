@@ -0,0 +1,191 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A uniform spatial hash grid over a set of points, used to find every point near another one
+ * without comparing all pairs.
+ * <p>
+ * Points are binned into cubic cells of a fixed size. Each occupied cell is stored once in an
+ * open-addressing table that holds the head of a linked list threaded through a primitive
+ * <code>next</code> array, so building the grid is linear in the number of points and produces no
+ * per-point objects. Any two points closer than the cell size are guaranteed to be in the same or
+ * adjacent cells, which is what {@link #forEachNeighbor(double, double, double, Visitor)} visits.
+ * <p>
+ * Building is not thread-safe, but once built the grid may be queried from multiple threads.
+ *
+ * @author Zach Wilson
+ */
+final class SpatialHashGrid {
+
+    /**
+     * Receives the indices of points found in a neighborhood.
+     */
+    interface Visitor {
+        void visit(int index);
+    }
+
+    /**
+     * Offset added to the cell coordinates so that they fit in 21 unsigned bits.
+     */
+    private static final long CELL_OFFSET = 1L << 20;
+
+    /**
+     * Mask of a 21-bit cell coordinate.
+     */
+    private static final long CELL_MASK = (1L << 21) - 1;
+
+    /**
+     * Marks an empty slot in the table.
+     */
+    private static final int EMPTY = -1;
+
+    private final double inverseCellSize;
+
+    private long[] keys = new long[0];
+    private int[] heads = new int[0];
+    private int[] next = new int[0];
+    private int mask;
+
+    /**
+     * Constructs a new, empty <code>SpatialHashGrid</code>.
+     *
+     * @param cellSize the edge length of a cell, in the same units as the points
+     * @throws IllegalArgumentException if <code>cellSize</code> is not positive
+     */
+    SpatialHashGrid(double cellSize) {
+        if (!(cellSize > 0.0) || Double.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.inverseCellSize = 1.0 / cellSize;
+    }
+
+    /**
+     * Bins the first <code>n</code> points, replacing the previous contents of the grid. Points
+     * with a <code>NaN</code> coordinate are skipped.
+     * <p>
+     * The internal arrays are reused between builds of the same or smaller size.
+     *
+     * @param x the x coordinates
+     * @param y the y coordinates
+     * @param z the z coordinates
+     * @param n the number of points
+     */
+    void build(double[] x, double[] y, double[] z, int n) {
+        int capacity = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+        if (keys.length != capacity) {
+            keys = new long[capacity];
+            heads = new int[capacity];
+        }
+        if (next.length < n) {
+            next = new int[n];
+        }
+        Arrays.fill(heads, EMPTY);
+        mask = capacity - 1;
+
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(x[i]) || Double.isNaN(y[i]) || Double.isNaN(z[i])) {
+                next[i] = EMPTY;
+                continue;
+            }
+            long key = key(cell(x[i]), cell(y[i]), cell(z[i]));
+            int slot = (int) mix(key) & mask;
+            while (heads[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            next[i] = heads[slot];
+            heads[slot] = i;
+        }
+    }
+
+    /**
+     * Visits every point in the cell containing a location and in its 26 adjacent cells. This is a
+     * superset of the points within one cell size of the location.
+     *
+     * @param x the x coordinate of the location
+     * @param y the y coordinate of the location
+     * @param z the z coordinate of the location
+     * @param visitor the visitor receiving the point indices
+     */
+    void forEachNeighbor(double x, double y, double z, Visitor visitor) {
+        if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z)) {
+            return;
+        }
+        long cx = cell(x);
+        long cy = cell(y);
+        long cz = cell(z);
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dz = -1; dz <= 1; dz++) {
+                    int i = head(key(cx + dx, cy + dy, cz + dz));
+                    while (i != EMPTY) {
+                        visitor.visit(i);
+                        i = next[i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first point of the cell with a key.
+     *
+     * @param key the cell key
+     * @return the index of the first point, or <code>-1</code> if the cell is empty
+     */
+    private int head(long key) {
+        if (heads.length == 0) {
+            return EMPTY;
+        }
+        int slot = (int) mix(key) & mask;
+        while (heads[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return heads[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Returns the cell coordinate of a point coordinate.
+     *
+     * @param v the point coordinate
+     * @return the cell coordinate
+     */
+    private long cell(double v) {
+        return (long) Math.floor(v * inverseCellSize);
+    }
+
+    /**
+     * Packs three cell coordinates into a single key.
+     *
+     * @param cx the x cell coordinate
+     * @param cy the y cell coordinate
+     * @param cz the z cell coordinate
+     * @return the key
+     */
+    private static long key(long cx, long cy, long cz) {
+        return (((cx + CELL_OFFSET) & CELL_MASK) << 42)
+                | (((cy + CELL_OFFSET) & CELL_MASK) << 21)
+                | ((cz + CELL_OFFSET) & CELL_MASK);
+    }
+
+    /**
+     * Scrambles the bits of a key (the MurmurHash3 finalizer) so that neighboring cells spread
+     * across the table.
+     *
+     * @param key the key
+     * @return the hash
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * A columnar (struct-of-arrays) buffer of position and velocity state vectors, one row per
+ * satellite.
+ * <p>
+ * Positions are in kilometers and velocities in kilometers per second. Rows whose propagation
+ * failed hold <code>NaN</code> in every component, see {@link #isValid(int)}. Buffers are meant to
+ * be allocated once and refilled at every time step so that propagating a catalog does not produce
+ * garbage.
+ * <p>
+ * This class is not thread-safe, although disjoint rows may be written by different threads.
+ *
+ * @author Zach Wilson
+ */
+public final class StateVectors {
+
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    final double[] vx;
+    final double[] vy;
+    final double[] vz;
+
+    private final int size;
+
+    /**
+     * Constructs a new <code>StateVectors</code> buffer with every component set to
+     * <code>NaN</code>.
+     *
+     * @param size the number of rows
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     */
+    public StateVectors(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative: " + size);
+        }
+        this.size = size;
+        this.x = new double[size];
+        this.y = new double[size];
+        this.z = new double[size];
+        this.vx = new double[size];
+        this.vy = new double[size];
+        this.vz = new double[size];
+        clear();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x component of the position (km) of a row.
+     *
+     * @param i the row
+     * @return the x position
+     */
+    public double getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Returns the y component of the position (km) of a row.
+     *
+     * @param i the row
+     * @return the y position
+     */
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the z component of the position (km) of a row.
+     *
+     * @param i the row
+     * @return the z position
+     */
+    public double getZ(int i) {
+        return z[i];
+    }
+
+    /**
+     * Returns the x component of the velocity (km/s) of a row.
+     *
+     * @param i the row
+     * @return the x velocity
+     */
+    public double getVx(int i) {
+        return vx[i];
+    }
+
+    /**
+     * Returns the y component of the velocity (km/s) of a row.
+     *
+     * @param i the row
+     * @return the y velocity
+     */
+    public double getVy(int i) {
+        return vy[i];
+    }
+
+    /**
+     * Returns the z component of the velocity (km/s) of a row.
+     *
+     * @param i the row
+     * @return the z velocity
+     */
+    public double getVz(int i) {
+        return vz[i];
+    }
+
+    /**
+     * Determines whether a row holds a valid state (i.e., its propagation succeeded).
+     *
+     * @param i the row
+     * @return <code>true</code> if the row is valid
+     */
+    public boolean isValid(int i) {
+        return !Double.isNaN(x[i]);
+    }
+
+    /**
+     * Sets the state of a row.
+     *
+     * @param i the row
+     * @param state the state as <code>{x, y, z, vx, vy, vz}</code>
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     */
+    public void set(int i, double[] state, int offset) {
+        x[i] = state[offset];
+        y[i] = state[offset + 1];
+        z[i] = state[offset + 2];
+        vx[i] = state[offset + 3];
+        vy[i] = state[offset + 4];
+        vz[i] = state[offset + 5];
+    }
+
+    /**
+     * Copies the state of a row into an array.
+     *
+     * @param i the row
+     * @param state the array receiving the state as <code>{x, y, z, vx, vy, vz}</code>
+     * @param offset the index in <code>state</code> of the <code>x</code> component
+     */
+    public void get(int i, double[] state, int offset) {
+        state[offset] = x[i];
+        state[offset + 1] = y[i];
+        state[offset + 2] = z[i];
+        state[offset + 3] = vx[i];
+        state[offset + 4] = vy[i];
+        state[offset + 5] = vz[i];
+    }
+
+    /**
+     * Sets every component of every row to <code>NaN</code>.
+     */
+    public void clear() {
+        Arrays.fill(x, Double.NaN);
+        Arrays.fill(y, Double.NaN);
+        Arrays.fill(z, Double.NaN);
+        Arrays.fill(vx, Double.NaN);
+        Arrays.fill(vy, Double.NaN);
+        Arrays.fill(vz, Double.NaN);
+    }
+
+}
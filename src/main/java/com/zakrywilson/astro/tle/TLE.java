@@ -40,6 +40,13 @@ public final class TLE {
     private int    revolutions;
     private int    checksumLine2;
 
+    /**
+     * Derived quantities, computed on first use. All fields of {@link OrbitalProperties} are
+     * final, so a racing thread sees either <code>null</code> or a fully built instance and at
+     * worst computes it again.
+     */
+    private OrbitalProperties orbitalProperties;
+
     /**
      * Constructs a new TLE from the title line and lines 1 and 2 of the TLE.
      *
@@ -271,6 +278,24 @@ public final class TLE {
         return checksumLine2;
     }
 
+    /**
+     * Returns the quantities derived from the elements of the TLE (semi-major axis, period, apogee
+     * and perigee altitudes, orbital regime and recovered mean motion).
+     * <p>
+     * They are computed on the first call and cached, so that sorts and filters comparing them do
+     * not repeat the underlying roots and powers.
+     *
+     * @return the derived quantities, never <code>null</code>
+     */
+    public OrbitalProperties getOrbitalProperties() {
+        OrbitalProperties properties = orbitalProperties;
+        if (properties == null) {
+            properties = new OrbitalProperties(this);
+            orbitalProperties = properties;
+        }
+        return properties;
+    }
+
     /**
      * Determines whether line 1 of the TLE is valid with respect to the checksum.
      *
@@ -423,6 +448,7 @@ public final class TLE {
      */
     void setInclination(double inclination) {
         this.inclination = inclination;
+        this.orbitalProperties = null;
     }
 
     /**
@@ -441,6 +467,7 @@ public final class TLE {
      */
     void setEccentricity(double eccentricity) {
         this.eccentricity = eccentricity;
+        this.orbitalProperties = null;
     }
 
     /**
@@ -468,6 +495,7 @@ public final class TLE {
      */
     void setMeanMotion(double meanMotion) {
         this.meanMotion = meanMotion;
+        this.orbitalProperties = null;
     }
 
     /**
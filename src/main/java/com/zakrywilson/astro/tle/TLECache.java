@@ -0,0 +1,297 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A cache of parsed TLEs keyed by the raw text of their lines, so that refreshing a catalog in
+ * which most records are unchanged parses only the records that changed.
+ * <p>
+ * A lookup hashes the lines into 64 bits from their <code>String</code> hash codes, which each
+ * string computes once and caches, finds the entry with that hash in a primitive open-addressing
+ * table, and compares the title and lines exactly, so a hit costs about one hash and one
+ * comparison of the text and returns the TLE parsed before. Entries live in parallel
+ * arrays linked in order of use, and the least recently used entry is evicted when the cache is
+ * full; the maximum size should cover the whole catalog, since a refresh touches every record
+ * once and a cache smaller than the catalog would evict each record before its next refresh.
+ * <p>
+ * The TLEs returned are shared between callers, so they must not be modified. This class is not
+ * thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class TLECache {
+
+    /**
+     * Marks the end of the list of entries in order of use, and an empty slot of the table.
+     */
+    private static final int NONE = -1;
+
+    private final int maximumSize;
+    private final long[] hashes;
+    private final String[] titles;
+    private final String[] lines1;
+    private final String[] lines2;
+    private final TLE[] values;
+    private final int[] previous;
+    private final int[] next;
+    private final int[] table;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs a new, empty <code>TLECache</code>.
+     *
+     * @param maximumSize the largest number of TLEs held, at least 1
+     * @throws IllegalArgumentException if <code>maximumSize</code> is not in the range 1 to
+     * 2<sup>28</sup>
+     */
+    public TLECache(int maximumSize) {
+        if (maximumSize < 1 || maximumSize > (1 << 28)) {
+            throw new IllegalArgumentException(
+                    "Maximum size must be from 1 to 2^28: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.hashes = new long[maximumSize];
+        this.titles = new String[maximumSize];
+        this.lines1 = new String[maximumSize];
+        this.lines2 = new String[maximumSize];
+        this.values = new TLE[maximumSize];
+        this.previous = new int[maximumSize];
+        this.next = new int[maximumSize];
+        int capacity = 8;
+        while (capacity < 2 * maximumSize) {
+            capacity <<= 1;
+        }
+        this.table = new int[capacity];
+        Arrays.fill(table, NONE);
+    }
+
+    /**
+     * Returns the TLE of a title and lines, parsing them only if they are not in the cache.
+     *
+     * @param title the title, can be <code>null</code>
+     * @param line1 line 1, not <code>null</code>
+     * @param line2 line 2, not <code>null</code>
+     * @return the TLE, equal to <code>new TLE(title, line1, line2)</code>
+     * @throws IllegalArgumentException if <code>line1</code> or <code>line2</code> is
+     * <code>null</code>, or as thrown by the parsing of the TLE
+     */
+    public TLE get(String title, String line1, String line2) {
+        if (line1 == null || line2 == null) {
+            throw new IllegalArgumentException("Lines cannot be null (except for title line)");
+        }
+        long hash = hash(title, line1, line2);
+        int mask = table.length - 1;
+        int slot = (int) TLEFingerprint.mix(hash) & mask;
+        while (table[slot] != NONE) {
+            int e = table[slot];
+            if (hashes[e] == hash && line1.equals(lines1[e]) && line2.equals(lines2[e])
+                    && Objects.equals(title, titles[e])) {
+                hits++;
+                moveToHead(e);
+                return values[e];
+            }
+            slot = (slot + 1) & mask;
+        }
+        misses++;
+        TLE tle = new TLE(title, line1, line2);
+        int e;
+        if (size < maximumSize) {
+            e = size++;
+        } else {
+            e = tail;
+            unlink(e);
+            delete(e);
+            evictions++;
+            // The deletion may have shifted entries into the empty slot found above
+            slot = (int) TLEFingerprint.mix(hash) & mask;
+            while (table[slot] != NONE) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        hashes[e] = hash;
+        titles[e] = title;
+        lines1[e] = line1;
+        lines2[e] = line2;
+        values[e] = tle;
+        table[slot] = e;
+        linkHead(e);
+        return tle;
+    }
+
+    /**
+     * Returns the TLE of lines with a blank title, parsing them only if they are not in the
+     * cache.
+     *
+     * @param line1 line 1, not <code>null</code>
+     * @param line2 line 2, not <code>null</code>
+     * @return the TLE, equal to <code>new TLE(line1, line2)</code>
+     * @throws IllegalArgumentException if <code>line1</code> or <code>line2</code> is
+     * <code>null</code>, or as thrown by the parsing of the TLE
+     */
+    public TLE get(String line1, String line2) {
+        return get("", line1, line2);
+    }
+
+    /**
+     * Returns the number of TLEs held.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the largest number of TLEs held.
+     *
+     * @return the maximum size
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of lookups that found their TLE.
+     *
+     * @return the count
+     */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that parsed their TLE.
+     *
+     * @return the count
+     */
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of TLEs evicted to make room for others.
+     *
+     * @return the count
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of lookups that found their TLE.
+     *
+     * @return the hit rate, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Removes every TLE, keeping the counters.
+     */
+    public void clear() {
+        Arrays.fill(titles, null);
+        Arrays.fill(lines1, null);
+        Arrays.fill(lines2, null);
+        Arrays.fill(values, null);
+        Arrays.fill(table, NONE);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    /**
+     * Hashes a title and lines into 64 bits.
+     *
+     * @param title the title, possibly <code>null</code>
+     * @param line1 line 1
+     * @param line2 line 2
+     * @return the hash
+     */
+    static long hash(String title, String line1, String line2) {
+        long h = ((long) line1.hashCode() << 32) | (line2.hashCode() & 0xffffffffL);
+        return h ^ TLEFingerprint.mix(title == null ? 0x9e3779b9L : title.hashCode());
+    }
+
+    /**
+     * Removes the table slot of an entry, shifting back the entries of the same probe run so that
+     * no tombstone is needed.
+     *
+     * @param e the entry
+     */
+    private void delete(int e) {
+        int mask = table.length - 1;
+        int hole = (int) TLEFingerprint.mix(hashes[e]) & mask;
+        while (table[hole] != e) {
+            hole = (hole + 1) & mask;
+        }
+        int slot = (hole + 1) & mask;
+        while (table[slot] != NONE) {
+            int home = (int) TLEFingerprint.mix(hashes[table[slot]]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, slot]
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[hole] = NONE;
+    }
+
+    /**
+     * Moves an entry to the head of the list in order of use.
+     *
+     * @param e the entry
+     */
+    private void moveToHead(int e) {
+        if (e != head) {
+            unlink(e);
+            linkHead(e);
+        }
+    }
+
+    /**
+     * Inserts an entry at the head of the list in order of use.
+     *
+     * @param e the entry, not in the list
+     */
+    private void linkHead(int e) {
+        previous[e] = NONE;
+        next[e] = head;
+        if (head != NONE) {
+            previous[head] = e;
+        }
+        head = e;
+        if (tail == NONE) {
+            tail = e;
+        }
+    }
+
+    /**
+     * Removes an entry from the list in order of use.
+     *
+     * @param e the entry, in the list
+     */
+    private void unlink(int e) {
+        int p = previous[e];
+        int n = next[e];
+        if (p != NONE) {
+            next[p] = n;
+        } else {
+            head = n;
+        }
+        if (n != NONE) {
+            previous[n] = p;
+        } else {
+            tail = p;
+        }
+    }
+
+}
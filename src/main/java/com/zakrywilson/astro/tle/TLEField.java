@@ -0,0 +1,191 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The fields of a TLE compared by {@link TLE#equals(Object)}, less the satellite number and
+ * checksums, each one bit of a mask of changed fields as reported by {@link CatalogDiff}.
+ *
+ * @author Zach Wilson
+ */
+public enum TLEField {
+
+    /**
+     * The title line.
+     */
+    TITLE,
+
+    /**
+     * The classification.
+     */
+    CLASSIFICATION,
+
+    /**
+     * The international designator.
+     */
+    INTERNATIONAL_DESIGNATOR,
+
+    /**
+     * The epoch year and day.
+     */
+    EPOCH,
+
+    /**
+     * The first derivative of the mean motion.
+     */
+    FIRST_DERIVATIVE_OF_MEAN_MOTION,
+
+    /**
+     * The second derivative of the mean motion.
+     */
+    SECOND_DERIVATIVE_OF_MEAN_MOTION,
+
+    /**
+     * The drag term (B*).
+     */
+    DRAG_TERM,
+
+    /**
+     * The ephemeris type.
+     */
+    EPHEMERIS_TYPE,
+
+    /**
+     * The element set number.
+     */
+    ELEMENT_SET_NUMBER,
+
+    /**
+     * The inclination.
+     */
+    INCLINATION,
+
+    /**
+     * The right ascension of the ascending node.
+     */
+    RAAN,
+
+    /**
+     * The eccentricity.
+     */
+    ECCENTRICITY,
+
+    /**
+     * The argument of perigee.
+     */
+    ARGUMENT_OF_PERIGEE,
+
+    /**
+     * The mean anomaly.
+     */
+    MEAN_ANOMALY,
+
+    /**
+     * The mean motion.
+     */
+    MEAN_MOTION,
+
+    /**
+     * The revolution number at epoch.
+     */
+    REVOLUTIONS;
+
+    /**
+     * Returns the bit of the field in a mask.
+     *
+     * @return the mask with only this field
+     */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Determines whether a mask includes the field.
+     *
+     * @param mask the mask
+     * @return <code>true</code> if the bit of the field is set
+     */
+    public boolean isIn(int mask) {
+        return (mask & getMask()) != 0;
+    }
+
+    /**
+     * Returns the fields of a mask.
+     *
+     * @param mask the mask
+     * @return a new set of the fields whose bits are set
+     */
+    public static Set<TLEField> fromMask(int mask) {
+        Set<TLEField> fields = EnumSet.noneOf(TLEField.class);
+        for (TLEField field : values()) {
+            if (field.isIn(mask)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Compares the fields of two TLEs exactly, as {@link TLE#equals(Object)} does.
+     *
+     * @param before the first TLE, not <code>null</code>
+     * @param after the second TLE, not <code>null</code>
+     * @return the mask of the fields that differ, 0 if none does
+     */
+    static int changedFields(TLE before, TLE after) {
+        int mask = 0;
+        if (!equal(before.getTitle(), after.getTitle())) {
+            mask |= TITLE.getMask();
+        }
+        if (before.getClassification() != after.getClassification()) {
+            mask |= CLASSIFICATION.getMask();
+        }
+        if (!equal(before.getInternationalDesignator(), after.getInternationalDesignator())) {
+            mask |= INTERNATIONAL_DESIGNATOR.getMask();
+        }
+        if (before.getEpochYear() != after.getEpochYear()
+                || Double.compare(before.getEpochDay(), after.getEpochDay()) != 0) {
+            mask |= EPOCH.getMask();
+        }
+        mask |= compare(before.getFirstDerivativeOfMeanMotion(),
+                        after.getFirstDerivativeOfMeanMotion(), FIRST_DERIVATIVE_OF_MEAN_MOTION);
+        mask |= compare(before.getSecondDerivativeOfMeanMotion(),
+                        after.getSecondDerivativeOfMeanMotion(), SECOND_DERIVATIVE_OF_MEAN_MOTION);
+        mask |= compare(before.getDragTerm(), after.getDragTerm(), DRAG_TERM);
+        if (before.getEphemerisType() != after.getEphemerisType()) {
+            mask |= EPHEMERIS_TYPE.getMask();
+        }
+        if (before.getElementSetNumber() != after.getElementSetNumber()) {
+            mask |= ELEMENT_SET_NUMBER.getMask();
+        }
+        mask |= compare(before.getInclination(), after.getInclination(), INCLINATION);
+        mask |= compare(before.getRaan(), after.getRaan(), RAAN);
+        mask |= compare(before.getEccentricity(), after.getEccentricity(), ECCENTRICITY);
+        mask |= compare(before.getArgumentOfPerigee(), after.getArgumentOfPerigee(),
+                        ARGUMENT_OF_PERIGEE);
+        mask |= compare(before.getMeanAnomaly(), after.getMeanAnomaly(), MEAN_ANOMALY);
+        mask |= compare(before.getMeanMotion(), after.getMeanMotion(), MEAN_MOTION);
+        if (before.getRevolutions() != after.getRevolutions()) {
+            mask |= REVOLUTIONS.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Compares a field of two TLEs.
+     *
+     * @return the mask of the field if the values differ, otherwise 0
+     */
+    private static int compare(double a, double b, TLEField field) {
+        return Double.compare(a, b) != 0 ? field.getMask() : 0;
+    }
+
+    /**
+     * Compares two strings, either of which may be <code>null</code>.
+     */
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+}
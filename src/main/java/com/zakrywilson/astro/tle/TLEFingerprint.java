@@ -0,0 +1,160 @@
+package com.zakrywilson.astro.tle;
+
+/**
+ * Thread-safe utility class computing a canonical 64-bit fingerprint of an element set.
+ * <p>
+ * The fingerprint covers the fields that {@link TLE#equals(Object)} compares, except those that
+ * only reflect formatting: the title and the checksums. Every element is first rounded to the
+ * resolution of its TLE field (e.g., four decimals of a degree for angles, five significant
+ * digits for the drag term) and the international designator is trimmed, so the same element
+ * set parsed from differently formatted lines, or built with {@link TLEBuilder}, gets the same
+ * fingerprint. Distinct element sets collide with a probability of about 2<sup>-64</sup> per
+ * pair, that is, about one collision expected among four billion distinct element sets.
+ *
+ * @author Zach Wilson
+ */
+public final class TLEFingerprint {
+
+    /**
+     * Multiplier folding each field into the fingerprint (the golden ratio in 64 bits).
+     */
+    private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The decimal logarithm of 2.
+     */
+    private static final double LOG10_2 = 0.30102999566398120;
+
+    /**
+     * Powers of ten from 10<sup>-40</sup> to 10<sup>40</sup>, each the double nearest to it.
+     */
+    private static final int POWER_OFFSET = 40;
+    private static final double[] POWERS_OF_TEN = new double[2 * POWER_OFFSET + 1];
+
+    static {
+        for (int k = 0; k < POWERS_OF_TEN.length; k++) {
+            POWERS_OF_TEN[k] = Double.parseDouble("1e" + (k - POWER_OFFSET));
+        }
+    }
+
+    /**
+     * Private constructor.
+     * <p>
+     * All members are static. No instance of this class should be created.
+     */
+    private TLEFingerprint() {}
+
+    /**
+     * Computes the fingerprint of an element set.
+     *
+     * @param tle the TLE, not <code>null</code>
+     * @return the fingerprint
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code>
+     */
+    public static long of(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        long h = tle.getSatelliteNumber();
+        h = fold(h, tle.getClassification());
+        h = fold(h, designator(tle.getInternationalDesignator()));
+        h = fold(h, tle.getEpochYear());
+        h = fold(h, Math.round(tle.getEpochDay() * 1e8));
+        h = fold(h, Math.round(tle.getFirstDerivativeOfMeanMotion() * 1e8));
+        h = fold(h, significant(tle.getSecondDerivativeOfMeanMotion()));
+        h = fold(h, significant(tle.getDragTerm()));
+        h = fold(h, tle.getEphemerisType());
+        h = fold(h, tle.getElementSetNumber());
+        h = fold(h, Math.round(tle.getInclination() * 1e4));
+        h = fold(h, Math.round(tle.getRaan() * 1e4));
+        h = fold(h, Math.round(tle.getEccentricity() * 1e7));
+        h = fold(h, Math.round(tle.getArgumentOfPerigee() * 1e4));
+        h = fold(h, Math.round(tle.getMeanAnomaly() * 1e4));
+        h = fold(h, Math.round(tle.getMeanMotion() * 1e8));
+        h = fold(h, tle.getRevolutions());
+        return mix(h);
+    }
+
+    /**
+     * Folds one field into a running fingerprint.
+     *
+     * @param h the fingerprint so far
+     * @param value the field
+     * @return the new fingerprint
+     */
+    private static long fold(long h, long value) {
+        return Long.rotateLeft((h ^ value) * MULTIPLIER, 27) * 5 + 0x52dce729L;
+    }
+
+    /**
+     * Rounds a value of the decimal exponent format of TLEs to five significant digits, the
+     * mantissa in the high bits and the decimal exponent in the low byte.
+     *
+     * @param value the value
+     * @return the rounded value, 0 for 0
+     */
+    static long significant(double value) {
+        if (value == 0.0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            return value == 0.0 ? 0L : Double.doubleToLongBits(value);
+        }
+        // The binary exponent gives the decimal one to within one
+        int exponent = (int) Math.floor(Math.getExponent(value) * LOG10_2) - 4;
+        long mantissa = Math.round(value / powerOfTen(exponent));
+        // Correct the exponent when the estimate was off across a power of ten
+        while (Math.abs(mantissa) >= 100000L) {
+            exponent++;
+            mantissa = Math.round(value / powerOfTen(exponent));
+        }
+        while (Math.abs(mantissa) < 10000L) {
+            exponent--;
+            mantissa = Math.round(value / powerOfTen(exponent));
+        }
+        return (mantissa << 8) | (exponent & 0xff);
+    }
+
+    /**
+     * Returns a power of ten, from a table within the range of TLE fields.
+     *
+     * @param exponent the exponent
+     * @return 10 to the exponent
+     */
+    private static double powerOfTen(int exponent) {
+        int k = exponent + POWER_OFFSET;
+        return k >= 0 && k < POWERS_OF_TEN.length ? POWERS_OF_TEN[k] : Math.pow(10.0, exponent);
+    }
+
+    /**
+     * Hashes an international designator, ignoring surrounding whitespace.
+     *
+     * @param designator the designator, possibly <code>null</code>
+     * @return the hash, 0 for a blank or missing designator
+     */
+    private static long designator(String designator) {
+        if (designator == null) {
+            return 0L;
+        }
+        String trimmed = designator.trim();
+        long h = 0L;
+        for (int i = 0; i < trimmed.length(); i++) {
+            h = h * 31 + trimmed.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * Spreads the bits of a value (the finalizer of MurmurHash3).
+     *
+     * @param value the value
+     * @return the hash
+     */
+    static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.zakrywilson.astro.tle;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads TLEs one at a time from text in the two-line or three-line format, as published in
+ * catalog files, so that a catalog need not be held in memory to be processed.
+ * <p>
+ * A record is an optional title line followed by line 1 and line 2; blank lines between records
+ * are skipped. Records are parsed as they are read, through a {@link TLECache} if one is given.
+ * Errors reading the text are thrown as <code>UncheckedIOException</code>.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class TLEReader implements Iterator<TLE>, Closeable {
+
+    private final BufferedReader reader;
+    private final TLECache cache;
+    private TLE next;
+    private int lineNumber;
+
+    /**
+     * Constructs a new <code>TLEReader</code>.
+     *
+     * @param reader the text, not <code>null</code>
+     * @throws IllegalArgumentException if <code>reader</code> is <code>null</code>
+     */
+    public TLEReader(Reader reader) {
+        this(reader, null);
+    }
+
+    /**
+     * Constructs a new <code>TLEReader</code> parsing through a cache.
+     *
+     * @param reader the text, not <code>null</code>
+     * @param cache the cache, or <code>null</code> to parse every record
+     * @throws IllegalArgumentException if <code>reader</code> is <code>null</code>
+     */
+    public TLEReader(Reader reader, TLECache cache) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader cannot be null");
+        }
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader
+                                                       : new BufferedReader(reader);
+        this.cache = cache;
+    }
+
+    /**
+     * Determines whether there is another record.
+     *
+     * @return <code>true</code> if there is
+     * @throws IllegalArgumentException if the next record is malformed
+     * @throws UncheckedIOException if the text cannot be read
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = read();
+        }
+        return next != null;
+    }
+
+    /**
+     * Returns the next record.
+     *
+     * @return the TLE
+     * @throws NoSuchElementException if there is no other record
+     * @throws IllegalArgumentException if the next record is malformed
+     * @throws UncheckedIOException if the text cannot be read
+     */
+    @Override
+    public TLE next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more TLEs after line " + lineNumber);
+        }
+        TLE tle = next;
+        next = null;
+        return tle;
+    }
+
+    /**
+     * Returns the number of lines read so far.
+     *
+     * @return the line number of the last line read
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Closes the text.
+     *
+     * @throws IOException if the text cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the TLE, or <code>null</code> at the end of the text
+     */
+    private TLE read() {
+        String line = nextNonBlankLine();
+        if (line == null) {
+            return null;
+        }
+        String title = "";
+        if (!line.startsWith("1 ")) {
+            title = line.trim();
+            line = readLine();
+        }
+        String line2 = readLine();
+        if (line == null || line2 == null || !line.startsWith("1 ") || !line2.startsWith("2 ")) {
+            throw new IllegalArgumentException("Malformed TLE ending at line " + lineNumber);
+        }
+        return cache == null ? new TLE(title, line, line2) : cache.get(title, line, line2);
+    }
+
+    /**
+     * Reads lines up to the next one that is not blank.
+     *
+     * @return the line, or <code>null</code> at the end of the text
+     */
+    private String nextNonBlankLine() {
+        String line;
+        do {
+            line = readLine();
+        } while (line != null && line.trim().isEmpty());
+        return line;
+    }
+
+    /**
+     * Reads a line.
+     *
+     * @return the line, or <code>null</code> at the end of the text
+     */
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+import static com.zakrywilson.astro.tle.EarthConstants.*;
+
+/**
+ * Propagates a {@link TLE} as an unperturbed Keplerian (two-body) orbit.
+ * <p>
+ * The orbit is fixed in space and the mean anomaly advances at the mean motion recovered from the
+ * TLE (see {@link OrbitalProperties#getRecoveredMeanMotion()}), so that the satellite stays in
+ * phase with SGP4 over a revolution or so. The orientation of the orbit is computed once, so a
+ * propagation only solves Kepler's equation. The oblateness of the Earth and drag are ignored,
+ * which makes the plane drift away by up to several degrees per day; see {@link
+ * PropagationModel#TWO_BODY} for the expected error. Propagation does not allocate.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Zach Wilson
+ */
+public final class TwoBodyPropagator implements Propagator {
+
+    private final TLE tle;
+    private final double epochMillisecond;
+    private final double semiMajorAxis;
+    private final double eccentricity;
+    private final double meanAnomaly;
+    private final double meanMotion;
+    private final double[] axes = new double[6];
+
+    /**
+     * Constructs a new <code>TwoBodyPropagator</code> for the TLE.
+     *
+     * @param tle the TLE to be propagated, not <code>null</code>
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its elements
+     * do not describe a closed orbit
+     */
+    public TwoBodyPropagator(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        OrbitalProperties properties = tle.getOrbitalProperties();
+        if (properties.getRegime() == OrbitalRegime.UNDEFINED) {
+            throw new IllegalArgumentException(String.format(
+                    "Elements do not describe a closed orbit: eccentricity=%s, mean motion=%s",
+                    tle.getEccentricity(), tle.getMeanMotion()));
+        }
+        this.tle = tle;
+        this.epochMillisecond = EpochUtils.toFractionalMillisecondEpoch(tle.getEpochYear(),
+                                                                         tle.getEpochDay());
+        this.semiMajorAxis = properties.getSemiMajorAxis();
+        this.eccentricity = tle.getEccentricity();
+        double inclination = Math.toRadians(tle.getInclination());
+        KeplerSolver.perifocalAxes(Math.cos(inclination), Math.sin(inclination),
+                                   Math.toRadians(tle.getRaan()),
+                                   Math.toRadians(tle.getArgumentOfPerigee()), axes);
+        this.meanAnomaly = Math.toRadians(tle.getMeanAnomaly());
+        this.meanMotion = TWO_PI / properties.getPeriod();
+    }
+
+    @Override
+    public TLE getTLE() {
+        return tle;
+    }
+
+    @Override
+    public PropagationModel getModel() {
+        return PropagationModel.TWO_BODY;
+    }
+
+    @Override
+    public double getEpochMillisecond() {
+        return epochMillisecond;
+    }
+
+    @Override
+    public boolean propagate(long epochMillisecond, double[] state) {
+        return propagate(epochMillisecond, state, 0);
+    }
+
+    @Override
+    public boolean propagate(long epochMillisecond, double[] state, int offset) {
+        return propagateMinutes(minutesSinceEpoch(epochMillisecond), state, offset);
+    }
+
+    @Override
+    public double minutesSinceEpoch(long epochMillisecond) {
+        return (epochMillisecond - this.epochMillisecond) / MILLIS_PER_MINUTE;
+    }
+
+    @Override
+    public double minutesSinceEpoch(double epochMillisecond) {
+        return (epochMillisecond - this.epochMillisecond) / MILLIS_PER_MINUTE;
+    }
+
+    @Override
+    public boolean propagateMinutes(double tsince, double[] state, int offset) {
+        double anomaly = KeplerSolver.eccentricAnomaly(meanAnomaly + meanMotion * tsince,
+                                                       eccentricity);
+        KeplerSolver.toCartesian(semiMajorAxis, eccentricity, anomaly, axes[0], axes[1], axes[2],
+                                 axes[3], axes[4], axes[5], state, offset);
+        if (Double.isNaN(state[offset])) {
+            Arrays.fill(state, offset, offset + 6, Double.NaN);
+            return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,475 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+
+/**
+ * The validity intervals of the element sets of a whole {@link ElementSetHistory}, answering
+ * "which element set of every satellite to use at time t" for many times.
+ * <p>
+ * When the index is built, a {@link SelectionRule} turns the epochs of each satellite into
+ * disjoint, sorted intervals of validity, optionally bounded by a maximum age, so that a query no
+ * longer compares epochs: it finds the interval containing the time. The intervals of every
+ * satellite are held in three primitive arrays, one row of intervals after another. A single
+ * query binary searches the intervals of one satellite; {@link Cursor} answers a sequence of
+ * increasing times for all satellites at once by sweeping a pointer per satellite forward, as in
+ * a merge, so a replay over the whole history costs one pass over its intervals rather than a
+ * binary search per satellite and time.
+ * <p>
+ * Satellites are numbered by row, in increasing order of satellite number. The index is a
+ * snapshot: element sets added to the history afterwards are not seen, and insertions may shift
+ * the positions it returns, so it is to be rebuilt after the history changes. Once built, the
+ * index may be queried from multiple threads, each with its own cursor.
+ *
+ * @author Zach Wilson
+ */
+public final class ValidityIndex {
+
+    /**
+     * Answers queries at nondecreasing times for all satellites of an index, keeping the position
+     * of the selected element set of every satellite.
+     * <p>
+     * A cursor is not thread-safe.
+     */
+    public final class Cursor {
+
+        private final int[] current;
+        private final int[] selected;
+        private final int[] changed;
+        private int changedCount;
+        private long time = Long.MIN_VALUE;
+        private boolean started;
+
+        /**
+         * Constructs a new <code>Cursor</code> before the first query.
+         */
+        private Cursor() {
+            int rows = numbers.length;
+            this.current = Arrays.copyOf(offsets, rows);
+            this.selected = new int[rows];
+            this.changed = new int[rows];
+            Arrays.fill(selected, -1);
+        }
+
+        /**
+         * Moves the cursor to a time and selects the element set of every satellite. Moving
+         * forward costs, per satellite, the logarithm of the number of intervals passed; moving
+         * backward searches every satellite again.
+         *
+         * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+         * @return the number of satellites whose selected element set changed, including the
+         * satellites with none selected before or after
+         */
+        public int advance(long epochMillisecond) {
+            boolean forward = !started || epochMillisecond >= time;
+            changedCount = 0;
+            for (int row = 0; row < current.length; row++) {
+                int hi = offsets[row + 1];
+                int j = current[row];
+                if (j == hi) {
+                    continue;
+                }
+                if (forward) {
+                    // Gallop forward to the last interval starting at or before the time
+                    int step = 1;
+                    while (j + step < hi && starts[j + step] <= epochMillisecond) {
+                        j += step;
+                        step <<= 1;
+                    }
+                    while (step > 1) {
+                        step >>= 1;
+                        if (j + step < hi && starts[j + step] <= epochMillisecond) {
+                            j += step;
+                        }
+                    }
+                } else {
+                    j = Math.max(offsets[row], lastStartingBefore(row, epochMillisecond));
+                }
+                current[row] = j;
+                int position = starts[j] <= epochMillisecond && contains(j, epochMillisecond)
+                               ? positions[j] : -1;
+                if (position != selected[row]) {
+                    selected[row] = position;
+                    changed[changedCount++] = row;
+                }
+            }
+            time = epochMillisecond;
+            started = true;
+            return changedCount;
+        }
+
+        /**
+         * Returns the time of the last query.
+         *
+         * @return the milliseconds since January 1, 1970 00:00:00 UTC, or
+         * <code>Long.MIN_VALUE</code> before the first query
+         */
+        public long getEpochMillisecond() {
+            return time;
+        }
+
+        /**
+         * Returns the position of the element set of a satellite selected by the last query.
+         *
+         * @param row the row of the satellite
+         * @return the position in its series, or -1 if none is valid
+         * @throws IndexOutOfBoundsException if <code>row</code> is out of range
+         */
+        public int getPosition(int row) {
+            return selected[checkRow(row)];
+        }
+
+        /**
+         * Copies the positions selected by the last query.
+         *
+         * @param positions the array receiving the position of every row, or -1 for none, not
+         * <code>null</code>
+         * @throws IllegalArgumentException if <code>positions</code> is <code>null</code> or
+         * shorter than the number of satellites
+         */
+        public void getPositions(int[] positions) {
+            checkPositions(positions);
+            System.arraycopy(selected, 0, positions, 0, selected.length);
+        }
+
+        /**
+         * Returns a row whose selected element set changed at the last query.
+         *
+         * @param k the index of the change, from 0 to the count returned by {@link
+         * #advance(long)}
+         * @return the row, in increasing order of <code>k</code>
+         * @throws IndexOutOfBoundsException if <code>k</code> is out of range
+         */
+        public int getChangedRow(int k) {
+            if (k < 0 || k >= changedCount) {
+                throw new IndexOutOfBoundsException("Change: " + k + ", count: " + changedCount);
+            }
+            return changed[k];
+        }
+
+    }
+
+    private final SelectionRule rule;
+    private final long maximumAge;
+    private final int[] numbers;
+    private final ElementSetSeries[] series;
+    private final int[] offsets;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] positions;
+
+    /**
+     * Constructs a new <code>ValidityIndex</code> without a maximum age.
+     *
+     * @param history the history, not <code>null</code>
+     * @param rule the selection rule, not <code>null</code>
+     * @throws IllegalArgumentException if <code>history</code> or <code>rule</code> is
+     * <code>null</code>
+     */
+    public ValidityIndex(ElementSetHistory history, SelectionRule rule) {
+        this(history, rule, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new <code>ValidityIndex</code>.
+     *
+     * @param history the history, not <code>null</code>
+     * @param rule the selection rule, not <code>null</code>
+     * @param maximumAgeMillisecond the largest difference in milliseconds between a time and the
+     * epoch of the element set selected for it; beyond it, no element set is selected
+     * @throws IllegalArgumentException if <code>history</code> or <code>rule</code> is
+     * <code>null</code> or the maximum age is negative
+     */
+    public ValidityIndex(ElementSetHistory history, SelectionRule rule,
+                         long maximumAgeMillisecond) {
+        if (history == null) {
+            throw new IllegalArgumentException("History cannot be null");
+        }
+        if (rule == null) {
+            throw new IllegalArgumentException("Selection rule cannot be null");
+        }
+        if (maximumAgeMillisecond < 0) {
+            throw new IllegalArgumentException(
+                    "Maximum age cannot be negative: " + maximumAgeMillisecond);
+        }
+        this.rule = rule;
+        this.maximumAge = maximumAgeMillisecond;
+        this.numbers = history.getSatelliteNumbers();
+        this.series = new ElementSetSeries[numbers.length];
+        long total = 0;
+        for (int row = 0; row < numbers.length; row++) {
+            series[row] = history.getSeries(numbers[row]);
+            total += series[row].size();
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("History is too large to index: " + total);
+        }
+        this.offsets = new int[numbers.length + 1];
+        long[] s = new long[(int) total];
+        long[] e = new long[(int) total];
+        int[] p = new int[(int) total];
+        int count = 0;
+        for (int row = 0; row < numbers.length; row++) {
+            offsets[row] = count;
+            count = addIntervals(series[row], s, e, p, count);
+        }
+        offsets[numbers.length] = count;
+        this.starts = count == total ? s : Arrays.copyOf(s, count);
+        this.ends = count == total ? e : Arrays.copyOf(e, count);
+        this.positions = count == total ? p : Arrays.copyOf(p, count);
+    }
+
+    /**
+     * Returns the selection rule.
+     *
+     * @return the rule
+     */
+    public SelectionRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns the maximum age of a selected element set.
+     *
+     * @return the milliseconds, <code>Long.MAX_VALUE</code> if there is no maximum
+     */
+    public long getMaximumAgeMillisecond() {
+        return maximumAge;
+    }
+
+    /**
+     * Returns the number of satellites, that is, of rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        return numbers.length;
+    }
+
+    /**
+     * Returns the total number of validity intervals.
+     *
+     * @return the interval count
+     */
+    public int getIntervalCount() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the satellite number of a row.
+     *
+     * @param row the row
+     * @return the satellite number
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range
+     */
+    public int getSatelliteNumber(int row) {
+        return numbers[checkRow(row)];
+    }
+
+    /**
+     * Returns the row of a satellite.
+     *
+     * @param satelliteNumber the satellite number
+     * @return the row, or -1 if the satellite is not in the index
+     */
+    public int getRow(int satelliteNumber) {
+        int row = Arrays.binarySearch(numbers, satelliteNumber);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * Returns the element sets of a row, to which the selected positions refer.
+     *
+     * @param row the row
+     * @return the series
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range
+     */
+    public ElementSetSeries getSeries(int row) {
+        return series[checkRow(row)];
+    }
+
+    /**
+     * Selects the element set of one satellite at a time.
+     *
+     * @param row the row of the satellite
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return the position in its series, or -1 if none is valid
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range
+     */
+    public int select(int row, long epochMillisecond) {
+        int j = lastStartingBefore(checkRow(row), epochMillisecond);
+        return j >= 0 && contains(j, epochMillisecond) ? positions[j] : -1;
+    }
+
+    /**
+     * Selects the element set of every satellite at a time.
+     *
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @param positions the array receiving the position of every row, or -1 for none, not
+     * <code>null</code>
+     * @return the number of satellites with an element set selected
+     * @throws IllegalArgumentException if <code>positions</code> is <code>null</code> or shorter
+     * than the number of satellites
+     */
+    public int select(long epochMillisecond, int[] positions) {
+        checkPositions(positions);
+        int count = 0;
+        for (int row = 0; row < numbers.length; row++) {
+            int j = lastStartingBefore(row, epochMillisecond);
+            positions[row] = j >= 0 && contains(j, epochMillisecond) ? this.positions[j] : -1;
+            if (positions[row] >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the TLE of a satellite selected at a time.
+     *
+     * @param satelliteNumber the satellite number
+     * @param epochMillisecond the time in milliseconds since January 1, 1970 00:00:00 UTC
+     * @return a new TLE, or <code>null</code> if the satellite is not in the index or none is
+     * valid
+     * @throws IllegalArgumentException if the satellite number is above 99,999, beyond what {@link
+     * TLEBuilder} accepts
+     */
+    public TLE getTLE(int satelliteNumber, long epochMillisecond) {
+        int row = getRow(satelliteNumber);
+        if (row < 0) {
+            return null;
+        }
+        int k = select(row, epochMillisecond);
+        return k < 0 ? null : series[row].getTLE(k);
+    }
+
+    /**
+     * Returns a new cursor before the first query.
+     *
+     * @return the cursor
+     */
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Appends the validity intervals of a series.
+     *
+     * @param s the series
+     * @param starts the first times of the intervals, inclusive
+     * @param ends the times after the last ones, exclusive, or <code>Long.MAX_VALUE</code> for
+     * no end
+     * @param positions the positions of the element sets
+     * @param count the number of intervals so far
+     * @return the number of intervals after the series
+     */
+    private int addIntervals(ElementSetSeries s, long[] starts, long[] ends, int[] positions,
+                             int count) {
+        int n = s.size();
+        for (int k = 0; k < n; k++) {
+            long epoch = s.getEpochMillisecond(k);
+            long previous = k > 0 ? s.getEpochMillisecond(k - 1) : 0;
+            long next = k + 1 < n ? s.getEpochMillisecond(k + 1) : 0;
+            long start;
+            long end;
+            if (rule == SelectionRule.MOST_RECENT_BEFORE) {
+                start = epoch;
+                end = k + 1 < n ? next : Long.MAX_VALUE;
+            } else {
+                // The earlier element set wins at an exact midpoint
+                start = k > 0 ? previous + (epoch - previous) / 2 + 1 : Long.MIN_VALUE;
+                end = k + 1 < n ? epoch + (next - epoch) / 2 + 1 : Long.MAX_VALUE;
+                if (rule == SelectionRule.CENTERED) {
+                    if (n == 1) {
+                        start = epoch;
+                        end = epoch + 1;
+                    } else if (k == 0) {
+                        start = epoch - (end - 1 - epoch);
+                    } else if (k == n - 1) {
+                        end = epoch + (epoch - start) + 1;
+                    }
+                }
+            }
+            if (maximumAge < Long.MAX_VALUE) {
+                start = Math.max(start, add(epoch, -maximumAge));
+                end = Math.min(end, add(add(epoch, maximumAge), 1));
+            }
+            if (start < end) {
+                starts[count] = start;
+                ends[count] = end;
+                positions[count] = k;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the last interval of a row starting at or before a time.
+     *
+     * @param row the row
+     * @param epochMillisecond the time
+     * @return the index of the interval, or -1 if there is none
+     */
+    private int lastStartingBefore(int row, long epochMillisecond) {
+        int lo = offsets[row];
+        int hi = offsets[row + 1];
+        int j = Arrays.binarySearch(starts, lo, hi, epochMillisecond);
+        j = j >= 0 ? j : -j - 2;
+        return j >= lo ? j : -1;
+    }
+
+    /**
+     * Determines whether a time is before the end of an interval, an end of
+     * <code>Long.MAX_VALUE</code> being unbounded.
+     *
+     * @param j the index of the interval
+     * @param epochMillisecond the time
+     * @return <code>true</code> if the time is before the end
+     */
+    private boolean contains(int j, long epochMillisecond) {
+        return epochMillisecond < ends[j] || ends[j] == Long.MAX_VALUE;
+    }
+
+    /**
+     * Adds two times, saturating instead of overflowing.
+     */
+    private static long add(long a, long b) {
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0) {
+            return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+    }
+
+    /**
+     * Checks a row.
+     *
+     * @param row the row
+     * @return the row
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range
+     */
+    private int checkRow(int row) {
+        if (row < 0 || row >= numbers.length) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + numbers.length);
+        }
+        return row;
+    }
+
+    /**
+     * Checks an array receiving a position per row.
+     *
+     * @param positions the array
+     * @throws IllegalArgumentException if <code>positions</code> is <code>null</code> or shorter
+     * than the number of satellites
+     */
+    private void checkPositions(int[] positions) {
+        if (positions == null) {
+            throw new IllegalArgumentException("Positions cannot be null");
+        }
+        if (positions.length < numbers.length) {
+            throw new IllegalArgumentException(
+                    "Positions must hold " + numbers.length + " rows: " + positions.length);
+        }
+    }
+
+}
@@ -0,0 +1,417 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A catalog of TLEs published as a sequence of immutable {@link CatalogGeneration}s, so that a
+ * full refresh never pauses readers nor shows them a half-loaded catalog.
+ * <p>
+ * The next generation is built off to the side, by {@link #reload(Collection)} or an {@link
+ * Update}, then published by swapping one atomic reference. Readers {@link #acquire()} the
+ * current generation for the length of a query and close it afterwards; a generation is
+ * reclaimed once it is no longer current and its last reader has closed it. Generations share
+ * every page of TLEs that did not change, and a reload keeps the TLE objects of the previous
+ * generation that are equal to the new ones, so refreshing a catalog in which most TLEs are
+ * unchanged allocates little.
+ * <p>
+ * Reading is lock-free. Publishing is serialized: a reload waits for any other reload or update
+ * being published, and an update fails if another generation was published since it began.
+ *
+ * @author Zach Wilson
+ */
+public final class VersionedCatalog {
+
+    /**
+     * Changes to the generation current when the update began, published all at once. Pages are
+     * copied the first time one of their TLEs changes.
+     * <p>
+     * An update is not thread-safe.
+     */
+    public final class Update {
+
+        private final CatalogGeneration.State base;
+        private final TLE[][] basePages;
+        private final TLE[][] pages;
+        private final boolean[] copied = new boolean[CatalogGeneration.PAGE_COUNT];
+        private final Map<Integer, TLE> extended = new TreeMap<>();
+        private int size;
+        private boolean published;
+
+        /**
+         * Constructs a new <code>Update</code> of a pinned generation.
+         *
+         * @param base the generation
+         */
+        private Update(CatalogGeneration.State base) {
+            this.base = base;
+            this.basePages = base.pages();
+            this.pages = basePages.clone();
+            int[] numbers = base.extendedNumbers();
+            TLE[] tles = base.extendedTLEs();
+            for (int k = 0; k < numbers.length; k++) {
+                extended.put(numbers[k], tles[k]);
+            }
+            this.size = base.size();
+        }
+
+        /**
+         * Returns the version of the generation the update began from.
+         *
+         * @return the version
+         */
+        public long getBaseVersion() {
+            return base.getVersion();
+        }
+
+        /**
+         * Returns the number of satellites with the changes so far.
+         *
+         * @return the size
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the TLE of a satellite with the changes so far.
+         *
+         * @param satelliteNumber the satellite number
+         * @return the TLE, or <code>null</code> if the satellite is not in the catalog
+         */
+        public TLE get(int satelliteNumber) {
+            if (satelliteNumber >= 0 && satelliteNumber <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+                TLE[] page = pages[satelliteNumber >> CatalogGeneration.PAGE_BITS];
+                return page == null ? null
+                        : page[satelliteNumber & (CatalogGeneration.PAGE_SIZE - 1)];
+            }
+            return extended.get(satelliteNumber);
+        }
+
+        /**
+         * Stores a TLE, replacing any TLE of the same satellite whatever its epoch.
+         *
+         * @param tle the TLE, not <code>null</code>
+         * @return the replaced TLE, or <code>null</code> if the satellite was not in the catalog
+         * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its
+         * satellite number is below 1
+         * @throws IllegalStateException if the update was published
+         */
+        public TLE put(TLE tle) {
+            return set(checkTLE(tle), tle);
+        }
+
+        /**
+         * Stores a TLE unless the catalog already holds a TLE of the same satellite that is as
+         * new or newer.
+         *
+         * @param tle the TLE, not <code>null</code>
+         * @return <code>true</code> if the TLE was stored
+         * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its
+         * satellite number is below 1
+         * @throws IllegalStateException if the update was published
+         */
+        public boolean putIfNewer(TLE tle) {
+            int number = checkTLE(tle);
+            TLE current = get(number);
+            if (current != null && !SatelliteCatalog.isNewer(tle, current)) {
+                return false;
+            }
+            set(number, tle);
+            return true;
+        }
+
+        /**
+         * Removes the TLE of a satellite.
+         *
+         * @param satelliteNumber the satellite number
+         * @return the removed TLE, or <code>null</code> if the satellite was not in the catalog
+         * @throws IllegalStateException if the update was published
+         */
+        public TLE remove(int satelliteNumber) {
+            if (satelliteNumber < 1 || get(satelliteNumber) == null) {
+                return null;
+            }
+            return set(satelliteNumber, null);
+        }
+
+        /**
+         * Publishes the changes as the next generation, unless another generation was published
+         * since the update began.
+         *
+         * @return <code>true</code> if the changes were published; otherwise the update is to be
+         * made again from a new one
+         * @throws IllegalStateException if the update was already published
+         */
+        public boolean publish() {
+            checkOpen();
+            synchronized (publishLock) {
+                if (current.get() != base) {
+                    return false;
+                }
+                published = true;
+                int shared = 0;
+                for (int i = 0; i < pages.length; i++) {
+                    if (copied[i] && isSame(pages[i], basePages[i])) {
+                        pages[i] = basePages[i];
+                    } else if (copied[i] && isEmpty(pages[i])) {
+                        pages[i] = null;
+                    }
+                    if (pages[i] != null && pages[i] == basePages[i]) {
+                        shared++;
+                    }
+                }
+                int[] numbers = new int[extended.size()];
+                TLE[] tles = new TLE[extended.size()];
+                int k = 0;
+                for (Map.Entry<Integer, TLE> entry : extended.entrySet()) {
+                    numbers[k] = entry.getKey();
+                    tles[k++] = entry.getValue();
+                }
+                swap(base, new CatalogGeneration.State(base.getVersion() + 1, pages, numbers, tles,
+                                                       size, shared, live));
+                return true;
+            }
+        }
+
+        /**
+         * Stores or removes the TLE of a satellite, copying its page first.
+         *
+         * @param number the satellite number
+         * @param tle the TLE, or <code>null</code> to remove it
+         * @return the previous TLE
+         */
+        private TLE set(int number, TLE tle) {
+            checkOpen();
+            TLE previous;
+            if (number <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+                int i = number >> CatalogGeneration.PAGE_BITS;
+                if (!copied[i]) {
+                    pages[i] = pages[i] == null ? new TLE[CatalogGeneration.PAGE_SIZE]
+                                                : pages[i].clone();
+                    copied[i] = true;
+                }
+                int slot = number & (CatalogGeneration.PAGE_SIZE - 1);
+                previous = pages[i][slot];
+                pages[i][slot] = tle;
+            } else {
+                previous = tle == null ? extended.remove(number) : extended.put(number, tle);
+            }
+            if (previous == null && tle != null) {
+                size++;
+            } else if (previous != null && tle == null) {
+                size--;
+            }
+            return previous;
+        }
+
+        /**
+         * Checks that the update was not published.
+         *
+         * @throws IllegalStateException if it was
+         */
+        private void checkOpen() {
+            if (published) {
+                throw new IllegalStateException("Update was already published");
+            }
+        }
+
+    }
+
+    private final AtomicReference<CatalogGeneration.State> current;
+    private final AtomicInteger live = new AtomicInteger();
+    private final Object publishLock = new Object();
+
+    /**
+     * Constructs a new <code>VersionedCatalog</code> whose current generation is empty.
+     */
+    public VersionedCatalog() {
+        this.current = new AtomicReference<>(
+                new CatalogGeneration.State(0, new TLE[CatalogGeneration.PAGE_COUNT][],
+                                            new int[0], new TLE[0], 0, 0, live));
+    }
+
+    /**
+     * Pins the current generation, which stays readable until it is closed, whatever is published
+     * meanwhile.
+     *
+     * @return a new pin on the generation, to be closed, typically by try-with-resources
+     * @throws IllegalStateException if the current generation was reclaimed
+     */
+    public CatalogGeneration acquire() {
+        while (true) {
+            CatalogGeneration.State state = current.get();
+            CatalogGeneration generation = state.pin();
+            if (generation != null) {
+                return generation;
+            }
+            if (current.get() == state) {
+                throw new IllegalStateException(
+                        "Current generation " + state.getVersion() + " was reclaimed");
+            }
+            // Reclaimed between the read and the pin: a newer generation is current by now
+        }
+    }
+
+    /**
+     * Returns the version of the current generation.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * Returns the number of generations not yet reclaimed: the current one and those still pinned.
+     *
+     * @return the generation count
+     */
+    public int getLiveGenerationCount() {
+        return live.get();
+    }
+
+    /**
+     * Begins an update of the current generation.
+     *
+     * @return the update
+     */
+    public Update newUpdate() {
+        try (CatalogGeneration base = acquire()) {
+            return new Update(base.state());
+        }
+    }
+
+    /**
+     * Replaces the whole catalog by the newest TLE of each satellite of a collection, published
+     * as one generation. Pages and TLE objects equal to those of the current generation are kept.
+     *
+     * @param tles the TLEs, not <code>null</code>
+     * @return the version of the generation published
+     * @throws IllegalArgumentException if <code>tles</code> is <code>null</code> or contains a
+     * <code>null</code> TLE or one with a satellite number below 1
+     */
+    public long reload(Collection<TLE> tles) {
+        SatelliteCatalog next = new SatelliteCatalog(tles);
+        synchronized (publishLock) {
+            CatalogGeneration.State base = current.get();
+            TLE[][] basePages = base.pages();
+            TLE[][] pages = new TLE[CatalogGeneration.PAGE_COUNT][];
+            int shared = 0;
+            for (int i = 0; i < pages.length; i++) {
+                TLE[] basePage = basePages[i];
+                TLE[] page = null;
+                boolean same = true;
+                for (int slot = 0; slot < CatalogGeneration.PAGE_SIZE; slot++) {
+                    int number = (i << CatalogGeneration.PAGE_BITS) | slot;
+                    TLE tle = number <= SatelliteCatalog.MAX_DIRECT_NUMBER ? next.get(number)
+                                                                           : null;
+                    TLE old = basePage == null ? null : basePage[slot];
+                    if (tle != null && tle != old && tle.equals(old)) {
+                        tle = old;
+                    }
+                    if (tle != old) {
+                        same = false;
+                    }
+                    if (tle != null) {
+                        if (page == null) {
+                            page = new TLE[CatalogGeneration.PAGE_SIZE];
+                        }
+                        page[slot] = tle;
+                    }
+                }
+                pages[i] = same ? basePage : page;
+                if (same && basePage != null) {
+                    shared++;
+                }
+            }
+            int[] numbers = next.getSatelliteNumbers();
+            int first = 0;
+            while (first < numbers.length && numbers[first] <= SatelliteCatalog.MAX_DIRECT_NUMBER) {
+                first++;
+            }
+            int[] extendedNumbers = Arrays.copyOfRange(numbers, first, numbers.length);
+            TLE[] extendedTLEs = new TLE[extendedNumbers.length];
+            for (int k = 0; k < extendedNumbers.length; k++) {
+                TLE tle = next.get(extendedNumbers[k]);
+                TLE old = base.get(extendedNumbers[k]);
+                extendedTLEs[k] = tle.equals(old) ? old : tle;
+            }
+            CatalogGeneration.State generation = new CatalogGeneration.State(
+                    base.getVersion() + 1, pages, extendedNumbers, extendedTLEs, next.size(),
+                    shared, live);
+            swap(base, generation);
+            return generation.getVersion();
+        }
+    }
+
+    /**
+     * Makes a generation current in place of another, dropping the reference held on the latter
+     * as the current one. Called while holding the publishing lock.
+     *
+     * @param base the current generation
+     * @param next the next one
+     */
+    private void swap(CatalogGeneration.State base, CatalogGeneration.State next) {
+        current.set(next);
+        base.retire();
+    }
+
+    /**
+     * Determines whether a page holds the very same TLEs as another one.
+     *
+     * @param page the page
+     * @param basePage the other page, possibly <code>null</code>
+     * @return <code>true</code> if every slot references the same TLE
+     */
+    private static boolean isSame(TLE[] page, TLE[] basePage) {
+        if (basePage == null) {
+            return false;
+        }
+        for (int slot = 0; slot < page.length; slot++) {
+            if (page[slot] != basePage[slot]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether a page holds no TLE.
+     *
+     * @param page the page
+     * @return <code>true</code> if every slot is <code>null</code>
+     */
+    private static boolean isEmpty(TLE[] page) {
+        for (TLE tle : page) {
+            if (tle != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a TLE before storing it.
+     *
+     * @param tle the TLE
+     * @return its satellite number
+     * @throws IllegalArgumentException if <code>tle</code> is <code>null</code> or its satellite
+     * number is below 1
+     */
+    private static int checkTLE(TLE tle) {
+        if (tle == null) {
+            throw new IllegalArgumentException("TLE cannot be null");
+        }
+        int number = tle.getSatelliteNumber();
+        if (number < 1) {
+            throw new IllegalArgumentException("Satellite number must be positive: " + number);
+        }
+        return number;
+    }
+
+}
@@ -0,0 +1,282 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Tests {@link CatalogBitmapIndex}.
+ *
+ * @author Zach Wilson
+ */
+public class CatalogBitmapIndexTest {
+
+    /**
+     * Milliseconds in a day.
+     */
+    private static final long DAY = 86400000L;
+
+    /**
+     * Tests the bitmaps of every attribute, and filters combining them, against scans of the
+     * catalog, while the catalog is updated.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void filters() throws Exception {
+        Random random = new Random(50L);
+        SatelliteCatalog catalog = new SatelliteCatalog();
+        for (TLE tle : TestCatalogs.mixed(3000, 50L)) {
+            catalog.put(vary(random, tle));
+        }
+        CatalogBitmapIndex index = new CatalogBitmapIndex(catalog);
+        check(index, catalog);
+
+        for (int k = 0; k < 2000; k++) {
+            int number = 1 + random.nextInt(3500);
+            if (random.nextInt(4) == 0) {
+                Assert.assertSame(catalog.remove(number), index.remove(number));
+            } else {
+                TLE tle = vary(random, TestCatalogs.tle(number, 98.0, 10.0, 0.001, 20.0, 30.0,
+                                                        1.0 + random.nextDouble() * 14.0));
+                Assert.assertSame(catalog.put(tle), index.put(tle));
+            }
+        }
+        check(index, catalog);
+        Assert.assertEquals(catalog.size(), index.size());
+    }
+
+    /**
+     * Tests that an index following the change feed of a catalog keeps up with it.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void changeFeed() throws Exception {
+        Random random = new Random(51L);
+        ConcurrentSatelliteCatalog catalog = new ConcurrentSatelliteCatalog();
+        CatalogBitmapIndex index = new CatalogBitmapIndex();
+        catalog.getChangeFeed().subscribe(new CatalogChangeFeed.Subscriber() {
+            @Override
+            public void onChanges(List<CatalogChange> changes) {
+                changes.forEach(index::apply);
+            }
+
+            @Override
+            public void onOverflow(long dropped) {
+                Assert.fail("Unexpected overflow");
+            }
+
+            @Override
+            public void onRejected(long dropped, RejectedExecutionException cause) {
+                Assert.fail("Unexpected rejection");
+            }
+        }, Runnable::run, 1000);
+        List<TLE> tles = TestCatalogs.mixed(500, 51L);
+        for (TLE tle : tles) {
+            catalog.put(vary(random, tle));
+        }
+        for (int k = 0; k < 100; k++) {
+            catalog.remove(1 + random.nextInt(500));
+        }
+        SatelliteCatalog snapshot = catalog.snapshot();
+        check(index, snapshot);
+        Assert.assertArrayEquals(snapshot.getSatelliteNumbers(), index.getAll().toArray());
+    }
+
+    /**
+     * Tests the launch year read from international designators.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void launchYear() throws Exception {
+        Assert.assertEquals(1958, CatalogBitmapIndex.launchYear("58002B"));
+        Assert.assertEquals(1998, CatalogBitmapIndex.launchYear(" 98067A  "));
+        Assert.assertEquals(2019, CatalogBitmapIndex.launchYear("19029BD"));
+        Assert.assertEquals(2056, CatalogBitmapIndex.launchYear("56001A"));
+        Assert.assertEquals(1957, CatalogBitmapIndex.launchYear("57001A"));
+        Assert.assertEquals(0, CatalogBitmapIndex.launchYear(""));
+        Assert.assertEquals(0, CatalogBitmapIndex.launchYear("        "));
+        Assert.assertEquals(0, CatalogBitmapIndex.launchYear(null));
+        Assert.assertEquals(0, CatalogBitmapIndex.launchYear("A1"));
+    }
+
+    /**
+     * Tests that modifying the bitmaps returned by the getters leaves the index unchanged, and
+     * that they do not follow later updates of the index.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void copies() throws Exception {
+        TLE tle = TestCatalogs.tle(7, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        CatalogBitmapIndex index = new CatalogBitmapIndex();
+        index.put(tle);
+        OrbitalRegime regime = tle.getOrbitalProperties().getRegime();
+        RoaringBitmap all = index.getAll();
+        RoaringBitmap inRegime = index.getRegime(regime);
+        Assert.assertTrue(all.remove(7));
+        Assert.assertTrue(inRegime.remove(7));
+        index.getClassification(tle.getClassification()).remove(7);
+        index.getEphemerisType(tle.getEphemerisType()).remove(7);
+        Assert.assertArrayEquals(new int[] {7}, index.getAll().toArray());
+        Assert.assertArrayEquals(new int[] {7}, index.getRegime(regime).toArray());
+        Assert.assertArrayEquals(new int[] {7},
+                                 index.getClassification(tle.getClassification()).toArray());
+        Assert.assertArrayEquals(new int[] {7},
+                                 index.getEphemerisType(tle.getEphemerisType()).toArray());
+
+        RoaringBitmap before = index.getAll();
+        index.remove(7);
+        Assert.assertArrayEquals(new int[] {7}, before.toArray());
+        Assert.assertTrue(index.getAll().isEmpty());
+        Assert.assertTrue(index.getRegime(regime).isEmpty());
+    }
+
+    /**
+     * Tests invalid arguments.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        CatalogBitmapIndex index = new CatalogBitmapIndex();
+        try {
+            index.put(null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            index.getEpochAge(TestCatalogs.EPOCH, -1);
+            Assert.fail("Expected an exception for a negative age");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            index.getRegime(null);
+            Assert.fail("Expected an exception for a null regime");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new CatalogBitmapIndex((SatelliteCatalog) null);
+            Assert.fail("Expected an exception for a null catalog");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Gives a TLE a random classification, ephemeris type, launch year and epoch.
+     *
+     * @param random the random generator
+     * @param tle the TLE
+     * @return the TLE
+     */
+    private static TLE vary(Random random, TLE tle) {
+        tle.setClassification("UCS".charAt(random.nextInt(3)));
+        tle.setEphemerisType(random.nextInt(3));
+        int year = 1957 + random.nextInt(70);
+        tle.setInternationalDesignator(random.nextInt(20) == 0 ? ""
+                                       : String.format("%02d%03dA", year % 100,
+                                                       1 + random.nextInt(99)));
+        // Within the leap year of the epoch, some days after it
+        tle.setEpochDay(1.0 + random.nextInt(366) + random.nextDouble());
+        return tle;
+    }
+
+    /**
+     * Checks the bitmaps of an index against scans of a catalog.
+     *
+     * @param index the index
+     * @param catalog the catalog
+     */
+    private static void check(CatalogBitmapIndex index, SatelliteCatalog catalog) {
+        Assert.assertArrayEquals(catalog.getSatelliteNumbers(), index.getAll().toArray());
+        for (char classification : "UCS".toCharArray()) {
+            Assert.assertArrayEquals(
+                    scan(catalog, t -> t.getClassification() == classification),
+                    index.getClassification(classification).toArray());
+        }
+        for (int type = 0; type < 4; type++) {
+            int ephemerisType = type;
+            Assert.assertArrayEquals(scan(catalog, t -> t.getEphemerisType() == ephemerisType),
+                                     index.getEphemerisType(type).toArray());
+        }
+        Assert.assertArrayEquals(scan(catalog, t -> launchYear(t) == 2019),
+                                 index.getLaunchYear(2019).toArray());
+        Assert.assertArrayEquals(scan(catalog, t -> launchYear(t) >= 1990
+                                                    && launchYear(t) <= 2000),
+                                 index.getLaunchYears(1990, 2000).toArray());
+        for (OrbitalRegime regime : OrbitalRegime.values()) {
+            Assert.assertArrayEquals(
+                    scan(catalog, t -> new OrbitalProperties(t).getRegime() == regime),
+                    index.getRegime(regime).toArray());
+        }
+        long time = TestCatalogs.EPOCH;
+        int[] recent = scan(catalog, t -> Math.floorDiv(t.getEpochMillisecond(), DAY)
+                                          >= Math.floorDiv(time, DAY) - 30);
+        Assert.assertTrue(recent.length > 0);
+        Assert.assertArrayEquals(recent, index.getEpochAge(time, 30).toArray());
+
+        // Unclassified LEO objects of ephemeris type 0 launched before 2000, epoch over 30 days
+        RoaringBitmap filter = RoaringBitmap.and(
+                RoaringBitmap.and(index.getClassification('U'), index.getEphemerisType(0)),
+                RoaringBitmap.and(index.getRegime(OrbitalRegime.LEO),
+                                  index.getLaunchYears(1957, 1999)));
+        filter = RoaringBitmap.andNot(filter, index.getEpochAge(time, 30));
+        int[] expected = scan(catalog, t -> t.getClassification() == 'U'
+                                            && t.getEphemerisType() == 0
+                                            && new OrbitalProperties(t).getRegime()
+                                               == OrbitalRegime.LEO
+                                            && launchYear(t) != 0 && launchYear(t) < 2000
+                                            && Math.floorDiv(t.getEpochMillisecond(), DAY)
+                                               < Math.floorDiv(time, DAY) - 30);
+        Assert.assertArrayEquals(expected, filter.toArray());
+        List<TLE> tles = index.getTLEs(filter);
+        Assert.assertEquals(expected.length, tles.size());
+        for (int k = 0; k < expected.length; k++) {
+            Assert.assertSame(catalog.get(expected[k]), tles.get(k));
+        }
+    }
+
+    /**
+     * Scans a catalog for the satellites matching a predicate.
+     *
+     * @param catalog the catalog
+     * @param predicate the predicate
+     * @return the satellite numbers, in increasing order
+     */
+    private static int[] scan(SatelliteCatalog catalog, Predicate<TLE> predicate) {
+        List<Integer> numbers = new ArrayList<>();
+        for (int number : catalog.getSatelliteNumbers()) {
+            if (predicate.test(catalog.get(number))) {
+                numbers.add(number);
+            }
+        }
+        return numbers.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the launch year of a TLE.
+     *
+     * @param tle the TLE
+     * @return the year, or 0 if unknown
+     */
+    private static int launchYear(TLE tle) {
+        String designator = tle.getInternationalDesignator();
+        if (designator.isEmpty()) {
+            return 0;
+        }
+        int year = Integer.parseInt(designator.substring(0, 2));
+        return year >= 57 ? 1900 + year : 2000 + year;
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests {@link CatalogChangeFeed}.
+ *
+ * @author Zach Wilson
+ */
+public class CatalogChangeFeedTest {
+
+    /**
+     * Tests that the changes of a satellite pending delivery are coalesced into one, and that an
+     * addition followed by a removal cancels out.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void coalescing() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Recorder recorder = new Recorder();
+        CatalogChangeFeed feed = new CatalogChangeFeed();
+        CatalogChangeFeed.Subscription subscription = feed.subscribe(recorder, tasks::add, 10);
+        TLE a1 = tle(1, 0);
+        TLE a2 = tle(1, 1);
+        TLE a3 = tle(1, 2);
+        TLE b = tle(2, 0);
+        TLE c1 = tle(3, 0);
+        TLE c2 = tle(3, 1);
+        feed.publish(3, null, c1);
+        runAll(tasks);
+        Assert.assertEquals(1, recorder.batches.size());
+
+        feed.publish(1, null, a1);
+        feed.publish(1, a1, a2);
+        feed.publish(2, null, b);
+        feed.publish(3, c1, c2);
+        feed.publish(1, a2, a3);
+        feed.publish(2, b, null);
+        feed.publish(3, c2, c2);
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(2, subscription.getPendingCount());
+        runAll(tasks);
+        Assert.assertEquals(2, recorder.batches.size());
+        List<CatalogChange> batch = recorder.batches.get(1);
+        Assert.assertEquals(2, batch.size());
+        Assert.assertEquals(1, batch.get(0).getSatelliteNumber());
+        Assert.assertNull(batch.get(0).getBefore());
+        Assert.assertSame(a3, batch.get(0).getAfter());
+        Assert.assertTrue(batch.get(0).isAdded());
+        Assert.assertEquals(3, batch.get(1).getSatelliteNumber());
+        Assert.assertSame(c1, batch.get(1).getBefore());
+        Assert.assertSame(c2, batch.get(1).getAfter());
+        Assert.assertFalse(batch.get(1).isAdded());
+        Assert.assertFalse(batch.get(1).isRemoved());
+        Assert.assertEquals(7, subscription.getPublishedCount());
+        Assert.assertEquals(3, subscription.getCoalescedCount());
+        Assert.assertEquals(3, subscription.getDeliveredCount());
+        Assert.assertEquals(0, subscription.getPendingCount());
+        Assert.assertEquals(0, recorder.overflows);
+
+        subscription.close();
+        Assert.assertTrue(subscription.isCancelled());
+        Assert.assertEquals(0, feed.getSubscriptionCount());
+        feed.publish(1, a3, null);
+        Assert.assertTrue(tasks.isEmpty());
+    }
+
+    /**
+     * Tests that changes returning a satellite to the TLE it had before the first pending change
+     * cancel out.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void revertedChanges() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Recorder recorder = new Recorder();
+        CatalogChangeFeed feed = new CatalogChangeFeed();
+        CatalogChangeFeed.Subscription subscription = feed.subscribe(recorder, tasks::add, 10);
+        TLE a = tle(1, 0);
+        TLE b = tle(1, 1);
+        TLE c = tle(1, 2);
+        TLE d = tle(2, 0);
+        feed.publish(1, a, b);
+        feed.publish(1, b, a);
+        Assert.assertEquals(0, subscription.getPendingCount());
+        feed.publish(1, a, b);
+        feed.publish(1, b, c);
+        feed.publish(1, c, a);
+        feed.publish(2, d, null);
+        feed.publish(2, null, d);
+        Assert.assertEquals(0, subscription.getPendingCount());
+        runAll(tasks);
+        Assert.assertTrue(recorder.batches.isEmpty());
+        Assert.assertEquals(7, subscription.getPublishedCount());
+        Assert.assertEquals(0, subscription.getDeliveredCount());
+
+        // Reverted to an equal TLE that is not the same object: still a change
+        feed.publish(1, a, b);
+        feed.publish(1, b, tle(1, 0));
+        runAll(tasks);
+        Assert.assertEquals(1, recorder.batches.size());
+        Assert.assertSame(a, recorder.batches.get(0).get(0).getBefore());
+    }
+
+    /**
+     * Tests that a full subscription drops its pending changes and reports the overflow before
+     * its next batch.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void overflow() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Recorder recorder = new Recorder();
+        CatalogChangeFeed feed = new CatalogChangeFeed();
+        CatalogChangeFeed.Subscription subscription = feed.subscribe(recorder, tasks::add, 3);
+        for (int number = 1; number <= 3; number++) {
+            feed.publish(number, null, tle(number, 0));
+        }
+        // Coalesced into a pending change, so not an overflow
+        feed.publish(2, tle(2, 0), tle(2, 1));
+        Assert.assertEquals(0, subscription.getOverflowCount());
+        feed.publish(4, null, tle(4, 0));
+        feed.publish(5, null, tle(5, 0));
+        Assert.assertEquals(1, subscription.getOverflowCount());
+        Assert.assertEquals(2, subscription.getPendingCount());
+        runAll(tasks);
+        Assert.assertEquals(1, recorder.overflows);
+        Assert.assertEquals(3, recorder.dropped);
+        Assert.assertEquals(1, recorder.batches.size());
+        Assert.assertEquals(4, recorder.batches.get(0).get(0).getSatelliteNumber());
+        Assert.assertEquals(5, recorder.batches.get(0).get(1).getSatelliteNumber());
+    }
+
+    /**
+     * Tests that a subscriber that applies the changes of a catalog updated by several threads
+     * ends with the same TLEs as the catalog, every change following from the previous one of
+     * the same satellite, while a slow subscriber never blocks the updates.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void concurrentCatalog() throws Exception {
+        ConcurrentSatelliteCatalog catalog = new ConcurrentSatelliteCatalog();
+        SatelliteCatalog mirror = new SatelliteCatalog();
+        AtomicReference<AssertionError> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CatalogChangeFeed.Subscription subscription = catalog.getChangeFeed().subscribe(
+                new CatalogChangeFeed.Subscriber() {
+                    @Override
+                    public void onChanges(List<CatalogChange> changes) {
+                        for (CatalogChange change : changes) {
+                            TLE current = mirror.get(change.getSatelliteNumber());
+                            if (current != change.getBefore()) {
+                                failure.set(new AssertionError("Out of sequence: " + change));
+                            }
+                            if (change.isRemoved()) {
+                                mirror.remove(change.getSatelliteNumber());
+                            } else {
+                                mirror.put(change.getAfter());
+                            }
+                        }
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void onOverflow(long dropped) {
+                        failure.set(new AssertionError("Unexpected overflow"));
+                    }
+
+                    @Override
+                    public void onRejected(long dropped, RejectedExecutionException cause) {
+                        failure.set(new AssertionError("Unexpected rejection"));
+                    }
+                }, executor, 200);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 5000; i++) {
+                    int number = 1 + random.nextInt(200);
+                    if (random.nextInt(10) == 0) {
+                        catalog.remove(number);
+                    } else {
+                        catalog.putIfNewer(tle(number, random.nextInt(50)));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        catalog.clear();
+        catalog.put(tle(7, 0));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        Assert.assertEquals(0, subscription.getPendingCount());
+        Assert.assertEquals(1, mirror.size());
+        Assert.assertSame(catalog.get(7), mirror.get(7));
+        Assert.assertTrue(subscription.getCoalescedCount() > 0);
+    }
+
+    /**
+     * Tests that a rejected delivery drops the pending changes and tells the subscriber at once,
+     * and that changes published meanwhile are offered to the executor again.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void rejectedDelivery() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        boolean[] reject = {true};
+        Recorder recorder = new Recorder();
+        CatalogChangeFeed feed = new CatalogChangeFeed();
+        CatalogChangeFeed.Subscription subscription = feed.subscribe(recorder, task -> {
+            if (reject[0]) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(task);
+        }, 10);
+        feed.publish(1, null, tle(1, 0));
+        Assert.assertTrue(tasks.isEmpty());
+        Assert.assertEquals(1, recorder.rejections);
+        Assert.assertEquals(1, recorder.dropped);
+        Assert.assertEquals(0, subscription.getPendingCount());
+        Assert.assertEquals(1, subscription.getRejectionCount());
+
+        reject[0] = false;
+        feed.publish(2, null, tle(2, 0));
+        runAll(tasks);
+        Assert.assertEquals(1, recorder.batches.size());
+        Assert.assertEquals(2, recorder.batches.get(0).get(0).getSatelliteNumber());
+
+        // A change published while the subscriber is told of a rejection
+        reject[0] = true;
+        recorder.onRejection = () -> {
+            reject[0] = false;
+            feed.publish(4, null, tle(4, 0));
+        };
+        feed.publish(3, null, tle(3, 0));
+        Assert.assertEquals(2, recorder.rejections);
+        Assert.assertEquals(1, tasks.size());
+        runAll(tasks);
+        Assert.assertEquals(2, recorder.batches.size());
+        Assert.assertEquals(1, recorder.batches.get(1).size());
+        Assert.assertEquals(4, recorder.batches.get(1).get(0).getSatelliteNumber());
+        Assert.assertEquals(2, subscription.getRejectionCount());
+        Assert.assertEquals(0, recorder.overflows);
+    }
+
+    /**
+     * Tests invalid arguments.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        CatalogChangeFeed feed = new CatalogChangeFeed();
+        try {
+            feed.subscribe(null, Runnable::run, 1);
+            Assert.fail("Expected an exception for a null subscriber");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            feed.subscribe(new Recorder(), null, 1);
+            Assert.fail("Expected an exception for a null executor");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            feed.subscribe(new Recorder(), Runnable::run, 0);
+            Assert.fail("Expected an exception for a maximum pending of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            feed.publish(0, null, TestCatalogs.VANGUARD);
+            Assert.fail("Expected an exception for a satellite number of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Builds a TLE of a satellite at an epoch some days after {@link TestCatalogs#EPOCH}.
+     *
+     * @param satelliteNumber the satellite number
+     * @param days the days after the epoch
+     * @return the TLE
+     */
+    private static TLE tle(int satelliteNumber, int days) {
+        TLE tle = TestCatalogs.tle(satelliteNumber, 50.0, 10.0, 0.001, 20.0, 30.0, 15.0);
+        tle.setEpochDay(tle.getEpochDay() + days);
+        return tle;
+    }
+
+    /**
+     * Runs queued tasks, including those they queue, until none is left.
+     *
+     * @param tasks the tasks
+     */
+    private static void runAll(Queue<Runnable> tasks) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Records the batches, overflows and rejections delivered.
+     */
+    private static final class Recorder implements CatalogChangeFeed.Subscriber {
+
+        private final List<List<CatalogChange>> batches = new ArrayList<>();
+        private long overflows;
+        private long dropped;
+        private long rejections;
+        private Runnable onRejection;
+
+        @Override
+        public void onChanges(List<CatalogChange> changes) {
+            batches.add(changes);
+        }
+
+        @Override
+        public void onOverflow(long dropped) {
+            overflows++;
+            this.dropped += dropped;
+        }
+
+        @Override
+        public void onRejected(long dropped, RejectedExecutionException cause) {
+            rejections++;
+            this.dropped += dropped;
+            if (onRejection != null) {
+                Runnable hook = onRejection;
+                onRejection = null;
+                hook.run();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,295 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link CatalogDiff}.
+ *
+ * @author Zach Wilson
+ */
+public class CatalogDiffTest {
+
+    /**
+     * Tests the satellites added, removed, updated and unchanged between two catalogs, and the
+     * fields reported changed.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void diffCatalogs() throws Exception {
+        List<TLE> tles = TestCatalogs.mixed(10, 48L);
+        SatelliteCatalog before = new SatelliteCatalog(tles.subList(0, 8));
+        SatelliteCatalog after = new SatelliteCatalog(tles.subList(2, 10));
+        TLE moved = TestCatalogs.tle(5, 50.0, 10.0, 0.001, 20.0, 30.0, 15.0);
+        after.put(moved);
+        // Equal catalogs built again, rather than parsed back from their rounded lines
+        List<TLE> copies = TestCatalogs.mixed(10, 48L);
+        TLE renamed = copies.get(5);
+        renamed.setTitle("RENAMED");
+        renamed.setElementSetNumber(renamed.getElementSetNumber() + 1);
+        after.put(renamed);
+        // Equal but not the same object
+        after.put(copies.get(6));
+
+        CatalogDiff diff = CatalogDiff.of(before, after);
+        Assert.assertArrayEquals(new int[] {9, 10}, diff.getAdded());
+        Assert.assertArrayEquals(new int[] {1, 2}, diff.getRemoved());
+        Assert.assertArrayEquals(new int[] {5, 6}, diff.getUpdated());
+        Assert.assertEquals(4, diff.getUnchangedCount());
+        Assert.assertFalse(diff.isEmpty());
+        Assert.assertEquals(TLEField.changedFields(tles.get(4), moved),
+                            diff.getChangedFields(5));
+        Assert.assertTrue(TLEField.INCLINATION.isIn(diff.getChangedFields(5)));
+        Assert.assertEquals(EnumSet.of(TLEField.TITLE, TLEField.ELEMENT_SET_NUMBER),
+                            TLEField.fromMask(diff.getChangedFields(6)));
+        Assert.assertEquals(0, diff.getChangedFields(7));
+        Assert.assertEquals(0, diff.getChangedFields(1));
+
+        Assert.assertTrue(CatalogDiff.of(before, before).isEmpty());
+        Assert.assertEquals(8, CatalogDiff.of(before, before).getUnchangedCount());
+        CatalogDiff fromEmpty = CatalogDiff.of(new SatelliteCatalog(), after);
+        Assert.assertArrayEquals(after.getSatelliteNumbers(), fromEmpty.getAdded());
+        Assert.assertEquals(0, fromEmpty.getRemoved().length);
+    }
+
+    /**
+     * Tests the order of the differences reported to a listener, and the masks of every single
+     * field changed.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void listener() throws Exception {
+        TLE base = TestCatalogs.tle(100, 50.0, 10.0, 0.001, 20.0, 30.0, 15.0);
+        List<TLE> before = new ArrayList<>();
+        List<TLE> after = new ArrayList<>();
+        List<TLEField> expected = new ArrayList<>();
+        int number = 100;
+        for (TLEField field : TLEField.values()) {
+            TLE a = copy(base);
+            a.setSatelliteNumber(number);
+            TLE b = copy(base);
+            b.setSatelliteNumber(number);
+            change(b, field);
+            before.add(a);
+            after.add(b);
+            expected.add(field);
+            number++;
+        }
+        after.add(0, TestCatalogs.VANGUARD);
+        before.add(TestCatalogs.tle(99999, 50.0, 10.0, 0.001, 20.0, 30.0, 15.0));
+
+        List<String> events = new ArrayList<>();
+        int unchanged = CatalogDiff.diff(before.iterator(), after.iterator(),
+                                         new CatalogDiff.Listener() {
+            @Override
+            public void added(TLE tle) {
+                events.add("+" + tle.getSatelliteNumber());
+            }
+
+            @Override
+            public void removed(TLE tle) {
+                events.add("-" + tle.getSatelliteNumber());
+            }
+
+            @Override
+            public void updated(TLE a, TLE b, int changedFields) {
+                Assert.assertEquals(a.getSatelliteNumber(), b.getSatelliteNumber());
+                TLEField field = expected.get(a.getSatelliteNumber() - 100);
+                Assert.assertEquals(field.toString(), field.getMask(), changedFields);
+                events.add("~" + a.getSatelliteNumber());
+            }
+        });
+        Assert.assertEquals(0, unchanged);
+        Assert.assertEquals(TLEField.values().length + 2, events.size());
+        Assert.assertEquals("+5", events.get(0));
+        Assert.assertEquals("~100", events.get(1));
+        Assert.assertEquals("-99999", events.get(events.size() - 1));
+    }
+
+    /**
+     * Tests a diff of two catalog files read as streams against the diff of the same catalogs in
+     * memory.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void diffStreams() throws Exception {
+        Random random = new Random(48L);
+        List<TLE> tles = TestCatalogs.mixed(500, 48L);
+        List<TLE> before = new ArrayList<>();
+        List<TLE> after = new ArrayList<>();
+        for (TLE tle : tles) {
+            double u = random.nextDouble();
+            if (u < 0.9) {
+                before.add(tle);
+            }
+            if (u > 0.05) {
+                TLE next = tle;
+                if (random.nextDouble() < 0.2) {
+                    String line2 = TLEFormatter.formatLine2(
+                            tle.getSatelliteNumber(), tle.getInclination(),
+                            (tle.getRaan() + 1.0) % 360.0, tle.getEccentricity(),
+                            tle.getArgumentOfPerigee(), tle.getMeanAnomaly(),
+                            tle.getMeanMotion(), tle.getRevolutions());
+                    next = new TLE(tle.getTitle(), tle.getLine1(), line2);
+                }
+                after.add(next);
+            }
+        }
+        CatalogDiff expected = CatalogDiff.of(before.iterator(), after.iterator());
+        try (TLEReader a = new TLEReader(new StringReader(format(before)));
+             TLEReader b = new TLEReader(new StringReader(format(after)), new TLECache(1000))) {
+            CatalogDiff diff = CatalogDiff.of(a, b);
+            Assert.assertArrayEquals(expected.getAdded(), diff.getAdded());
+            Assert.assertArrayEquals(expected.getRemoved(), diff.getRemoved());
+            Assert.assertArrayEquals(expected.getUpdated(), diff.getUpdated());
+            Assert.assertEquals(expected.getUnchangedCount(), diff.getUnchangedCount());
+            for (int n : diff.getUpdated()) {
+                Assert.assertEquals(TLEField.RAAN.getMask(), diff.getChangedFields(n));
+            }
+        }
+        Assert.assertTrue(expected.getUpdated().length > 0);
+        Assert.assertTrue(expected.getAdded().length > 0);
+        Assert.assertTrue(expected.getRemoved().length > 0);
+    }
+
+    /**
+     * Tests invalid arguments, and TLEs out of order.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        List<TLE> sorted = Arrays.asList(TestCatalogs.VANGUARD, TestCatalogs.DELTA);
+        List<TLE> unsorted = Arrays.asList(TestCatalogs.DELTA, TestCatalogs.VANGUARD);
+        List<TLE> repeated = Arrays.asList(TestCatalogs.VANGUARD, TestCatalogs.VANGUARD);
+        try {
+            CatalogDiff.of(sorted.iterator(), unsorted.iterator());
+            Assert.fail("Expected an exception for TLEs out of order");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            CatalogDiff.of(repeated.iterator(), sorted.iterator());
+            Assert.fail("Expected an exception for a repeated satellite number");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            CatalogDiff.of(Collections.<TLE>singletonList(null).iterator(), sorted.iterator());
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            CatalogDiff.of(null, new SatelliteCatalog());
+            Assert.fail("Expected an exception for a null catalog");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            CatalogDiff.diff(sorted.iterator(), sorted.iterator(), null);
+            Assert.fail("Expected an exception for a null listener");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Copies a TLE.
+     *
+     * @param tle the TLE
+     * @return an equal TLE
+     */
+    private static TLE copy(TLE tle) {
+        return new TLE(tle.getTitle(), tle.getLine1(), tle.getLine2());
+    }
+
+    /**
+     * Changes one field of a TLE.
+     *
+     * @param tle the TLE
+     * @param field the field
+     */
+    private static void change(TLE tle, TLEField field) {
+        switch (field) {
+            case TITLE:
+                tle.setTitle(tle.getTitle() + "X");
+                break;
+            case CLASSIFICATION:
+                tle.setClassification('C');
+                break;
+            case INTERNATIONAL_DESIGNATOR:
+                tle.setInternationalDesignator("16002B");
+                break;
+            case EPOCH:
+                tle.setEpochDay(tle.getEpochDay() + 0.5);
+                break;
+            case FIRST_DERIVATIVE_OF_MEAN_MOTION:
+                tle.setFirstDerivativeOfMeanMotion(1e-5);
+                break;
+            case SECOND_DERIVATIVE_OF_MEAN_MOTION:
+                tle.setSecondDerivativeOfMeanMotion(1e-9);
+                break;
+            case DRAG_TERM:
+                tle.setDragTerm(2e-4);
+                break;
+            case EPHEMERIS_TYPE:
+                tle.setEphemerisType(2);
+                break;
+            case ELEMENT_SET_NUMBER:
+                tle.setElementSetNumber(tle.getElementSetNumber() + 1);
+                break;
+            case INCLINATION:
+                tle.setInclination(51.0);
+                break;
+            case RAAN:
+                tle.setRaan(11.0);
+                break;
+            case ECCENTRICITY:
+                tle.setEccentricity(0.002);
+                break;
+            case ARGUMENT_OF_PERIGEE:
+                tle.setArgumentOfPerigee(21.0);
+                break;
+            case MEAN_ANOMALY:
+                tle.setMeanAnomaly(31.0);
+                break;
+            case MEAN_MOTION:
+                tle.setMeanMotion(15.1);
+                break;
+            case REVOLUTIONS:
+                tle.setRevolutions(tle.getRevolutions() + 1);
+                break;
+            default:
+                throw new AssertionError(field);
+        }
+    }
+
+    /**
+     * Formats TLEs as a three-line catalog file.
+     *
+     * @param tles the TLEs
+     * @return the text
+     */
+    private static String format(List<TLE> tles) {
+        StringBuilder text = new StringBuilder();
+        for (TLE tle : tles) {
+            text.append(tle.getTitle()).append('\n')
+                .append(tle.getLine1()).append('\n')
+                .append(tle.getLine2()).append("\n\n");
+        }
+        return text.toString();
+    }
+
+}
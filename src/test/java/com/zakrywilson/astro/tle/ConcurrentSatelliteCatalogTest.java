@@ -0,0 +1,213 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests {@link ConcurrentSatelliteCatalog}.
+ *
+ * @author Zach Wilson
+ */
+public class ConcurrentSatelliteCatalogTest {
+
+    /**
+     * Tests single-threaded updates, removals and counters on both ranges of satellite numbers.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void updates() throws Exception {
+        ConcurrentSatelliteCatalog catalog = new ConcurrentSatelliteCatalog();
+        TLE older = tle(25544, 0);
+        TLE newer = tle(25544, 1);
+        TLE reissued = tle(25544, 1);
+        reissued.setElementSetNumber(newer.getElementSetNumber() + 1);
+        Assert.assertTrue(catalog.isEmpty());
+        Assert.assertTrue(catalog.putIfNewer(newer));
+        Assert.assertFalse(catalog.putIfNewer(older));
+        Assert.assertFalse(catalog.putIfNewer(newer));
+        Assert.assertTrue(catalog.putIfNewer(reissued));
+        Assert.assertSame(reissued, catalog.get(25544));
+        Assert.assertSame(reissued, catalog.put(older));
+        Assert.assertSame(older, catalog.get(25544));
+
+        TLE extended = tle(270000, 0);
+        Assert.assertTrue(catalog.putIfNewer(extended));
+        Assert.assertFalse(catalog.putIfNewer(tle(270000, 0)));
+        Assert.assertTrue(catalog.contains(270000));
+        Assert.assertEquals(2, catalog.size());
+        Assert.assertNull(catalog.get(-1));
+        Assert.assertNull(catalog.get(25545));
+
+        SatelliteCatalog snapshot = catalog.snapshot();
+        Assert.assertArrayEquals(new int[] {25544, 270000}, snapshot.getSatelliteNumbers());
+        Assert.assertSame(extended, snapshot.get(270000));
+
+        Assert.assertSame(extended, catalog.remove(270000));
+        Assert.assertNull(catalog.remove(270000));
+        Assert.assertNull(catalog.remove(-5));
+        Assert.assertEquals(1, catalog.size());
+        catalog.clear();
+        Assert.assertTrue(catalog.isEmpty());
+        Assert.assertNull(catalog.get(25544));
+        Assert.assertEquals(2, snapshot.size());
+
+        Assert.assertEquals(4, catalog.getAcceptedCount());
+        Assert.assertEquals(3, catalog.getRejectedCount());
+        Assert.assertEquals(2, catalog.getRemovedCount());
+    }
+
+    /**
+     * Tests that removing a satellite not in the catalog, including satellite number 0, returns
+     * <code>null</code> and publishes no change.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void removeAbsent() throws Exception {
+        ConcurrentSatelliteCatalog catalog = new ConcurrentSatelliteCatalog();
+        CatalogChangeFeed.Subscription subscription = catalog.getChangeFeed().subscribe(
+                new CatalogChangeFeed.Subscriber() {
+                    @Override
+                    public void onChanges(List<CatalogChange> changes) {}
+
+                    @Override
+                    public void onOverflow(long dropped) {}
+
+                    @Override
+                    public void onRejected(long dropped, RejectedExecutionException cause) {}
+                }, Runnable::run, 10);
+        Assert.assertNull(catalog.remove(0));
+        Assert.assertNull(catalog.remove(7));
+        Assert.assertNull(catalog.remove(270000));
+        Assert.assertEquals(0, subscription.getPublishedCount());
+        Assert.assertEquals(0, catalog.getRemovedCount());
+        Assert.assertNull(new SatelliteCatalog().remove(0));
+    }
+
+    /**
+     * Tests that concurrent updaters leave the newest TLE of every satellite, while readers never
+     * see a satellite go back to an older TLE and snapshots stay consistent with the readers.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void concurrentUpdates() throws Exception {
+        int satellites = 500;
+        int versions = 40;
+        ConcurrentSatelliteCatalog catalog = new ConcurrentSatelliteCatalog();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> updaters = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            long seed = w;
+            updaters.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int k = 0; k < 20000; k++) {
+                    int number = 1 + random.nextInt(satellites);
+                    if (random.nextInt(10) == 0) {
+                        number += 200000;
+                    }
+                    catalog.putIfNewer(tle(number, random.nextInt(versions)));
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            try {
+                double[] seen = new double[satellites + 1];
+                while (!done.get()) {
+                    for (int number = 1; number <= satellites; number++) {
+                        TLE tle = catalog.get(number);
+                        if (tle != null) {
+                            Assert.assertTrue(tle.getEpochDay() >= seen[number]);
+                            seen[number] = tle.getEpochDay();
+                        }
+                    }
+                    SatelliteCatalog snapshot = catalog.snapshot();
+                    for (int number = 1; number <= satellites; number++) {
+                        TLE tle = snapshot.get(number);
+                        Assert.assertTrue(tle == null ? seen[number] == 0.0
+                                          : tle.getEpochDay() >= seen[number]);
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        for (Thread updater : updaters) {
+            updater.start();
+        }
+        for (Thread updater : updaters) {
+            updater.join();
+        }
+        done.set(true);
+        reader.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        // Replaying every candidate once more must be rejected if the newest is kept
+        long accepted = catalog.getAcceptedCount();
+        Assert.assertEquals(80000, accepted + catalog.getRejectedCount());
+        for (int number = 1; number <= satellites; number++) {
+            for (int offset : new int[] {0, 200000}) {
+                TLE tle = catalog.get(number + offset);
+                if (tle != null) {
+                    double day = tle.getEpochDay();
+                    for (int v = 0; v < versions; v++) {
+                        TLE candidate = tle(number + offset, v);
+                        Assert.assertEquals(candidate.getEpochDay() > day,
+                                            catalog.putIfNewer(candidate));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        ConcurrentSatelliteCatalog catalog = new ConcurrentSatelliteCatalog();
+        try {
+            catalog.putIfNewer(null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            catalog.put(tle(0, 0));
+            Assert.fail("Expected an exception for a satellite number of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            catalog.forEach(null);
+            Assert.fail("Expected an exception for a null visitor");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Returns a TLE of a satellite whose epoch increases with a version.
+     */
+    private static TLE tle(int number, int version) {
+        TLE tle = TestCatalogs.tle(1, 51.6, version, 0.001, 0.0, 0.0, 15.5);
+        tle.setSatelliteNumber(number);
+        tle.setEpochDay(100.0 + version / 24.0);
+        return tle;
+    }
+
+}
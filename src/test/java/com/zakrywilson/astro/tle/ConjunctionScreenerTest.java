@@ -0,0 +1,111 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests {@link ConjunctionScreener}.
+ *
+ * @author Zach Wilson
+ */
+public class ConjunctionScreenerTest {
+
+    /**
+     * Tests that two satellites sharing an orbit a few kilometers apart form a single encounter
+     * spanning the window.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void sameOrbit() throws Exception {
+        List<TLE> catalog = new ArrayList<>();
+        catalog.add(TestCatalogs.tle(1, 51.6, 10.0, 0.0005, 30.0, 100.0, 15.5));
+        catalog.add(TestCatalogs.tle(2, 51.6, 10.0, 0.0005, 30.0, 100.02, 15.5));
+        catalog.add(TestCatalogs.tle(3, 98.0, 190.0, 0.001, 30.0, 0.0, 14.2));
+
+        ConjunctionScreener screener = new ConjunctionScreener(5.0, 60000L);
+        List<CloseApproach> approaches = screener.screen(catalog, TestCatalogs.EPOCH,
+                                                         TestCatalogs.EPOCH + 3600000L);
+
+        Assert.assertEquals(1, approaches.size());
+        CloseApproach approach = approaches.get(0);
+        Assert.assertEquals(1, approach.getPrimary().getSatelliteNumber());
+        Assert.assertEquals(2, approach.getSecondary().getSatelliteNumber());
+        Assert.assertTrue(approach.getDistance() < 5.0);
+    }
+
+    /**
+     * Tests {@link ConjunctionScreener#screen(List, long, long)} against a brute-force comparison
+     * of every pair at every step: any pair sampled within the threshold must be a candidate.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void screen() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(400, 26L);
+        double threshold = 50.0;
+        long step = 30000L;
+        long start = TestCatalogs.EPOCH;
+        long end = start + 2L * 3600000L;
+
+        List<CloseApproach> approaches = new ConjunctionScreener(threshold, step)
+                .screen(catalog, start, end);
+        Set<Long> found = new HashSet<>();
+        for (CloseApproach approach : approaches) {
+            found.add(pair(approach.getPrimary(), approach.getSecondary()));
+            Assert.assertTrue(approach.getTimeMillisecond() >= start - step);
+            Assert.assertTrue(approach.getTimeMillisecond() <= end + step);
+        }
+
+        CatalogPropagator propagator = new CatalogPropagator(catalog);
+        StateVectors states = new StateVectors(catalog.size());
+        int expected = 0;
+        for (long t = start; t <= end; t += step) {
+            propagator.propagateSequential(t, states);
+            for (int i = 0; i < catalog.size(); i++) {
+                for (int j = i + 1; j < catalog.size(); j++) {
+                    double dx = states.getX(i) - states.getX(j);
+                    double dy = states.getY(i) - states.getY(j);
+                    double dz = states.getZ(i) - states.getZ(j);
+                    if (Math.sqrt(dx * dx + dy * dy + dz * dz) <= threshold) {
+                        expected++;
+                        long pair = pair(catalog.get(i), catalog.get(j));
+                        if (!found.contains(pair)) {
+                            Assert.fail(String.format("Missed pair %d-%d at %d", i + 1, j + 1, t));
+                        }
+                    }
+                }
+            }
+        }
+        Assert.assertTrue("Catalog should be crowded enough to have close approaches", expected > 0);
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidThreshold() throws Exception {
+        new ConjunctionScreener(0.0, 60000L);
+    }
+
+    /**
+     * Returns a key identifying a pair of satellites.
+     *
+     * @param a the first TLE
+     * @param b the second TLE
+     * @return the key
+     */
+    private static long pair(TLE a, TLE b) {
+        int low = Math.min(a.getSatelliteNumber(), b.getSatelliteNumber());
+        int high = Math.max(a.getSatelliteNumber(), b.getSatelliteNumber());
+        return ((long) low << 32) | high;
+    }
+
+}
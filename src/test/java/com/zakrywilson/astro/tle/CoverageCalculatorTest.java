@@ -0,0 +1,235 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link CoverageCalculator}, {@link CircularRegion} and {@link PolygonRegion}.
+ *
+ * @author Zach Wilson
+ */
+public class CoverageCalculatorTest {
+
+    private static final CircularRegion ALPS = new CircularRegion("Alps", 46.5, 10.0, 300.0);
+    private static final PolygonRegion COLORADO = new PolygonRegion(
+            "Colorado", new double[] {41.0, 41.0, 37.0, 37.0},
+            new double[] {-109.05, -102.05, -102.05, -109.05});
+    private static final PolygonRegion PACIFIC = new PolygonRegion(
+            "Pacific", new double[] {10.0, 10.0, -10.0, -10.0, 0.0},
+            new double[] {170.0, 190.0, 190.0, 170.0, 178.0});
+
+    /**
+     * Tests the distances to {@link CircularRegion} and {@link PolygonRegion}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void regions() throws Exception {
+        double[] u = new double[3];
+        Region.direction(46.5, 10.0, u, 0);
+        Assert.assertEquals(0.0, ALPS.exactDistance(u[0], u[1], u[2]), 0.0);
+        Region.direction(46.5, 30.0, u, 0);
+        double expected = Math.acos(Math.sin(Math.toRadians(46.3)) * Math.sin(Math.toRadians(46.3))
+                + Math.cos(Math.toRadians(46.3)) * Math.cos(Math.toRadians(46.3))
+                * Math.cos(Math.toRadians(20.0))) - 300.0 / 6378.135;
+        Assert.assertEquals(expected, ALPS.exactDistance(u[0], u[1], u[2]), 1.0e-3);
+
+        // A concave polygon across the antimeridian, its notch reaching in from the west
+        Region.direction(0.0, 180.0, u, 0);
+        Assert.assertEquals(0.0, PACIFIC.exactDistance(u[0], u[1], u[2]), 0.0);
+        Region.direction(0.0, 175.0, u, 0);
+        Assert.assertTrue(PACIFIC.exactDistance(u[0], u[1], u[2]) > 0.0);
+        Region.direction(0.0, 200.0, u, 0);
+        Assert.assertEquals(Math.toRadians(10.0), PACIFIC.exactDistance(u[0], u[1], u[2]),
+                            1.0e-12);
+        Region.direction(0.0, -160.0, u, 0);
+        Assert.assertEquals(Math.toRadians(10.0), PACIFIC.exactDistance(u[0], u[1], u[2]),
+                            1.0e-12);
+        Region.direction(-30.0, 180.0, u, 0);
+        Assert.assertEquals(Math.toRadians(20.0), PACIFIC.exactDistance(u[0], u[1], u[2]),
+                            Math.toRadians(0.5));
+
+        // Antipodal to an edge, where the winding angle is ill-conditioned
+        Region.direction(-41.0, 75.0, u, 0);
+        Assert.assertTrue(COLORADO.exactDistance(u[0], u[1], u[2]) > 3.0);
+
+        // The bounding cap only ever lowers the distance far from the region
+        for (double longitude = -180.0; longitude < 180.0; longitude += 7.0) {
+            Region.direction(20.0, longitude, u, 0);
+            double exact = COLORADO.exactDistance(u[0], u[1], u[2]);
+            Assert.assertEquals(exact, COLORADO.distance(u[0], u[1], u[2], exact), 0.0);
+            Assert.assertTrue(COLORADO.distance(u[0], u[1], u[2], 0.0) <= exact + 1.0e-12);
+        }
+    }
+
+    /**
+     * Tests {@link CoverageCalculator#compute(TLE, Region, long, long)} against brute-force
+     * sampling of the geometry.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void compute() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 2L * 86400000L;
+        CoverageCalculator calculator = new CoverageCalculator(10.0);
+        List<TLE> satellites = Arrays.asList(
+                TestCatalogs.tle(90001, 51.6, 30.0, 0.0005, 90.0, 10.0, 15.5),
+                TestCatalogs.tle(90002, 98.2, 200.0, 0.001, 40.0, 100.0, 14.3),
+                TestCatalogs.tle(90003, 63.4, 100.0, 0.72, 270.0, 0.0, 2.006),
+                TestCatalogs.VANGUARD);
+        for (TLE tle : satellites) {
+            for (Region region : Arrays.asList(ALPS, COLORADO, PACIFIC)) {
+                List<Access> accesses = calculator.compute(tle, region, start, end);
+                List<double[]> expected = bruteForce(tle, region, 10.0, start, end, 2000L);
+                Assert.assertEquals(tle.getSatelliteNumber() + " " + region.getName(),
+                                    expected.size(), accesses.size());
+                for (int k = 0; k < expected.size(); k++) {
+                    Assert.assertEquals(expected.get(k)[0], accesses.get(k).getStartMillisecond(),
+                                        2000.0);
+                    Assert.assertEquals(expected.get(k)[1], accesses.get(k).getEndMillisecond(),
+                                        2000.0);
+                    Assert.assertSame(region, accesses.get(k).getRegion());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests {@link CoverageCalculator#compute(List, List, long, long)} against the accesses
+     * computed one satellite and region at a time, and the latitude filter.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void computeCatalog() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        List<TLE> catalog = new ArrayList<>(TestCatalogs.mixed(40, 8L));
+        // Equatorial orbit that never reaches the latitudes of the Alps
+        catalog.add(TestCatalogs.tle(90004, 5.0, 0.0, 0.001, 0.0, 0.0, 15.0));
+        List<Region> regions = Arrays.asList(ALPS, COLORADO, PACIFIC);
+        CoverageCalculator calculator = new CoverageCalculator(10.0);
+        List<List<Access>> accesses = calculator.compute(catalog, regions, start, end);
+        Assert.assertEquals(catalog.size(), accesses.size());
+
+        for (int i = 0; i < catalog.size(); i++) {
+            List<Access> expected = new ArrayList<>();
+            for (Region region : regions) {
+                expected.addAll(calculator.compute(catalog.get(i), region, start, end));
+            }
+            List<Access> actual = accesses.get(i);
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int k = 0; k < actual.size(); k++) {
+                Assert.assertSame(catalog.get(i), actual.get(k).getTLE());
+                Assert.assertTrue(actual.get(k).getStartMillisecond() >= start);
+                Assert.assertTrue(actual.get(k).getEndMillisecond() <= end);
+                if (k > 0) {
+                    Assert.assertTrue(actual.get(k - 1).getStartMillisecond()
+                                              <= actual.get(k).getStartMillisecond());
+                }
+                Access access = actual.get(k);
+                Assert.assertTrue(expected.stream().anyMatch(
+                        e -> e.getRegion() == access.getRegion()
+                                && e.getStartMillisecond() == access.getStartMillisecond()
+                                && e.getEndMillisecond() == access.getEndMillisecond()));
+            }
+        }
+        Assert.assertTrue(accesses.get(catalog.size() - 1).stream()
+                                  .noneMatch(a -> a.getRegion() == ALPS));
+        Assert.assertFalse(accesses.get(catalog.size() - 1).isEmpty());
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        try {
+            new CircularRegion("Bad", 91.0, 0.0, 100.0);
+            Assert.fail("Expected an exception for a latitude out of range");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new CircularRegion("Bad", 0.0, 0.0, -1.0);
+            Assert.fail("Expected an exception for a negative radius");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new PolygonRegion("Bad", new double[] {0.0, 1.0}, new double[] {0.0, 1.0});
+            Assert.fail("Expected an exception for too few vertices");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new PolygonRegion("Bad", new double[] {0.0, 0.0, 1.0}, new double[] {5.0, 5.0, 6.0});
+            Assert.fail("Expected an exception for a repeated vertex");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new PolygonRegion("Bad", new double[] {0.0, 0.0, 0.0, 0.0},
+                              new double[] {0.0, 90.0, 180.0, 270.0});
+            Assert.fail("Expected an exception for a polygon larger than a hemisphere");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new CoverageCalculator(90.0);
+            Assert.fail("Expected an exception for an elevation out of range");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new CoverageCalculator(10.0).compute(TestCatalogs.VANGUARD, ALPS, 1000L, 0L);
+            Assert.fail("Expected an exception for a window ending before it starts");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Finds the accesses by sampling the geometry at a fixed step.
+     */
+    private static List<double[]> bruteForce(TLE tle, Region region, double minimumElevation,
+                                             long start, long end, long step) {
+        SGP4Propagator propagator = new SGP4Propagator(tle);
+        double elevation = Math.toRadians(minimumElevation);
+        double[] state = new double[6];
+        List<double[]> accesses = new ArrayList<>();
+        double entry = Double.NaN;
+        long t;
+        for (t = start; t <= end; t += step) {
+            if (!propagator.propagateMinutes(propagator.minutesSinceEpoch(t), state, 0)) {
+                break;
+            }
+            double gmst = SiderealTime.gmst(t);
+            double x = Math.cos(gmst) * state[0] + Math.sin(gmst) * state[1];
+            double y = -Math.sin(gmst) * state[0] + Math.cos(gmst) * state[1];
+            double z = state[2];
+            double r = Math.sqrt(x * x + y * y + z * z);
+            double footprint = Math.acos(Math.min(1.0, 6378.135 * Math.cos(elevation) / r))
+                    - elevation;
+            boolean covered = region.exactDistance(x / r, y / r, z / r) <= footprint;
+            if (covered && Double.isNaN(entry)) {
+                entry = t;
+            } else if (!covered && !Double.isNaN(entry)) {
+                accesses.add(new double[] {entry, t});
+                entry = Double.NaN;
+            }
+        }
+        if (!Double.isNaN(entry)) {
+            accesses.add(new double[] {entry, Math.min(end, t - step)});
+        }
+        return accesses;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests {@link CrosslinkCalculator}, {@link LineOfSightMatrix} and {@link CrosslinkGraph}.
+ *
+ * @author Zach Wilson
+ */
+public class CrosslinkCalculatorTest {
+
+    /**
+     * Tests the Earth occlusion of {@link CrosslinkCalculator} on satellites placed around the
+     * equator.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void occlusion() throws Exception {
+        double r = 7000.0;
+        // Half angle at which a chord of a 7000 km circle grazes 100 km above the Earth
+        double grazing = Math.acos((6378.135 + 100.0) / r);
+        double[] angles = {0.0, Math.toRadians(20.0), 2.0 * grazing - 1.0e-4,
+                           2.0 * grazing + 1.0e-4, Math.PI, Double.NaN};
+        StateVectors states = new StateVectors(angles.length);
+        for (int i = 0; i < angles.length; i++) {
+            states.set(i, new double[] {r * Math.cos(angles[i]), r * Math.sin(angles[i]), 0.0,
+                                        0.0, 0.0, 0.0}, 0);
+        }
+        LineOfSightMatrix matrix = new LineOfSightMatrix(angles.length);
+        new CrosslinkCalculator(Double.POSITIVE_INFINITY).compute(states, matrix);
+
+        Assert.assertTrue(matrix.isVisible(0, 1));
+        Assert.assertTrue(matrix.isVisible(1, 0));
+        Assert.assertTrue(matrix.isVisible(0, 2));
+        Assert.assertFalse(matrix.isVisible(0, 3));
+        Assert.assertFalse(matrix.isVisible(0, 4));
+        Assert.assertTrue(matrix.isVisible(2, 3));
+        Assert.assertFalse(matrix.isVisible(0, 0));
+        Assert.assertEquals(2.0 * r * Math.sin(Math.toRadians(10.0)), matrix.getRange(0, 1),
+                            1.0e-9);
+        Assert.assertEquals(2.0 * r, matrix.getRange(4, 0), 1.0e-9);
+        Assert.assertEquals(0.0, matrix.getRange(3, 3), 0.0);
+
+        // Invalid states see nothing
+        Assert.assertTrue(Double.isNaN(matrix.getRange(5, 0)));
+        Assert.assertEquals(0, matrix.countVisible(5));
+        Assert.assertEquals(2, matrix.countVisible(0));
+
+        // A shorter maximum range cuts the longer links, a lower grazing altitude restores some
+        new CrosslinkCalculator(3000.0).compute(states, matrix);
+        Assert.assertTrue(matrix.isVisible(0, 1));
+        Assert.assertFalse(matrix.isVisible(0, 2));
+        new CrosslinkCalculator(Double.POSITIVE_INFINITY, 0.0).compute(states, matrix);
+        Assert.assertTrue(matrix.isVisible(0, 3));
+    }
+
+    /**
+     * Tests that {@link CrosslinkCalculator#computeLinks(StateVectors)} finds the same links as
+     * the dense matrix.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void sparseMatchesDense() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(700, 40L);
+        CatalogPropagator propagator = new CatalogPropagator(catalog);
+        StateVectors states = new StateVectors(catalog.size());
+        propagator.propagate(TestCatalogs.EPOCH + 3600000L, states);
+
+        for (double maxRange : new double[] {1500.0, 6000.0, Double.POSITIVE_INFINITY}) {
+            CrosslinkCalculator calculator = new CrosslinkCalculator(maxRange);
+            LineOfSightMatrix matrix = new LineOfSightMatrix(catalog.size());
+            calculator.compute(states, matrix);
+            CrosslinkGraph graph = calculator.computeLinks(states);
+            Assert.assertEquals(catalog.size(), graph.size());
+
+            int links = 0;
+            for (int i = 0; i < catalog.size(); i++) {
+                Assert.assertEquals(matrix.countVisible(i), graph.getDegree(i));
+                for (int k = 0; k < graph.getDegree(i); k++) {
+                    int j = graph.getNeighbor(i, k);
+                    Assert.assertTrue(matrix.isVisible(i, j));
+                    Assert.assertTrue(graph.isLinked(j, i));
+                    Assert.assertEquals(matrix.getRange(i, j), graph.getRange(i, k), 0.0);
+                }
+                links += graph.getDegree(i);
+            }
+            Assert.assertEquals(links / 2, graph.getLinkCount());
+
+            int[] visited = new int[1];
+            graph.forEachLink((first, second, range) -> {
+                Assert.assertTrue(first < second);
+                Assert.assertEquals(matrix.getRange(first, second), range, 0.0);
+                visited[0]++;
+            });
+            Assert.assertEquals(graph.getLinkCount(), visited[0]);
+        }
+
+        // The catalog overload propagates first
+        CrosslinkGraph graph = new CrosslinkCalculator(1500.0)
+                .computeLinks(propagator, TestCatalogs.EPOCH + 3600000L);
+        Assert.assertEquals(new CrosslinkCalculator(1500.0).computeLinks(states).getLinkCount(),
+                            graph.getLinkCount());
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        try {
+            new CrosslinkCalculator(0.0);
+            Assert.fail("Expected an exception for a zero range");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new CrosslinkCalculator(1000.0, -1.0);
+            Assert.fail("Expected an exception for a negative grazing altitude");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new CrosslinkCalculator(1000.0).compute(new StateVectors(3), new LineOfSightMatrix(4));
+            Assert.fail("Expected an exception for different sizes");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
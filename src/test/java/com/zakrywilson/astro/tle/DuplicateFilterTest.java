@@ -0,0 +1,117 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests {@link DuplicateFilter}.
+ *
+ * @author Zach Wilson
+ */
+public class DuplicateFilterTest {
+
+    /**
+     * Tests the filter against a <code>HashSet</code> when the capacity covers the stream,
+     * including the fingerprint 0.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void exactWithinCapacity() throws Exception {
+        Random random = new Random(46L);
+        DuplicateFilter filter = new DuplicateFilter(50000);
+        Set<Long> expected = new HashSet<>();
+        for (int k = 0; k < 200000; k++) {
+            long fingerprint = k % 1000 == 0 ? 0L : random.nextInt(40000) * 0x9e3779b97f4a7c15L;
+            Assert.assertEquals(expected.add(fingerprint), filter.add(fingerprint));
+            Assert.assertTrue(filter.contains(fingerprint));
+        }
+        Assert.assertEquals(expected.size(), filter.getPassedCount());
+        Assert.assertEquals(200000 - expected.size(), filter.getDuplicateCount());
+        // About 1% of the tests of new fingerprints are false positives
+        Assert.assertTrue(filter.getFalsePositiveCount() < expected.size() / 20);
+        filter.clear();
+        Assert.assertFalse(filter.contains(0L));
+    }
+
+    /**
+     * Tests that the filter remembers at least the last <code>capacity</code> distinct
+     * fingerprints added, and forgets older ones.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void boundedMemory() throws Exception {
+        DuplicateFilter filter = new DuplicateFilter(1000);
+        for (long k = 1; k <= 100000; k++) {
+            Assert.assertTrue(filter.add(k));
+            // The last 1,000 fingerprints are remembered
+            Assert.assertTrue(filter.contains(Math.max(1, k - 999)));
+        }
+        Assert.assertEquals(100000, filter.getPassedCount());
+        Assert.assertTrue(filter.contains(99001));
+        Assert.assertFalse(filter.contains(1));
+        Assert.assertTrue(filter.add(1L));
+
+        // A fingerprint kept in use survives rotations
+        DuplicateFilter hot = new DuplicateFilter(100);
+        hot.add(-7L);
+        for (long k = 1; k <= 10000; k++) {
+            hot.add(k);
+            if (k % 50 == 0) {
+                Assert.assertFalse(hot.add(-7L));
+            }
+        }
+    }
+
+    /**
+     * Tests the suppression of element sets repeated by merged feeds with different formatting.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void mergedFeeds() throws Exception {
+        List<TLE> tles = TestCatalogs.mixed(500, 46L);
+        DuplicateFilter filter = new DuplicateFilter(10000);
+        int passed = 0;
+        for (int feed = 0; feed < 3; feed++) {
+            for (int i = 0; i < tles.size(); i++) {
+                TLE tle = tles.get(i);
+                TLE copy = new TLE("FEED " + feed, tle.getLine1(), tle.getLine2());
+                copy.setSatelliteNumber(i + 1);
+                if (filter.add(copy)) {
+                    passed++;
+                }
+            }
+        }
+        Assert.assertEquals(500, passed);
+        Assert.assertEquals(1000, filter.getDuplicateCount());
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        try {
+            new DuplicateFilter(0);
+            Assert.fail("Expected an exception for a capacity of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new DuplicateFilter(1000).add((TLE) null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests {@link EclipseCalculator}, {@link ShadowModel} and {@link SolarEphemeris}.
+ *
+ * @author Zach Wilson
+ */
+public class EclipseCalculatorTest {
+
+    /**
+     * Tests {@link SolarEphemeris#position(double, double[], int)} against the worked example of
+     * Vallado (April 2, 2006 00:00 UTC).
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void solarPosition() throws Exception {
+        double[] sun = new double[3];
+        SolarEphemeris.position(1143936000000.0, sun, 0);
+        Assert.assertEquals(0.9771945, sun[0] / SolarEphemeris.ASTRONOMICAL_UNIT, 1.0e-5);
+        Assert.assertEquals(0.1924424, sun[1] / SolarEphemeris.ASTRONOMICAL_UNIT, 1.0e-5);
+        Assert.assertEquals(0.0834308, sun[2] / SolarEphemeris.ASTRONOMICAL_UNIT, 1.0e-5);
+    }
+
+    /**
+     * Tests {@link EclipseCalculator#compute(List, long, long)} against brute-force sampling of
+     * the shadow model.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void compute() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        List<TLE> catalog = TestCatalogs.mixed(40, 17L);
+        for (ShadowModel model : ShadowModel.values()) {
+            List<List<Eclipse>> eclipses = new EclipseCalculator(model, 60000L)
+                    .compute(catalog, start, end);
+            Assert.assertEquals(catalog.size(), eclipses.size());
+            for (int i = 0; i < catalog.size(); i++) {
+                SGP4Propagator propagator = new SGP4Propagator(catalog.get(i));
+                double[] state = new double[6];
+                double[] sun = new double[3];
+                for (Eclipse eclipse : eclipses.get(i)) {
+                    Assert.assertSame(catalog.get(i), eclipse.getTLE());
+                    long middle = (eclipse.getEntryMillisecond() + eclipse.getExitMillisecond()) / 2;
+                    propagator.propagate(middle, state);
+                    SolarEphemeris.position(middle, sun, 0);
+                    Assert.assertTrue(model.isEclipsed(state[0], state[1], state[2], sun[0], sun[1],
+                                                       sun[2]));
+                    // Just outside the interval the satellite is in sunlight
+                    for (long t : new long[] {eclipse.getEntryMillisecond() - 2000L,
+                            eclipse.getExitMillisecond() + 2000L}) {
+                        if (t > start && t < end) {
+                            propagator.propagate(t, state);
+                            SolarEphemeris.position(t, sun, 0);
+                            Assert.assertFalse(eclipse.toString(), model.isEclipsed(
+                                    state[0], state[1], state[2], sun[0], sun[1], sun[2]));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a low Earth orbit is eclipsed once per revolution, and longer with the conical
+     * model than with the cylindrical one.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void lowEarthOrbit() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        List<TLE> catalog = Collections.singletonList(
+                TestCatalogs.tle(90030, 28.5, 40.0, 0.0005, 0.0, 0.0, 15.5));
+        List<Eclipse> cylindrical = new EclipseCalculator(ShadowModel.CYLINDRICAL, 60000L)
+                .compute(catalog, start, end).get(0);
+        List<Eclipse> conical = new EclipseCalculator(ShadowModel.CONICAL, 60000L)
+                .compute(catalog, start, end).get(0);
+        Assert.assertTrue(cylindrical.size() >= 15 && cylindrical.size() <= 17);
+        Assert.assertEquals(cylindrical.size(), conical.size());
+        for (int k = 0; k < cylindrical.size(); k++) {
+            Eclipse inner = cylindrical.get(k);
+            Eclipse outer = conical.get(k);
+            Assert.assertTrue(inner.getDurationMillisecond() < 40L * 60000L);
+            Assert.assertTrue(outer.getEntryMillisecond() <= inner.getEntryMillisecond() + 1000L);
+            Assert.assertTrue(outer.getExitMillisecond() >= inner.getExitMillisecond() - 1000L);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link ElementConverter}.
+ *
+ * @author Zach Wilson
+ */
+public class ElementConverterTest {
+
+    /**
+     * Tests that the Keplerian elements of {@link ElementConverter#toKeplerian(ElementBatch,
+     * KeplerianElements)} give the same states as {@link TwoBodyPropagator} at the epoch.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void batchToCartesian() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(300, 37L);
+        ElementBatch batch = new ElementBatch(catalog);
+        KeplerianElements elements = new KeplerianElements(batch.size());
+        double residual = ElementConverter.toKeplerian(batch, elements);
+        Assert.assertTrue("Residual " + residual, residual < 1.0e-13);
+
+        StateVectors states = new StateVectors(batch.size());
+        ElementConverter.toCartesian(elements, states);
+        double[] expected = new double[6];
+        double[] actual = new double[6];
+        for (int i = 0; i < batch.size(); i++) {
+            TLE tle = catalog.get(i);
+            Assert.assertEquals(tle.getMeanAnomaly(), elements.getMeanAnomaly(i), 0.0);
+            Assert.assertEquals(tle.getOrbitalProperties().getSemiMajorAxis(),
+                                elements.getSemiMajorAxis(i), 0.0);
+            Assert.assertTrue(new TwoBodyPropagator(tle).propagateMinutes(0.0, expected, 0));
+            states.get(i, actual, 0);
+            for (int c = 0; c < 3; c++) {
+                Assert.assertEquals(expected[c], actual[c], 1.0e-6);
+                Assert.assertEquals(expected[c + 3], actual[c + 3], 1.0e-9);
+            }
+        }
+    }
+
+    /**
+     * Tests that {@link ElementConverter#toKeplerian(StateVectors, KeplerianElements)} inverts
+     * {@link ElementConverter#toCartesian(KeplerianElements, StateVectors)}, including for
+     * circular, equatorial and retrograde orbits.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void roundTrip() throws Exception {
+        double[][] rows = {
+                // a, e, i, raan, argp, true anomaly
+                {7000.0, 0.001, 51.6, 120.0, 30.0, 200.0},
+                {26560.0, 0.72, 63.4, 300.0, 270.0, 5.0},
+                {42164.0, 0.3, 10.0, 0.5, 359.0, 180.0},
+                {8000.0, 0.2, 150.0, 45.0, 90.0, 90.0},
+                {7000.0, 0.0, 98.0, 80.0, 0.0, 33.0},
+                {42164.0, 0.1, 0.0, 0.0, 40.0, 10.0},
+                {42164.0, 0.0, 0.0, 0.0, 0.0, 250.0}};
+        KeplerianElements elements = new KeplerianElements(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            elements.semiMajorAxis[i] = rows[i][0];
+            elements.eccentricity[i] = rows[i][1];
+            elements.inclination[i] = rows[i][2];
+            elements.raan[i] = rows[i][3];
+            elements.argumentOfPerigee[i] = rows[i][4];
+            elements.trueAnomaly[i] = rows[i][5];
+        }
+        StateVectors states = new StateVectors(rows.length);
+        ElementConverter.toCartesian(elements, states);
+        KeplerianElements back = new KeplerianElements(rows.length);
+        ElementConverter.toKeplerian(states, back);
+        for (int i = 0; i < rows.length; i++) {
+            Assert.assertTrue(back.isValid(i));
+            Assert.assertEquals(rows[i][0], back.getSemiMajorAxis(i), 1.0e-6);
+            Assert.assertEquals(rows[i][1], back.getEccentricity(i), 1.0e-10);
+            Assert.assertEquals(rows[i][2], back.getInclination(i), 1.0e-8);
+            Assert.assertEquals(rows[i][3], back.getRaan(i), 1.0e-7);
+            // Sum of the angles, well defined even for circular orbits
+            double expected = rows[i][4] + rows[i][5];
+            double actual = back.getArgumentOfPerigee(i) + back.getTrueAnomaly(i);
+            Assert.assertEquals(0.0, Math.IEEEremainder(expected - actual, 360.0), 1.0e-7);
+            if (rows[i][1] > 0.0) {
+                Assert.assertEquals(rows[i][4], back.getArgumentOfPerigee(i), 1.0e-6);
+            }
+        }
+
+        // Same states after a second conversion
+        StateVectors again = new StateVectors(rows.length);
+        ElementConverter.toCartesian(back, again);
+        for (int i = 0; i < rows.length; i++) {
+            Assert.assertEquals(states.getX(i), again.getX(i), 1.0e-6);
+            Assert.assertEquals(states.getVz(i), again.getVz(i), 1.0e-9);
+        }
+    }
+
+    /**
+     * Tests that the osculating elements of SGP4 states stay close to the mean elements of the
+     * TLE.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void osculatingElements() throws Exception {
+        List<TLE> catalog = Arrays.asList(TestCatalogs.DELTA,
+                                          TestCatalogs.tle(90060, 98.0, 10.0, 0.001, 0.0, 0.0,
+                                                           14.6));
+        CatalogPropagator propagator = new CatalogPropagator(catalog);
+        StateVectors states = new StateVectors(catalog.size());
+        KeplerianElements elements = new KeplerianElements(catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            TLE tle = catalog.get(i);
+            long epoch = (long) propagator.getPropagator(i).getEpochMillisecond();
+            propagator.propagate(epoch, states);
+            ElementConverter.toKeplerian(states, elements);
+            Assert.assertEquals(tle.getOrbitalProperties().getSemiMajorAxis(),
+                                elements.getSemiMajorAxis(i), 20.0);
+            Assert.assertEquals(tle.getInclination(), elements.getInclination(i), 0.1);
+            Assert.assertEquals(tle.getRaan(), elements.getRaan(i), 0.1);
+            Assert.assertEquals(tle.getEccentricity(), elements.getEccentricity(i), 0.003);
+        }
+    }
+
+    /**
+     * Tests that invalid states and elements give invalid rows.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidRows() throws Exception {
+        StateVectors states = new StateVectors(2);
+        // Hyperbolic: faster than the escape velocity
+        states.set(1, new double[] {7000.0, 0.0, 0.0, 0.0, 12.0, 0.0}, 0);
+        KeplerianElements elements = new KeplerianElements(2);
+        ElementConverter.toKeplerian(states, elements);
+        Assert.assertFalse(elements.isValid(0));
+        Assert.assertFalse(elements.isValid(1));
+
+        ElementConverter.toCartesian(elements, states);
+        Assert.assertFalse(states.isValid(0));
+        Assert.assertFalse(states.isValid(1));
+
+        try {
+            ElementConverter.toCartesian(elements, new StateVectors(3));
+            Assert.fail("Expected an exception for different sizes");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
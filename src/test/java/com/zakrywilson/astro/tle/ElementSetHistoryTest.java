@@ -0,0 +1,154 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tests {@link ElementSetHistory} and {@link ElementSetSeries}.
+ *
+ * @author Zach Wilson
+ */
+public class ElementSetHistoryTest {
+
+    /**
+     * Tests the lookups of {@link ElementSetSeries} against a <code>TreeMap</code>, with element
+     * sets added out of order.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void lookups() throws Exception {
+        Random random = new Random(47L);
+        ElementSetHistory history = new ElementSetHistory();
+        Map<Integer, TreeMap<Long, TLE>> expected = new TreeMap<>();
+        for (int k = 0; k < 5000; k++) {
+            int number = random.nextBoolean() ? 1 + random.nextInt(20) : 150000 + random.nextInt(5);
+            TLE tle = TestCatalogs.tle(1, 51.6, random.nextDouble() * 360.0, 0.001, 0.0, 0.0,
+                                       15.5);
+            tle.setSatelliteNumber(number);
+            // Whole minutes so that the epochs round trip exactly, with some repeated
+            tle.setEpochDay(1.0 + random.nextInt(20000) / 1440.0);
+            TreeMap<Long, TLE> sets = expected.computeIfAbsent(number, n -> new TreeMap<>());
+            boolean added = !sets.containsKey(tle.getEpochMillisecond());
+            Assert.assertEquals(added, history.add(tle));
+            if (added) {
+                sets.put(tle.getEpochMillisecond(), tle);
+            }
+        }
+        Assert.assertEquals(expected.size(), history.getSatelliteCount());
+        Assert.assertEquals(expected.values().stream().mapToLong(Map::size).sum(), history.size());
+        Assert.assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                                 history.getSatelliteNumbers());
+
+        for (Map.Entry<Integer, TreeMap<Long, TLE>> entry : expected.entrySet()) {
+            TreeMap<Long, TLE> sets = entry.getValue();
+            ElementSetSeries series = history.getSeries(entry.getKey());
+            Assert.assertEquals(sets.size(), series.size());
+            long first = sets.firstKey();
+            long last = sets.lastKey();
+            for (int q = 0; q < 200; q++) {
+                long time = first - 86400000L + (long) (random.nextDouble() * (last - first
+                        + 2 * 86400000L));
+                Long floor = sets.floorKey(time);
+                Long ceiling = sets.ceilingKey(time);
+                assertPosition(series, floor, series.floor(time));
+                assertPosition(series, ceiling, series.ceiling(time));
+                Long nearest = floor == null ? ceiling : ceiling == null ? floor
+                        : time - floor <= ceiling - time ? floor : ceiling;
+                assertPosition(series, nearest, series.nearest(time));
+
+                if (entry.getKey() <= 99999) {
+                    TLE inEffect = history.getTLE(entry.getKey(), time);
+                    if (floor == null) {
+                        Assert.assertNull(inEffect);
+                    } else {
+                        Assert.assertEquals(sets.get(floor).getRaan(), inEffect.getRaan(), 0.0);
+                    }
+                }
+
+                long to = time + (long) (random.nextDouble() * 5.0 * 86400000.0);
+                List<Long> scanned = new ArrayList<>();
+                int count = series.forEachInRange(time, to,
+                                                  k -> scanned.add(series.getEpochMillisecond(k)));
+                Assert.assertEquals(new ArrayList<>(sets.subMap(time, true, to, true).keySet()),
+                                    scanned);
+                Assert.assertEquals(scanned.size(), count);
+            }
+        }
+        Assert.assertNull(history.getSeries(99999));
+        Assert.assertNull(history.getTLE(12345, 0L));
+    }
+
+    /**
+     * Tests that {@link ElementSetSeries#getTLE(int)} rebuilds the element set and that a same
+     * epoch is only replaced by a higher element set number.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void roundTrip() throws Exception {
+        ElementSetHistory history = new ElementSetHistory();
+        Assert.assertTrue(history.add(TestCatalogs.VANGUARD));
+        TLE tle = history.getTLE(TestCatalogs.VANGUARD.getSatelliteNumber(),
+                                 TestCatalogs.VANGUARD.getEpochMillisecond());
+        TLE vanguard = TestCatalogs.VANGUARD;
+        Assert.assertEquals(vanguard.getTitle(), tle.getTitle());
+        Assert.assertEquals(vanguard.getSatelliteNumber(), tle.getSatelliteNumber());
+        Assert.assertEquals(vanguard.getInternationalDesignator(),
+                            tle.getInternationalDesignator());
+        Assert.assertEquals(vanguard.getClassification(), tle.getClassification());
+        Assert.assertEquals(vanguard.getEpochYear(), tle.getEpochYear());
+        Assert.assertEquals(vanguard.getEpochDay(), tle.getEpochDay(), 0.0);
+        Assert.assertEquals(vanguard.getElementSetNumber(), tle.getElementSetNumber());
+        Assert.assertEquals(vanguard.getInclination(), tle.getInclination(), 0.0);
+        Assert.assertEquals(vanguard.getRaan(), tle.getRaan(), 0.0);
+        Assert.assertEquals(vanguard.getEccentricity(), tle.getEccentricity(), 0.0);
+        Assert.assertEquals(vanguard.getArgumentOfPerigee(), tle.getArgumentOfPerigee(), 0.0);
+        Assert.assertEquals(vanguard.getMeanAnomaly(), tle.getMeanAnomaly(), 0.0);
+        Assert.assertEquals(vanguard.getMeanMotion(), tle.getMeanMotion(), 0.0);
+        Assert.assertEquals(vanguard.getFirstDerivativeOfMeanMotion(),
+                            tle.getFirstDerivativeOfMeanMotion(), 0.0);
+        Assert.assertEquals(vanguard.getSecondDerivativeOfMeanMotion(),
+                            tle.getSecondDerivativeOfMeanMotion(), 0.0);
+        Assert.assertEquals(vanguard.getDragTerm(), tle.getDragTerm(), 0.0);
+        Assert.assertEquals(vanguard.getRevolutions(), tle.getRevolutions());
+        Assert.assertEquals(vanguard.getEpochMillisecond(), tle.getEpochMillisecond());
+
+        TLE reissued = TestCatalogs.tle(TestCatalogs.VANGUARD.getSatelliteNumber(), 10.0, 0.0, 0.1,
+                                        0.0, 0.0, 10.0);
+        reissued.setEpochYear(TestCatalogs.VANGUARD.getEpochYear());
+        reissued.setEpochDay(TestCatalogs.VANGUARD.getEpochDay());
+        reissued.setElementSetNumber(TestCatalogs.VANGUARD.getElementSetNumber());
+        Assert.assertFalse(history.add(reissued));
+        reissued.setElementSetNumber(TestCatalogs.VANGUARD.getElementSetNumber() + 1);
+        Assert.assertTrue(history.add(reissued));
+        Assert.assertEquals(1L, history.size());
+        Assert.assertEquals(10.0, history.getSeries(reissued.getSatelliteNumber())
+                                         .getInclination(0), 0.0);
+
+        try {
+            history.add(null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Asserts that a position of a series holds an expected epoch.
+     */
+    private static void assertPosition(ElementSetSeries series, Long epoch, int k) {
+        if (epoch == null) {
+            Assert.assertEquals(-1, k);
+        } else {
+            Assert.assertEquals((long) epoch, series.getEpochMillisecond(k));
+        }
+    }
+
+}
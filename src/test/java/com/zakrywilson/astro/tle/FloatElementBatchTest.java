@@ -0,0 +1,107 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link FloatElementBatch} and {@link FloatStateVectors}.
+ *
+ * @author Zach Wilson
+ */
+public class FloatElementBatchTest {
+
+    /**
+     * Tests that the columns of {@link FloatElementBatch} stay within their documented error
+     * bounds, and that both constructors agree.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void errorBounds() throws Exception {
+        List<TLE> catalog = new ArrayList<>(TestCatalogs.mixed(500, 38L));
+        catalog.add(TestCatalogs.VANGUARD);
+        catalog.add(TestCatalogs.DELTA);
+        ElementBatch batch = new ElementBatch(catalog);
+        FloatElementBatch narrow = new FloatElementBatch(catalog);
+        FloatElementBatch converted = new FloatElementBatch(batch);
+        Assert.assertEquals(batch.size(), narrow.size());
+        Assert.assertEquals(batch.getCatalog(), narrow.getCatalog());
+
+        for (int i = 0; i < batch.size(); i++) {
+            Assert.assertEquals(batch.getSatelliteNumber(i), narrow.getSatelliteNumber(i));
+            Assert.assertEquals(batch.getEpochMillisecond(i), narrow.getEpochMillisecond(i), 0.0);
+            Assert.assertEquals(batch.getInclination(i), narrow.getInclination(i), 7.7e-6);
+            Assert.assertEquals(batch.getRaan(i), narrow.getRaan(i), 1.6e-5);
+            Assert.assertEquals(batch.getArgumentOfPerigee(i), narrow.getArgumentOfPerigee(i),
+                                1.6e-5);
+            Assert.assertEquals(batch.getMeanAnomaly(i), narrow.getMeanAnomaly(i), 1.6e-5);
+            Assert.assertEquals(batch.getEccentricity(i), narrow.getEccentricity(i), 3.0e-8);
+            Assert.assertEquals(batch.getMeanMotion(i), narrow.getMeanMotion(i), 9.6e-7);
+            Assert.assertEquals(batch.getFirstDerivativeOfMeanMotion(i),
+                                narrow.getFirstDerivativeOfMeanMotion(i),
+                                Math.abs(batch.getFirstDerivativeOfMeanMotion(i)) * 6.0e-8);
+            Assert.assertEquals(batch.getDragTerm(i), narrow.getDragTerm(i),
+                                Math.abs(batch.getDragTerm(i)) * 6.0e-8);
+            Assert.assertEquals(batch.getSemiMajorAxis(i), narrow.getSemiMajorAxis(i), 0.002);
+            Assert.assertEquals(batch.getApogeeAltitude(i), narrow.getApogeeAltitude(i), 0.002);
+            Assert.assertEquals(batch.getPerigeeAltitude(i), narrow.getPerigeeAltitude(i), 0.002);
+            Assert.assertEquals(batch.getPeriod(i), narrow.getPeriod(i), 6.1e-5);
+            Assert.assertEquals(batch.getRegime(i), narrow.getRegime(i));
+
+            Assert.assertEquals(narrow.getMeanMotion(i), converted.getMeanMotion(i), 0.0f);
+            Assert.assertEquals(narrow.getSemiMajorAxis(i), converted.getSemiMajorAxis(i), 0.0f);
+        }
+    }
+
+    /**
+     * Tests that {@link CatalogPropagator#propagate(long, FloatStateVectors)} rounds the
+     * <code>double</code> states within the documented bounds, keeping invalid rows invalid.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void stateVectors() throws Exception {
+        List<TLE> catalog = new ArrayList<>(TestCatalogs.mixed(300, 39L));
+        // Decays long before the propagation time
+        TLE decaying = TestCatalogs.tle(90070, 51.6, 0.0, 0.001, 0.0, 0.0, 16.4);
+        decaying.setDragTerm(0.5);
+        catalog.add(decaying);
+        CatalogPropagator propagator = new CatalogPropagator(catalog);
+        long time = TestCatalogs.EPOCH + 40L * 86400000L;
+        StateVectors states = new StateVectors(catalog.size());
+        FloatStateVectors narrow = new FloatStateVectors(catalog.size());
+        propagator.propagate(time, states);
+        propagator.propagate(time, narrow);
+
+        FloatStateVectors copied = new FloatStateVectors(catalog.size());
+        copied.set(states);
+        double[] state = new double[6];
+        for (int i = 0; i < catalog.size(); i++) {
+            Assert.assertEquals(states.isValid(i), narrow.isValid(i));
+            if (!states.isValid(i)) {
+                continue;
+            }
+            Assert.assertEquals(states.getX(i), narrow.getX(i), 0.002);
+            Assert.assertEquals(states.getY(i), narrow.getY(i), 0.002);
+            Assert.assertEquals(states.getZ(i), narrow.getZ(i), 0.002);
+            Assert.assertEquals(states.getVx(i), narrow.getVx(i), 5.0e-7);
+            Assert.assertEquals(states.getVy(i), narrow.getVy(i), 5.0e-7);
+            Assert.assertEquals(states.getVz(i), narrow.getVz(i), 5.0e-7);
+            narrow.get(i, state, 0);
+            Assert.assertEquals(narrow.getVz(i), state[5], 0.0);
+            Assert.assertEquals(narrow.getX(i), copied.getX(i), 0.0f);
+        }
+        Assert.assertFalse(narrow.isValid(catalog.size() - 1));
+
+        try {
+            propagator.propagate(time, new FloatStateVectors(3));
+            Assert.fail("Expected an exception for the wrong size");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link FrameTransformer}.
+ *
+ * @author Zach Wilson
+ */
+public class FrameTransformerTest {
+
+    /**
+     * Tests {@link FrameTransformer#ecefToGeodetic(StateVectors, GeodeticCoordinates)} on
+     * positions built from known geodetic coordinates.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void ecefToGeodetic() throws Exception {
+        Random random = new Random(11L);
+        int size = 1000;
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] altitudes = new double[size];
+        StateVectors ecef = new StateVectors(size);
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = random.nextDouble() * 180.0 - 90.0;
+            longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+            altitudes[i] = random.nextDouble() * 40000.0;
+            GroundStation point = new GroundStation("", latitudes[i], longitudes[i], altitudes[i]);
+            ecef.set(i, new double[] {point.x, point.y, point.z, 0.0, 0.0, 0.0}, 0);
+        }
+        ecef.set(size - 1, new double[] {0.0, 0.0, 7000.0, 0.0, 0.0, 0.0}, 0);
+        latitudes[size - 1] = 90.0;
+        longitudes[size - 1] = 0.0;
+        altitudes[size - 1] = 7000.0 - 6356.752314245;
+
+        GeodeticCoordinates geodetic = new GeodeticCoordinates(size);
+        FrameTransformer.ecefToGeodetic(ecef, geodetic);
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(latitudes[i], geodetic.getLatitude(i), 1.0e-9);
+            Assert.assertEquals(longitudes[i], geodetic.getLongitude(i), 1.0e-9);
+            Assert.assertEquals(altitudes[i], geodetic.getAltitude(i), 1.0e-6);
+        }
+    }
+
+    /**
+     * Tests {@link FrameTransformer#temeToEcef(long, StateVectors, StateVectors)} and {@link
+     * FrameTransformer#temeToGeodetic(long, StateVectors, GeodeticCoordinates)} against the
+     * elevation seen from a station and the motion of the Earth-fixed positions.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void temeToEcef() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(200, 5L);
+        CatalogPropagator propagator = new CatalogPropagator(catalog);
+        long t = TestCatalogs.EPOCH + 7200000L;
+        StateVectors teme = new StateVectors(catalog.size());
+        StateVectors before = new StateVectors(catalog.size());
+        StateVectors after = new StateVectors(catalog.size());
+        propagator.propagate(t, teme);
+        propagator.propagate(t - 500L, before);
+        propagator.propagate(t + 500L, after);
+
+        StateVectors ecef = new StateVectors(catalog.size());
+        FrameTransformer.temeToEcef(t, teme, ecef);
+        FrameTransformer.temeToEcef(t - 500L, before, before);
+        FrameTransformer.temeToEcef(t + 500L, after, after);
+
+        GroundStation station = new GroundStation("Boulder", 40.015, -105.27, 1.655);
+        double gmst = SiderealTime.gmst(t);
+        for (int i = 0; i < catalog.size(); i++) {
+            Assert.assertEquals(GroundStationTest.elevationFromTeme(station, gmst, teme.getX(i),
+                                                                    teme.getY(i), teme.getZ(i)),
+                                station.elevation(ecef.getX(i), ecef.getY(i), ecef.getZ(i)),
+                                1.0e-12);
+            // SGP4 velocities differ from the derivative of its positions by up to a couple of
+            // meters per second on eccentric orbits
+            Assert.assertEquals(after.getX(i) - before.getX(i), ecef.getVx(i), 5.0e-3);
+            Assert.assertEquals(after.getY(i) - before.getY(i), ecef.getVy(i), 5.0e-3);
+            Assert.assertEquals(after.getZ(i) - before.getZ(i), ecef.getVz(i), 5.0e-3);
+        }
+
+        GeodeticCoordinates direct = new GeodeticCoordinates(catalog.size());
+        GeodeticCoordinates twoStep = new GeodeticCoordinates(catalog.size());
+        FrameTransformer.temeToGeodetic(t, teme, direct);
+        FrameTransformer.ecefToGeodetic(ecef, twoStep);
+        for (int i = 0; i < catalog.size(); i++) {
+            Assert.assertEquals(twoStep.getLatitude(i), direct.getLatitude(i), 0.0);
+            Assert.assertEquals(twoStep.getLongitude(i), direct.getLongitude(i), 0.0);
+            Assert.assertEquals(twoStep.getAltitude(i), direct.getAltitude(i), 0.0);
+        }
+    }
+
+}
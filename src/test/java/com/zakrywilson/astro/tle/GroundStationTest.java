@@ -0,0 +1,74 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link GroundStation}.
+ *
+ * @author Zach Wilson
+ */
+public class GroundStationTest {
+
+    /**
+     * Tests the Earth-fixed position of {@link GroundStation}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void position() throws Exception {
+        GroundStation equator = new GroundStation("equator", 0.0, 0.0, 0.0);
+        Assert.assertEquals(6378.137, equator.x, 1.0e-9);
+        Assert.assertEquals(0.0, equator.y, 1.0e-9);
+        Assert.assertEquals(0.0, equator.z, 1.0e-9);
+
+        GroundStation pole = new GroundStation("pole", 90.0, 0.0, 1.0);
+        Assert.assertEquals(6356.752314245 + 1.0, pole.z, 1.0e-6);
+        Assert.assertEquals(0.0, pole.x, 1.0e-9);
+
+        GroundStation east = new GroundStation("east", 0.0, 90.0, 0.0);
+        Assert.assertEquals(6378.137, east.y, 1.0e-9);
+    }
+
+    /**
+     * Tests {@link GroundStation#elevation(double, double, double)}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void elevation() throws Exception {
+        GroundStation station = new GroundStation("equator", 0.0, 0.0, 0.0);
+        Assert.assertEquals(Math.PI / 2.0, station.elevation(7000.0, 0.0, 0.0), 1.0e-12);
+        Assert.assertEquals(0.0, station.elevation(6378.137, 1000.0, 0.0), 1.0e-12);
+        Assert.assertTrue(station.elevation(-7000.0, 0.0, 0.0) < 0.0);
+    }
+
+    /**
+     * Tests the validation of {@link GroundStation#GroundStation(String, double, double, double)}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLatitude() throws Exception {
+        new GroundStation("invalid", 91.0, 0.0, 0.0);
+    }
+
+    /**
+     * Returns the elevation of a TEME position seen from a station, rotating the position into
+     * the Earth-fixed frame one at a time, for checking the batch computations against.
+     *
+     * @param station the station
+     * @param gmst the Greenwich mean sidereal time in radians
+     * @param tx the x component of the TEME position in kilometers
+     * @param ty the y component of the TEME position in kilometers
+     * @param tz the z component of the TEME position in kilometers
+     * @return the elevation above the local horizontal in radians
+     */
+    static double elevationFromTeme(GroundStation station, double gmst, double tx, double ty,
+                                    double tz) {
+        double cos = Math.cos(gmst);
+        double sin = Math.sin(gmst);
+        return station.elevation(cos * tx + sin * ty, -sin * tx + cos * ty, tz);
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link GroundTrackGenerator}.
+ *
+ * @author Zach Wilson
+ */
+public class GroundTrackGeneratorTest {
+
+    private static final TLE POLAR = TestCatalogs.tle(90020, 98.7, 120.0, 0.001, 30.0, 0.0, 14.2);
+
+    /**
+     * Tests {@link GroundTrackGenerator#generate(TLE, long, long,
+     * GroundTrackGenerator.PointConsumer)} against the batch frame transformation.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void generate() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L + 123L;
+        List<double[]> points = new ArrayList<>();
+        long count = new GroundTrackGenerator(60000L).generate(
+                POLAR, start, end, (t, lat, lon, alt) -> points.add(new double[] {t, lat, lon, alt}));
+        Assert.assertEquals(points.size(), count);
+        Assert.assertEquals(1442, count);
+        Assert.assertEquals(start, (long) points.get(0)[0]);
+        Assert.assertEquals(end, (long) points.get(points.size() - 1)[0]);
+
+        SGP4Propagator propagator = new SGP4Propagator(POLAR);
+        StateVectors state = new StateVectors(1);
+        GeodeticCoordinates geodetic = new GeodeticCoordinates(1);
+        double[] buffer = new double[6];
+        for (double[] point : points) {
+            long t = (long) point[0];
+            propagator.propagate(t, buffer);
+            state.set(0, buffer, 0);
+            FrameTransformer.temeToGeodetic(t, state, geodetic);
+            Assert.assertEquals(geodetic.getLatitude(0), point[1], 0.0);
+            Assert.assertEquals(geodetic.getLongitude(0), point[2], 0.0);
+            Assert.assertEquals(geodetic.getAltitude(0), point[3], 0.0);
+        }
+    }
+
+    /**
+     * Tests that the adaptive step of {@link GroundTrackGenerator} shortens near the poles and
+     * the antimeridian.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void adaptiveStep() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        List<double[]> points = new ArrayList<>();
+        new GroundTrackGenerator(60000L, 5000L).generate(
+                POLAR, start, end, (t, lat, lon, alt) -> points.add(new double[] {t, lat, lon, alt}));
+        Assert.assertTrue(points.size() > 1440);
+        for (int i = 1; i < points.size() - 1; i++) {
+            double[] previous = points.get(i - 1);
+            long step = (long) (points.get(i)[0] - previous[0]);
+            Assert.assertTrue(step >= 5000L && step <= 60000L);
+            if (Math.abs(previous[1]) > 80.0 || Math.abs(previous[2]) > 175.0) {
+                Assert.assertTrue(step <= 60000L * Math.cos(Math.toRadians(80.0)) + 1.0);
+            }
+        }
+    }
+
+    /**
+     * Tests that the antimeridian is crossed with the minimum step even when a nominal step moves
+     * the track much farther than the margin.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void antimeridianCrossings() throws Exception {
+        TLE inclined = TestCatalogs.tle(90021, 28.5, 40.0, 0.001, 30.0, 0.0, 15.5);
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        for (TLE tle : new TLE[] {POLAR, inclined}) {
+            List<double[]> points = new ArrayList<>();
+            new GroundTrackGenerator(600000L, 5000L).generate(
+                    tle, start, end, (t, lat, lon, alt) -> points.add(new double[] {t, lat, lon}));
+            int crossings = 0;
+            for (int i = 1; i < points.size(); i++) {
+                double[] previous = points.get(i - 1);
+                if (Math.abs(points.get(i)[2] - previous[2]) > 180.0) {
+                    crossings++;
+                    Assert.assertEquals(5000.0, points.get(i)[0] - previous[0], 0.0);
+                }
+            }
+            Assert.assertTrue(crossings >= 14);
+        }
+    }
+
+    /**
+     * Tests {@link GroundTrackGenerator#write(TLE, long, long,
+     * java.nio.channels.WritableByteChannel)}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void write() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 3L * 86400000L;
+        GroundTrackGenerator generator = new GroundTrackGenerator(30000L, 5000L);
+        List<double[]> points = new ArrayList<>();
+        generator.generate(POLAR, start, end,
+                           (t, lat, lon, alt) -> points.add(new double[] {t, lat, lon, alt}));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long count = generator.write(POLAR, start, end, Channels.newChannel(bytes));
+        Assert.assertEquals(points.size(), count);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        Assert.assertEquals(count * GroundTrackGenerator.RECORD_SIZE, buffer.remaining());
+        for (double[] point : points) {
+            Assert.assertEquals(POLAR.getSatelliteNumber(), buffer.getInt());
+            Assert.assertEquals((long) point[0], buffer.getLong());
+            Assert.assertEquals(point[1], buffer.getDouble(), 0.0);
+            Assert.assertEquals(point[2], buffer.getDouble(), 0.0);
+            Assert.assertEquals(point[3], buffer.getDouble(), 0.0);
+        }
+    }
+
+    /**
+     * Tests that {@link GroundTrackGenerator#generate(TLE, long, long,
+     * GroundTrackGenerator.PointConsumer)} emits a single point for an empty range.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void emptyRange() throws Exception {
+        List<Long> times = new ArrayList<>();
+        long count = new GroundTrackGenerator(60000L).generate(
+                POLAR, TestCatalogs.EPOCH, TestCatalogs.EPOCH, (t, lat, lon, alt) -> times.add(t));
+        Assert.assertEquals(1, count);
+        Assert.assertEquals(TestCatalogs.EPOCH, (long) times.get(0));
+    }
+
+}
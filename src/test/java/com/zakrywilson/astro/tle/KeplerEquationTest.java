@@ -0,0 +1,150 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link KeplerEquation}.
+ *
+ * @author Zach Wilson
+ */
+public class KeplerEquationTest {
+
+    /**
+     * Tests that {@link KeplerEquation#eccentricAnomaly(double[], double[], double[], double[])}
+     * solves Kepler's equation to machine precision for eccentricities up to 0.95, over several
+     * revolutions of either sign.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void eccentricAnomaly() throws Exception {
+        int n = 20000;
+        double[] mean = new double[n];
+        double[] eccentricity = new double[n];
+        for (int i = 0; i < n; i++) {
+            mean[i] = -20.0 + 40.0 * i / n;
+            eccentricity[i] = 0.95 * (i % 97) / 96.0;
+        }
+        double[] anomaly = new double[n];
+        double[] residual = new double[n];
+        double largest = KeplerEquation.eccentricAnomaly(mean, eccentricity, anomaly, residual);
+        Assert.assertTrue("Largest residual " + largest, largest < 1.0e-14);
+        for (int i = 0; i < n; i++) {
+            double e = eccentricity[i];
+            Assert.assertEquals(mean[i], anomaly[i] - e * Math.sin(anomaly[i]), 1.0e-13);
+            Assert.assertEquals(Math.abs(anomaly[i] - e * Math.sin(anomaly[i]) - mean[i]),
+                                residual[i], 1.0e-15);
+            // Same revolution as the mean anomaly
+            Assert.assertEquals(mean[i], anomaly[i], Math.PI);
+        }
+    }
+
+    /**
+     * Tests that the residuals of
+     * {@link KeplerEquation#eccentricAnomaly(double[], double[], double[], double[], int)} flag
+     * extreme eccentricities, and that more iterations clear them.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void highEccentricity() throws Exception {
+        int n = 10001;
+        double[] mean = new double[n];
+        double[] eccentricity = new double[n];
+        for (int i = 0; i < n; i++) {
+            mean[i] = -Math.PI + 2.0 * Math.PI * i / (n - 1);
+            eccentricity[i] = 0.999;
+        }
+        double[] anomaly = new double[n];
+        double[] residual = new double[n];
+        double largest = KeplerEquation.eccentricAnomaly(mean, eccentricity, anomaly, residual);
+        Assert.assertTrue("Largest residual " + largest, largest > 1.0e-8);
+        double max = 0.0;
+        for (double r : residual) {
+            max = Math.max(max, r);
+        }
+        Assert.assertEquals(largest, max, 0.0);
+
+        largest = KeplerEquation.eccentricAnomaly(mean, eccentricity, anomaly, residual, 5);
+        Assert.assertTrue("Largest residual " + largest, largest < 1.0e-14);
+
+        // NaN inputs are reported
+        mean[0] = Double.NaN;
+        Assert.assertTrue(Double.isNaN(KeplerEquation.eccentricAnomaly(mean, eccentricity, anomaly,
+                                                                        null)));
+    }
+
+    /**
+     * Tests the conversions between mean, eccentric and true anomalies of
+     * {@link KeplerEquation}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void conversions() throws Exception {
+        double[] eccentricity = {0.0, 0.1, 0.5, 0.72, 0.9, 0.3};
+        double[] mean = {0.4, -1.0, 3.0, 0.01, -3.1, 2.0};
+        double[] trueAnomaly = new double[6];
+        Assert.assertTrue(KeplerEquation.trueFromMean(mean, eccentricity, trueAnomaly, null)
+                                  < 1.0e-14);
+
+        // Circular orbit: all anomalies are equal
+        Assert.assertEquals(0.4, trueAnomaly[0], 1.0e-15);
+        // The true anomaly runs ahead of the mean anomaly after perigee
+        Assert.assertTrue(trueAnomaly[2] > 3.0 || trueAnomaly[2] < -3.0);
+        Assert.assertTrue(trueAnomaly[3] > 0.01);
+
+        // Closed-form check: tan(nu / 2) = sqrt((1 + e) / (1 - e)) tan(E / 2)
+        double[] eccentric = new double[6];
+        KeplerEquation.eccentricFromTrue(trueAnomaly, eccentricity, eccentric);
+        for (int i = 0; i < 6; i++) {
+            double e = eccentricity[i];
+            Assert.assertEquals(Math.tan(trueAnomaly[i] / 2.0),
+                                Math.sqrt((1.0 + e) / (1.0 - e)) * Math.tan(eccentric[i] / 2.0),
+                                1.0e-9);
+        }
+
+        double[] back = new double[6];
+        KeplerEquation.meanAnomaly(eccentric, eccentricity, back);
+        Assert.assertArrayEquals(mean, back, 1.0e-12);
+        KeplerEquation.trueAnomaly(eccentric, eccentricity, back);
+        Assert.assertArrayEquals(trueAnomaly, back, 1.0e-12);
+    }
+
+    /**
+     * Tests that {@link KeplerEquation} rejects invalid arrays.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        double[] three = new double[3];
+        double[] four = new double[4];
+        try {
+            KeplerEquation.eccentricAnomaly(three, three, four, null);
+            Assert.fail("Expected an exception for different lengths");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            KeplerEquation.eccentricAnomaly(three, three, three, four);
+            Assert.fail("Expected an exception for the residuals");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            KeplerEquation.eccentricAnomaly(three, three, three, null, 0);
+            Assert.fail("Expected an exception for no iterations");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            KeplerEquation.trueAnomaly(null, three, three);
+            Assert.fail("Expected an exception for a null array");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link LookAngleCalculator}.
+ *
+ * @author Zach Wilson
+ */
+public class LookAngleCalculatorTest {
+
+    private static final List<GroundStation> STATIONS = Arrays.asList(
+            new GroundStation("Boulder", 40.015, -105.27, 1.655),
+            new GroundStation("Svalbard", 78.23, 15.39, 0.5),
+            new GroundStation("Canberra", -35.4, 148.98, 0.7));
+
+    /**
+     * Tests {@link LookAngleCalculator#compute(long, StateVectors, LookAngles)} against the
+     * elevation of each pair, and the range rate against differences of the range.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void compute() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(500, 3L);
+        CatalogPropagator propagator = new CatalogPropagator(catalog);
+        long t = TestCatalogs.EPOCH + 3600000L;
+        StateVectors states = new StateVectors(catalog.size());
+        StateVectors before = new StateVectors(catalog.size());
+        StateVectors after = new StateVectors(catalog.size());
+        propagator.propagate(t, states);
+        propagator.propagate(t - 500L, before);
+        propagator.propagate(t + 500L, after);
+
+        LookAngleCalculator calculator = new LookAngleCalculator(STATIONS);
+        LookAngles angles = new LookAngles(catalog.size(), STATIONS.size());
+        LookAngles rangesBefore = new LookAngles(catalog.size(), STATIONS.size());
+        LookAngles rangesAfter = new LookAngles(catalog.size(), STATIONS.size());
+        calculator.compute(t, states, angles);
+        calculator.compute(t - 500L, before, rangesBefore);
+        calculator.compute(t + 500L, after, rangesAfter);
+
+        double gmst = SiderealTime.gmst(t);
+        for (int j = 0; j < STATIONS.size(); j++) {
+            GroundStation station = STATIONS.get(j);
+            for (int i = 0; i < catalog.size(); i++) {
+                if (!states.isValid(i)) {
+                    Assert.assertFalse(angles.isVisible(i, j));
+                    continue;
+                }
+                double elevation = Math.toDegrees(GroundStationTest.elevationFromTeme(
+                        station, gmst, states.getX(i), states.getY(i), states.getZ(i)));
+                Assert.assertEquals(elevation, angles.getElevation(i, j), 1.0e-9);
+                Assert.assertTrue(angles.getAzimuth(i, j) >= 0.0 && angles.getAzimuth(i, j) < 360.0);
+                // SGP4 velocities differ from the derivative of its positions by up to a couple of
+                // meters per second on eccentric orbits
+                double rate = (rangesAfter.getRange(i, j) - rangesBefore.getRange(i, j)) / 1.0;
+                Assert.assertEquals(rate, angles.getRangeRate(i, j), 5.0e-3);
+            }
+        }
+    }
+
+    /**
+     * Tests the azimuth computed by {@link LookAngleCalculator#compute(long, StateVectors,
+     * LookAngles)} for positions due north and due east of a station.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void azimuth() throws Exception {
+        GroundStation station = new GroundStation("equator", 0.0, 0.0, 0.0);
+        long t = TestCatalogs.EPOCH;
+        double gmst = SiderealTime.gmst(t);
+        StateVectors states = new StateVectors(2);
+        // Earth-fixed (7000, 0, 1000) is north of the station and (7000, 1000, 0) is east of it
+        states.set(0, teme(gmst, 7000.0, 0.0, 1000.0), 0);
+        states.set(1, teme(gmst, 7000.0, 1000.0, 0.0), 0);
+        LookAngles angles = new LookAngles(2, 1);
+        new LookAngleCalculator(Arrays.asList(station)).compute(t, states, angles);
+        Assert.assertEquals(0.0, angles.getAzimuth(0, 0), 1.0e-9);
+        Assert.assertEquals(90.0, angles.getAzimuth(1, 0), 1.0e-9);
+    }
+
+    /**
+     * Tests the elevation mask and the sequential variant of {@link LookAngleCalculator}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void mask() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(5000, 5L);
+        StateVectors states = new StateVectors(catalog.size());
+        long t = TestCatalogs.EPOCH;
+        new CatalogPropagator(catalog).propagate(t, states);
+
+        LookAngles all = new LookAngles(catalog.size(), STATIONS.size());
+        LookAngles masked = new LookAngles(catalog.size(), STATIONS.size());
+        new LookAngleCalculator(STATIONS).compute(t, states, all);
+        new LookAngleCalculator(STATIONS, 10.0).computeSequential(t, states, masked);
+        for (int j = 0; j < STATIONS.size(); j++) {
+            int expected = 0;
+            for (int i = 0; i < catalog.size(); i++) {
+                if (all.getElevation(i, j) >= 10.0) {
+                    expected++;
+                    Assert.assertEquals(all.getRange(i, j), masked.getRange(i, j), 0.0);
+                } else {
+                    Assert.assertFalse(masked.isVisible(i, j));
+                }
+            }
+            Assert.assertEquals(expected, masked.countVisible(j));
+            Assert.assertTrue(expected > 0);
+        }
+    }
+
+    /**
+     * Returns a state at rest in the Earth-fixed frame, expressed in TEME.
+     */
+    private static double[] teme(double gmst, double x, double y, double z) {
+        double cos = Math.cos(gmst);
+        double sin = Math.sin(gmst);
+        return new double[] {cos * x - sin * y, sin * x + cos * y, z, 0.0, 0.0, 0.0};
+    }
+
+}
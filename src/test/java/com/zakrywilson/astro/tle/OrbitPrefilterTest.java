@@ -0,0 +1,120 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link OrbitPrefilter}.
+ *
+ * @author Zach Wilson
+ */
+public class OrbitPrefilterTest {
+
+    private static final long START = TestCatalogs.EPOCH;
+    private static final long END = START + 86400000L;
+
+    /**
+     * Tests that orbits with separate altitude shells are pruned and overlapping ones are kept.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void radialBands() throws Exception {
+        List<TLE> catalog = new ArrayList<>();
+        catalog.add(TestCatalogs.tle(1, 51.6, 0.0, 0.0005, 0.0, 0.0, 15.5));  // ~400 km
+        catalog.add(TestCatalogs.tle(2, 98.0, 90.0, 0.001, 0.0, 0.0, 14.2));  // ~800 km
+        catalog.add(TestCatalogs.tle(3, 55.0, 45.0, 0.75, 270.0, 0.0, 2.006)); // HEO
+        catalog.add(TestCatalogs.tle(4, 0.1, 0.0, 0.0002, 0.0, 0.0, 1.0027)); // GEO
+
+        OrbitPrefilter prefilter = new OrbitPrefilter(catalog, 10.0, START, END);
+        Assert.assertFalse(prefilter.mayConflict(0, 1));
+        Assert.assertFalse(prefilter.mayConflict(0, 3));
+        Assert.assertFalse(prefilter.mayConflict(1, 3));
+        Assert.assertTrue(prefilter.mayConflict(0, 2));
+        Assert.assertTrue(prefilter.mayConflict(2, 3));
+        Assert.assertEquals(3L, prefilter.countCandidatePairs());
+    }
+
+    /**
+     * Tests that {@link OrbitPrefilter#forEachCandidatePair(OrbitPrefilter.PairVisitor)} visits
+     * exactly the pairs accepted by {@link OrbitPrefilter#mayConflict(int, int)}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void forEachCandidatePair() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(300, 27L);
+        OrbitPrefilter prefilter = new OrbitPrefilter(catalog, 10.0, START, END, true);
+        final boolean[][] visited = new boolean[catalog.size()][catalog.size()];
+        prefilter.forEachCandidatePair((first, second) -> {
+            Assert.assertTrue(first < second);
+            Assert.assertFalse(visited[first][second]);
+            visited[first][second] = true;
+        });
+        for (int i = 0; i < catalog.size(); i++) {
+            for (int j = i + 1; j < catalog.size(); j++) {
+                Assert.assertEquals(prefilter.mayConflict(i, j), visited[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Tests that the prefilter, with and without the plane sieve, never prunes a pair found by the
+     * conjunction screener, and that the plane sieve prunes further than the radial test.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void neverPrunesCloseApproaches() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(300, 28L);
+        long end = START + 3L * 3600000L;
+        double threshold = 20.0;
+        OrbitPrefilter radial = new OrbitPrefilter(catalog, threshold, START, end);
+        OrbitPrefilter sieve = new OrbitPrefilter(catalog, threshold, START, end, true);
+
+        List<CloseApproach> approaches = new ConjunctionScreener(threshold, 20000L)
+                .screen(catalog, START, end);
+        Assert.assertFalse(approaches.isEmpty());
+        for (CloseApproach approach : approaches) {
+            int i = catalog.indexOf(approach.getPrimary());
+            int j = catalog.indexOf(approach.getSecondary());
+            Assert.assertTrue(radial.mayConflict(i, j));
+            Assert.assertTrue("Plane sieve pruned " + approach, sieve.mayConflict(i, j));
+        }
+        Assert.assertTrue(sieve.countCandidatePairs() < radial.countCandidatePairs());
+    }
+
+    /**
+     * Tests that screening with a prefilter finds the same close approaches as without.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void screenWithPrefilter() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(400, 29L);
+        catalog.addAll(TestCatalogs.crowdedLeo(200, 30L).subList(0, 200));
+        List<TLE> renumbered = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            TLE tle = catalog.get(i);
+            renumbered.add(TestCatalogs.tle(i + 1, tle.getInclination(), tle.getRaan(),
+                                            tle.getEccentricity(), tle.getArgumentOfPerigee(),
+                                            tle.getMeanAnomaly(), tle.getMeanMotion()));
+        }
+        long end = START + 2L * 3600000L;
+        ConjunctionScreener screener = new ConjunctionScreener(20.0, 30000L);
+        CatalogPropagator propagator = new CatalogPropagator(renumbered);
+        OrbitPrefilter prefilter = new OrbitPrefilter(renumbered, 20.0, START, end, true);
+
+        List<CloseApproach> all = screener.screen(propagator, START, end);
+        List<CloseApproach> filtered = screener.screen(propagator, START, end, prefilter);
+        Assert.assertEquals(all.size(), filtered.size());
+        for (int i = 0; i < all.size(); i++) {
+            Assert.assertSame(all.get(i).getPrimary(), filtered.get(i).getPrimary());
+            Assert.assertSame(all.get(i).getSecondary(), filtered.get(i).getSecondary());
+        }
+    }
+
+}
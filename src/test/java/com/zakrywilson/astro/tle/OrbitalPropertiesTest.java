@@ -0,0 +1,114 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link OrbitalProperties} and {@link TLE#getOrbitalProperties()}.
+ *
+ * @author Zach Wilson
+ */
+public class OrbitalPropertiesTest {
+
+    /**
+     * Tests the quantities of {@link OrbitalProperties} for typical orbits of each regime.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void regimes() throws Exception {
+        OrbitalProperties leo = TestCatalogs.tle(90040, 51.6, 0.0, 0.0005, 0.0, 0.0, 15.5)
+                                            .getOrbitalProperties();
+        Assert.assertEquals(OrbitalRegime.LEO, leo.getRegime());
+        Assert.assertEquals(92.9, leo.getPeriod(), 0.1);
+        Assert.assertEquals(6796.0, leo.getSemiMajorAxis(), 10.0);
+        Assert.assertTrue(leo.getApogeeAltitude() > leo.getPerigeeAltitude());
+        Assert.assertEquals(leo.getApogeeAltitude() + 6378.135, leo.getApogeeRadius(), 1.0e-9);
+
+        OrbitalProperties meo = TestCatalogs.tle(90041, 55.0, 0.0, 0.01, 0.0, 0.0, 2.0056)
+                                            .getOrbitalProperties();
+        Assert.assertEquals(OrbitalRegime.MEO, meo.getRegime());
+        Assert.assertEquals(26560.0, meo.getSemiMajorAxis(), 10.0);
+
+        OrbitalProperties geo = TestCatalogs.tle(90042, 0.05, 0.0, 0.0002, 0.0, 0.0, 1.00273)
+                                            .getOrbitalProperties();
+        Assert.assertEquals(OrbitalRegime.GEO, geo.getRegime());
+        Assert.assertEquals(42164.0, geo.getSemiMajorAxis(), 5.0);
+        Assert.assertEquals(1436.1, geo.getPeriod(), 0.1);
+
+        OrbitalProperties heo = TestCatalogs.tle(90043, 63.4, 0.0, 0.72, 270.0, 0.0, 2.006)
+                                            .getOrbitalProperties();
+        Assert.assertEquals(OrbitalRegime.HEO, heo.getRegime());
+        Assert.assertTrue(heo.getPerigeeAltitude() < 2000.0);
+    }
+
+    /**
+     * Tests that the recovered mean motion of {@link OrbitalProperties} matches the period used
+     * by {@link SGP4Propagator} to flag deep-space orbits.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void recoveredMeanMotion() throws Exception {
+        for (TLE tle : Arrays.asList(TestCatalogs.VANGUARD, TestCatalogs.DELTA)) {
+            OrbitalProperties properties = tle.getOrbitalProperties();
+            Assert.assertNotEquals(tle.getMeanMotion(), properties.getRecoveredMeanMotion(), 0.0);
+            Assert.assertEquals(tle.getMeanMotion(), properties.getRecoveredMeanMotion(),
+                                1.0e-3 * tle.getMeanMotion());
+            Assert.assertEquals(new SGP4Propagator(tle).isDeepSpace(),
+                                properties.getPeriod() >= 225.0);
+            Assert.assertEquals(1440.0 / properties.getRecoveredMeanMotion(),
+                                properties.getPeriod(), 1.0e-9);
+        }
+    }
+
+    /**
+     * Tests the caching of {@link TLE#getOrbitalProperties()} and its invalidation when the
+     * elements change.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void caching() throws Exception {
+        TLE tle = new TLE();
+        tle.setEccentricity(0.001);
+        tle.setInclination(98.0);
+        tle.setMeanMotion(14.0);
+        OrbitalProperties first = tle.getOrbitalProperties();
+        Assert.assertSame(first, tle.getOrbitalProperties());
+
+        tle.setMeanMotion(1.0027);
+        OrbitalProperties second = tle.getOrbitalProperties();
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(OrbitalRegime.GEO, second.getRegime());
+
+        tle.setEccentricity(1.5);
+        Assert.assertEquals(OrbitalRegime.UNDEFINED, tle.getOrbitalProperties().getRegime());
+        Assert.assertTrue(Double.isNaN(tle.getOrbitalProperties().getSemiMajorAxis()));
+    }
+
+    /**
+     * Tests the derived columns of {@link ElementBatch}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void batch() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(100, 9L);
+        ElementBatch batch = new ElementBatch(catalog);
+        for (int i = 0; i < catalog.size(); i++) {
+            OrbitalProperties properties = catalog.get(i).getOrbitalProperties();
+            Assert.assertEquals(properties.getSemiMajorAxis(), batch.getSemiMajorAxis(i), 0.0);
+            Assert.assertEquals(properties.getPeriod(), batch.getPeriod(i), 0.0);
+            Assert.assertEquals(properties.getApogeeAltitude(), batch.getApogeeAltitude(i), 0.0);
+            Assert.assertEquals(properties.getPerigeeAltitude(), batch.getPerigeeAltitude(i), 0.0);
+            Assert.assertEquals(properties.getRecoveredMeanMotion(),
+                                batch.getRecoveredMeanMotion(i), 0.0);
+            Assert.assertEquals(properties.getRegime(), batch.getRegime(i));
+        }
+    }
+
+}
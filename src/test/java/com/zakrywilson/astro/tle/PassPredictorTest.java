@@ -0,0 +1,149 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link PassPredictor}.
+ *
+ * @author Zach Wilson
+ */
+public class PassPredictorTest {
+
+    private static final GroundStation BOULDER = new GroundStation("Boulder", 40.015, -105.27,
+                                                                   1.655);
+    private static final GroundStation SVALBARD = new GroundStation("Svalbard", 78.23, 15.39,
+                                                                    0.5);
+
+    /**
+     * Tests {@link PassPredictor#predict(TLE, GroundStation, long, long)} against brute-force
+     * sampling of the elevation.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void predict() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 2L * 86400000L;
+        PassPredictor predictor = new PassPredictor(5.0);
+        List<TLE> satellites = Arrays.asList(
+                TestCatalogs.tle(90001, 51.6, 30.0, 0.0005, 90.0, 10.0, 15.5),
+                TestCatalogs.tle(90002, 98.2, 200.0, 0.001, 40.0, 100.0, 14.3),
+                TestCatalogs.tle(90003, 63.4, 100.0, 0.72, 270.0, 0.0, 2.006),
+                TestCatalogs.VANGUARD);
+        for (TLE tle : satellites) {
+            for (GroundStation station : Arrays.asList(BOULDER, SVALBARD)) {
+                List<Pass> passes = predictor.predict(tle, station, start, end);
+                List<double[]> expected = bruteForce(tle, station, 5.0, start, end, 2000L);
+                for (double[] window : expected) {
+                    Pass match = null;
+                    for (Pass pass : passes) {
+                        if (pass.getRiseMillisecond() < window[1] + 2000L
+                                && pass.getSetMillisecond() > window[0] - 2000L) {
+                            match = pass;
+                        }
+                    }
+                    Assert.assertNotNull(tle.getSatelliteNumber() + " " + station, match);
+                    Assert.assertEquals(window[0], match.getRiseMillisecond(), 2000.0);
+                    Assert.assertEquals(window[1], match.getSetMillisecond(), 2000.0);
+                }
+                for (Pass pass : passes) {
+                    Assert.assertTrue(pass.getMaximumElevation() >= 5.0 - 1.0e-6);
+                    Assert.assertTrue(pass.getRiseMillisecond() <= pass.getCulminationMillisecond());
+                    Assert.assertTrue(pass.getCulminationMillisecond() <= pass.getSetMillisecond());
+                    if (pass.getDurationMillisecond() > 4000.0) {
+                        Assert.assertTrue(pass.toString(), expected.stream().anyMatch(
+                                w -> w[0] < pass.getSetMillisecond()
+                                        && w[1] > pass.getRiseMillisecond()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests {@link PassPredictor#predict(List, List, long, long)} against the passes predicted one
+     * satellite and station at a time.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void predictCatalog() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        List<TLE> catalog = TestCatalogs.mixed(40, 7L);
+        List<GroundStation> stations = Arrays.asList(BOULDER, SVALBARD);
+        PassPredictor predictor = new PassPredictor(10.0);
+
+        List<Pass> passes = predictor.predict(catalog, stations, start, end);
+        List<Pass> expected = new ArrayList<>();
+        for (TLE tle : catalog) {
+            for (GroundStation station : stations) {
+                expected.addAll(predictor.predict(tle, station, start, end));
+            }
+        }
+        Assert.assertEquals(expected.size(), passes.size());
+        Assert.assertFalse(passes.isEmpty());
+        for (int i = 1; i < passes.size(); i++) {
+            Assert.assertTrue(passes.get(i - 1).getRiseMillisecond()
+                                      <= passes.get(i).getRiseMillisecond());
+        }
+    }
+
+    /**
+     * Tests {@link PassPredictor#predict(TLE, GroundStation, long, long)} for a geostationary
+     * satellite, which is either always or never visible.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void predictGeostationary() throws Exception {
+        long start = TestCatalogs.EPOCH;
+        long end = start + 86400000L;
+        TLE geo = TestCatalogs.tle(90010, 0.05, 0.0, 0.0002, 0.0, 0.0, 1.00273);
+        PassPredictor predictor = new PassPredictor(0.0);
+        int visible = 0;
+        for (int longitude = -180; longitude < 180; longitude += 30) {
+            GroundStation station = new GroundStation("", 0.0, longitude, 0.0);
+            List<Pass> passes = predictor.predict(geo, station, start, end);
+            Assert.assertTrue(passes.size() <= 1);
+            if (!passes.isEmpty()) {
+                visible++;
+                Assert.assertEquals(start, passes.get(0).getRiseMillisecond());
+                Assert.assertEquals(end, passes.get(0).getSetMillisecond());
+            }
+        }
+        Assert.assertTrue(visible > 0 && visible < 12);
+    }
+
+    /**
+     * Returns the visibility windows of a satellite by sampling the elevation at a fixed step.
+     */
+    private static List<double[]> bruteForce(TLE tle, GroundStation station, double minimum,
+                                             long start, long end, long step) {
+        SGP4Propagator propagator = new SGP4Propagator(tle);
+        double[] state = new double[6];
+        List<double[]> windows = new ArrayList<>();
+        double rise = Double.NaN;
+        for (long t = start; t <= end; t += step) {
+            propagator.propagate(t, state);
+            double elevation = Math.toDegrees(GroundStationTest.elevationFromTeme(
+                    station, SiderealTime.gmst(t), state[0], state[1], state[2]));
+            if (elevation >= minimum && Double.isNaN(rise)) {
+                rise = t;
+            } else if (elevation < minimum && !Double.isNaN(rise)) {
+                windows.add(new double[] {rise, t});
+                rise = Double.NaN;
+            }
+        }
+        if (!Double.isNaN(rise)) {
+            windows.add(new double[] {rise, end});
+        }
+        return windows;
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link PositionIndex} and {@link KdTree}.
+ *
+ * @author Zach Wilson
+ */
+public class PositionIndexTest {
+
+    /**
+     * Tests that the interpolated positions of {@link PositionIndex} follow SGP4.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void interpolation() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(50, 41L);
+        long start = TestCatalogs.EPOCH;
+        PositionIndex index = new PositionIndex(catalog, start, start + 3600000L, 60000L);
+        Assert.assertEquals(61, index.getSliceCount());
+        double[] position = new double[3];
+        double[] state = new double[6];
+        Random random = new Random(42L);
+        for (int q = 0; q < 200; q++) {
+            int i = random.nextInt(catalog.size());
+            long time = start + (long) (random.nextDouble() * 3600000.0);
+            Assert.assertTrue(index.getPosition(i, time, position, 0));
+            new SGP4Propagator(catalog.get(i)).propagate(time, state, 0);
+            Assert.assertEquals(state[0], position[0], 0.001);
+            Assert.assertEquals(state[1], position[1], 0.001);
+            Assert.assertEquals(state[2], position[2], 0.001);
+        }
+        // The end of the window, at a slice
+        Assert.assertTrue(index.getPosition(0, start + 3600000L, position, 0));
+        new SGP4Propagator(catalog.get(0)).propagate(start + 3600000L, state, 0);
+        Assert.assertEquals(state[0], position[0], 1.0e-9);
+    }
+
+    /**
+     * Tests {@link PositionIndex#findWithin(double, double, double, double, long)} against a
+     * brute-force search of the interpolated positions, before and after updates.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void findWithin() throws Exception {
+        List<TLE> catalog = new ArrayList<>(TestCatalogs.mixed(400, 42L));
+        long start = TestCatalogs.EPOCH;
+        long end = start + 2L * 3600000L;
+        PositionIndex index = new PositionIndex(catalog, start, end, 120000L);
+        Random random = new Random(43L);
+        check(index, random, start, end);
+
+        // Few updates are tested one by one, many rebuild the trees
+        List<TLE> replacements = TestCatalogs.crowdedLeo(100, 44L);
+        for (int u = 0; u < replacements.size(); u++) {
+            int row = random.nextInt(catalog.size());
+            index.update(row, replacements.get(u));
+            catalog.set(row, replacements.get(u));
+            if (u == 10 || u == replacements.size() - 1) {
+                check(index, random, start, end);
+            }
+        }
+        Assert.assertEquals(catalog, index.getCatalog());
+
+        // The neighbors of a satellite exclude itself
+        int[] rows = index.findWithin(0, 5000.0, start + 1000L);
+        for (int row : rows) {
+            Assert.assertNotEquals(0, row);
+        }
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(5, 45L);
+        long start = TestCatalogs.EPOCH;
+        try {
+            new PositionIndex(catalog, start, start - 1L, 60000L);
+            Assert.fail("Expected an exception for a window ending before it starts");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new PositionIndex(catalog, start, start + 60000L, 0L);
+            Assert.fail("Expected an exception for a zero slice width");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        PositionIndex index = new PositionIndex(catalog, start, start + 60000L, 60000L);
+        try {
+            index.findWithin(0.0, 0.0, 0.0, 100.0, start + 60001L);
+            Assert.fail("Expected an exception for a time outside the window");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            index.findWithin(0.0, 0.0, 0.0, -1.0, start);
+            Assert.fail("Expected an exception for a negative radius");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            index.update(0, null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Compares random queries with a brute-force search.
+     */
+    private static void check(PositionIndex index, Random random, long start, long end) {
+        double[] position = new double[3];
+        double[] center = new double[3];
+        int found = 0;
+        for (int q = 0; q < 300; q++) {
+            long time = start + (long) (random.nextDouble() * (end - start));
+            int near = random.nextInt(index.size());
+            if (!index.getPosition(near, time, center, 0)) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                center[k] += (random.nextDouble() - 0.5) * 200.0;
+            }
+            double radius = 10.0 + random.nextDouble() * 1000.0;
+            int[] rows = index.findWithin(center[0], center[1], center[2], radius, time);
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < index.size(); i++) {
+                if (index.getPosition(i, time, position, 0)) {
+                    double dx = position[0] - center[0];
+                    double dy = position[1] - center[1];
+                    double dz = position[2] - center[2];
+                    if (Math.sqrt(dx * dx + dy * dy + dz * dz) <= radius) {
+                        expected.add(i);
+                    }
+                }
+            }
+            Assert.assertEquals(expected.size(), rows.length);
+            for (int k = 0; k < rows.length; k++) {
+                Assert.assertEquals((int) expected.get(k), rows[k]);
+            }
+            found += rows.length;
+        }
+        Assert.assertTrue(found > 200);
+    }
+
+}
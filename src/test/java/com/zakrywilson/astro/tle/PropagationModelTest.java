@@ -0,0 +1,201 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link PropagationModel}, {@link TwoBodyPropagator} and {@link J2SecularPropagator}.
+ *
+ * @author Zach Wilson
+ */
+public class PropagationModelTest {
+
+    private static final long DAY = 86400000L;
+
+    /**
+     * Tests that the coarse models of {@link PropagationModel} stay within their expected error of
+     * SGP4 for a catalog of low Earth orbits.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void expectedError() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(200, 35L);
+        double[] reference = new double[6];
+        double[] state = new double[6];
+        for (PropagationModel model : Arrays.asList(PropagationModel.TWO_BODY,
+                                                    PropagationModel.J2_SECULAR)) {
+            for (long offset : new long[] {0L, DAY / 4, DAY, 3 * DAY}) {
+                long time = TestCatalogs.EPOCH + offset;
+                double limit = model.getExpectedError(offset / (double) DAY);
+                for (TLE tle : catalog) {
+                    Assert.assertTrue(new SGP4Propagator(tle).propagate(time, reference));
+                    Assert.assertTrue(model.create(tle).propagate(time, state));
+                    double error = distance(reference, state);
+                    Assert.assertTrue(model + " error " + error + " km", error <= limit);
+                }
+            }
+        }
+        Assert.assertEquals(0.0, PropagationModel.SGP4.getExpectedError(10.0), 0.0);
+    }
+
+    /**
+     * Tests that {@link PropagationModel#getExpectedError(TLE, double)} adds the error of the
+     * missing SDP4 terms to deep-space element sets only, as {@link SGP4Propagator#isDeepSpace()}
+     * classifies them.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void deepSpaceError() throws Exception {
+        TLE leo = TestCatalogs.tle(90052, 51.6, 40.0, 0.001, 90.0, 0.0, 15.5);
+        TLE geo = TestCatalogs.tle(90053, 0.05, 40.0, 0.0002, 90.0, 0.0, 1.0027);
+        TLE molniya = TestCatalogs.tle(90054, 63.4, 120.0, 0.72, 270.0, 10.0, 2.006);
+        for (PropagationModel model : PropagationModel.values()) {
+            Assert.assertEquals(model.getExpectedError(2.0), model.getExpectedError(leo, 2.0), 0.0);
+            for (TLE tle : Arrays.asList(geo, molniya)) {
+                Assert.assertEquals(model.getExpectedError(-2.0) + 45.0,
+                                    model.getExpectedError(tle, -2.0), 0.0);
+            }
+        }
+        Assert.assertFalse(new SGP4Propagator(leo).isDeepSpace());
+        Assert.assertTrue(new SGP4Propagator(geo).isDeepSpace());
+        Assert.assertTrue(new SGP4Propagator(molniya).isDeepSpace());
+        try {
+            PropagationModel.SGP4.getExpectedError(null, 1.0);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Tests that {@link J2SecularPropagator} follows the precession of the orbit plane that
+     * {@link TwoBodyPropagator} ignores.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void nodalPrecession() throws Exception {
+        TLE tle = TestCatalogs.tle(90050, 98.0, 40.0, 0.001, 90.0, 0.0, 14.6);
+        long time = TestCatalogs.EPOCH + 10 * DAY;
+        double[] reference = new double[6];
+        double[] j2 = new double[6];
+        double[] twoBody = new double[6];
+        Assert.assertTrue(new SGP4Propagator(tle).propagate(time, reference));
+        Assert.assertTrue(new J2SecularPropagator(tle).propagate(time, j2));
+        Assert.assertTrue(new TwoBodyPropagator(tle).propagate(time, twoBody));
+
+        // A sun-synchronous plane turns by about ten degrees in ten days
+        double node = Math.toDegrees(Math.atan2(normal(reference)[0], -normal(reference)[1]));
+        Assert.assertEquals(node, Math.toDegrees(Math.atan2(normal(j2)[0], -normal(j2)[1])), 0.05);
+        Assert.assertEquals(40.0, Math.toDegrees(Math.atan2(normal(twoBody)[0],
+                                                            -normal(twoBody)[1])), 0.05);
+        Assert.assertEquals(49.9, node, 0.5);
+    }
+
+    /**
+     * Tests that {@link TwoBodyPropagator} conserves the energy and angular momentum of its orbit,
+     * including at high eccentricity.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void twoBodyInvariants() throws Exception {
+        TLE tle = TestCatalogs.tle(90051, 63.4, 120.0, 0.72, 270.0, 10.0, 2.006);
+        TwoBodyPropagator propagator = new TwoBodyPropagator(tle);
+        double a = tle.getOrbitalProperties().getSemiMajorAxis();
+        double[] state = new double[6];
+        double[] first = null;
+        for (int k = 0; k < 50; k++) {
+            Assert.assertTrue(propagator.propagateMinutes(k * 13.7, state, 0));
+            double r = Math.sqrt(state[0] * state[0] + state[1] * state[1] + state[2] * state[2]);
+            double v2 = state[3] * state[3] + state[4] * state[4] + state[5] * state[5];
+            Assert.assertEquals(-EarthConstants.MU / (2.0 * a), v2 / 2.0 - EarthConstants.MU / r,
+                                1.0e-9);
+            double[] h = normal(state);
+            if (first == null) {
+                first = h;
+            }
+            for (int c = 0; c < 3; c++) {
+                Assert.assertEquals(first[c], h[c], 1.0e-6);
+            }
+        }
+    }
+
+    /**
+     * Tests that {@link KeplerSolver#eccentricAnomaly(double, double)} solves Kepler's equation
+     * over the whole range of mean anomalies and eccentricities.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void keplerSolver() throws Exception {
+        for (double e : new double[] {0.0, 0.001, 0.1, 0.5, 0.9, 0.99}) {
+            for (int k = -36; k <= 36; k++) {
+                double m = Math.toRadians(k * 10.0 + 0.3);
+                double anomaly = KeplerSolver.eccentricAnomaly(m, e);
+                Assert.assertEquals(m, anomaly - e * Math.sin(anomaly), 1.0e-10);
+            }
+        }
+    }
+
+    /**
+     * Tests that {@link CatalogPropagator} propagates with the model it was given.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void catalogModel() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(20, 36L);
+        Assert.assertEquals(PropagationModel.SGP4, new CatalogPropagator(catalog).getModel());
+        for (PropagationModel model : PropagationModel.values()) {
+            CatalogPropagator propagator = new CatalogPropagator(catalog, model);
+            Assert.assertEquals(model, propagator.getModel());
+            StateVectors states = new StateVectors(catalog.size());
+            propagator.propagate(TestCatalogs.EPOCH + DAY, states);
+            double[] expected = new double[6];
+            double[] actual = new double[6];
+            for (int i = 0; i < catalog.size(); i++) {
+                Assert.assertEquals(model, propagator.getPropagator(i).getModel());
+                Assert.assertTrue(model.create(catalog.get(i))
+                                       .propagate(TestCatalogs.EPOCH + DAY, expected));
+                states.get(i, actual, 0);
+                Assert.assertArrayEquals(expected, actual, 0.0);
+            }
+        }
+    }
+
+    /**
+     * Tests that the coarse propagators reject missing TLEs.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        for (PropagationModel model : PropagationModel.values()) {
+            try {
+                model.create(null);
+                Assert.fail("Expected an exception for " + model);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static double[] normal(double[] s) {
+        return new double[] {s[1] * s[5] - s[2] * s[4], s[2] * s[3] - s[0] * s[5],
+                             s[0] * s[4] - s[1] * s[3]};
+    }
+
+}
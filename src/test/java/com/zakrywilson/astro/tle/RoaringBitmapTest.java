@@ -0,0 +1,190 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Tests {@link RoaringBitmap}.
+ *
+ * @author Zach Wilson
+ */
+public class RoaringBitmapTest {
+
+    /**
+     * Tests adding, removing and finding values across chunks, and the conversions between array
+     * and bitmap containers.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void addRemove() throws Exception {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        Assert.assertTrue(bitmap.isEmpty());
+        Assert.assertTrue(bitmap.add(5));
+        Assert.assertFalse(bitmap.add(5));
+        Assert.assertTrue(bitmap.add(Integer.MAX_VALUE));
+        Assert.assertTrue(bitmap.add(65536));
+        Assert.assertTrue(bitmap.contains(65536));
+        Assert.assertFalse(bitmap.contains(65537));
+        Assert.assertFalse(bitmap.contains(-5));
+        Assert.assertArrayEquals(new int[] {5, 65536, Integer.MAX_VALUE}, bitmap.toArray());
+        Assert.assertTrue(bitmap.remove(65536));
+        Assert.assertFalse(bitmap.remove(65536));
+        Assert.assertFalse(bitmap.remove(-1));
+        Assert.assertEquals(2, bitmap.getCardinality());
+
+        // Through the array limit and back, twice
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int round = 0; round < 2; round++) {
+            for (int k = 0; k < 3 * RoaringBitmap.ARRAY_LIMIT; k++) {
+                dense.add(k * 7 % 65536);
+            }
+            Assert.assertEquals(3 * RoaringBitmap.ARRAY_LIMIT, dense.getCardinality());
+            for (int k = 0; k < 3 * RoaringBitmap.ARRAY_LIMIT; k += 2) {
+                Assert.assertTrue(dense.remove(k * 7 % 65536));
+            }
+            Assert.assertTrue(dense.contains(7));
+            Assert.assertFalse(dense.contains(14));
+            Assert.assertEquals(3 * RoaringBitmap.ARRAY_LIMIT / 2, dense.getCardinality());
+            for (int k = 1; k < 3 * RoaringBitmap.ARRAY_LIMIT; k += 2) {
+                Assert.assertTrue(dense.remove(k * 7 % 65536));
+            }
+            Assert.assertTrue(dense.isEmpty());
+        }
+        try {
+            bitmap.add(-1);
+            Assert.fail("Expected an exception for a negative value");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Tests the intersection, union and difference of random bitmaps of varied densities against
+     * <code>BitSet</code>.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void operations() throws Exception {
+        Random random = new Random(50L);
+        double[] densities = {0.0, 0.001, 0.03, 0.1, 0.5, 0.99};
+        for (double da : densities) {
+            for (double db : densities) {
+                BitSet sa = new BitSet();
+                BitSet sb = new BitSet();
+                RoaringBitmap a = random(random, da, sa);
+                RoaringBitmap b = random(random, db, sb);
+
+                BitSet and = (BitSet) sa.clone();
+                and.and(sb);
+                BitSet or = (BitSet) sa.clone();
+                or.or(sb);
+                BitSet andNot = (BitSet) sa.clone();
+                andNot.andNot(sb);
+                assertSame(and, RoaringBitmap.and(a, b));
+                assertSame(or, RoaringBitmap.or(a, b));
+                assertSame(or, RoaringBitmap.or(Arrays.asList(a, b)));
+                assertSame(andNot, RoaringBitmap.andNot(a, b));
+                assertSame(sa, a);
+                assertSame(sb, b);
+            }
+        }
+        Assert.assertTrue(RoaringBitmap.or(Arrays.<RoaringBitmap>asList()).isEmpty());
+    }
+
+    /**
+     * Tests that equality depends on the values only, whatever the containers holding them.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void equality() throws Exception {
+        RoaringBitmap a = new RoaringBitmap();
+        for (int k = 0; k < 10000; k++) {
+            a.add(k);
+        }
+        RoaringBitmap b = RoaringBitmap.of(1, 2, 3);
+        // A bitmap container cut down to the same values
+        RoaringBitmap c = RoaringBitmap.and(a, b);
+        Assert.assertEquals(b, c);
+        Assert.assertEquals(b.hashCode(), c.hashCode());
+        Assert.assertNotEquals(a, b);
+        Assert.assertEquals(a, RoaringBitmap.or(a, b));
+        Assert.assertEquals(new RoaringBitmap(), RoaringBitmap.andNot(b, a));
+        try {
+            RoaringBitmap.and(a, null);
+            Assert.fail("Expected an exception for a null bitmap");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Tests that a copy holds the same values as the original and is independent of it.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void copy() throws Exception {
+        RoaringBitmap original = new RoaringBitmap();
+        for (int k = 0; k < 10000; k++) {
+            original.add(k * 3);
+        }
+        for (int chunk = 2; chunk < 8; chunk++) {
+            original.add(chunk * 65536 + 1);
+        }
+        RoaringBitmap copy = new RoaringBitmap(original);
+        Assert.assertEquals(original, copy);
+        Assert.assertTrue(copy.remove(3));
+        Assert.assertTrue(copy.remove(2 * 65536 + 1));
+        Assert.assertTrue(copy.add(8 * 65536));
+        Assert.assertTrue(original.contains(3));
+        Assert.assertTrue(original.contains(2 * 65536 + 1));
+        Assert.assertFalse(original.contains(8 * 65536));
+        Assert.assertEquals(10006, original.getCardinality());
+        Assert.assertEquals(new RoaringBitmap(), new RoaringBitmap(new RoaringBitmap()));
+        try {
+            new RoaringBitmap(null);
+            Assert.fail("Expected an exception for a null bitmap");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Builds a random bitmap over four chunks, the second of them left empty.
+     *
+     * @param random the random generator
+     * @param density the fraction of values set
+     * @param expected the set to which the values are also added
+     * @return the bitmap
+     */
+    private static RoaringBitmap random(Random random, double density, BitSet expected) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value = 0; value < 4 * 65536; value++) {
+            if (value >>> 16 != 1 && random.nextDouble() < density) {
+                bitmap.add(value);
+                expected.set(value);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Asserts that a bitmap holds the values of a <code>BitSet</code>.
+     *
+     * @param expected the values
+     * @param actual the bitmap
+     */
+    private static void assertSame(BitSet expected, RoaringBitmap actual) {
+        Assert.assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        Assert.assertEquals(expected.cardinality(), actual.getCardinality());
+        Assert.assertEquals(expected.isEmpty(), actual.isEmpty());
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link SGP4Propagator}.
+ *
+ * @author Zach Wilson
+ */
+public class SGP4PropagatorTest {
+
+    /**
+     * Tests {@link SGP4Propagator#propagateMinutes(double, double[], int)} against the
+     * verification results published with <i>Revisiting Spacetrack Report #3</i>.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void propagateMinutes() throws Exception {
+        assertState(TestCatalogs.VANGUARD, 0.0,
+                    7022.46529266, -1400.08296755, 0.03995155,
+                    1.893841015, 6.405893759, 4.534807250);
+        assertState(TestCatalogs.VANGUARD, 360.0,
+                    -7154.03120202, -3783.17682504, -3536.19412294,
+                    4.741887409, -4.151817765, -2.093935425);
+        assertState(TestCatalogs.DELTA, 0.0,
+                    3988.31022699, 5498.96657235, 0.90055879,
+                    -3.290032738, 2.357652820, 6.496623475);
+        assertState(TestCatalogs.DELTA, 120.0,
+                    -3935.69800083, 409.10980837, 5471.33577327,
+                    -3.374784183, -6.635211043, -1.942056221);
+    }
+
+    /**
+     * Tests {@link SGP4Propagator#propagate(long, double[])} at the TLE epoch.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void propagate() throws Exception {
+        SGP4Propagator propagator = new SGP4Propagator(TestCatalogs.VANGUARD);
+        double[] byMinutes = new double[6];
+        double[] byTime = new double[6];
+        propagator.propagateMinutes(0.0, byMinutes, 0);
+        Assert.assertTrue(propagator.propagate(TestCatalogs.VANGUARD.getEpochMillisecond(), byTime));
+        for (int i = 0; i < 3; i++) {
+            // The epoch millisecond is rounded, allow for half a millisecond of motion
+            Assert.assertEquals(byMinutes[i], byTime[i], 0.01);
+        }
+    }
+
+    /**
+     * Tests that a decayed orbit reports a failure and <code>NaN</code> states.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void decayed() throws Exception {
+        SGP4Propagator propagator = new SGP4Propagator(
+                TLEBuilder.newBuilder()
+                          .setSatelliteNumber(1)
+                          .setInternationalDesignator("16001A")
+                          .setEpoch(TestCatalogs.EPOCH)
+                          .setElementSetNumber(1)
+                          .setOrbitalElements(51.6, 0.0, 0.001, 0.0, 0.0)
+                          .setRevolutions(1)
+                          .setMeanMotion(16.4)
+                          .setFirstDerivativeMeanMotion(0.0)
+                          .setDragTerm(0.005)
+                          .build());
+        double[] state = new double[6];
+        Assert.assertFalse(propagator.propagateMinutes(60.0 * 24.0 * 365.0, state, 0));
+        Assert.assertTrue(Double.isNaN(state[0]));
+    }
+
+    /**
+     * Propagates a TLE and compares the state with expected values.
+     *
+     * @param tle the TLE
+     * @param minutes the minutes since epoch
+     * @param expected the expected position (km) and velocity (km/s)
+     */
+    private static void assertState(TLE tle, double minutes, double... expected) {
+        double[] state = new double[6];
+        Assert.assertTrue(new SGP4Propagator(tle).propagateMinutes(minutes, state, 0));
+        for (int i = 0; i < 6; i++) {
+            double tolerance = i < 3 ? 1.0e-6 : 1.0e-9;
+            if (Math.abs(state[i] - expected[i]) > tolerance) {
+                Assert.fail(String.format(
+                        "Invalid state component %d at %s minutes: expected='%s', received='%s'",
+                        i, minutes, expected[i], state[i]));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link SatelliteCatalog}.
+ *
+ * @author Zach Wilson
+ */
+public class SatelliteCatalogTest {
+
+    /**
+     * Tests {@link SatelliteCatalog#putIfNewer(TLE)}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void putIfNewer() throws Exception {
+        TLE older = TestCatalogs.tle(25544, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        TLE newer = TestCatalogs.tle(25544, 51.6, 1.0, 0.001, 0.0, 0.0, 15.5);
+        newer.setEpochDay(newer.getEpochDay() + 0.5);
+        TLE reissued = TestCatalogs.tle(25544, 51.6, 2.0, 0.001, 0.0, 0.0, 15.5);
+        reissued.setEpochDay(newer.getEpochDay());
+        reissued.setElementSetNumber(newer.getElementSetNumber() + 1);
+
+        SatelliteCatalog catalog = new SatelliteCatalog(Arrays.asList(newer, older));
+        Assert.assertEquals(1, catalog.size());
+        Assert.assertSame(newer, catalog.get(25544));
+        Assert.assertFalse(catalog.putIfNewer(older));
+        Assert.assertFalse(catalog.putIfNewer(newer));
+        Assert.assertTrue(catalog.putIfNewer(reissued));
+        Assert.assertSame(reissued, catalog.get(25544));
+        Assert.assertSame(reissued, catalog.put(older));
+        Assert.assertSame(older, catalog.get(25544));
+
+        // The same rules above the direct range
+        TLE extended = TestCatalogs.tle(1, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        extended.setSatelliteNumber(270000);
+        TLE extendedNewer = TestCatalogs.tle(1, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        extendedNewer.setSatelliteNumber(270000);
+        extendedNewer.setEpochDay(extendedNewer.getEpochDay() + 1.0);
+        Assert.assertTrue(catalog.putIfNewer(extendedNewer));
+        Assert.assertFalse(catalog.putIfNewer(extended));
+        Assert.assertSame(extendedNewer, catalog.get(270000));
+        Assert.assertEquals(2, catalog.size());
+        Assert.assertArrayEquals(new int[] {25544, 270000}, catalog.getSatelliteNumbers());
+    }
+
+    /**
+     * Tests {@link SatelliteCatalog} against a <code>HashMap</code> with random operations on both
+     * ranges of satellite numbers.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void randomOperations() throws Exception {
+        Random random = new Random(46L);
+        List<TLE> tles = new ArrayList<>();
+        for (int k = 0; k < 2000; k++) {
+            TLE tle = TestCatalogs.tle(1, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+            tle.setSatelliteNumber(random.nextBoolean() ? 1 + random.nextInt(99999)
+                                                        : 100000 + random.nextInt(2000));
+            tles.add(tle);
+        }
+        SatelliteCatalog catalog = new SatelliteCatalog();
+        Map<Integer, TLE> expected = new HashMap<>();
+        for (int op = 0; op < 20000; op++) {
+            TLE tle = tles.get(random.nextInt(tles.size()));
+            int number = tle.getSatelliteNumber();
+            if (random.nextInt(3) == 0) {
+                Assert.assertSame(expected.remove(number), catalog.remove(number));
+            } else {
+                Assert.assertSame(expected.put(number, tle), catalog.put(tle));
+            }
+            Assert.assertEquals(expected.size(), catalog.size());
+        }
+        for (TLE tle : tles) {
+            Assert.assertSame(expected.get(tle.getSatelliteNumber()),
+                              catalog.get(tle.getSatelliteNumber()));
+        }
+        int[] visited = new int[1];
+        catalog.forEach((number, tle) -> {
+            Assert.assertSame(expected.get(number), tle);
+            visited[0]++;
+        });
+        Assert.assertEquals(expected.size(), visited[0]);
+        int[] numbers = catalog.getSatelliteNumbers();
+        Assert.assertEquals(expected.size(), numbers.length);
+        for (int k = 1; k < numbers.length; k++) {
+            Assert.assertTrue(numbers[k - 1] < numbers[k]);
+        }
+
+        Assert.assertNull(catalog.get(0));
+        Assert.assertNull(catalog.get(-5));
+        Assert.assertNull(catalog.get(500000));
+        catalog.clear();
+        Assert.assertTrue(catalog.isEmpty());
+        Assert.assertNull(catalog.get(numbers[0]));
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        SatelliteCatalog catalog = new SatelliteCatalog();
+        try {
+            catalog.put(null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        TLE tle = TestCatalogs.tle(1, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        tle.setSatelliteNumber(0);
+        try {
+            catalog.putIfNewer(tle);
+            Assert.fail("Expected an exception for a satellite number of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+
+    /**
+     * Tests that {@link SatelliteCatalog#isNewer(TLE, TLE)} orders TLEs as their epoch
+     * milliseconds do, including epochs a fraction of a millisecond apart and across years.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void isNewer() throws Exception {
+        Random random = new Random(44L);
+        TLE a = TestCatalogs.tle(1, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        TLE b = TestCatalogs.tle(1, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        for (int k = 0; k < 100000; k++) {
+            a.setEpochYear(2016 + random.nextInt(2));
+            b.setEpochYear(k % 10 == 0 ? 2016 + random.nextInt(2) : a.getEpochYear());
+            a.setEpochDay(1.0 + random.nextInt(366) + random.nextInt(100000000) / 1e8);
+            b.setEpochDay(k % 2 == 0 ? a.getEpochDay() + (random.nextDouble() - 0.5) * 2e-8
+                                     : 1.0 + random.nextInt(366) + random.nextDouble());
+            long difference = a.getEpochMillisecond() - b.getEpochMillisecond();
+            Assert.assertEquals(difference > 0 || difference == 0
+                                && a.getElementSetNumber() > b.getElementSetNumber(),
+                                SatelliteCatalog.isNewer(a, b));
+            b.setElementSetNumber(random.nextInt(3));
+        }
+    }
+
+}
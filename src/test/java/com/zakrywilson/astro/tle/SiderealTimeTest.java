@@ -0,0 +1,28 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link SiderealTime}.
+ *
+ * @author Zach Wilson
+ */
+public class SiderealTimeTest {
+
+    /**
+     * Tests {@link SiderealTime#gmst(double)} against the worked example of Vallado (August 20,
+     * 1992 12:14 UT1, GMST 152.578787886 degrees).
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void gmst() throws Exception {
+        double epochMillisecond = (2448855.009722 - 2440587.5) * 86400000.0;
+        Assert.assertEquals(152.578787886, Math.toDegrees(SiderealTime.gmst(epochMillisecond)),
+                            1.0e-4);
+        double gmst = SiderealTime.gmst(TestCatalogs.EPOCH);
+        Assert.assertTrue(gmst >= 0.0 && gmst < 2.0 * Math.PI);
+    }
+
+}
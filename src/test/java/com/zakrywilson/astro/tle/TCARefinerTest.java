@@ -0,0 +1,151 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests {@link TCARefiner}.
+ *
+ * @author Zach Wilson
+ */
+public class TCARefinerTest {
+
+    /**
+     * Tests {@link TCARefiner#refine(List, long, long)} on screened candidates against fine
+     * stepping around the refined time of closest approach.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void refine() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(300, 31L);
+        long start = TestCatalogs.EPOCH;
+        long end = start + 3L * 3600000L;
+        long step = 60000L;
+        List<CloseApproach> candidates = new ConjunctionScreener(25.0, step)
+                .screen(catalog, start, end);
+        Assert.assertFalse(candidates.isEmpty());
+
+        List<CloseApproach> refined = new TCARefiner(step).refine(candidates, start, end);
+        Assert.assertEquals(candidates.size(), refined.size());
+
+        double[] first = new double[6];
+        double[] second = new double[6];
+        for (int k = 0; k < Math.min(10, refined.size()); k++) {
+            CloseApproach approach = refined.get(k);
+            Assert.assertSame(candidates.get(k).getPrimary(), approach.getPrimary());
+
+            SGP4Propagator p1 = new SGP4Propagator(approach.getPrimary());
+            SGP4Propagator p2 = new SGP4Propagator(approach.getSecondary());
+            double tca = approach.getFractionalTimeMillisecond();
+            double best = Double.MAX_VALUE;
+            double bestTime = Double.NaN;
+            for (double t = tca - 1000.0; t <= tca + 1000.0; t += 0.5) {
+                p1.propagateMinutes(p1.minutesSinceEpoch(t), first, 0);
+                p2.propagateMinutes(p2.minutesSinceEpoch(t), second, 0);
+                double dx = first[0] - second[0];
+                double dy = first[1] - second[1];
+                double dz = first[2] - second[2];
+                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (distance < best) {
+                    best = distance;
+                    bestTime = t;
+                }
+            }
+            if (tca > start && tca < end) {
+                // Approaches at the ends of the window are not minima of the range
+                Assert.assertEquals(approach.toString(), bestTime, tca, 0.5);
+                Assert.assertTrue(approach.toString(), approach.getDistance() <= best + 1.0e-6);
+            }
+        }
+    }
+
+    /**
+     * Tests that candidates screened with a coarse model are refined with the same model.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void coarseModel() throws Exception {
+        List<TLE> catalog = TestCatalogs.crowdedLeo(300, 31L);
+        long start = TestCatalogs.EPOCH;
+        long end = start + 3L * 3600000L;
+        long step = 60000L;
+        CatalogPropagator propagator = new CatalogPropagator(catalog, PropagationModel.J2_SECULAR);
+        List<CloseApproach> candidates = new ConjunctionScreener(25.0, step)
+                .screen(propagator, start, end);
+        Assert.assertFalse(candidates.isEmpty());
+
+        TCARefiner refiner = new TCARefiner(step, TCARefiner.DEFAULT_TOLERANCE_MILLISECOND,
+                                            propagator.getModel());
+        Assert.assertEquals(PropagationModel.J2_SECULAR, refiner.getModel());
+        List<CloseApproach> refined = refiner.refine(candidates, start, end);
+        Assert.assertEquals(candidates.size(), refined.size());
+
+        double[] first = new double[6];
+        double[] second = new double[6];
+        for (int k = 0; k < Math.min(10, refined.size()); k++) {
+            CloseApproach approach = refined.get(k);
+            double tca = approach.getFractionalTimeMillisecond();
+            if (tca <= start || tca >= end) {
+                continue;
+            }
+            Propagator p1 = new J2SecularPropagator(approach.getPrimary());
+            Propagator p2 = new J2SecularPropagator(approach.getSecondary());
+            for (double t : new double[] {tca - 1000.0, tca, tca + 1000.0}) {
+                p1.propagateMinutes(p1.minutesSinceEpoch(t), first, 0);
+                p2.propagateMinutes(p2.minutesSinceEpoch(t), second, 0);
+                double dx = first[0] - second[0];
+                double dy = first[1] - second[1];
+                double dz = first[2] - second[2];
+                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (t == tca) {
+                    Assert.assertEquals(approach.getDistance(), distance, 1.0e-9);
+                } else {
+                    Assert.assertTrue(approach.toString(), approach.getDistance() <= distance);
+                }
+            }
+        }
+        try {
+            new TCARefiner(step, 1.0, null);
+            Assert.fail("Expected an exception for a null model");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Tests that a crossing of two circular orbits set up to meet at a node is found.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void crossing() throws Exception {
+        TLE equatorial = TestCatalogs.tle(1, 0.0, 0.0, 0.0, 0.0, 0.0, 15.0);
+        TLE polar = TestCatalogs.tle(2, 90.0, 0.0, 0.0, 0.0, 0.0, 15.0);
+        long start = TestCatalogs.EPOCH;
+        long end = start + 3600000L;
+        CloseApproach candidate = new CloseApproach(equatorial, polar, start + 30000.0, 10.0, 0.0);
+
+        CloseApproach refined = new TCARefiner(60000L).refine(candidate, start, end);
+        Assert.assertNotNull(refined);
+        Assert.assertTrue(refined.getDistance() < 50.0);
+        Assert.assertTrue(refined.getRelativeSpeed() > 10.0);
+    }
+
+    /**
+     * Tests {@link RootFinder#brent(java.util.function.DoubleUnaryOperator, double, double, double,
+     * double, double)}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void brent() throws Exception {
+        double root = RootFinder.brent(x -> Math.cos(x) - x, 0.0, 1.0, 1.0, Math.cos(1.0) - 1.0,
+                                       1.0e-12);
+        Assert.assertEquals(0.7390851332151607, root, 1.0e-12);
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link TLECache}.
+ *
+ * @author Zach Wilson
+ */
+public class TLECacheTest {
+
+    /**
+     * Tests that a hit returns the TLE parsed before, and that any difference of text misses.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void hits() throws Exception {
+        TLECache cache = new TLECache(10);
+        String line1 = TestCatalogs.VANGUARD.getLine1();
+        String line2 = TestCatalogs.VANGUARD.getLine2();
+        TLE parsed = cache.get("VANGUARD 1", line1, line2);
+        Assert.assertEquals(new TLE("VANGUARD 1", line1, line2), parsed);
+        // Equal text in new strings, as read from the next pull
+        Assert.assertSame(parsed, cache.get(new String("VANGUARD 1"), new String(line1),
+                                            new String(line2)));
+        Assert.assertNotSame(parsed, cache.get("VANGUARD", line1, line2));
+        Assert.assertNotSame(parsed, cache.get(null, line1, line2));
+        TLE untitled = cache.get(line1, line2);
+        Assert.assertEquals(new TLE(line1, line2), untitled);
+        Assert.assertSame(untitled, cache.get("", line1, line2));
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals(2, cache.getHitCount());
+        Assert.assertEquals(4, cache.getMissCount());
+        Assert.assertEquals(2.0 / 6.0, cache.getHitRate(), 1e-12);
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNotSame(parsed, cache.get("VANGUARD 1", line1, line2));
+    }
+
+    /**
+     * Tests the eviction of the least recently used TLE against a <code>LinkedHashMap</code> in
+     * access order, with keys colliding often in the table.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void leastRecentlyUsedEviction() throws Exception {
+        Random random = new Random(47L);
+        List<String[]> records = new ArrayList<>();
+        for (TLE tle : TestCatalogs.mixed(300, 47L)) {
+            records.add(new String[] {"OBJECT " + records.size(), tle.getLine1(),
+                                      tle.getLine2()});
+        }
+        TLECache cache = new TLECache(50);
+        Map<String, TLE> expected = new LinkedHashMap<String, TLE>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TLE> eldest) {
+                return size() > 50;
+            }
+        };
+        long hits = 0;
+        for (int k = 0; k < 20000; k++) {
+            // A skewed choice, so that some records stay while others are evicted
+            int i = (int) (records.size() * Math.pow(random.nextDouble(), 3.0));
+            String[] record = records.get(i);
+            TLE cached = expected.get(record[0]);
+            TLE tle = cache.get(record[0], record[1], record[2]);
+            if (cached != null) {
+                Assert.assertSame(cached, tle);
+                hits++;
+            } else {
+                expected.put(record[0], tle);
+            }
+            Assert.assertEquals(expected.size(), cache.size());
+        }
+        Assert.assertEquals(hits, cache.getHitCount());
+        Assert.assertEquals(20000 - hits, cache.getMissCount());
+        Assert.assertEquals(20000 - hits - 50, cache.getEvictionCount());
+    }
+
+    /**
+     * Tests a refresh of a catalog in which a tenth of the records changed.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void refresh() throws Exception {
+        List<TLE> catalog = TestCatalogs.mixed(2000, 47L);
+        TLECache cache = new TLECache(4000);
+        List<TLE> first = new ArrayList<>();
+        for (TLE tle : catalog) {
+            first.add(cache.get(tle.getTitle(), tle.getLine1(), tle.getLine2()));
+        }
+        for (int i = 0; i < catalog.size(); i++) {
+            TLE tle = catalog.get(i);
+            String title = i % 10 == 0 ? "CHANGED" : tle.getTitle();
+            TLE refreshed = cache.get(title, tle.getLine1(), tle.getLine2());
+            Assert.assertEquals(i % 10 != 0, refreshed == first.get(i));
+        }
+        Assert.assertEquals(1800, cache.getHitCount());
+        Assert.assertEquals(2200, cache.getMissCount());
+        Assert.assertEquals(0, cache.getEvictionCount());
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        try {
+            new TLECache(0);
+            Assert.fail("Expected an exception for a maximum size of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        TLECache cache = new TLECache(10);
+        try {
+            cache.get("TITLE", null, TestCatalogs.VANGUARD.getLine2());
+            Assert.fail("Expected an exception for a null line");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        Assert.assertEquals(0, cache.getMissCount());
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests {@link TLEFingerprint}.
+ *
+ * @author Zach Wilson
+ */
+public class TLEFingerprintTest {
+
+    /**
+     * Tests that formatting differences do not change the fingerprint.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void formattingIgnored() throws Exception {
+        TLE original = TestCatalogs.VANGUARD;
+        TLE rebuilt = TLEBuilder.newBuilder("VANGUARD 1")
+                                .setSatelliteNumber(original.getSatelliteNumber())
+                                .setInternationalDesignator(original.getInternationalDesignator())
+                                .setEpoch(original.getEpochYear(), original.getEpochDay())
+                                .setElementSetNumber(original.getElementSetNumber())
+                                .setOrbitalElements(original.getInclination(),
+                                                    original.getRaan(),
+                                                    original.getEccentricity(),
+                                                    original.getArgumentOfPerigee(),
+                                                    original.getMeanAnomaly())
+                                .setRevolutions(original.getRevolutions())
+                                .setMeanMotion(original.getMeanMotion())
+                                .setFirstDerivativeMeanMotion(
+                                        original.getFirstDerivativeOfMeanMotion())
+                                .setSecondDerivativeMeanMotion(
+                                        original.getSecondDerivativeOfMeanMotion())
+                                .setDragTerm(original.getDragTerm())
+                                .setClassification(original.getClassification())
+                                .setEphemerisType(original.getEphemerisType())
+                                .build();
+        // The builder pads the satellite number with spaces rather than zeros
+        Assert.assertNotEquals(original.getLine1(), rebuilt.getLine1());
+        Assert.assertNotEquals(original, rebuilt);
+        Assert.assertEquals(TLEFingerprint.of(original), TLEFingerprint.of(rebuilt));
+
+        TLE reparsed = new TLE("  TITLE  ", original.getLine1(), original.getLine2());
+        Assert.assertEquals(TLEFingerprint.of(original), TLEFingerprint.of(reparsed));
+
+        // A difference below the resolution of a field is formatting too
+        rebuilt.setRaan(rebuilt.getRaan() + 1e-9);
+        rebuilt.setDragTerm(rebuilt.getDragTerm() * (1.0 + 1e-12));
+        Assert.assertEquals(TLEFingerprint.of(original), TLEFingerprint.of(rebuilt));
+    }
+
+    /**
+     * Tests that a change of any element changes the fingerprint.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void elementsDistinguished() throws Exception {
+        long fingerprint = TLEFingerprint.of(TestCatalogs.VANGUARD);
+        Set<Long> fingerprints = new HashSet<>();
+        fingerprints.add(fingerprint);
+        for (int field = 0; field < 14; field++) {
+            TLE tle = new TLE(TestCatalogs.VANGUARD.getLine1(), TestCatalogs.VANGUARD.getLine2());
+            switch (field) {
+                case 0:
+                    tle.setSatelliteNumber(6);
+                    break;
+                case 1:
+                    tle.setEpochDay(tle.getEpochDay() + 1e-8);
+                    break;
+                case 2:
+                    tle.setEpochYear(2001);
+                    break;
+                case 3:
+                    tle.setElementSetNumber(476);
+                    break;
+                case 4:
+                    tle.setInclination(tle.getInclination() + 1e-4);
+                    break;
+                case 5:
+                    tle.setRaan(tle.getRaan() + 1e-4);
+                    break;
+                case 6:
+                    tle.setEccentricity(tle.getEccentricity() + 1e-7);
+                    break;
+                case 7:
+                    tle.setArgumentOfPerigee(tle.getArgumentOfPerigee() + 1e-4);
+                    break;
+                case 8:
+                    tle.setMeanAnomaly(tle.getMeanAnomaly() + 1e-4);
+                    break;
+                case 9:
+                    tle.setMeanMotion(tle.getMeanMotion() + 1e-8);
+                    break;
+                case 10:
+                    tle.setRevolutions(tle.getRevolutions() + 1);
+                    break;
+                case 11:
+                    tle.setDragTerm(0.28099e-4);
+                    break;
+                case 12:
+                    tle.setFirstDerivativeOfMeanMotion(0.00000024);
+                    break;
+                default:
+                    tle.setSecondDerivativeOfMeanMotion(1e-5);
+                    break;
+            }
+            Assert.assertTrue("Field " + field, fingerprints.add(TLEFingerprint.of(tle)));
+        }
+
+        // No collision over a large catalog
+        List<TLE> tles = TestCatalogs.mixed(20000, 5L);
+        Set<Long> catalog = new HashSet<>();
+        for (int i = 0; i < tles.size(); i++) {
+            tles.get(i).setSatelliteNumber(i + 1);
+            Assert.assertTrue(catalog.add(TLEFingerprint.of(tles.get(i))));
+        }
+    }
+
+    /**
+     * Tests the rounding to five significant digits, including across powers of ten.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void significant() throws Exception {
+        Assert.assertEquals(0L, TLEFingerprint.significant(0.0));
+        Assert.assertEquals(TLEFingerprint.significant(1e-5),
+                            TLEFingerprint.significant(0.99999999999e-5));
+        Assert.assertEquals(TLEFingerprint.significant(0.11606e-4),
+                            TLEFingerprint.significant(1.1606e-5));
+        Assert.assertEquals(TLEFingerprint.significant(-0.11606e-4),
+                            TLEFingerprint.significant(-1.16060000001e-5));
+        Assert.assertNotEquals(TLEFingerprint.significant(0.11606e-4),
+                               TLEFingerprint.significant(0.11607e-4));
+        Assert.assertNotEquals(TLEFingerprint.significant(0.11606e-4),
+                               TLEFingerprint.significant(-0.11606e-4));
+        Assert.assertNotEquals(TLEFingerprint.significant(0.11606e-4),
+                               TLEFingerprint.significant(0.11606e-3));
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        try {
+            TLEFingerprint.of(null);
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
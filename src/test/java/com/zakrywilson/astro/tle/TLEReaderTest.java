@@ -0,0 +1,76 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.NoSuchElementException;
+
+/**
+ * Tests {@link TLEReader}.
+ *
+ * @author Zach Wilson
+ */
+public class TLEReaderTest {
+
+    /**
+     * Tests reading two-line and three-line records separated by blank lines.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void read() throws Exception {
+        TLE vanguard = TestCatalogs.VANGUARD;
+        TLE delta = TestCatalogs.DELTA;
+        String text = "\n  VANGUARD 1  \n" + vanguard.getLine1() + "\n" + vanguard.getLine2()
+                      + "\n\n" + delta.getLine1() + "\r\n" + delta.getLine2() + "\n   \n";
+        TLECache cache = new TLECache(10);
+        try (TLEReader reader = new TLEReader(new StringReader(text), cache)) {
+            Assert.assertTrue(reader.hasNext());
+            Assert.assertTrue(reader.hasNext());
+            Assert.assertEquals(new TLE("VANGUARD 1", vanguard.getLine1(), vanguard.getLine2()),
+                                reader.next());
+            Assert.assertEquals(4, reader.getLineNumber());
+            Assert.assertEquals(delta, reader.next());
+            Assert.assertFalse(reader.hasNext());
+            Assert.assertEquals(8, reader.getLineNumber());
+            try {
+                reader.next();
+                Assert.fail("Expected an exception at the end of the text");
+            } catch (NoSuchElementException e) {
+                // Expected
+            }
+        }
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+
+    /**
+     * Tests malformed records and invalid arguments.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        TLE vanguard = TestCatalogs.VANGUARD;
+        String[] texts = {
+                vanguard.getLine1() + "\n",
+                "TITLE\n" + vanguard.getLine1() + "\n\n" + vanguard.getLine2(),
+                vanguard.getLine2() + "\n" + vanguard.getLine1(),
+                "TITLE\nOTHER TITLE\n" + vanguard.getLine1() + "\n" + vanguard.getLine2()};
+        for (String text : texts) {
+            try (TLEReader reader = new TLEReader(new StringReader(text))) {
+                reader.next();
+                Assert.fail("Expected an exception for a malformed record: " + text);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        try {
+            new TLEReader(null);
+            Assert.fail("Expected an exception for a null reader");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.zakrywilson.astro.tle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic catalogs of TLEs for the tests of the catalog-wide classes.
+ *
+ * @author Zach Wilson
+ */
+class TestCatalogs {
+
+    /**
+     * Epoch of every TLE in the synthetic catalogs: December 2, 2016 02:32:04.864 UTC.
+     */
+    static final long EPOCH = 1480645924864L;
+
+    /**
+     * Vallado's SGP4 verification element set for satellite 5 (Vanguard 1).
+     */
+    static final TLE VANGUARD = new TLE(
+            "1 00005U 58002B   00179.78495062  .00000023  00000-0  28098-4 0  4753",
+            "2 00005  34.2682 348.7242 1859667 331.7664  19.3264 10.82419157413667");
+
+    /**
+     * Vallado's SGP4 verification element set for satellite 6251.
+     */
+    static final TLE DELTA = new TLE(
+            "1 06251U 62025E   06176.82412014  .00008885  00000-0  12808-3 0  3985",
+            "2 06251  58.0579  54.0425 0030035 139.1568 221.1854 15.56387291  6774");
+
+    /**
+     * Private constructor.
+     */
+    private TestCatalogs() {}
+
+    /**
+     * Builds a TLE at {@link #EPOCH}.
+     *
+     * @param satelliteNumber the satellite number
+     * @param inclination the inclination in degrees
+     * @param raan the RAAN in degrees
+     * @param eccentricity the eccentricity
+     * @param argumentOfPerigee the argument of perigee in degrees
+     * @param meanAnomaly the mean anomaly in degrees
+     * @param meanMotion the mean motion in revolutions per day
+     * @return the TLE
+     */
+    static TLE tle(int satelliteNumber, double inclination, double raan, double eccentricity,
+                   double argumentOfPerigee, double meanAnomaly, double meanMotion) {
+        return TLEBuilder.newBuilder("SAT " + satelliteNumber)
+                         .setSatelliteNumber(satelliteNumber)
+                         .setInternationalDesignator("16001A")
+                         .setEpoch(EPOCH)
+                         .setElementSetNumber(999)
+                         .setOrbitalElements(inclination, raan, eccentricity, argumentOfPerigee,
+                                             meanAnomaly)
+                         .setRevolutions(1000)
+                         .setMeanMotion(meanMotion)
+                         .setFirstDerivativeMeanMotion(0.0)
+                         .setDragTerm(0.0001)
+                         .build();
+    }
+
+    /**
+     * Builds a random catalog of low earth orbits crowded into a narrow altitude band, so that
+     * close approaches are frequent.
+     *
+     * @param size the number of TLEs
+     * @param seed the random seed
+     * @return the catalog
+     */
+    static List<TLE> crowdedLeo(int size, long seed) {
+        Random random = new Random(seed);
+        List<TLE> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            catalog.add(tle(i + 1, 40.0 + random.nextDouble() * 60.0, random.nextDouble() * 360.0,
+                            random.nextDouble() * 0.002, random.nextDouble() * 360.0,
+                            random.nextDouble() * 360.0, 14.8 + random.nextDouble() * 0.2));
+        }
+        return catalog;
+    }
+
+    /**
+     * Builds a random catalog spread over low, medium, geosynchronous and highly elliptical
+     * orbits.
+     *
+     * @param size the number of TLEs
+     * @param seed the random seed
+     * @return the catalog
+     */
+    static List<TLE> mixed(int size, long seed) {
+        Random random = new Random(seed);
+        List<TLE> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double meanMotion;
+            double eccentricity;
+            switch (i % 4) {
+                case 0:
+                    meanMotion = 13.0 + random.nextDouble() * 3.0;
+                    eccentricity = random.nextDouble() * 0.01;
+                    break;
+                case 1:
+                    meanMotion = 2.0 + random.nextDouble() * 0.2;
+                    eccentricity = random.nextDouble() * 0.01;
+                    break;
+                case 2:
+                    meanMotion = 1.0027 + (random.nextDouble() - 0.5) * 0.001;
+                    eccentricity = random.nextDouble() * 0.001;
+                    break;
+                default:
+                    meanMotion = 2.006 + random.nextDouble() * 0.01;
+                    eccentricity = 0.7 + random.nextDouble() * 0.04;
+                    break;
+            }
+            catalog.add(tle(i + 1, random.nextDouble() * 100.0, random.nextDouble() * 360.0,
+                            eccentricity, random.nextDouble() * 360.0, random.nextDouble() * 360.0,
+                            meanMotion));
+        }
+        return catalog;
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link ValidityIndex}.
+ *
+ * @author Zach Wilson
+ */
+public class ValidityIndexTest {
+
+    private static final long DAY = 86400000L;
+
+    /**
+     * Tests single and batch selections under every rule, with and without a maximum age, against
+     * the lookups of {@link ElementSetSeries}.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void select() throws Exception {
+        Random random = new Random(43L);
+        ElementSetHistory history = history(random);
+        for (SelectionRule rule : SelectionRule.values()) {
+            for (long maximumAge : new long[] {Long.MAX_VALUE, DAY / 2}) {
+                ValidityIndex index = new ValidityIndex(history, rule, maximumAge);
+                Assert.assertEquals(history.getSatelliteCount(), index.size());
+                int[] positions = new int[index.size()];
+                for (int q = 0; q < 300; q++) {
+                    long time = time(random);
+                    int count = index.select(time, positions);
+                    int expectedCount = 0;
+                    for (int row = 0; row < index.size(); row++) {
+                        int expected = expected(index.getSeries(row), rule, maximumAge, time);
+                        Assert.assertEquals(expected, positions[row]);
+                        Assert.assertEquals(expected, index.select(row, time));
+                        if (expected >= 0) {
+                            expectedCount++;
+                        }
+                    }
+                    Assert.assertEquals(expectedCount, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a cursor agrees with single selections when moved forward in small and large
+     * steps, and backward.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void cursor() throws Exception {
+        Random random = new Random(44L);
+        ElementSetHistory history = history(random);
+        for (SelectionRule rule : SelectionRule.values()) {
+            ValidityIndex index = new ValidityIndex(history, rule, 3 * DAY);
+            ValidityIndex.Cursor cursor = index.newCursor();
+            int[] previous = new int[index.size()];
+            Arrays.fill(previous, -1);
+            int[] positions = new int[index.size()];
+            long time = TestCatalogs.EPOCH - 5 * DAY;
+            for (int q = 0; q < 2000; q++) {
+                if (q % 500 == 499) {
+                    time -= (long) (random.nextDouble() * 20.0 * DAY);
+                } else {
+                    time += (long) (random.nextDouble() * (q % 7 == 0 ? 3.0 : 0.05) * DAY);
+                }
+                int changes = cursor.advance(time);
+                Assert.assertEquals(time, cursor.getEpochMillisecond());
+                cursor.getPositions(positions);
+                int expectedChanges = 0;
+                for (int row = 0; row < index.size(); row++) {
+                    Assert.assertEquals(index.select(row, time), positions[row]);
+                    Assert.assertEquals(positions[row], cursor.getPosition(row));
+                    if (positions[row] != previous[row]) {
+                        Assert.assertEquals(row, cursor.getChangedRow(expectedChanges++));
+                    }
+                }
+                Assert.assertEquals(expectedChanges, changes);
+                System.arraycopy(positions, 0, previous, 0, positions.length);
+            }
+        }
+    }
+
+    /**
+     * Tests the centered windows at the ends of a history and of a lone element set.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void centered() throws Exception {
+        ElementSetHistory history = new ElementSetHistory();
+        history.add(tle(1, 10.0));
+        history.add(tle(1, 12.0));
+        history.add(tle(2, 10.0));
+        ValidityIndex index = new ValidityIndex(history, SelectionRule.CENTERED);
+        long epoch = tle(1, 10.0).getEpochMillisecond();
+        Assert.assertEquals(-1, index.select(0, epoch - DAY - 1));
+        Assert.assertEquals(0, index.select(0, epoch - DAY));
+        Assert.assertEquals(0, index.select(0, epoch + DAY));
+        Assert.assertEquals(1, index.select(0, epoch + DAY + 1));
+        Assert.assertEquals(1, index.select(0, epoch + 3 * DAY - 1));
+        Assert.assertEquals(-1, index.select(0, epoch + 3 * DAY));
+        Assert.assertEquals(0, index.select(1, epoch));
+        Assert.assertEquals(-1, index.select(1, epoch + 1));
+        Assert.assertEquals(-1, index.select(1, epoch - 1));
+        Assert.assertEquals(2, index.getSatelliteNumber(1));
+        Assert.assertEquals(1, index.getRow(2));
+        Assert.assertEquals(-1, index.getRow(3));
+        Assert.assertEquals(12.0, index.getTLE(1, epoch + 2 * DAY).getEpochDay(), 1e-9);
+        Assert.assertNull(index.getTLE(2, epoch + DAY));
+
+        ValidityIndex nearest = new ValidityIndex(history, SelectionRule.NEAREST);
+        Assert.assertEquals(0, nearest.select(0, Long.MIN_VALUE));
+        Assert.assertEquals(1, nearest.select(0, Long.MAX_VALUE));
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        ElementSetHistory history = new ElementSetHistory();
+        history.add(tle(1, 10.0));
+        try {
+            new ValidityIndex(null, SelectionRule.NEAREST);
+            Assert.fail("Expected an exception for a null history");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new ValidityIndex(history, null);
+            Assert.fail("Expected an exception for a null rule");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new ValidityIndex(history, SelectionRule.NEAREST, -1L);
+            Assert.fail("Expected an exception for a negative maximum age");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        ValidityIndex index = new ValidityIndex(history, SelectionRule.NEAREST);
+        try {
+            index.select(1, 0L);
+            Assert.fail("Expected an exception for a row out of range");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+        try {
+            index.newCursor().getChangedRow(0);
+            Assert.fail("Expected an exception for a change out of range");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+        try {
+            index.select(0L, new int[0]);
+            Assert.fail("Expected an exception for a short array");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Returns a history of 30 satellites with irregularly spaced element sets over 60 days.
+     */
+    private static ElementSetHistory history(Random random) {
+        ElementSetHistory history = new ElementSetHistory();
+        for (int number = 1; number <= 30; number++) {
+            int sets = number % 10 == 0 ? 1 : 1 + random.nextInt(80);
+            for (int k = 0; k < sets; k++) {
+                history.add(tle(number, 1.0 + random.nextInt(60 * 1440) / 1440.0));
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Returns a TLE of a satellite at an epoch of 2016, in whole minutes.
+     */
+    private static TLE tle(int number, double epochDay) {
+        TLE tle = TestCatalogs.tle(number, 51.6, 0.0, 0.001, 0.0, 0.0, 15.5);
+        tle.setEpochYear(2016);
+        tle.setEpochDay(epochDay);
+        return tle;
+    }
+
+    /**
+     * Returns a random time around the histories.
+     */
+    private static long time(Random random) {
+        long start = tle(1, 1.0).getEpochMillisecond() - 5 * DAY;
+        return start + (long) (random.nextDouble() * 70.0 * DAY);
+    }
+
+    /**
+     * Selects an element set by comparing epochs.
+     */
+    private static int expected(ElementSetSeries series, SelectionRule rule, long maximumAge,
+                                long time) {
+        int n = series.size();
+        int k;
+        if (rule == SelectionRule.MOST_RECENT_BEFORE) {
+            k = series.floor(time);
+        } else {
+            k = series.nearest(time);
+            if (rule == SelectionRule.CENTERED) {
+                long epoch = series.getEpochMillisecond(k);
+                if (n == 1) {
+                    k = time == epoch ? k : -1;
+                } else if (k == 0 && time < epoch) {
+                    // Mirror of the part of the window after the epoch
+                    long next = series.getEpochMillisecond(1);
+                    k = epoch - time <= (next - epoch) / 2 ? k : -1;
+                } else if (k == n - 1 && time > epoch) {
+                    long previous = series.getEpochMillisecond(n - 2);
+                    k = time - epoch < epoch - previous - (epoch - previous) / 2 ? k : -1;
+                }
+            }
+        }
+        if (k >= 0 && Math.abs(time - series.getEpochMillisecond(k)) > maximumAge) {
+            k = -1;
+        }
+        return k;
+    }
+
+}
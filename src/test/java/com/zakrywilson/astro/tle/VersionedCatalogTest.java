@@ -0,0 +1,287 @@
+package com.zakrywilson.astro.tle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests {@link VersionedCatalog} and {@link CatalogGeneration}.
+ *
+ * @author Zach Wilson
+ */
+public class VersionedCatalogTest {
+
+    /**
+     * Tests that a reload shares the pages and TLE objects that did not change.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void reloadSharesUnchangedPages() throws Exception {
+        VersionedCatalog catalog = new VersionedCatalog();
+        Assert.assertEquals(1, catalog.reload(tles(0, -1)));
+        CatalogGeneration first = catalog.acquire();
+        Assert.assertEquals(3000, first.size());
+        Assert.assertEquals(0, first.getSharedPageCount());
+
+        // Equal but distinct TLEs, with satellite 1500 changed
+        Assert.assertEquals(2, catalog.reload(tles(0, 1500)));
+        try (CatalogGeneration second = catalog.acquire()) {
+            Assert.assertEquals(2, second.getVersion());
+            Assert.assertEquals(3000, second.size());
+            // Satellites 1 to 2999 and 200000 fill pages 0 to 2, of which page 1 changed
+            Assert.assertEquals(2, second.getSharedPageCount());
+            Assert.assertSame(first.get(1), second.get(1));
+            Assert.assertSame(first.get(1499), second.get(1499));
+            Assert.assertSame(first.get(200000), second.get(200000));
+            Assert.assertNotSame(first.get(1500), second.get(1500));
+            Assert.assertEquals(1.0, second.get(1500).getRaan(), 0.0);
+            Assert.assertEquals(0.0, first.get(1500).getRaan(), 0.0);
+            Assert.assertArrayEquals(first.getSatelliteNumbers(), second.getSatelliteNumbers());
+        }
+        first.close();
+
+        // A reload removing satellites
+        catalog.reload(tles(0, -1).subList(0, 10));
+        try (CatalogGeneration third = catalog.acquire()) {
+            Assert.assertEquals(10, third.size());
+            Assert.assertEquals(0, third.getSharedPageCount());
+            Assert.assertNull(third.get(11));
+            Assert.assertNull(third.get(200000));
+        }
+    }
+
+    /**
+     * Tests that a pinned generation stays readable until closed and is reclaimed afterwards.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void reclamation() throws Exception {
+        VersionedCatalog catalog = new VersionedCatalog();
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+        catalog.reload(tles(0, -1));
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+        CatalogGeneration pinned = catalog.acquire();
+        catalog.reload(tles(1, -1));
+        catalog.reload(tles(2, -1));
+        Assert.assertEquals(2, catalog.getLiveGenerationCount());
+        Assert.assertEquals(0.0, pinned.get(7).getRaan(), 0.0);
+        Assert.assertFalse(pinned.isReclaimed());
+        pinned.close();
+        Assert.assertTrue(pinned.isReclaimed());
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+        try {
+            pinned.get(7);
+            Assert.fail("Expected an exception for a reclaimed generation");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        try (CatalogGeneration current = catalog.acquire()) {
+            Assert.assertEquals(2.0, current.get(7).getRaan(), 0.0);
+        }
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+    }
+
+    /**
+     * Tests that closing a pin twice releases it once, leaving the current generation to the
+     * catalog and to the other pins.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void doubleClose() throws Exception {
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.reload(tles(0, -1));
+        CatalogGeneration other = catalog.acquire();
+        try (CatalogGeneration generation = catalog.acquire()) {
+            generation.close();
+            try {
+                generation.get(7);
+                Assert.fail("Expected an exception for a closed generation");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+        }
+        Assert.assertFalse(other.isReclaimed());
+        Assert.assertEquals(0.0, other.get(7).getRaan(), 0.0);
+        try (CatalogGeneration generation = catalog.acquire()) {
+            Assert.assertEquals(1, generation.getVersion());
+            Assert.assertEquals(3000, generation.size());
+        }
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+
+        // The last pin of a superseded generation, closed twice
+        catalog.reload(tles(1, -1));
+        other.close();
+        other.close();
+        Assert.assertTrue(other.isReclaimed());
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+        try (CatalogGeneration generation = catalog.acquire()) {
+            Assert.assertEquals(1.0, generation.get(7).getRaan(), 0.0);
+        }
+    }
+
+    /**
+     * Tests updates: copy-on-write of the touched pages, publishing, and conflicts.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void update() throws Exception {
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.reload(tles(0, -1));
+        VersionedCatalog.Update update = catalog.newUpdate();
+        Assert.assertEquals(1, update.getBaseVersion());
+        TLE newer = tle(5, 1.0);
+        newer.setEpochDay(newer.getEpochDay() + 1.0);
+        Assert.assertTrue(update.putIfNewer(newer));
+        Assert.assertFalse(update.putIfNewer(tle(5, 2.0)));
+        Assert.assertNotNull(update.remove(2999));
+        Assert.assertNull(update.remove(2999));
+        Assert.assertNull(update.put(tle(200001, 0.0)));
+        Assert.assertEquals(3000, update.size());
+        Assert.assertSame(newer, update.get(5));
+
+        // The current generation is unchanged until publishing
+        try (CatalogGeneration before = catalog.acquire()) {
+            Assert.assertEquals(0.0, before.get(5).getRaan(), 0.0);
+            Assert.assertTrue(before.contains(2999));
+            Assert.assertTrue(update.publish());
+            Assert.assertEquals(0.0, before.get(5).getRaan(), 0.0);
+        }
+        try (CatalogGeneration after = catalog.acquire()) {
+            Assert.assertEquals(2, after.getVersion());
+            Assert.assertSame(newer, after.get(5));
+            Assert.assertFalse(after.contains(2999));
+            Assert.assertTrue(after.contains(200001));
+            Assert.assertEquals(1, after.getSharedPageCount());
+        }
+        try {
+            update.put(tle(6, 0.0));
+            Assert.fail("Expected an exception for a published update");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        // An update begun before another publication fails
+        VersionedCatalog.Update stale = catalog.newUpdate();
+        VersionedCatalog.Update winner = catalog.newUpdate();
+        stale.put(tle(7, 3.0));
+        winner.put(tle(8, 3.0));
+        Assert.assertTrue(winner.publish());
+        Assert.assertFalse(stale.publish());
+        Assert.assertEquals(3, catalog.getVersion());
+
+        // An update changing nothing shares every page
+        VersionedCatalog.Update noop = catalog.newUpdate();
+        TLE kept = noop.get(9);
+        noop.put(tle(9, 5.0));
+        noop.put(kept);
+        Assert.assertTrue(noop.publish());
+        try (CatalogGeneration generation = catalog.acquire()) {
+            Assert.assertEquals(3, generation.getSharedPageCount());
+        }
+    }
+
+    /**
+     * Tests that readers never see a half-published generation while reloads go on.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void concurrentReaders() throws Exception {
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.reload(tles(0, -1));
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        try (CatalogGeneration generation = catalog.acquire()) {
+                            double raan = generation.get(1).getRaan();
+                            Assert.assertEquals(generation.getVersion() - 1, raan, 0.0);
+                            generation.forEach((number, tle) ->
+                                    Assert.assertEquals(raan, tle.getRaan(), 0.0));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        for (int v = 1; v < 30; v++) {
+            catalog.reload(tles(v, -1));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        Assert.assertEquals(1, catalog.getLiveGenerationCount());
+    }
+
+    /**
+     * Tests that invalid arguments are rejected.
+     *
+     * @throws Exception if an unexpected error should occur
+     */
+    @Test
+    public void invalidArguments() throws Exception {
+        VersionedCatalog catalog = new VersionedCatalog();
+        try {
+            catalog.reload(null);
+            Assert.fail("Expected an exception for null TLEs");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            catalog.reload(Collections.singletonList(null));
+            Assert.fail("Expected an exception for a null TLE");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            catalog.newUpdate().put(tle(0, 0.0));
+            Assert.fail("Expected an exception for a satellite number of 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        Assert.assertEquals(0, catalog.getVersion());
+    }
+
+    /**
+     * Returns TLEs of satellites 1 to 2,999 and 200,000 with a right ascension of the ascending
+     * node, except one satellite with a right ascension greater by one.
+     */
+    private static List<TLE> tles(double raan, int changed) {
+        List<TLE> tles = new ArrayList<>();
+        for (int number = 1; number < 3000; number++) {
+            tles.add(tle(number, number == changed ? raan + 1.0 : raan));
+        }
+        tles.add(tle(200000, raan));
+        return tles;
+    }
+
+    /**
+     * Returns a TLE of a satellite.
+     */
+    private static TLE tle(int number, double raan) {
+        TLE tle = TestCatalogs.tle(1, 51.6, raan, 0.001, 0.0, 0.0, 15.5);
+        tle.setSatelliteNumber(number);
+        return tle;
+    }
+
+}